@@ -5,6 +5,7 @@ plugins {
     id("signing")
     id("com.palantir.git-version") version "5.0.0"
     id("io.github.gradle-nexus.publish-plugin") version "2.0.0"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "io.github.twonirwana"
@@ -46,6 +47,14 @@ tasks.getByName<Test>("test") {
     useJUnitPlatform()
 }
 
+jmh {
+    // run a single benchmark with: gradle jmh -PjmhIncludes=ParseBenchmark
+    includes.set(listOfNotNull(project.findProperty("jmhIncludes")?.toString()))
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+}
+
 tasks.jacocoTestReport {
     reports {
         xml.required.set(true)
@@ -0,0 +1,64 @@
+package de.janno.evaluator.dice;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures sorting die ids and looking them up in a hash map, like the random elements builder and the given dice
+ * number supplier.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DieIdBenchmark {
+
+    @Param({"10", "1000"})
+    public int numberOfDice;
+
+    private List<DieId> shuffled;
+    private Map<DieId, Integer> dieIdMap;
+
+    @Setup
+    public void setup() {
+        String expression = "val('$r',%dd6) '$r'+%dd20".formatted(numberOfDice, numberOfDice);
+        //like in a roll, all dice of an operator share the position instance
+        ExpressionPosition firstPosition = ExpressionPosition.ofSource(10, expression, 10, 11);
+        ExpressionPosition secondPosition = ExpressionPosition.ofSource(expression.length() - 3, expression, expression.length() - 3, expression.length() - 2);
+        List<DieId> dieIds = new ArrayList<>();
+        for (int reevaluate = 0; reevaluate < 2; reevaluate++) {
+            RollId first = RollId.of(firstPosition, reevaluate);
+            RollId second = RollId.of(secondPosition, reevaluate);
+            for (int i = 0; i < numberOfDice; i++) {
+                dieIds.add(DieId.of(first, i, 0));
+                dieIds.add(DieId.of(second, i, 0));
+            }
+        }
+        shuffled = new ArrayList<>(dieIds);
+        Collections.shuffle(shuffled, new Random(0));
+        dieIdMap = new HashMap<>();
+        for (int i = 0; i < dieIds.size(); i++) {
+            dieIdMap.put(dieIds.get(i), i);
+        }
+    }
+
+    @Benchmark
+    public List<DieId> sort() {
+        List<DieId> result = new ArrayList<>(shuffled);
+        Collections.sort(result);
+        return result;
+    }
+
+    @Benchmark
+    public int lookup() {
+        int sum = 0;
+        for (DieId dieId : shuffled) {
+            sum += dieIdMap.get(dieId);
+        }
+        return sum;
+    }
+}
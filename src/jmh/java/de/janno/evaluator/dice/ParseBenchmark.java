@@ -0,0 +1,70 @@
+package de.janno.evaluator.dice;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parsing (tokenizing and building the roller) of typical chat commands, without rolling them, and the
+ * check if a message contains an operator or function. The parsing of long expressions shows if the parsing time
+ * grows linear with the expression length: 2000 terms should take about ten times as long as 200 terms.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Benchmark
+    public void buildRollSupplier(ChatCommand chatCommand, Blackhole blackhole) throws ExpressionException {
+        blackhole.consume(chatCommand.diceEvaluator.buildRollSupplier(chatCommand.expression));
+    }
+
+    @Benchmark
+    public boolean expressionContainsOperatorOrFunction(ChatCommand chatCommand) {
+        return chatCommand.diceEvaluator.expressionContainsOperatorOrFunction(chatCommand.expression);
+    }
+
+    @Benchmark
+    public void buildRollSupplierOfLongExpression(LongExpression longExpression, Blackhole blackhole) throws ExpressionException {
+        blackhole.consume(longExpression.diceEvaluator.buildRollSupplier(longExpression.expression));
+    }
+
+    @State(Scope.Benchmark)
+    public static class ChatCommand {
+        @Param({
+                "1d20+5",
+                "(2D20k1)+5",
+                "8d10>=6c",
+                "val('$r',4d6k3) '$r'+'$r'",
+                "if(1d6=?6,'crit',1d6=?1,'fail','hit')",
+                "(((4d6k3)=)+((4d6k3)=)+((4d6k3)=)+((4d6k3)=)+((4d6k3)=)+((4d6k3)=)+((4d6k3)=))k6"
+        })
+        public String expression;
+
+        private DiceEvaluator diceEvaluator;
+
+        @Setup
+        public void setup() {
+            diceEvaluator = new DiceEvaluator();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LongExpression {
+        @Param({"200", "2000"})
+        public int numberOfTerms;
+
+        private String expression;
+        private DiceEvaluator diceEvaluator;
+
+        @Setup
+        public void setup() {
+            //a list and not a sum, because a sum of thousands of terms is nested deeper than the stack allows
+            expression = "1d6, ".repeat(numberOfTerms - 1) + "1d6";
+            diceEvaluator = new DiceEvaluator();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package de.janno.evaluator.dice;
+
+import de.janno.evaluator.dice.random.NumberSupplier;
+import de.janno.evaluator.dice.random.RandomNumberSupplier;
+import de.janno.evaluator.dice.random.StripedSfc64Random;
+import de.janno.evaluator.dice.random.ThreadLocalSfc64Random;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
+
+/**
+ * Measures the latency of requests that each run on a new thread and roll one expression, like a server with a
+ * thread per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RandomSourceBenchmark {
+    private static final int REQUESTS = 100;
+
+    @Param({"threadLocal", "striped"})
+    public String randomSource;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private Roller roller;
+    private NumberSupplier numberSupplier;
+
+    @Setup
+    public void setup() throws ExpressionException {
+        roller = new DiceEvaluator(new RandomNumberSupplier(0L), 1000, 10_000, true).buildRollSupplier("4d6k3");
+        //the thread local generator creates and seeds a new generator in each request thread
+        final RandomGenerator generator = "striped".equals(randomSource) ? new StripedSfc64Random() : new ThreadLocalSfc64Random();
+        numberSupplier = (minExcl, maxIncl, dieId) -> generator.nextInt(minExcl + 1, maxIncl + 1);
+    }
+
+    /**
+     * @return the average latency of a request is the measured time divided by {@link #REQUESTS}
+     */
+    @Benchmark
+    public List<RollResult> requests() throws Exception {
+        List<Future<RollResult>> futures = new ArrayList<>(REQUESTS);
+        try (ExecutorService executor = "virtual".equals(threads) ?
+                Executors.newVirtualThreadPerTaskExecutor() :
+                Executors.newThreadPerTaskExecutor(Thread.ofPlatform().factory())) {
+            for (int i = 0; i < REQUESTS; i++) {
+                futures.add(executor.submit(() -> roller.roll(numberSupplier)));
+            }
+        }
+        List<RollResult> results = new ArrayList<>(REQUESTS);
+        for (Future<RollResult> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,61 @@
+package de.janno.evaluator.dice;
+
+import de.janno.evaluator.dice.random.RandomNumberSupplier;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rolling already parsed expressions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RollBenchmark {
+
+    @Param({
+            "1d20+5",
+            "10d6=",
+            "(2D20k1)+5",
+            "8d10>=6c",
+            "val('$r',4d6k3) '$r'+'$r'",
+            "if(1d6=?6,'crit',1d6=?1,'fail','hit')",
+            "3d!6+2d[1/2/3/4]",
+            "(((4d6k3)=)+((4d6k3)=)+((4d6k3)=)+((4d6k3)=)+((4d6k3)=)+((4d6k3)=)+((4d6k3)=))k6"
+    })
+    public String expression;
+
+    private Roller roller;
+    private Roller compiledRoller;
+
+    @Setup
+    public void setup() throws ExpressionException {
+        roller = new DiceEvaluator(new RandomNumberSupplier(0L), 1000, 10_000, true).buildRollSupplier(expression);
+        compiledRoller = new DiceEvaluator(new RandomNumberSupplier(0L), 1000, 10_000, true, RollerCacheConfig.builder()
+                .compileAfterRolls(0)
+                .build()).buildRollSupplier(expression);
+    }
+
+    @Benchmark
+    public RollResult roll() throws ExpressionException {
+        return roller.roll();
+    }
+
+    @Benchmark
+    public ValueResult rollValues() throws ExpressionException {
+        return roller.rollValues();
+    }
+
+    @Benchmark
+    public RollResult rollCompiled() throws ExpressionException {
+        return compiledRoller.roll();
+    }
+
+    @Benchmark
+    public ValueResult rollValuesCompiled() throws ExpressionException {
+        return compiledRoller.rollValues();
+    }
+}
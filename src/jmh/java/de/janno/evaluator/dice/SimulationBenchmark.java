@@ -0,0 +1,37 @@
+package de.janno.evaluator.dice;
+
+import de.janno.evaluator.dice.random.RandomNumberSupplier;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the simulation of an expression with different parallelism, the time should go down close to linearly
+ * with the parallelism as long as there are enough cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+
+    @Param({"4d6k3=", "8d10>=6c"})
+    public String expression;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private DiceEvaluator diceEvaluator;
+
+    @Setup
+    public void setup() {
+        diceEvaluator = new DiceEvaluator(new RandomNumberSupplier(), 1000, 10_000, true, RollerCacheConfig.builder().build());
+    }
+
+    @Benchmark
+    public SimulationResult simulate() throws ExpressionException {
+        return diceEvaluator.simulate(expression, 1_000_000, parallelism);
+    }
+}
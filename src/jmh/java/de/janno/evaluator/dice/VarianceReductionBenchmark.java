@@ -0,0 +1,52 @@
+package de.janno.evaluator.dice;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the sampling methods of the adaptive simulation on expressions of the test corpus
+ * (expressionsAndResults.csv) that give a single number. Each iteration is one simulation until the mean is known with
+ * a relative error of 0.1%. The secondary result "rolls" is the number of rolls that the sampling method needed for
+ * that precision, summed over the measurement iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class VarianceReductionBenchmark {
+
+    @Param({"4d6k3=", "2d20k1", "2d6+(3d3k1)=", "1d!!10", "3d[-1/0/1/1/2/3]=", "10d10+13d10="})
+    public String expression;
+
+    @Param({"RANDOM", "ANTITHETIC", "LATIN_HYPERCUBE"})
+    public AdaptiveSimulationConfig.SamplingMethod samplingMethod;
+
+    private DiceEvaluator diceEvaluator;
+    private AdaptiveSimulationConfig config;
+
+    @Setup
+    public void setup() {
+        diceEvaluator = new DiceEvaluator();
+        config = AdaptiveSimulationConfig.builder()
+                .maxError(0.001)
+                .relativeError(true)
+                .samplingMethod(samplingMethod)
+                .build();
+    }
+
+    @Benchmark
+    public AdaptiveSimulationResult simulate(Rolls rolls) throws ExpressionException {
+        AdaptiveSimulationResult result = diceEvaluator.simulate(expression, config);
+        rolls.rolls += result.getNumberOfRolls();
+        return result;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Rolls {
+        public long rolls;
+    }
+}
@@ -0,0 +1,41 @@
+package de.janno.evaluator.dice.distribution;
+
+import de.janno.evaluator.dice.DiceEvaluator;
+import de.janno.evaluator.dice.ExpressionException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the exact distribution of typical expressions, including the parsing of the expression.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DistributionBenchmark {
+
+    @Param({
+            "4d6k3=",
+            "8d10>=6c",
+            "2d20k1+5",
+            "if(1d6=?6,'crit',1d6=?1,'fail','hit')",
+            "3d!6="
+    })
+    public String expression;
+
+    private DistributionCalculator distributionCalculator;
+
+    @Setup
+    public void setup() {
+        distributionCalculator = new DistributionCalculator(new DiceEvaluator());
+    }
+
+    @Benchmark
+    public Optional<Distribution> calculate() throws ExpressionException {
+        return distributionCalculator.calculate(expression);
+    }
+}
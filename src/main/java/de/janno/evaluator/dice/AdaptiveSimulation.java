@@ -0,0 +1,243 @@
+package de.janno.evaluator.dice;
+
+import de.janno.evaluator.dice.random.*;
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+
+/**
+ * Rolls an expression in batches until the confidence interval of the mean is small enough. Each worker has its own
+ * random number generator and statistics, the statistics are merged after each batch to check the convergence. With a
+ * {@link VarianceReductionNumberSupplier} the rolls are dependent within a group, so each group mean is one sample.
+ */
+final class AdaptiveSimulation {
+    //reading the clock for each roll would cost more than rolling a simple expression
+    static final int ROLLS_BETWEEN_CLOCK_CHECKS = 1024;
+
+    private final Roller roller;
+    private final AdaptiveSimulationConfig config;
+    private final LongSupplier nanoTime;
+    private final double z;
+
+    AdaptiveSimulation(@NonNull Roller roller, @NonNull AdaptiveSimulationConfig config, @NonNull LongSupplier nanoTime) {
+        if (!(config.getMaxError() >= 0)) {
+            throw new IllegalArgumentException("maxError must be zero or positive but was %s".formatted(config.getMaxError()));
+        }
+        if (!(config.getConfidence() > 0 && config.getConfidence() < 1)) {
+            throw new IllegalArgumentException("confidence must be between 0 and 1 but was %s".formatted(config.getConfidence()));
+        }
+        if (config.getBatchSize() < 1) {
+            throw new IllegalArgumentException("batchSize must be positive but was %d".formatted(config.getBatchSize()));
+        }
+        if (config.getMaxNumberOfRolls() < 0) {
+            throw new IllegalArgumentException("maxNumberOfRolls must be zero or positive but was %d".formatted(config.getMaxNumberOfRolls()));
+        }
+        if (config.getMaxDuration().isNegative()) {
+            throw new IllegalArgumentException("maxDuration must not be negative");
+        }
+        if (config.getParallelism() < 1) {
+            throw new IllegalArgumentException("parallelism must be positive but was %d".formatted(config.getParallelism()));
+        }
+        if (config.getLatinHypercubeGroupSize() < 1) {
+            throw new IllegalArgumentException("latinHypercubeGroupSize must be positive but was %d".formatted(config.getLatinHypercubeGroupSize()));
+        }
+        this.roller = roller;
+        this.config = config;
+        this.nanoTime = nanoTime;
+        this.z = normalQuantile(0.5 + config.getConfidence() / 2);
+    }
+
+    /**
+     * The inverse of the standard normal distribution function, with the rational approximation of Peter J. Acklam
+     * (relative error below 1.2e-9).
+     */
+    static double normalQuantile(double p) {
+        final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02, 1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02, 6.680131188771972e+01, -1.328068155288572e+01};
+        final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00, -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        final double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00, 3.754408661907416e+00};
+        final double low = 0.02425;
+        if (p < low) {
+            final double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5]) / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            final double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5]) / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        final double q = p - 0.5;
+        final double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+
+    AdaptiveSimulationResult run() throws ExpressionException {
+        final long start = nanoTime.getAsLong();
+        final long maxDurationNanos = config.getMaxDuration().toNanos();
+        final int numberOfWorkers = config.getParallelism();
+        //each worker gets an independent generator stream for all batches
+        final SplittableRandom seeds = config.getSeed() == null ? new SplittableRandom() : new SplittableRandom(config.getSeed());
+        final List<NumberSupplier> numberSuppliers = new ArrayList<>(numberOfWorkers);
+        for (int i = 0; i < numberOfWorkers; i++) {
+            numberSuppliers.add(createNumberSupplier(seeds.nextLong()));
+        }
+        final int groupSize = numberSuppliers.getFirst() instanceof VarianceReductionNumberSupplier reduction ? reduction.getGroupSize() : 1;
+        final RunningStatistics groupStatistics = new RunningStatistics();
+        final RunningStatistics rollStatistics = new RunningStatistics();
+        long numberOfRolls = 0;
+        long numberOfOtherResults = 0;
+        double[] interval = interval(groupStatistics, rollStatistics, groupSize);
+        AdaptiveSimulationResult.StopReason stopReason;
+        try (ForkJoinPool pool = new ForkJoinPool(numberOfWorkers)) {
+            while (true) {
+                final long remainingGroups = (config.getMaxNumberOfRolls() - numberOfRolls) / groupSize;
+                if (remainingGroups == 0) {
+                    stopReason = AdaptiveSimulationResult.StopReason.MAX_NUMBER_OF_ROLLS;
+                    break;
+                }
+                final long batchGroups = Math.min((config.getBatchSize() + groupSize - 1) / groupSize, remainingGroups);
+                final List<Callable<BatchResult>> workers = new ArrayList<>(numberOfWorkers);
+                for (int i = 0; i < numberOfWorkers; i++) {
+                    final long workerGroups = batchGroups / numberOfWorkers + (i < batchGroups % numberOfWorkers ? 1 : 0);
+                    final NumberSupplier numberSupplier = numberSuppliers.get(i);
+                    workers.add(() -> rollBatch(numberSupplier, workerGroups, groupSize, start, maxDurationNanos));
+                }
+                long rolledGroups = 0;
+                boolean outOfTime = false;
+                for (BatchResult batchResult : DiceEvaluator.invokeAll(pool, workers)) {
+                    groupStatistics.merge(batchResult.groupStatistics());
+                    rollStatistics.merge(batchResult.rollStatistics());
+                    numberOfOtherResults += batchResult.numberOfOtherResults();
+                    rolledGroups += batchResult.numberOfGroups();
+                    outOfTime |= batchResult.outOfTime();
+                }
+                numberOfRolls += rolledGroups * groupSize;
+                interval = interval(groupStatistics, rollStatistics, groupSize);
+                if (isConverged(groupStatistics.getMean(), interval)) {
+                    stopReason = AdaptiveSimulationResult.StopReason.CONVERGED;
+                    break;
+                }
+                if (outOfTime || nanoTime.getAsLong() - start >= maxDurationNanos) {
+                    stopReason = AdaptiveSimulationResult.StopReason.MAX_DURATION;
+                    break;
+                }
+            }
+        }
+        return new AdaptiveSimulationResult(numberOfRolls, numberOfOtherResults, groupStatistics.getMean(), interval[0], interval[1],
+                config.getConfidence(), stopReason, Duration.ofNanos(nanoTime.getAsLong() - start));
+    }
+
+    private NumberSupplier createNumberSupplier(long seed) {
+        return switch (config.getSamplingMethod()) {
+            case RANDOM -> new RandomNumberSupplier(seed);
+            case ANTITHETIC -> new AntitheticNumberSupplier(new RandomNumberSupplier(seed));
+            case LATIN_HYPERCUBE -> new LatinHypercubeNumberSupplier(config.getLatinHypercubeGroupSize(), seed);
+        };
+    }
+
+    /**
+     * Rolls the groups and adds the mean of each group as one sample. Rolls that are no integer or boolean are not
+     * part of the group mean and a group without any integer or boolean is skipped. The max duration is checked every
+     * {@link #ROLLS_BETWEEN_CLOCK_CHECKS} rolls, between two groups, and the batch stops early if it is reached.
+     */
+    private BatchResult rollBatch(NumberSupplier numberSupplier, long numberOfGroups, int groupSize, long start, long maxDurationNanos) throws ExpressionException {
+        final VarianceReductionNumberSupplier reduction = numberSupplier instanceof VarianceReductionNumberSupplier r ? r : null;
+        final RunningStatistics groupStatistics = new RunningStatistics();
+        final RunningStatistics rollStatistics = new RunningStatistics();
+        long numberOfOtherResults = 0;
+        long rollsSinceClockCheck = 0;
+        long group = 0;
+        for (; group < numberOfGroups; group++) {
+            if (rollsSinceClockCheck >= ROLLS_BETWEEN_CLOCK_CHECKS) {
+                rollsSinceClockCheck = 0;
+                if (nanoTime.getAsLong() - start >= maxDurationNanos) {
+                    return new BatchResult(groupStatistics, rollStatistics, numberOfOtherResults, group, true);
+                }
+            }
+            rollsSinceClockCheck += groupSize;
+            double sum = 0;
+            int count = 0;
+            for (int i = 0; i < groupSize; i++) {
+                if (reduction != null) {
+                    reduction.startRoll();
+                }
+                final double value = rollValue(roller, numberSupplier);
+                if (Double.isNaN(value)) {
+                    numberOfOtherResults++;
+                } else {
+                    rollStatistics.add(value);
+                    sum += value;
+                    count++;
+                }
+            }
+            if (count > 0) {
+                groupStatistics.add(sum / count);
+            }
+        }
+        return new BatchResult(groupStatistics, rollStatistics, numberOfOtherResults, group, false);
+    }
+
+    /**
+     * The integer or boolean result as number, NaN for all other results
+     */
+    private static double rollValue(Roller roller, NumberSupplier numberSupplier) throws ExpressionException {
+        final ValueResult valueResult = roller.rollValues(numberSupplier);
+        final OptionalLong number = valueResult.asLong();
+        if (number.isPresent()) {
+            return number.getAsLong();
+        }
+        final Optional<Boolean> success = valueResult.asBoolean();
+        if (success.isPresent()) {
+            return success.get() ? 1 : 0;
+        }
+        return Double.NaN;
+    }
+
+    private boolean isConverged(double mean, double[] interval) {
+        final double maxHalfWidth = config.isRelativeError() ? config.getMaxError() * Math.abs(mean) : config.getMaxError();
+        return (interval[1] - interval[0]) / 2 <= maxHalfWidth;
+    }
+
+    /**
+     * The confidence interval of the mean. Independent results that are only 0 and 1 use the Wilson score interval,
+     * which stays correct for success rates near 0 or 1 where the normal approximation gives an empty interval. The
+     * group means of the variance reduction use the normal approximation, if all of them are equal the Wilson interval
+     * of the single rolls is used, which is wider than needed because it ignores the variance reduction.
+     */
+    private double[] interval(RunningStatistics groupStatistics, RunningStatistics rollStatistics, int groupSize) {
+        final long n = groupStatistics.getCount();
+        if (n == 0) {
+            return new double[]{Double.NaN, Double.NaN};
+        }
+        if (groupSize == 1 && groupStatistics.isOnlyZeroAndOne()) {
+            return wilsonInterval(groupStatistics.getMean(), n);
+        }
+        if (n < 2) {
+            return new double[]{Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+        }
+        final double mean = groupStatistics.getMean();
+        final double halfWidth = z * Math.sqrt(groupStatistics.getVariance() / n);
+        if (halfWidth == 0 && rollStatistics.isOnlyZeroAndOne()) {
+            return wilsonInterval(rollStatistics.getMean(), rollStatistics.getCount());
+        }
+        return new double[]{mean - halfWidth, mean + halfWidth};
+    }
+
+    private double[] wilsonInterval(double mean, long n) {
+        final double z2n = z * z / n;
+        final double center = (mean + z2n / 2) / (1 + z2n);
+        final double halfWidth = z / (1 + z2n) * Math.sqrt(mean * (1 - mean) / n + z2n / (4 * n));
+        return new double[]{center - halfWidth, center + halfWidth};
+    }
+
+    private record BatchResult(RunningStatistics groupStatistics, RunningStatistics rollStatistics, long numberOfOtherResults,
+                               long numberOfGroups, boolean outOfTime) {
+    }
+}
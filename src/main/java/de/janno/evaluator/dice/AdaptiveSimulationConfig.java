@@ -0,0 +1,87 @@
+package de.janno.evaluator.dice;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Configuration of {@link DiceEvaluator#simulate(String, AdaptiveSimulationConfig)}. The simulation rolls in batches
+ * and stops after the first batch that reaches the precision, or at the max number of rolls or the max duration.
+ */
+@Value
+@Builder(toBuilder = true)
+public class AdaptiveSimulationConfig {
+    /**
+     * The max half width of the confidence interval of the mean. For a success check, a result of true/false or 1/0,
+     * the mean is the success rate and 0.001 is ±0.1%.
+     */
+    @Builder.Default
+    double maxError = 0.001;
+    /**
+     * If the max error is relative to the mean instead of absolute
+     */
+    @Builder.Default
+    boolean relativeError = false;
+    /**
+     * The confidence level of the interval, between 0 and 1 (exclusive)
+     */
+    @Builder.Default
+    double confidence = 0.95;
+    /**
+     * The number of rolls between two convergence checks
+     */
+    @Builder.Default
+    int batchSize = 10_000;
+    /**
+     * The hard upper bound of rolls, the simulation can stop before reaching the precision
+     */
+    @Builder.Default
+    long maxNumberOfRolls = 10_000_000;
+    /**
+     * The upper bound of the wall time. It is checked during the batches every 1024 rolls, so the simulation can take
+     * longer by the time of 1024 rolls and the merge of the last batch.
+     */
+    @NonNull
+    @Builder.Default
+    Duration maxDuration = Duration.ofSeconds(10);
+    /**
+     * The number of threads that roll the expression
+     */
+    @Builder.Default
+    int parallelism = 1;
+    /**
+     * How the random numbers of the rolls are created
+     */
+    @NonNull
+    @Builder.Default
+    SamplingMethod samplingMethod = SamplingMethod.RANDOM;
+    /**
+     * The number of rolls over which {@link SamplingMethod#LATIN_HYPERCUBE} spreads the faces of each die
+     */
+    @Builder.Default
+    int latinHypercubeGroupSize = 100;
+    /**
+     * The seed of the random numbers, or null for a random seed. With a seed, the simulation gives the same result
+     * each time, as long as it doesn't stop at the max duration.
+     */
+    Long seed;
+
+    public enum SamplingMethod {
+        /**
+         * Independent random numbers for each roll
+         */
+        RANDOM,
+        /**
+         * Rolls in pairs, the second roll mirrors each die of the first, see
+         * {@link de.janno.evaluator.dice.random.AntitheticNumberSupplier}
+         */
+        ANTITHETIC,
+        /**
+         * Spreads the faces of each die evenly over a group of rolls, see
+         * {@link de.janno.evaluator.dice.random.LatinHypercubeNumberSupplier}
+         */
+        LATIN_HYPERCUBE
+    }
+}
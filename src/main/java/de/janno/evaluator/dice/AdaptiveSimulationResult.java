@@ -0,0 +1,52 @@
+package de.janno.evaluator.dice;
+
+import lombok.NonNull;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * The result of {@link DiceEvaluator#simulate(String, AdaptiveSimulationConfig)}. The mean is over the rolls that
+ * gave a single integer or boolean, a boolean is counted as 1 for true and 0 for false. All other rolls are only
+ * counted in {@link #getNumberOfOtherResults()}. With a variance reduction sampling method the mean is the mean of
+ * the group means.
+ */
+@Value
+public class AdaptiveSimulationResult {
+    long numberOfRolls;
+    long numberOfOtherResults;
+    /**
+     * The mean of the results, the success rate for true/false results, NaN if there are none
+     */
+    double mean;
+    /**
+     * The lower bound of the confidence interval of the mean
+     */
+    double lowerBound;
+    /**
+     * The upper bound of the confidence interval of the mean
+     */
+    double upperBound;
+    double confidence;
+    @NonNull
+    StopReason stopReason;
+    @NonNull
+    Duration duration;
+
+    public double getHalfWidth() {
+        return (upperBound - lowerBound) / 2;
+    }
+
+    public boolean isConverged() {
+        return stopReason == StopReason.CONVERGED;
+    }
+
+    public enum StopReason {
+        /**
+         * The confidence interval reached the max error
+         */
+        CONVERGED,
+        MAX_NUMBER_OF_ROLLS,
+        MAX_DURATION
+    }
+}
@@ -0,0 +1,124 @@
+package de.janno.evaluator.dice;
+
+import lombok.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+
+/**
+ * Checks in a single pass if an input contains any of the given keywords. The matching ignores the case of ASCII
+ * letters, like the regex flag (?i) without unicode case.
+ */
+final class AhoCorasickMatcher {
+    private static final int ROOT = 0;
+    private static final char[] NO_KEYS = new char[0];
+    private static final int[] NO_TARGETS = new int[0];
+    //state transitions, the keys of each state are sorted for a binary search
+    private char[][] keys;
+    private int[][] targets;
+    private int[] failure;
+    //true if the state, or a state in its failure chain, is the end of a keyword
+    private boolean[] terminal;
+    private int stateCount;
+
+    AhoCorasickMatcher(@NonNull Collection<String> keywords) {
+        keys = new char[16][];
+        targets = new int[16][];
+        terminal = new boolean[16];
+        stateCount = 1;
+        keys[ROOT] = NO_KEYS;
+        targets[ROOT] = NO_TARGETS;
+        for (String keyword : keywords) {
+            if (keyword.isEmpty()) {
+                throw new IllegalArgumentException("Empty keywords are not supported");
+            }
+            int state = ROOT;
+            for (int i = 0; i < keyword.length(); i++) {
+                state = getOrCreateTransition(state, CaseInsensitiveTrie.toLowerAscii(keyword.charAt(i)));
+            }
+            terminal[state] = true;
+        }
+        buildFailureLinks();
+    }
+
+    private int getOrCreateTransition(int state, char c) {
+        int index = Arrays.binarySearch(keys[state], c);
+        if (index >= 0) {
+            return targets[state][index];
+        }
+        if (stateCount == keys.length) {
+            keys = Arrays.copyOf(keys, stateCount * 2);
+            targets = Arrays.copyOf(targets, stateCount * 2);
+            terminal = Arrays.copyOf(terminal, stateCount * 2);
+        }
+        int newState = stateCount++;
+        keys[newState] = NO_KEYS;
+        targets[newState] = NO_TARGETS;
+
+        int insertAt = -index - 1;
+        char[] stateKeys = keys[state];
+        int[] stateTargets = targets[state];
+        char[] newKeys = new char[stateKeys.length + 1];
+        int[] newTargets = new int[stateTargets.length + 1];
+        System.arraycopy(stateKeys, 0, newKeys, 0, insertAt);
+        System.arraycopy(stateTargets, 0, newTargets, 0, insertAt);
+        newKeys[insertAt] = c;
+        newTargets[insertAt] = newState;
+        System.arraycopy(stateKeys, insertAt, newKeys, insertAt + 1, stateKeys.length - insertAt);
+        System.arraycopy(stateTargets, insertAt, newTargets, insertAt + 1, stateTargets.length - insertAt);
+        keys[state] = newKeys;
+        targets[state] = newTargets;
+        return newState;
+    }
+
+    private int transition(int state, char c) {
+        int index = Arrays.binarySearch(keys[state], c);
+        return index >= 0 ? targets[state][index] : -1;
+    }
+
+    private void buildFailureLinks() {
+        failure = new int[stateCount];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[ROOT]) {
+            failure[child] = ROOT;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < keys[state].length; i++) {
+                char c = keys[state][i];
+                int child = targets[state][i];
+                int fallback = failure[state];
+                while (fallback != ROOT && transition(fallback, c) == -1) {
+                    fallback = failure[fallback];
+                }
+                int fallbackTarget = transition(fallback, c);
+                failure[child] = fallbackTarget == -1 ? ROOT : fallbackTarget;
+                terminal[child] |= terminal[failure[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * @return true if the input contains any keyword
+     */
+    boolean containsAny(@NonNull CharSequence input) {
+        int state = ROOT;
+        for (int i = 0; i < input.length(); i++) {
+            char c = CaseInsensitiveTrie.toLowerAscii(input.charAt(i));
+            int next = transition(state, c);
+            while (next == -1 && state != ROOT) {
+                state = failure[state];
+                next = transition(state, c);
+            }
+            state = next == -1 ? ROOT : next;
+            if (terminal[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
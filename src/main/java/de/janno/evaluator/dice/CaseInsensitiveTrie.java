@@ -0,0 +1,97 @@
+package de.janno.evaluator.dice;
+
+import com.google.common.collect.ImmutableList;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A prefix tree that finds the longest key that starts at a given position of an input.
+ * The matching ignores the case of ASCII letters, like the regex flag (?i) without unicode case.
+ * Multiple values can be stored for the same key (e.g. "d" and "D"), they are all returned for a match and the caller
+ * decides how to handle the ambiguity.
+ */
+final class CaseInsensitiveTrie<T> {
+    private final Node<T> root = new Node<>();
+
+    static char toLowerAscii(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        return c;
+    }
+
+    void put(@NonNull String key, @NonNull T value) {
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Empty keys are not supported");
+        }
+        Node<T> current = root;
+        for (int i = 0; i < key.length(); i++) {
+            current = current.getOrCreateChild(toLowerAscii(key.charAt(i)));
+        }
+        current.values = ImmutableList.<T>builder().addAll(current.values).add(value).build();
+    }
+
+    /**
+     * Finds the longest key that matches the input between startInc and endExc.
+     *
+     * @return the match or empty if no key matches at the position
+     */
+    Optional<Match<T>> longestMatch(@NonNull CharSequence input, int startInc, int endExc) {
+        Node<T> current = root;
+        Node<T> lastMatch = null;
+        int lastMatchEndExc = startInc;
+        for (int i = startInc; i < endExc; i++) {
+            current = current.getChild(toLowerAscii(input.charAt(i)));
+            if (current == null) {
+                break;
+            }
+            if (!current.values.isEmpty()) {
+                lastMatch = current;
+                lastMatchEndExc = i + 1;
+            }
+        }
+        if (lastMatch == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Match<>(lastMatchEndExc, lastMatch.values));
+    }
+
+    record Match<T>(int endExc, List<T> values) {
+    }
+
+    private static final class Node<T> {
+        private char[] keys = new char[0];
+        private Node<T>[] children = emptyChildren();
+        private List<T> values = ImmutableList.of();
+
+        @SuppressWarnings("unchecked")
+        private static <T> Node<T>[] emptyChildren() {
+            return (Node<T>[]) new Node<?>[0];
+        }
+
+        private Node<T> getChild(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private Node<T> getOrCreateChild(char c) {
+            Node<T> child = getChild(c);
+            if (child != null) {
+                return child;
+            }
+            child = new Node<>();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            children[children.length - 1] = child;
+            return child;
+        }
+    }
+}
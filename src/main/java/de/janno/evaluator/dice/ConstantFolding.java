@@ -0,0 +1,132 @@
+package de.janno.evaluator.dice;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import de.janno.evaluator.dice.function.Value;
+import de.janno.evaluator.dice.random.NumberSupplier;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Replaces the parts of a parsed expression that produce always the same result, like '3+4', '1...20' or list literals,
+ * with the result. The result is computed once, when the roller is build, and reused for each roll.
+ * A part is constant if all its operators and functions are deterministic and it contains no variable.
+ */
+final class ConstantFolding {
+
+    private ConstantFolding() {
+    }
+
+    /**
+     * @param numberSupplier is only needed to create the roll context, constant parts don't use it
+     */
+    static List<ExpressionNode> fold(@NonNull List<ExpressionNode> nodes, @NonNull NumberSupplier numberSupplier) {
+        Optional<ImmutableSet<String>> variableNames = getVariableNames(nodes, numberSupplier);
+        ImmutableList.Builder<ExpressionNode> builder = ImmutableList.builder();
+        for (ExpressionNode node : nodes) {
+            builder.add(fold(node, variableNames, numberSupplier));
+        }
+        return builder.build();
+    }
+
+    private static ExpressionNode fold(ExpressionNode node, Optional<ImmutableSet<String>> variableNames, NumberSupplier numberSupplier) {
+        if (node instanceof ExpressionNode.LiteralNode) {
+            return node;
+        }
+        if (isConstant(node, variableNames)) {
+            Optional<ExpressionNode> constant = evaluateConstant(node, numberSupplier);
+            if (constant.isPresent()) {
+                return constant.get();
+            }
+        }
+        List<ExpressionNode> foldedChildren = new ArrayList<>(node.children().size());
+        boolean childFolded = false;
+        for (ExpressionNode child : node.children()) {
+            ExpressionNode foldedChild = fold(child, variableNames, numberSupplier);
+            childFolded |= foldedChild != child;
+            foldedChildren.add(foldedChild);
+        }
+        if (!childFolded) {
+            return node;
+        }
+        try {
+            return switch (node) {
+                case ExpressionNode.OperatorNode operatorNode ->
+                        ExpressionNode.ofOperator(operatorNode.operator(), foldedChildren, operatorNode.expressionPosition());
+                case ExpressionNode.DiceNode diceNode ->
+                        ExpressionNode.ofOperator(diceNode.operator(), foldedChildren, diceNode.expressionPosition());
+                case ExpressionNode.FunctionNode functionNode ->
+                        ExpressionNode.ofFunction(functionNode.function(), foldedChildren, functionNode.expressionPosition());
+                case ExpressionNode.LiteralNode literalNode -> literalNode;
+                case ExpressionNode.VariableNode variableNode -> variableNode;
+            };
+        } catch (ExpressionException e) {
+            //the node was already created once with the same input
+            return node;
+        }
+    }
+
+    /**
+     * Evaluates the constant part once. If the evaluation fails, the part is not folded and the error is thrown on each roll.
+     */
+    private static Optional<ExpressionNode> evaluateConstant(ExpressionNode node, NumberSupplier numberSupplier) {
+        final Optional<List<Roll>> rolls;
+        try {
+            rolls = ExpressionInterpreter.evaluate(node, new RollContext(numberSupplier));
+        } catch (ExpressionException e) {
+            return Optional.empty();
+        }
+        return rolls.map(r -> new ExpressionNode.LiteralNode(ImmutableList.copyOf(r), node.expressionPosition(), node.expression()));
+    }
+
+    private static boolean isConstant(ExpressionNode node, Optional<ImmutableSet<String>> variableNames) {
+        return switch (node) {
+            case ExpressionNode.LiteralNode ignored -> true;
+            case ExpressionNode.VariableNode variableNode ->
+                    variableNames.isPresent() && !variableNames.get().contains(variableNode.name());
+            case ExpressionNode.DiceNode ignored -> false;
+            case ExpressionNode.OperatorNode operatorNode -> operatorNode.operator().isDeterministic() &&
+                    operatorNode.operands().stream().allMatch(c -> isConstant(c, variableNames));
+            case ExpressionNode.FunctionNode functionNode -> functionNode.function().isDeterministic() &&
+                    functionNode.arguments().stream().allMatch(c -> isConstant(c, variableNames));
+        };
+    }
+
+    private static boolean isConstantIgnoringVariables(ExpressionNode node) {
+        return isConstant(node, Optional.of(ImmutableSet.of()));
+    }
+
+    /**
+     * The names of all variables, or empty if a name is only known on roll. The first argument of the val function is
+     * evaluated without the existing variables, so the name can be evaluated independently.
+     */
+    private static Optional<ImmutableSet<String>> getVariableNames(List<ExpressionNode> nodes, NumberSupplier numberSupplier) {
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        List<ExpressionNode> toVisit = new ArrayList<>(nodes);
+        while (!toVisit.isEmpty()) {
+            ExpressionNode node = toVisit.removeLast();
+            toVisit.addAll(node.children());
+            if (node instanceof ExpressionNode.FunctionNode functionNode && functionNode.function() instanceof Value && !functionNode.arguments().isEmpty()) {
+                ExpressionNode nameNode = functionNode.arguments().getFirst();
+                if (!isConstantIgnoringVariables(nameNode)) {
+                    return Optional.empty();
+                }
+                try {
+                    Optional<String> name = ExpressionInterpreter.evaluate(nameNode, new RollContext(numberSupplier))
+                            .filter(r -> !r.isEmpty())
+                            .flatMap(r -> r.getFirst().asSingleValue());
+                    if (name.isEmpty()) {
+                        return Optional.empty();
+                    }
+                    builder.add(name.get());
+                } catch (ExpressionException e) {
+                    return Optional.empty();
+                }
+            }
+        }
+        return Optional.of(builder.build());
+    }
+}
@@ -17,6 +17,13 @@ import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -26,6 +33,7 @@ public class DiceEvaluator {
     private static final int DEFAULT_MAX_NUMBER_OF_DICE = 1000;
     private static final int DEFAULT_MAX_NUMBER_OF_ELEMENTS = 10_000;
     private static final boolean DEFAULT_KEEP_CHILDREN_ROLLS = true;
+    static final double DEFAULT_QUANTILE_ACCURACY = 0.01;
 
     private static final String SEPARATOR = ",";
     private static final String LEGACY_LIST_SEPARATOR = "/";
@@ -35,12 +43,26 @@ public class DiceEvaluator {
     private final int maxNumberOfElements;
     private final boolean keepChildrenRolls;
     private final NumberSupplier defaultNumberSupplier;
+    private final RollerCache rollerCache;
+    private final int compileAfterRolls;
+    //replaced by a new dictionary when it is full, the elements of earlier rolls keep their dictionary
+    private volatile TagDictionary tagDictionary = new TagDictionary();
 
     public DiceEvaluator() {
         this(new RandomNumberSupplier(), DEFAULT_MAX_NUMBER_OF_DICE, DEFAULT_MAX_NUMBER_OF_ELEMENTS, DEFAULT_KEEP_CHILDREN_ROLLS);
     }
 
     public DiceEvaluator(@NonNull NumberSupplier numberSupplier, int maxNumberOfDice, int maxNumberOfElements, boolean keepChildrenRolls) {
+        this(numberSupplier, maxNumberOfDice, maxNumberOfElements, keepChildrenRolls, null);
+    }
+
+    /**
+     * @param rollerCacheConfig if not null, the rollers of {@link #buildRollSupplier(String)} and {@link #evaluate(String)}
+     *                          are cached by the trimmed expression and compiled after they were rolled often enough
+     */
+    public DiceEvaluator(@NonNull NumberSupplier numberSupplier, int maxNumberOfDice, int maxNumberOfElements, boolean keepChildrenRolls, RollerCacheConfig rollerCacheConfig) {
+        this.rollerCache = rollerCacheConfig == null ? null : new RollerCache(rollerCacheConfig);
+        this.compileAfterRolls = rollerCacheConfig == null ? -1 : rollerCacheConfig.getCompileAfterRolls();
         this.maxNumberOfElements = maxNumberOfElements;
         this.keepChildrenRolls = keepChildrenRolls;
         this.defaultNumberSupplier = numberSupplier;
@@ -121,9 +143,9 @@ public class DiceEvaluator {
         }
     }
 
-    private static List<RollBuilder> reverse(Collection<RollBuilder> collection) {
-        List<RollBuilder> result = new ArrayList<>(collection.size());
-        for (RollBuilder t : collection) {
+    private static <T> List<T> reverse(Collection<T> collection) {
+        List<T> result = new ArrayList<>(collection.size());
+        for (T t : collection) {
             result.addFirst(t);
         }
         return result;
@@ -136,23 +158,78 @@ public class DiceEvaluator {
                 (currentToken.getOperatorPrecedence().orElseThrow() < stackToken.getOperatorPrecedence().orElseThrow()));
     }
 
-    private Roller createRollSupplier(String expression, List<RollBuilder> rollBuilders) {
+    /**
+     * @param compileAfterRolls after how many rolls the expression is compiled, negative for never
+     */
+    private Roller createRollSupplier(String expression, List<ExpressionNode> parsedNodes, int compileAfterRolls) throws ExpressionException {
+        final SlotLayout.SlottedNodes slottedNodes = SlotLayout.assignSlots(parsedNodes);
+        final List<ExpressionNode> nodes = slottedNodes.nodes();
+        final SlotLayout slotLayout = slottedNodes.slotLayout();
+        final ExpressionCompiler.CompiledExpression interpreted = rollContext -> ExpressionInterpreter.evaluateAll(nodes, rollContext);
+        if (compileAfterRolls < 0) {
+            return createRollSupplier(expression, () -> interpreted, slotLayout);
+        }
+        final AtomicInteger rollCount = new AtomicInteger();
+        //the interpreter is used until the expression is compiled or if it can't be compiled
+        final AtomicReference<ExpressionCompiler.CompiledExpression> compiled = new AtomicReference<>();
+        return createRollSupplier(expression, () -> {
+            ExpressionCompiler.CompiledExpression current = compiled.get();
+            if (current != null) {
+                return current;
+            }
+            if (rollCount.getAndIncrement() < compileAfterRolls) {
+                return interpreted;
+            }
+            //concurrent rolls can compile the expression more than once, each result is correct
+            current = ExpressionCompiler.compile(nodes).orElse(interpreted);
+            compiled.set(current);
+            return current;
+        }, slotLayout);
+    }
+
+    private Roller createRollSupplier(String expression, Supplier<ExpressionCompiler.CompiledExpression> compiledExpression, SlotLayout slotLayout) {
         return new Roller() {
             @Override
             public @NonNull RollResult roll() throws ExpressionException {
-                return rollWithNumberSupplier(expression, defaultNumberSupplier, rollBuilders);
+                return rollWithNumberSupplier(expression, defaultNumberSupplier, compiledExpression.get(), slotLayout);
             }
 
             @Override
             public @NonNull RollResult roll(NumberSupplier numberSupplier) throws ExpressionException {
-                return rollWithNumberSupplier(expression, numberSupplier, rollBuilders);
+                return rollWithNumberSupplier(expression, numberSupplier, compiledExpression.get(), slotLayout);
+            }
+
+            @Override
+            public @NonNull ValueResult rollValues() throws ExpressionException {
+                return rollValuesWithNumberSupplier(defaultNumberSupplier, compiledExpression.get(), slotLayout);
+            }
+
+            @Override
+            public @NonNull ValueResult rollValues(NumberSupplier numberSupplier) throws ExpressionException {
+                return rollValuesWithNumberSupplier(numberSupplier, compiledExpression.get(), slotLayout);
             }
         };
     }
 
-    private RollResult rollWithNumberSupplier(String expression, NumberSupplier numberSupplier, List<RollBuilder> rollBuilders) throws ExpressionException {
-        RollContext rollContext = new RollContext(numberSupplier);
-        ImmutableList<Roll> rolls = RollBuilder.extendAllBuilder(rollBuilders, rollContext);
+    private TagDictionary getTagDictionary() {
+        TagDictionary current = tagDictionary;
+        if (current.isFull(TagDictionary.DEFAULT_CAPACITY)) {
+            //concurrent rolls can replace it more than once, each roll uses a single dictionary
+            current = new TagDictionary();
+            tagDictionary = current;
+        }
+        return current;
+    }
+
+    private ValueResult rollValuesWithNumberSupplier(NumberSupplier numberSupplier, ExpressionCompiler.CompiledExpression compiledExpression,
+                                                    SlotLayout slotLayout) throws ExpressionException {
+        return ValueResult.ofRolls(compiledExpression.roll(new RollContext(numberSupplier, false, slotLayout, getTagDictionary())));
+    }
+
+    private RollResult rollWithNumberSupplier(String expression, NumberSupplier numberSupplier, ExpressionCompiler.CompiledExpression compiledExpression,
+                                              SlotLayout slotLayout) throws ExpressionException {
+        RollContext rollContext = new RollContext(numberSupplier, true, slotLayout, getTagDictionary());
+        ImmutableList<Roll> rolls = compiledExpression.roll(rollContext);
         Optional<String> expressionPrefix = rollContext.getExpressionPrefixString();
         if (expressionPrefix.isPresent()) {
             //we need to add the val expression in front of the expression
@@ -161,7 +238,7 @@ public class DiceEvaluator {
                 String newExpressionString = "%s, %s".formatted(expressionPrefix.get(), r.getExpression());
                 rollBuilder.add(new Roll(newExpressionString,
                         r.getElements(),
-                        r.getRandomElementsInRoll(),
+                        r.getLazyRandomElementsInRoll(),
                         r.getChildrenRolls(),
                         r.getExpressionPosition(),
                         maxNumberOfElements,
@@ -172,53 +249,24 @@ public class DiceEvaluator {
         return new RollResult(expression, rolls, rollContext.getAllRandomElements());
     }
 
-    private @NonNull RollBuilder toValue(@NonNull String literal, @NonNull ExpressionPosition expressionPosition) {
+    private @NonNull ExpressionNode toValue(@NonNull String literal, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
+        final String expression = expressionPosition.toStringWithExtension();
         Matcher listMatcher = LIST_REGEX.matcher(literal);
+        //a list is never replaced by a variable
         if (listMatcher.find()) {
             List<String> list = Arrays.asList(listMatcher.group(1).split("[%s%s]".formatted(SEPARATOR, LEGACY_LIST_SEPARATOR)));
-            return new RollBuilder() {
-                @Override
-                public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
-                    return Optional.of(ImmutableList.of(new Roll(toExpression(), list.stream()
-                            .map(String::trim)
-                            .map(s -> new RollElement(s, RollElement.NO_TAG, RollElement.NO_COLOR))
-                            .collect(ImmutableList.toImmutableList()), ImmutableList.of(), ImmutableList.of(), expressionPosition,
-                            maxNumberOfElements, keepChildrenRolls)));
-                }
-
-                @Override
-                public @NonNull String toExpression() {
-                    return expressionPosition.toStringWithExtension();
-                }
-            };
+            return new ExpressionNode.LiteralNode(ImmutableList.of(new Roll(expression, list.stream()
+                    .map(String::trim)
+                    .map(s -> RollElement.of(s, RollElement.NO_TAG, RollElement.NO_COLOR))
+                    .collect(ImmutableList.toImmutableList()), ImmutableList.of(), ImmutableList.of(), expressionPosition,
+                    maxNumberOfElements, keepChildrenRolls)), expressionPosition, expression);
         }
-        return new RollBuilder() {
-            @Override
-            public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
-                Optional<Roll> variableRoll = rollContext.getVariable(literal);
-                if (variableRoll.isPresent()) {
-                    Roll variableValue = variableRoll.get();
-                    //set the input as expression
-                    Roll replacedValue = new Roll(toExpression(), variableValue.getElements(), variableValue.getRandomElementsInRoll(), variableValue.getChildrenRolls(), expressionPosition, maxNumberOfElements, keepChildrenRolls);
-                    return Optional.of(ImmutableList.of(replacedValue));
-                }
-                if (literal.isEmpty()) {
-                    return Optional.of(ImmutableList.of(new Roll(toExpression(), ImmutableList.of(), ImmutableList.of(), ImmutableList.of(), expressionPosition, maxNumberOfElements, keepChildrenRolls)));
-                }
-                return Optional.of(ImmutableList.of(new Roll(toExpression(), ImmutableList.of(new RollElement(literal, RollElement.NO_TAG, RollElement.NO_COLOR)), ImmutableList.of(), ImmutableList.of(), expressionPosition, maxNumberOfElements, keepChildrenRolls)));
-            }
-
-            @Override
-            public @NonNull String toExpression() {
-                return expressionPosition.toStringWithExtension();
-            }
-        };
+        return ExpressionNode.ofVariable(literal, expressionPosition, expression, maxNumberOfElements, keepChildrenRolls);
     }
 
-    private void processTokenToValues(Deque<RollBuilder> values, Token token) throws ExpressionException {
+    private void processTokenToValues(Deque<ExpressionNode> values, Token token) throws ExpressionException {
         if (token.getLiteral().isPresent()) { // If the token is a literal, a constant, or a variable name
-            String literal = token.getLiteral().get();
-            values.push(toValue(literal, token.getExpressionPosition()));
+            values.push(toValue(token.getLiteral().get(), token.getExpressionPosition()));
 
         } else if (token.getOperator().isPresent()) { // If the token is an operator
             Operator operator = token.getOperator().get();
@@ -226,20 +274,20 @@ public class DiceEvaluator {
             if (values.size() < argumentCount) {
                 throw new ExpressionException("Not enough values, %s needs %d".formatted(operator.getName(), argumentCount), token.getExpressionPosition());
             }
-            values.push(operator.evaluate(getArguments(values, argumentCount), token.getExpressionPosition()));
+            values.push(ExpressionNode.ofOperator(operator, getArguments(values, argumentCount), token.getExpressionPosition()));
         } else {
             throw new ExpressionException(token.toString(), token.getExpressionPosition());
         }
     }
 
-    private void doFunction(Deque<RollBuilder> values, Function function, int argumentCount, ExpressionPosition expressionPosition) throws ExpressionException {
-        final RollBuilder res = function.evaluate(getArguments(values, argumentCount), expressionPosition);
+    private void doFunction(Deque<ExpressionNode> values, Function function, int argumentCount, ExpressionPosition expressionPosition) throws ExpressionException {
+        final ExpressionNode res = ExpressionNode.ofFunction(function, getArguments(values, argumentCount), expressionPosition);
         values.push(res);
     }
 
-    private List<RollBuilder> getArguments(Deque<RollBuilder> values, int argumentCount) {
+    private List<ExpressionNode> getArguments(Deque<ExpressionNode> values, int argumentCount) {
         // The arguments are in reverse order on the values stack
-        List<RollBuilder> result = new ArrayList<>(argumentCount);
+        List<ExpressionNode> result = new ArrayList<>(argumentCount);
         for (int i = 0; i < argumentCount; i++) {
             result.addFirst(values.pop());
         }
@@ -261,6 +309,23 @@ public class DiceEvaluator {
         return tokenizer.expressionContainsOperatorOrFunction(expression);
     }
 
+    /**
+     * Checks for each of the provided expressions if it contains any characters matching an operator or function.
+     * Same as {@link #expressionContainsOperatorOrFunction(String)} for many expressions at once.
+     *
+     * @return the result for each expression, in the order of the provided expressions
+     */
+    public List<Boolean> expressionsContainOperatorOrFunction(List<String> expressions) {
+        return tokenizer.expressionsContainOperatorOrFunction(expressions);
+    }
+
+    /**
+     * The statistics of the roller cache, or empty if the evaluator was created without a cache.
+     */
+    public Optional<RollerCacheStatistics> getRollerCacheStatistics() {
+        return Optional.ofNullable(rollerCache).map(RollerCache::getStatistics);
+    }
+
     /**
      * Evaluates an expression.
      *
@@ -282,6 +347,149 @@ public class DiceEvaluator {
      */
     public Roller buildRollSupplier(final String inputExpression) throws ExpressionException {
         final String expression = inputExpression.trim();
+        if (rollerCache != null) {
+            return rollerCache.get(expression, e -> parse(e, compileAfterRolls));
+        }
+        return parse(expression, -1);
+    }
+
+    /**
+     * Rolls the expression numberOfRolls times, split over parallelism workers. Each worker has its own random number
+     * generator and counts the integer results in its own histogram, the histograms are merged at the end. The rolls
+     * only compute the result values, like {@link Roller#rollValues()}. The quantiles are exact, as long as the results
+     * fit into the histogram, see {@link SimulationResult#getQuantile(double)}.
+     *
+     * @param expression    The expression to roll
+     * @param numberOfRolls how often the expression is rolled
+     * @param parallelism   the number of threads that roll the expression
+     * @return the counts and statistics of the integer results
+     * @throws ExpressionException if the expression is not correct or a roll failed.
+     */
+    public SimulationResult simulate(String expression, long numberOfRolls, int parallelism) throws ExpressionException {
+        return simulate(expression, numberOfRolls, parallelism, DEFAULT_QUANTILE_ACCURACY);
+    }
+
+    /**
+     * Like {@link #simulate(String, long, int)}, with the relative accuracy of the {@link QuantileSketch} that takes
+     * the results which don't fit into the histogram, like the many distinct results of <code>1d999999999</code>.
+     *
+     * @param expression               The expression to roll
+     * @param numberOfRolls            how often the expression is rolled
+     * @param parallelism              the number of threads that roll the expression
+     * @param quantileRelativeAccuracy the max relative error of the quantiles if some results are only in the sketch,
+     *                                 between 0 and 1 (exclusive)
+     * @return the counts and statistics of the integer results
+     * @throws ExpressionException if the expression is not correct or a roll failed.
+     */
+    public SimulationResult simulate(String expression, long numberOfRolls, int parallelism, double quantileRelativeAccuracy) throws ExpressionException {
+        return simulate(expression, numberOfRolls, parallelism, quantileRelativeAccuracy, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Like {@link #simulate(String, long, int, double)}, but the generators of the workers are derived from the seed.
+     * The same seed, number of rolls and parallelism give the same result, independent of the thread scheduling.
+     *
+     * @param expression               The expression to roll
+     * @param numberOfRolls            how often the expression is rolled
+     * @param parallelism              the number of threads that roll the expression
+     * @param quantileRelativeAccuracy the max relative error of the quantiles if some results are only in the sketch,
+     *                                 between 0 and 1 (exclusive)
+     * @param seed                     the seed of the random numbers
+     * @return the counts and statistics of the integer results
+     * @throws ExpressionException if the expression is not correct or a roll failed.
+     */
+    public SimulationResult simulate(String expression, long numberOfRolls, int parallelism, double quantileRelativeAccuracy, long seed) throws ExpressionException {
+        if (numberOfRolls < 0) {
+            throw new IllegalArgumentException("numberOfRolls must be zero or positive but was %d".formatted(numberOfRolls));
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive but was %d".formatted(parallelism));
+        }
+        if (!(quantileRelativeAccuracy > 0 && quantileRelativeAccuracy < 1)) {
+            throw new IllegalArgumentException("quantileRelativeAccuracy must be between 0 and 1 but was %s".formatted(quantileRelativeAccuracy));
+        }
+        final Roller roller = buildRollSupplier(expression);
+        final int numberOfWorkers = (int) Math.max(1, Math.min(parallelism, numberOfRolls));
+        //each worker gets an independent generator stream
+        final SplittableRandom seeds = new SplittableRandom(seed);
+        final List<Callable<SimulationWorkerResult>> workers = new ArrayList<>(numberOfWorkers);
+        for (int i = 0; i < numberOfWorkers; i++) {
+            final long workerRolls = numberOfRolls / numberOfWorkers + (i < numberOfRolls % numberOfWorkers ? 1 : 0);
+            final NumberSupplier numberSupplier = new RandomNumberSupplier(seeds.nextLong());
+            workers.add(() -> simulate(roller, numberSupplier, workerRolls, quantileRelativeAccuracy));
+        }
+        final LongHistogram histogram = new LongHistogram(LongHistogram.MAX_SPARSE_SIZE, quantileRelativeAccuracy);
+        long numberOfOtherResults = 0;
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            for (SimulationWorkerResult workerResult : invokeAll(pool, workers)) {
+                histogram.merge(workerResult.histogram());
+                numberOfOtherResults += workerResult.numberOfOtherResults();
+            }
+        }
+        return new SimulationResult(numberOfRolls, histogram.toMap(), numberOfOtherResults, histogram.getSketch(), histogram.getSketchStatistics());
+    }
+
+    /**
+     * Rolls the expression in batches until the confidence interval of the mean of the results reaches the max error
+     * of the config, or until the max number of rolls or the max duration is reached. A result of true/false is
+     * counted as 1/0, so the mean is the success rate, like for <code>10d10>=7c >=? 5</code>.
+     *
+     * @param expression The expression to roll
+     * @param config     the precision and the upper bounds of the simulation
+     * @return the mean, its confidence interval and the number of used rolls
+     * @throws ExpressionException if the expression is not correct or a roll failed.
+     */
+    public AdaptiveSimulationResult simulate(String expression, @NonNull AdaptiveSimulationConfig config) throws ExpressionException {
+        return new AdaptiveSimulation(buildRollSupplier(expression), config, System::nanoTime).run();
+    }
+
+    private static SimulationWorkerResult simulate(Roller roller, NumberSupplier numberSupplier, long numberOfRolls, double quantileRelativeAccuracy) throws ExpressionException {
+        final LongHistogram histogram = new LongHistogram(LongHistogram.MAX_SPARSE_SIZE, quantileRelativeAccuracy);
+        long numberOfOtherResults = 0;
+        for (long i = 0; i < numberOfRolls; i++) {
+            final OptionalLong result = roller.rollValues(numberSupplier).asLong();
+            if (result.isPresent()) {
+                histogram.add(result.getAsLong());
+            } else {
+                numberOfOtherResults++;
+            }
+        }
+        return new SimulationWorkerResult(histogram, numberOfOtherResults);
+    }
+
+    /**
+     * Runs the workers in the pool and returns their results in the order of the workers.
+     *
+     * @throws ExpressionException if a worker failed with it
+     */
+    static <T> List<T> invokeAll(ForkJoinPool pool, List<Callable<T>> workers) throws ExpressionException {
+        try {
+            final List<T> results = new ArrayList<>(workers.size());
+            for (Future<T> worker : pool.invokeAll(workers)) {
+                results.add(worker.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The simulation was interrupted", e);
+        } catch (ExecutionException e) {
+            //the pool wraps checked exceptions of the workers
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof ExpressionException expressionException) {
+                    throw expressionException;
+                }
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private record SimulationWorkerResult(LongHistogram histogram, long numberOfOtherResults) {
+    }
+
+    private Roller parse(final String expression, int compileAfterRolls) throws ExpressionException {
         if (Strings.isNullOrEmpty(expression)) {
             return new Roller() {
                 @Override
@@ -295,9 +503,28 @@ public class DiceEvaluator {
                 }
             };
         }
+        return createRollSupplier(expression, parseNodes(expression), compileAfterRolls);
+    }
+
+    /**
+     * Parses an expression into its tree, without creating a roller. Constant parts of the expression are already
+     * evaluated and contained as {@link ExpressionNode.LiteralNode}.
+     *
+     * @param inputExpression The expression to parse
+     * @return the root nodes of the expression, one for each result roll. Empty if the expression is empty.
+     * @throws ExpressionException if the expression is not correct.
+     */
+    public List<ExpressionNode> parseExpressionTree(final String inputExpression) throws ExpressionException {
+        final String expression = inputExpression.trim();
+        if (Strings.isNullOrEmpty(expression)) {
+            return ImmutableList.of();
+        }
+        return parseNodes(expression);
+    }
 
+    private List<ExpressionNode> parseNodes(final String expression) throws ExpressionException {
         final List<Token> tokens = tokenizer.tokenize(expression);
-        final Deque<RollBuilder> values = new ArrayDeque<>(tokens.size()); // values stack
+        final Deque<ExpressionNode> values = new ArrayDeque<>(tokens.size()); // values stack
         final LinkedList<Token> stack = new LinkedList<>(); // operators, function and brackets stack
         final Deque<Integer> previousValuesSize = new ArrayDeque<>(tokens.size());
         Optional<Token> previous = Optional.empty();
@@ -431,6 +658,6 @@ public class DiceEvaluator {
             }
             processTokenToValues(values, stackToken);
         }
-        return createRollSupplier(expression, reverse(values));
+        return ConstantFolding.fold(reverse(values), defaultNumberSupplier);
     }
 }
@@ -54,17 +54,108 @@ public final class DiceHelper {
         if (sides < 0) {
             throw new ExpressionException("Sides of dice to roll must be positive", rollId.getExpressionPosition());
         }
-        ImmutableList.Builder<RandomElement> randomElementBuilder = ImmutableList.builder();
+        if (number <= 0) {
+            return ImmutableList.of();
+        }
+        final int[] numberSupplierValues = new int[number];
+        numberSupplier.get(0, sides, DieId.of(rollId, 0, 0), numberSupplierValues);
+        ImmutableList.Builder<RandomElement> randomElementBuilder = ImmutableList.builderWithExpectedSize(number);
         for (int i = 0; i < number; i++) {
-            randomElementBuilder.add(rollDie(sides, numberSupplier, rollId, i, 0));
+            randomElementBuilder.add(new RandomElement(RollElement.ofInteger(numberSupplierValues[i]), 1, sides, DieId.of(rollId, i, 0), numberSupplierValues[i]));
         }
         return randomElementBuilder.build();
     }
 
+    /**
+     * Like {@link #rollDice(int, int, NumberSupplier, RollId)} but without creating the random elements, for rolls
+     * that don't track the provenance.
+     */
+    public static @NonNull ImmutableList<RollElement> rollDiceValues(int number, int sides, @NonNull NumberSupplier numberSupplier, @NonNull RollId rollId) throws ExpressionException {
+        if (sides == 0) {
+            return ImmutableList.of();
+        }
+        if (sides < 0) {
+            throw new ExpressionException("Sides of dice to roll must be positive", rollId.getExpressionPosition());
+        }
+        if (number <= 0) {
+            return ImmutableList.of();
+        }
+        final int[] numberSupplierValues = new int[number];
+        numberSupplier.get(0, sides, rollId, 0, numberSupplierValues);
+        ImmutableList.Builder<RollElement> rollElementBuilder = ImmutableList.builderWithExpectedSize(number);
+        for (int value : numberSupplierValues) {
+            rollElementBuilder.add(RollElement.ofInteger(value));
+        }
+        return rollElementBuilder.build();
+    }
+
+    /**
+     * Like {@link #explodingDice(int, int, NumberSupplier, RollId, int, String)} but without creating the random
+     * elements, for rolls that don't track the provenance.
+     */
+    public static @NonNull ImmutableList<RollElement> explodingDiceValues(int number,
+                                                                          int sides,
+                                                                          @NonNull NumberSupplier numberSupplier,
+                                                                          @NonNull RollId rollId,
+                                                                          int maxNumberOfElements,
+                                                                          String expression) throws ExpressionException {
+        return explodingDiceValues(number, sides, numberSupplier, rollId, maxNumberOfElements, expression, false);
+    }
+
+    /**
+     * Like {@link #explodingDiceValues(int, int, NumberSupplier, RollId, int, String)} but the rerolls of a die are
+     * summed up into one element.
+     */
+    public static @NonNull ImmutableList<RollElement> explodingAddDiceValues(int number,
+                                                                             int sides,
+                                                                             @NonNull NumberSupplier numberSupplier,
+                                                                             @NonNull RollId rollId,
+                                                                             int maxNumberOfElements,
+                                                                             String expression) throws ExpressionException {
+        return explodingDiceValues(number, sides, numberSupplier, rollId, maxNumberOfElements, expression, true);
+    }
+
+    //the limits are checked like in explodingDice, so the same error is thrown
+    private static ImmutableList<RollElement> explodingDiceValues(int number, int sides, NumberSupplier numberSupplier, RollId rollId,
+                                                                  int maxNumberOfElements, String expression, boolean addRerolls) throws ExpressionException {
+        if (sides == 0) {
+            return ImmutableList.of();
+        }
+        if (sides < 0) {
+            throw new ExpressionException("Sides of dice to roll must be positive", rollId.getExpressionPosition());
+        }
+        ImmutableList.Builder<RollElement> resultBuilder = ImmutableList.builder();
+        int numberOfElements = 0;
+        for (int i = 0; i < number; i++) {
+            int rerollCounter = 0;
+            long sum = 0;
+            int value;
+            do {
+                value = numberSupplier.get(0, sides, rollId, i, rerollCounter++);
+                if (rerollCounter > maxNumberOfElements) {
+                    throw new ExpressionException("To many elements in roll '%s', max is %d but there where %d".formatted(expression, maxNumberOfElements, rerollCounter), rollId.getExpressionPosition());
+                }
+                if (addRerolls) {
+                    sum += value;
+                } else {
+                    resultBuilder.add(RollElement.ofInteger(value));
+                }
+            } while (value == sides);
+            if (addRerolls) {
+                resultBuilder.add(RollElement.ofInteger(sum));
+            }
+            numberOfElements += rerollCounter;
+            if (numberOfElements > maxNumberOfElements) {
+                throw new ExpressionException("To many elements in roll '%s', max is %d but there where %d".formatted(expression, maxNumberOfElements, numberOfElements), rollId.getExpressionPosition());
+            }
+        }
+        return resultBuilder.build();
+    }
+
     private static RandomElement rollDie(int sides, @NonNull NumberSupplier numberSupplier, @NonNull RollId rollId, int index, int reroll) throws ExpressionException {
         final DieId dieId = DieId.of(rollId, index, reroll);
         final int numberSupplierValue = numberSupplier.get(0, sides, dieId);
-        return new RandomElement(new RollElement(String.valueOf(numberSupplierValue), RollElement.NO_TAG, RollElement.NO_COLOR), 1, sides, dieId, numberSupplierValue);
+        return new RandomElement(RollElement.ofInteger(numberSupplierValue), 1, sides, dieId, numberSupplierValue);
 
     }
 
@@ -75,4 +166,12 @@ public final class DiceHelper {
                 .collect(ImmutableList.toImmutableList()), dieId, numberSupplierValue);
     }
 
+    /**
+     * Like {@link #pickOneOf(List, NumberSupplier, DieId)} but without creating the random element and the die id,
+     * for rolls that don't track the provenance.
+     */
+    public static @NonNull RollElement pickOneOfValue(List<RollElement> list, @NonNull NumberSupplier numberSupplier, @NonNull RollId rollId, int dieIndex) throws ExpressionException {
+        return list.get(numberSupplier.get(0, list.size(), rollId, dieIndex, 0) - 1);
+    }
+
 }
@@ -0,0 +1,28 @@
+package de.janno.evaluator.dice;
+
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A {@link RollOperation} that rolls dice. The interpreter creates the {@link RollId} of the dice with the counter slot
+ * of the node, so the re-evaluation number is not looked up by the position on each roll.
+ */
+public interface DiceRollOperation extends RollOperation {
+
+    @Override
+    default @NonNull Optional<List<Roll>> apply(@NonNull List<Roll> rolls, @NonNull RollContext rollContext, @NonNull ExpressionPosition expressionPosition, @NonNull String expression) throws ExpressionException {
+        return apply(rolls, rollContext, RollId.of(expressionPosition, rollContext.getNextReEvaluationNumber(expressionPosition)), expression);
+    }
+
+    /**
+     * @param rolls       the rolls of all operands
+     * @param rollContext the context of the current roll
+     * @param rollId      the id of this evaluation of the operator, with the part of the expression for this operator
+     * @param expression  the expression of this operator with its operands
+     * @return the result rolls
+     */
+    @NonNull
+    Optional<List<Roll>> apply(@NonNull List<Roll> rolls, @NonNull RollContext rollContext, @NonNull RollId rollId, @NonNull String expression) throws ExpressionException;
+}
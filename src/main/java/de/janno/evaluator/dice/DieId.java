@@ -1,19 +1,99 @@
 package de.janno.evaluator.dice;
 
+import lombok.Getter;
 import lombok.NonNull;
-import lombok.Value;
 
-@Value(staticConstructor = "of")
-public class DieId implements Comparable<DieId> {
+/**
+ * The id of a single die. The start of the expression position, the re-evaluation, the die index and the reroll are
+ * additionally packed into a long, so sorting and hashing don't need to walk the roll id and compare the position value.
+ */
+@Getter
+public final class DieId implements Comparable<DieId> {
+    private static final int START_BITS = 20;
+    private static final int REEVALUATE_BITS = 16;
+    private static final int DIE_INDEX_BITS = 20;
+    private static final int REROLL_BITS = 7;
+    /**
+     * The packed id of a die if one of its parts doesn't fit into the bits of the packed long.
+     */
+    public static final long NOT_PACKED = -1;
+
     @NonNull
-    RollId rollId;
-    int dieIndex;
-    int reroll;
+    private final RollId rollId;
+    private final int dieIndex;
+    private final int reroll;
+    @Getter(lombok.AccessLevel.NONE)
+    private final long packed;
+    @Getter(lombok.AccessLevel.NONE)
+    private final int hash;
+
+    private DieId(@NonNull RollId rollId, int dieIndex, int reroll) {
+        this.rollId = rollId;
+        this.dieIndex = dieIndex;
+        this.reroll = reroll;
+        this.packed = pack(rollId.getExpressionPosition().getStartInc(), rollId.getReevaluate(), dieIndex, reroll);
+        this.hash = ((59 + rollId.hashCode()) * 59 + dieIndex) * 59 + reroll;
+    }
+
+    public static DieId of(@NonNull RollId rollId, int dieIndex, int reroll) {
+        return new DieId(rollId, dieIndex, reroll);
+    }
 
     public static DieId of(int expressionPositionStartInc, String value, int reEvaluateCounter, int dieIndex, int reroll) {
         return new DieId(RollId.of(ExpressionPosition.of(expressionPositionStartInc, value), reEvaluateCounter), dieIndex, reroll);
     }
 
+    private static long pack(int startInc, int reevaluate, int dieIndex, int reroll) {
+        if (!fits(startInc, START_BITS) || !fits(reevaluate, REEVALUATE_BITS) || !fits(dieIndex, DIE_INDEX_BITS) || !fits(reroll, REROLL_BITS)) {
+            return NOT_PACKED;
+        }
+        return ((((long) startInc << REEVALUATE_BITS | reevaluate) << DIE_INDEX_BITS | dieIndex) << REROLL_BITS) | reroll;
+    }
+
+    /**
+     * The packed long of the die with the given index in the same roll and reroll, or {@link #NOT_PACKED}. The
+     * position value is not part of it, dice of different positions with the same start have the same packed id.
+     */
+    public long getPackedId(int dieIndex) {
+        return dieIndex == this.dieIndex ? packed : getPackedId(rollId, dieIndex, reroll);
+    }
+
+    /**
+     * The packed long of the die, without creating the die id, see {@link #getPackedId(int)}.
+     */
+    public static long getPackedId(@NonNull RollId rollId, int dieIndex, int reroll) {
+        return pack(rollId.getExpressionPosition().getStartInc(), rollId.getReevaluate(), dieIndex, reroll);
+    }
+
+    private static boolean fits(int value, int bits) {
+        return value >= 0 && value < (1 << bits);
+    }
+
+    private boolean hasSamePosition(DieId o) {
+        final ExpressionPosition position = rollId.getExpressionPosition();
+        final ExpressionPosition otherPosition = o.rollId.getExpressionPosition();
+        return position == otherPosition || position.equals(otherPosition);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DieId other) || hash != other.hash) {
+            return false;
+        }
+        if (packed != NOT_PACKED && other.packed != NOT_PACKED) {
+            return packed == other.packed && hasSamePosition(other);
+        }
+        return dieIndex == other.dieIndex && reroll == other.reroll && rollId.equals(other.rollId);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
     @Override
     public String toString() {
         return rollId + "i" + dieIndex + "r" + reroll;
@@ -21,6 +101,14 @@ public class DieId implements Comparable<DieId> {
 
     @Override
     public int compareTo(DieId o) {
+        if (packed != NOT_PACKED && o.packed != NOT_PACKED) {
+            final int shift = REEVALUATE_BITS + DIE_INDEX_BITS + REROLL_BITS;
+            if ((packed >>> shift) == (o.packed >>> shift) && !hasSamePosition(o)) {
+                //different positions with the same start are not ordered, like in the roll id
+                return 0;
+            }
+            return Long.compare(packed, o.packed);
+        }
         if (!this.rollId.equals(o.getRollId())) {
             return this.rollId.compareTo(o.getRollId());
         } else if (this.dieIndex != o.getDieIndex()) {
@@ -28,4 +116,4 @@ public class DieId implements Comparable<DieId> {
         }
         return Integer.compare(this.reroll, o.reroll);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package de.janno.evaluator.dice;
+
+import lombok.NonNull;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Exact arithmetic for the values of roll elements. Integer values are calculated with long and only on overflow or
+ * with decimal values with BigDecimal. The results are formatted like BigDecimal with stripped trailing zeros as plain string.
+ */
+public final class ExactMath {
+
+    private ExactMath() {
+    }
+
+    private static String format(BigDecimal number) {
+        return number.stripTrailingZeros().toPlainString();
+    }
+
+    private static boolean isIntegral(RollElement element) {
+        return element.getValueType() == RollElement.ValueType.INTEGER || element.getValueType() == RollElement.ValueType.LONG;
+    }
+
+    /**
+     * The sum of all elements that are numbers, elements that are not a number are ignored.
+     */
+    public static @NonNull String sum(@NonNull Collection<RollElement> elements) {
+        long sum = 0;
+        boolean integral = true;
+        for (RollElement element : elements) {
+            if (element.isDecimal()) {
+                if (!isIntegral(element)) {
+                    integral = false;
+                    break;
+                }
+                try {
+                    sum = Math.addExact(sum, element.getLongValue());
+                } catch (ArithmeticException e) {
+                    integral = false;
+                    break;
+                }
+            }
+        }
+        if (integral) {
+            return Long.toString(sum);
+        }
+        return format(elements.stream()
+                .map(RollElement::asDecimal)
+                .flatMap(Optional::stream)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+    }
+
+    /**
+     * @throws java.util.NoSuchElementException if one of the elements is not a number
+     */
+    public static @NonNull String multiply(@NonNull RollElement left, @NonNull RollElement right) {
+        if (isIntegral(left) && isIntegral(right)) {
+            try {
+                return Long.toString(Math.multiplyExact(left.getLongValue(), right.getLongValue()));
+            } catch (ArithmeticException ignore) {
+                //fallback to BigDecimal
+            }
+        }
+        return format(left.asDecimal().orElseThrow().multiply(right.asDecimal().orElseThrow()));
+    }
+
+    /**
+     * @throws java.util.NoSuchElementException if the element is not a number
+     */
+    public static @NonNull String negate(@NonNull RollElement element) {
+        if (isIntegral(element) && element.getLongValue() != Long.MIN_VALUE) {
+            return Long.toString(-element.getLongValue());
+        }
+        return format(element.asDecimal().orElseThrow().negate());
+    }
+
+    /**
+     * Compares the numbers of two elements.
+     *
+     * @throws java.util.NoSuchElementException if one of the elements is not a number
+     */
+    public static int compare(@NonNull RollElement left, @NonNull RollElement right) {
+        if (isIntegral(left) && isIntegral(right)) {
+            return Long.compare(left.getLongValue(), right.getLongValue());
+        }
+        return left.asDecimal().orElseThrow().compareTo(right.asDecimal().orElseThrow());
+    }
+}
@@ -0,0 +1,406 @@
+package de.janno.evaluator.dice;
+
+import com.google.common.collect.ImmutableList;
+import de.janno.evaluator.dice.operator.die.RegularDice;
+import de.janno.evaluator.dice.operator.list.Sum;
+import de.janno.evaluator.dice.random.NumberSupplier;
+import lombok.NonNull;
+
+import java.lang.classfile.ClassBuilder;
+import java.lang.classfile.ClassFile;
+import java.lang.classfile.CodeBuilder;
+import java.lang.classfile.Label;
+import java.lang.classfile.Opcode;
+import java.lang.classfile.TypeKind;
+import java.lang.constant.ClassDesc;
+import java.lang.constant.ConstantDescs;
+import java.lang.constant.DynamicConstantDesc;
+import java.lang.constant.MethodTypeDesc;
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+
+/**
+ * Compiles a parsed expression into a hidden class, so a frequently rolled expression is executed without the
+ * {@link ExpressionInterpreter}. Each node of the tree gets a static method that calls the methods of its operands in
+ * order and then the operator or function, which is loaded as constant. The class has no state, the operators, rolls
+ * and positions are the class data of the hidden class, and it can be unloaded with its roller.
+ * <p>
+ * Regular dice with a constant number of dice and sides, like '3d6', and their sum are rolled by straight-line code
+ * that calls the {@link NumberSupplier} directly, if the roll doesn't track the provenance. All other operators and
+ * functions, and nodes that evaluate their operands themselves, run the same code as in the interpreter, so the result
+ * is always the same as the result of the interpreter.
+ */
+final class ExpressionCompiler {
+    private static final ClassDesc CD_COMPILED_EXPRESSION = desc(CompiledExpression.class);
+    private static final ClassDesc CD_EXPRESSION_INTERPRETER = desc(ExpressionInterpreter.class);
+    private static final ClassDesc CD_ROLL_CONTEXT = desc(RollContext.class);
+    private static final ClassDesc CD_ROLL = desc(Roll.class);
+    private static final ClassDesc CD_ROLL_ID = desc(RollId.class);
+    private static final ClassDesc CD_ROLL_ELEMENT = desc(RollElement.class);
+    private static final ClassDesc CD_EXPRESSION_POSITION = desc(ExpressionPosition.class);
+    private static final ClassDesc CD_VARIABLE_NODE = desc(ExpressionNode.VariableNode.class);
+    private static final ClassDesc CD_ROLL_OPERATION = desc(RollOperation.class);
+    private static final ClassDesc CD_DICE_ROLL_OPERATION = desc(DiceRollOperation.class);
+    private static final ClassDesc CD_ROLL_BUILDER = desc(RollBuilder.class);
+    private static final ClassDesc CD_LAZY_RANDOM_ELEMENTS = desc(LazyRandomElements.class);
+    private static final ClassDesc CD_NUMBER_SUPPLIER = desc(NumberSupplier.class);
+    private static final ClassDesc CD_IMMUTABLE_LIST = desc(ImmutableList.class);
+    private static final ClassDesc CD_IMMUTABLE_LIST_BUILDER = desc(ImmutableList.Builder.class);
+    private static final ClassDesc CD_OPTIONAL = desc(Optional.class);
+
+    private static final MethodTypeDesc MTD_NODE = MethodTypeDesc.of(CD_OPTIONAL, CD_ROLL_CONTEXT);
+    private static final MethodTypeDesc MTD_ROLL = MethodTypeDesc.of(CD_IMMUTABLE_LIST, CD_ROLL_CONTEXT);
+    private static final MethodTypeDesc MTD_APPLY = MethodTypeDesc.of(CD_OPTIONAL, ConstantDescs.CD_List, CD_ROLL_CONTEXT, CD_EXPRESSION_POSITION, ConstantDescs.CD_String);
+    private static final MethodTypeDesc MTD_APPLY_DICE = MethodTypeDesc.of(CD_OPTIONAL, ConstantDescs.CD_List, CD_ROLL_CONTEXT, CD_ROLL_ID, ConstantDescs.CD_String);
+    private static final MethodTypeDesc MTD_ROLL_CONSTRUCTOR = MethodTypeDesc.of(ConstantDescs.CD_void, ConstantDescs.CD_String, CD_IMMUTABLE_LIST,
+            CD_LAZY_RANDOM_ELEMENTS, CD_IMMUTABLE_LIST, CD_EXPRESSION_POSITION, ConstantDescs.CD_int, ConstantDescs.CD_boolean);
+
+    //the slot of the roll context in the static node methods
+    private static final int ROLL_CONTEXT_SLOT = 0;
+
+    private ExpressionCompiler() {
+    }
+
+    private static ClassDesc desc(Class<?> type) {
+        return type.describeConstable().orElseThrow();
+    }
+
+    /**
+     * @return the compiled expression, or empty if the expression can't be compiled and must be interpreted
+     */
+    static @NonNull Optional<CompiledExpression> compile(@NonNull List<ExpressionNode> nodes) {
+        try {
+            final Generator generator = new Generator(nodes);
+            final byte[] classBytes = generator.generate();
+            final MethodHandles.Lookup lookup = MethodHandles.lookup()
+                    .defineHiddenClassWithClassData(classBytes, List.copyOf(generator.constants), false);
+            return Optional.of((CompiledExpression) lookup.lookupClass().getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * A parsed expression that can be rolled, by the interpreter or by a compiled class.
+     */
+    @FunctionalInterface
+    interface CompiledExpression {
+        @NonNull
+        ImmutableList<Roll> roll(@NonNull RollContext rollContext) throws ExpressionException;
+    }
+
+    /**
+     * Regular dice with literals as number of dice and sides, checked when the expression is compiled.
+     */
+    private record ConstantDice(@NonNull ExpressionNode.DiceNode node, @NonNull RegularDice regularDice, int numberOfDice,
+                                int sidesOfDie, @NonNull ImmutableList<Roll> childrenRolls) {
+
+        static Optional<ConstantDice> of(ExpressionNode node) {
+            if (!(node instanceof ExpressionNode.DiceNode diceNode) || !(diceNode.operator() instanceof RegularDice regularDice)
+                    || diceNode.operands().isEmpty() || diceNode.operands().size() > 2) {
+                return Optional.empty();
+            }
+            final List<Roll> childrenRolls = new ArrayList<>();
+            for (ExpressionNode operand : diceNode.operands()) {
+                if (!(operand instanceof ExpressionNode.LiteralNode literalNode) || literalNode.rolls().size() != 1) {
+                    return Optional.empty();
+                }
+                childrenRolls.add(literalNode.rolls().getFirst());
+            }
+            final Optional<Integer> numberOfDice = childrenRolls.size() == 1 ? Optional.of(1) : childrenRolls.getFirst().asInteger();
+            final Optional<Integer> sidesOfDie = childrenRolls.getLast().asInteger();
+            //all other cases throw an exception or have no dice and are rolled by the operator
+            if (numberOfDice.isEmpty() || sidesOfDie.isEmpty() || numberOfDice.get() < 1 || sidesOfDie.get() < 1
+                    || numberOfDice.get() > regularDice.getMaxNumberOfDice()) {
+                return Optional.empty();
+            }
+            return Optional.of(new ConstantDice(diceNode, regularDice, numberOfDice.get(), sidesOfDie.get(), ImmutableList.copyOf(childrenRolls)));
+        }
+    }
+
+    private static final class Generator {
+        private final List<ExpressionNode> rootNodes;
+        //the nodes that are evaluated by the compiled code, in the order of their methods
+        private final Map<ExpressionNode, Integer> nodeMethods = new IdentityHashMap<>();
+        private final List<ExpressionNode> methodNodes = new ArrayList<>();
+        //the class data, loaded by index with ConstantDescs.BSM_CLASS_DATA_AT
+        private final List<Object> constants = new ArrayList<>();
+        private final Map<Object, Integer> constantIndex = new IdentityHashMap<>();
+
+        Generator(List<ExpressionNode> rootNodes) {
+            this.rootNodes = rootNodes;
+            rootNodes.forEach(this::addMethodNode);
+        }
+
+        private void addMethodNode(ExpressionNode node) {
+            if (nodeMethods.containsKey(node)) {
+                return;
+            }
+            nodeMethods.put(node, methodNodes.size());
+            methodNodes.add(node);
+            //the operands of a node with a roll builder are evaluated by the roll builder
+            if (getRollOperation(node).isPresent()) {
+                node.children().forEach(this::addMethodNode);
+            }
+        }
+
+        byte[] generate() {
+            final ClassDesc classDesc = ClassDesc.of(ExpressionCompiler.class.getPackageName(), "CompiledExpressionImpl");
+            return ClassFile.of().build(classDesc, classBuilder -> {
+                classBuilder.withFlags(ClassFile.ACC_FINAL | ClassFile.ACC_SYNTHETIC)
+                        .withSuperclass(ConstantDescs.CD_Object)
+                        .withInterfaceSymbols(CD_COMPILED_EXPRESSION)
+                        .withMethodBody(ConstantDescs.INIT_NAME, ConstantDescs.MTD_void, ClassFile.ACC_PUBLIC, code -> code
+                                .aload(0)
+                                .invokespecial(ConstantDescs.CD_Object, ConstantDescs.INIT_NAME, ConstantDescs.MTD_void)
+                                .return_())
+                        .withMethodBody("roll", MTD_ROLL, ClassFile.ACC_PUBLIC | ClassFile.ACC_FINAL, code -> {
+                            //the roll context is the first argument after this
+                            rollOperands(code, classDesc, rootNodes, 1);
+                            code.areturn();
+                        });
+                for (int i = 0; i < methodNodes.size(); i++) {
+                    addNodeMethod(classBuilder, classDesc, methodNodes.get(i), i);
+                }
+            });
+        }
+
+        private void addNodeMethod(ClassBuilder classBuilder, ClassDesc classDesc, ExpressionNode node, int index) {
+            classBuilder.withMethodBody(methodName(index), MTD_NODE, ClassFile.ACC_PRIVATE | ClassFile.ACC_STATIC, code -> {
+                switch (node) {
+                    case ExpressionNode.LiteralNode literalNode -> loadConstant(code, Optional.of(literalNode.rolls()), CD_OPTIONAL);
+                    case ExpressionNode.VariableNode variableNode -> {
+                        loadConstant(code, variableNode, CD_VARIABLE_NODE);
+                        code.aload(ROLL_CONTEXT_SLOT)
+                                .invokestatic(CD_EXPRESSION_INTERPRETER, "resolveVariable", MethodTypeDesc.of(ConstantDescs.CD_List, CD_VARIABLE_NODE, CD_ROLL_CONTEXT))
+                                .invokestatic(CD_OPTIONAL, "of", MethodTypeDesc.of(CD_OPTIONAL, ConstantDescs.CD_Object));
+                    }
+                    case ExpressionNode.DiceNode diceNode when diceNode.operator() instanceof DiceRollOperation diceRollOperation -> {
+                        ConstantDice.of(diceNode).ifPresent(constantDice -> rollValuesWithoutProvenance(code, constantDice, null));
+                        loadConstant(code, diceRollOperation, CD_DICE_ROLL_OPERATION);
+                        rollOperands(code, classDesc, diceNode.operands(), ROLL_CONTEXT_SLOT);
+                        code.aload(ROLL_CONTEXT_SLOT);
+                        rollId(code, diceNode);
+                        loadConstant(code, diceNode.expression(), ConstantDescs.CD_String);
+                        code.invokeinterface(CD_DICE_ROLL_OPERATION, "apply", MTD_APPLY_DICE);
+                    }
+                    default -> {
+                        final Optional<RollOperation> rollOperation = getRollOperation(node);
+                        if (rollOperation.isPresent()) {
+                            getSumOfConstantDice(node).ifPresent(constantDice -> rollValuesWithoutProvenance(code, constantDice, node));
+                            loadConstant(code, rollOperation.get(), CD_ROLL_OPERATION);
+                            rollOperands(code, classDesc, node.children(), ROLL_CONTEXT_SLOT);
+                            code.aload(ROLL_CONTEXT_SLOT);
+                            loadConstant(code, node.expressionPosition(), CD_EXPRESSION_POSITION);
+                            loadConstant(code, node.expression(), ConstantDescs.CD_String);
+                            code.invokeinterface(CD_ROLL_OPERATION, "apply", MTD_APPLY);
+                        } else {
+                            loadConstant(code, getRollBuilder(node), CD_ROLL_BUILDER);
+                            code.aload(ROLL_CONTEXT_SLOT)
+                                    .invokeinterface(CD_ROLL_BUILDER, "extendRoll", MethodTypeDesc.of(CD_OPTIONAL, CD_ROLL_CONTEXT));
+                        }
+                    }
+                }
+                code.areturn();
+            });
+        }
+
+        /**
+         * Pushes the rolls of the operands as {@link ImmutableList}, like {@link ExpressionInterpreter#evaluateAll}.
+         */
+        private void rollOperands(CodeBuilder code, ClassDesc classDesc, List<ExpressionNode> operands, int rollContextSlot) {
+            switch (operands.size()) {
+                case 0 -> code.invokestatic(CD_IMMUTABLE_LIST, "of", MethodTypeDesc.of(CD_IMMUTABLE_LIST));
+                case 1 -> {
+                    callNodeMethod(code, classDesc, operands.getFirst(), rollContextSlot);
+                    code.invokestatic(CD_EXPRESSION_INTERPRETER, "toRolls", MethodTypeDesc.of(CD_IMMUTABLE_LIST, CD_OPTIONAL));
+                }
+                case 2 -> {
+                    callNodeMethod(code, classDesc, operands.get(0), rollContextSlot);
+                    callNodeMethod(code, classDesc, operands.get(1), rollContextSlot);
+                    code.invokestatic(CD_EXPRESSION_INTERPRETER, "toRolls", MethodTypeDesc.of(CD_IMMUTABLE_LIST, CD_OPTIONAL, CD_OPTIONAL));
+                }
+                default -> {
+                    code.invokestatic(CD_IMMUTABLE_LIST, "builder", MethodTypeDesc.of(CD_IMMUTABLE_LIST_BUILDER));
+                    for (ExpressionNode operand : operands) {
+                        code.dup();
+                        callNodeMethod(code, classDesc, operand, rollContextSlot);
+                        code.invokestatic(CD_EXPRESSION_INTERPRETER, "addRolls", MethodTypeDesc.of(ConstantDescs.CD_void, CD_IMMUTABLE_LIST_BUILDER, CD_OPTIONAL));
+                    }
+                    code.invokevirtual(CD_IMMUTABLE_LIST_BUILDER, "build", MethodTypeDesc.of(CD_IMMUTABLE_LIST));
+                }
+            }
+        }
+
+        private void callNodeMethod(CodeBuilder code, ClassDesc classDesc, ExpressionNode node, int rollContextSlot) {
+            code.aload(rollContextSlot)
+                    .invokestatic(classDesc, methodName(nodeMethods.get(node)), MTD_NODE);
+        }
+
+        /**
+         * Pushes the roll id of the dice, with the next re-evaluation number of the counter slot of the node.
+         */
+        private void rollId(CodeBuilder code, ExpressionNode.DiceNode diceNode) {
+            loadConstant(code, diceNode.expressionPosition(), CD_EXPRESSION_POSITION);
+            code.aload(ROLL_CONTEXT_SLOT)
+                    .loadConstant(diceNode.counterSlot());
+            loadConstant(code, diceNode.expressionPosition(), CD_EXPRESSION_POSITION);
+            code.invokevirtual(CD_ROLL_CONTEXT, "getNextReEvaluationNumber", MethodTypeDesc.of(ConstantDescs.CD_int, ConstantDescs.CD_int, CD_EXPRESSION_POSITION))
+                    .invokestatic(CD_ROLL_ID, "of", MethodTypeDesc.of(CD_ROLL_ID, CD_EXPRESSION_POSITION, ConstantDescs.CD_int));
+        }
+
+        /**
+         * Returns the roll of the dice, or of their sum if the sum node is given, if the roll context doesn't track
+         * the provenance. This is the code of {@link RegularDice} and {@link Sum} for dice without tags and random
+         * elements, with the loop over the dice inlined. Otherwise, the code after it is executed.
+         */
+        private void rollValuesWithoutProvenance(CodeBuilder code, ConstantDice constantDice, ExpressionNode sumNode) {
+            final int numberOfDice = constantDice.numberOfDice();
+            code.aload(ROLL_CONTEXT_SLOT)
+                    .invokevirtual(CD_ROLL_CONTEXT, "isTrackProvenance", MethodTypeDesc.of(ConstantDescs.CD_boolean))
+                    .ifThen(Opcode.IFEQ, block -> {
+                        final int rollIdSlot = block.allocateLocal(TypeKind.REFERENCE);
+                        final int valuesSlot = block.allocateLocal(TypeKind.REFERENCE);
+                        final int elementsSlot = block.allocateLocal(TypeKind.REFERENCE);
+                        final int indexSlot = block.allocateLocal(TypeKind.INT);
+                        final int sumSlot = block.allocateLocal(TypeKind.LONG);
+                        rollId(block, constantDice.node());
+                        block.astore(rollIdSlot)
+                                .loadConstant(numberOfDice)
+                                .newarray(TypeKind.INT)
+                                .astore(valuesSlot)
+                                .aload(ROLL_CONTEXT_SLOT)
+                                .invokevirtual(CD_ROLL_CONTEXT, "getNumberSupplier", MethodTypeDesc.of(CD_NUMBER_SUPPLIER))
+                                .loadConstant(0)
+                                .loadConstant(constantDice.sidesOfDie())
+                                .aload(rollIdSlot)
+                                .loadConstant(0)
+                                .aload(valuesSlot)
+                                .invokeinterface(CD_NUMBER_SUPPLIER, "get", MethodTypeDesc.of(ConstantDescs.CD_void, ConstantDescs.CD_int, ConstantDescs.CD_int,
+                                        CD_ROLL_ID, ConstantDescs.CD_int, ConstantDescs.CD_int.arrayType()))
+                                .loadConstant(numberOfDice)
+                                .invokestatic(CD_IMMUTABLE_LIST, "builderWithExpectedSize", MethodTypeDesc.of(CD_IMMUTABLE_LIST_BUILDER, ConstantDescs.CD_int))
+                                .astore(elementsSlot)
+                                .loadConstant(0L)
+                                .lstore(sumSlot)
+                                .loadConstant(0)
+                                .istore(indexSlot);
+                        final Label loop = block.newBoundLabel();
+                        final Label end = block.newLabel();
+                        block.iload(indexSlot)
+                                .loadConstant(numberOfDice)
+                                .if_icmpge(end)
+                                .aload(elementsSlot)
+                                .aload(valuesSlot)
+                                .iload(indexSlot)
+                                .iaload()
+                                .i2l()
+                                .invokestatic(CD_ROLL_ELEMENT, "ofInteger", MethodTypeDesc.of(CD_ROLL_ELEMENT, ConstantDescs.CD_long))
+                                .invokevirtual(CD_IMMUTABLE_LIST_BUILDER, "add", MethodTypeDesc.of(CD_IMMUTABLE_LIST_BUILDER, ConstantDescs.CD_Object))
+                                .pop();
+                        if (sumNode != null) {
+                            //the dice values are integers and can't overflow the sum, like in ExactMath.sum
+                            block.lload(sumSlot)
+                                    .aload(valuesSlot)
+                                    .iload(indexSlot)
+                                    .iaload()
+                                    .i2l()
+                                    .ladd()
+                                    .lstore(sumSlot);
+                        }
+                        block.iinc(indexSlot, 1)
+                                .goto_(loop)
+                                .labelBinding(end);
+                        newRoll(block, constantDice.node(), constantDice.regularDice(),
+                                () -> block.aload(elementsSlot).invokevirtual(CD_IMMUTABLE_LIST_BUILDER, "build", MethodTypeDesc.of(CD_IMMUTABLE_LIST)),
+                                () -> loadConstant(block, constantDice.childrenRolls(), CD_IMMUTABLE_LIST));
+                        if (sumNode != null) {
+                            //the dice roll is on the stack and is the only child of the sum
+                            block.invokestatic(CD_IMMUTABLE_LIST, "of", MethodTypeDesc.of(CD_IMMUTABLE_LIST, ConstantDescs.CD_Object))
+                                    .astore(elementsSlot);
+                            newRoll(block, sumNode, getOperator(sumNode),
+                                    () -> block.lload(sumSlot)
+                                            .invokestatic(CD_ROLL_ELEMENT, "ofInteger", MethodTypeDesc.of(CD_ROLL_ELEMENT, ConstantDescs.CD_long))
+                                            .invokestatic(CD_IMMUTABLE_LIST, "of", MethodTypeDesc.of(CD_IMMUTABLE_LIST, ConstantDescs.CD_Object)),
+                                    () -> block.aload(elementsSlot));
+                        }
+                        block.invokestatic(CD_IMMUTABLE_LIST, "of", MethodTypeDesc.of(CD_IMMUTABLE_LIST, ConstantDescs.CD_Object))
+                                .invokestatic(CD_OPTIONAL, "of", MethodTypeDesc.of(CD_OPTIONAL, ConstantDescs.CD_Object))
+                                .areturn();
+                    });
+        }
+
+        /**
+         * Pushes a new roll without random elements, the elements and the children rolls are pushed by the given code.
+         */
+        private void newRoll(CodeBuilder code, ExpressionNode node, Operator operator, Runnable elements, Runnable childrenRolls) {
+            code.new_(CD_ROLL)
+                    .dup();
+            loadConstant(code, node.expression(), ConstantDescs.CD_String);
+            elements.run();
+            code.getstatic(CD_LAZY_RANDOM_ELEMENTS, "EMPTY", CD_LAZY_RANDOM_ELEMENTS);
+            childrenRolls.run();
+            loadConstant(code, node.expressionPosition(), CD_EXPRESSION_POSITION);
+            code.loadConstant(operator.maxNumberOfElements)
+                    .loadConstant(operator.keepChildrenRolls ? 1 : 0)
+                    .invokespecial(CD_ROLL, ConstantDescs.INIT_NAME, MTD_ROLL_CONSTRUCTOR);
+        }
+
+        private void loadConstant(CodeBuilder code, Object constant, ClassDesc type) {
+            Integer index = constantIndex.get(constant);
+            if (index == null) {
+                index = constants.size();
+                constants.add(constant);
+                constantIndex.put(constant, index);
+            }
+            code.loadConstant(DynamicConstantDesc.ofNamed(ConstantDescs.BSM_CLASS_DATA_AT, ConstantDescs.DEFAULT_NAME, type, index));
+        }
+
+        private static String methodName(int index) {
+            return "node" + index;
+        }
+    }
+
+    /**
+     * The sum of constant dice, if the node is a {@link Sum} with them as only operand.
+     */
+    private static Optional<ConstantDice> getSumOfConstantDice(ExpressionNode node) {
+        if (node instanceof ExpressionNode.OperatorNode operatorNode && operatorNode.operator().getClass() == Sum.class
+                && operatorNode.operands().size() == 1) {
+            return ConstantDice.of(operatorNode.operands().getFirst());
+        }
+        return Optional.empty();
+    }
+
+    private static Operator getOperator(ExpressionNode node) {
+        return switch (node) {
+            case ExpressionNode.OperatorNode operatorNode -> operatorNode.operator();
+            case ExpressionNode.DiceNode diceNode -> diceNode.operator();
+            default -> throw new IllegalArgumentException("No operator node: " + node.expression());
+        };
+    }
+
+    /**
+     * The operation of an operator or function node, that gets the rolls of its operands.
+     */
+    private static Optional<RollOperation> getRollOperation(ExpressionNode node) {
+        return switch (node) {
+            case ExpressionNode.OperatorNode operatorNode when operatorNode.operator() instanceof RollOperation rollOperation ->
+                    Optional.of(rollOperation);
+            case ExpressionNode.DiceNode diceNode when diceNode.operator() instanceof RollOperation rollOperation ->
+                    Optional.of(rollOperation);
+            case ExpressionNode.FunctionNode functionNode when functionNode.function() instanceof RollOperation rollOperation ->
+                    Optional.of(rollOperation);
+            default -> Optional.empty();
+        };
+    }
+
+    private static RollBuilder getRollBuilder(ExpressionNode node) {
+        return switch (node) {
+            case ExpressionNode.OperatorNode operatorNode -> operatorNode.rollBuilder();
+            case ExpressionNode.DiceNode diceNode -> diceNode.rollBuilder();
+            case ExpressionNode.FunctionNode functionNode -> functionNode.rollBuilder();
+            default -> throw new IllegalArgumentException("No roll builder node: " + node.expression());
+        };
+    }
+}
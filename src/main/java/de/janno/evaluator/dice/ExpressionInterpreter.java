@@ -0,0 +1,106 @@
+package de.janno.evaluator.dice;
+
+import com.google.common.collect.ImmutableList;
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Executes a parsed expression tree. Operators and functions that implement {@link RollOperation} get the already
+ * evaluated operands, all others evaluate their operands themselves with their roll builder.
+ */
+final class ExpressionInterpreter {
+
+    private ExpressionInterpreter() {
+    }
+
+    static @NonNull ImmutableList<Roll> evaluateAll(@NonNull List<ExpressionNode> nodes, @NonNull RollContext rollContext) throws ExpressionException {
+        //most operators and functions have one or two operands, they don't need a builder
+        switch (nodes.size()) {
+            case 0 -> {
+                return ImmutableList.of();
+            }
+            case 1 -> {
+                return toRolls(evaluate(nodes.getFirst(), rollContext));
+            }
+            case 2 -> {
+                final Optional<List<Roll>> left = evaluate(nodes.get(0), rollContext);
+                return toRolls(left, evaluate(nodes.get(1), rollContext));
+            }
+            default -> {
+                ImmutableList.Builder<Roll> builder = ImmutableList.builder();
+                for (ExpressionNode node : nodes) {
+                    addRolls(builder, evaluate(node, rollContext));
+                }
+                return builder.build();
+            }
+        }
+    }
+
+    //the helpers to combine the operand rolls are also called by the code of the ExpressionCompiler
+    static @NonNull ImmutableList<Roll> toRolls(@NonNull Optional<List<Roll>> rolls) {
+        return rolls.map(ImmutableList::copyOf).orElse(ImmutableList.of());
+    }
+
+    static @NonNull ImmutableList<Roll> toRolls(@NonNull Optional<List<Roll>> left, @NonNull Optional<List<Roll>> right) {
+        if (left.isEmpty()) {
+            return toRolls(right);
+        }
+        if (right.isEmpty()) {
+            return toRolls(left);
+        }
+        return ImmutableList.<Roll>builderWithExpectedSize(left.get().size() + right.get().size())
+                .addAll(left.get())
+                .addAll(right.get())
+                .build();
+    }
+
+    static void addRolls(@NonNull ImmutableList.Builder<Roll> builder, @NonNull Optional<List<Roll>> rolls) {
+        rolls.ifPresent(builder::addAll);
+    }
+
+    static @NonNull Optional<List<Roll>> evaluate(@NonNull ExpressionNode node, @NonNull RollContext rollContext) throws ExpressionException {
+        return switch (node) {
+            case ExpressionNode.LiteralNode literal -> Optional.of(literal.rolls());
+            case ExpressionNode.VariableNode variable -> Optional.of(resolveVariable(variable, rollContext));
+            case ExpressionNode.DiceNode diceNode -> evaluateDice(diceNode, rollContext);
+            case ExpressionNode.OperatorNode(Operator operator, var operands, var position, var expression, var rollBuilder) ->
+                    operator instanceof RollOperation rollOperation ?
+                            rollOperation.apply(evaluateAll(operands, rollContext), rollContext, position, expression) :
+                            rollBuilder.extendRoll(rollContext);
+            case ExpressionNode.FunctionNode(Function function, var arguments, var position, var expression, var rollBuilder) ->
+                    function instanceof RollOperation rollOperation ?
+                            rollOperation.apply(evaluateAll(arguments, rollContext), rollContext, position, expression) :
+                            rollBuilder.extendRoll(rollContext);
+        };
+    }
+
+    private static Optional<List<Roll>> evaluateDice(ExpressionNode.DiceNode diceNode, RollContext rollContext) throws ExpressionException {
+        return switch (diceNode.operator()) {
+            case DiceRollOperation diceRollOperation -> {
+                final ImmutableList<Roll> rolls = evaluateAll(diceNode.operands(), rollContext);
+                final ExpressionPosition expressionPosition = diceNode.expressionPosition();
+                final RollId rollId = RollId.of(expressionPosition, rollContext.getNextReEvaluationNumber(diceNode.counterSlot(), expressionPosition));
+                yield diceRollOperation.apply(rolls, rollContext, rollId, diceNode.expression());
+            }
+            case RollOperation rollOperation ->
+                    rollOperation.apply(evaluateAll(diceNode.operands(), rollContext), rollContext, diceNode.expressionPosition(), diceNode.expression());
+            default -> diceNode.rollBuilder().extendRoll(rollContext);
+        };
+    }
+
+    static @NonNull List<Roll> resolveVariable(@NonNull ExpressionNode.VariableNode variable, @NonNull RollContext rollContext) throws ExpressionException {
+        Optional<Roll> variableRoll = rollContext.getVariable(variable.slot(), variable.name());
+        if (variableRoll.isPresent()) {
+            return ImmutableList.of(toVariableRoll(variable, variableRoll.get()));
+        }
+        return variable.literalRolls();
+    }
+
+    private static Roll toVariableRoll(ExpressionNode.VariableNode variable, Roll variableValue) throws ExpressionException {
+        //set the input as expression
+        return new Roll(variable.expression(), variableValue.getElements(), variableValue.getLazyRandomElementsInRoll(), variableValue.getChildrenRolls(),
+                variable.expressionPosition(), variable.maxNumberOfElements(), variable.keepChildrenRolls());
+    }
+}
@@ -0,0 +1,151 @@
+package de.janno.evaluator.dice;
+
+import com.google.common.collect.ImmutableList;
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A node of the parsed expression tree. The tree is executed by the {@link ExpressionInterpreter} or compiled by the
+ * {@link ExpressionCompiler}, each node can also be used as {@link RollBuilder}, for example as operand of an operator
+ * that evaluates its operands itself.
+ */
+public sealed interface ExpressionNode extends RollBuilder permits ExpressionNode.LiteralNode, ExpressionNode.VariableNode,
+        ExpressionNode.DiceNode, ExpressionNode.OperatorNode, ExpressionNode.FunctionNode {
+
+    /**
+     * Creates a {@link DiceNode} for an operator that is not deterministic and otherwise an {@link OperatorNode}. Only
+     * operators that don't implement {@link RollOperation} create their roll builder, for all others the expression is
+     * created directly from the operator and the operand expressions.
+     */
+    static @NonNull ExpressionNode ofOperator(@NonNull Operator operator, @NonNull List<ExpressionNode> operands, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
+        return ofOperator(operator, operands, expressionPosition, SlotLayout.NO_SLOT);
+    }
+
+    /**
+     * @param counterSlot the slot of the re-evaluation counter of a {@link DiceNode} in the slot layout of the roller
+     */
+    static @NonNull ExpressionNode ofOperator(@NonNull Operator operator, @NonNull List<ExpressionNode> operands, @NonNull ExpressionPosition expressionPosition,
+                                              int counterSlot) throws ExpressionException {
+        final ImmutableList<ExpressionNode> children = ImmutableList.copyOf(operands);
+        final RollBuilder rollBuilder = operator instanceof RollOperation ? null : operator.evaluate(ImmutableList.copyOf(children), expressionPosition);
+        final String expression = rollBuilder == null ? operator.getExpression(expressionPosition, children) : rollBuilder.toExpression();
+        if (operator.isDeterministic()) {
+            return new OperatorNode(operator, children, expressionPosition, expression, rollBuilder);
+        }
+        return new DiceNode(operator, children, expressionPosition, expression, rollBuilder, counterSlot);
+    }
+
+    static @NonNull FunctionNode ofFunction(@NonNull Function function, @NonNull List<ExpressionNode> arguments, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
+        final ImmutableList<ExpressionNode> children = ImmutableList.copyOf(arguments);
+        final RollBuilder rollBuilder = function instanceof RollOperation ? null : function.evaluate(ImmutableList.copyOf(children), expressionPosition);
+        final String expression = rollBuilder == null ? Function.getExpression(expressionPosition, children) : rollBuilder.toExpression();
+        return new FunctionNode(function, children, expressionPosition, expression, rollBuilder);
+    }
+
+    /**
+     * Creates a {@link VariableNode} with the roll of the literal, that is used if there is no variable with the name.
+     */
+    static @NonNull VariableNode ofVariable(@NonNull String name, @NonNull ExpressionPosition expressionPosition, @NonNull String expression,
+                                            int maxNumberOfElements, boolean keepChildrenRolls) throws ExpressionException {
+        final ImmutableList<RollElement> elements = name.isEmpty() ? ImmutableList.of() : ImmutableList.of(RollElement.of(name, RollElement.NO_TAG, RollElement.NO_COLOR));
+        final Roll literalRoll = new Roll(expression, elements, ImmutableList.of(), ImmutableList.of(), expressionPosition, maxNumberOfElements, keepChildrenRolls);
+        return new VariableNode(name, expressionPosition, expression, maxNumberOfElements, keepChildrenRolls, ImmutableList.of(literalRoll), SlotLayout.NO_SLOT);
+    }
+
+    @NonNull
+    ExpressionPosition expressionPosition();
+
+    /**
+     * The expression of this node and its children.
+     */
+    @NonNull
+    String expression();
+
+    /**
+     * The operands or arguments of this node.
+     */
+    default @NonNull List<ExpressionNode> children() {
+        return ImmutableList.of();
+    }
+
+    @Override
+    default @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
+        return ExpressionInterpreter.evaluate(this, rollContext);
+    }
+
+    @Override
+    default @NonNull String toExpression() {
+        return expression();
+    }
+
+    /**
+     * A literal, a list or a constant part of the expression, with the rolls that were computed when the expression was parsed.
+     */
+    record LiteralNode(@NonNull ImmutableList<Roll> rolls, @NonNull ExpressionPosition expressionPosition,
+                       @NonNull String expression) implements ExpressionNode {
+    }
+
+    /**
+     * A literal that is the name of a variable, the value of the variable is used. If there is no variable with this
+     * name on roll, the literal itself is used.
+     *
+     * @param literalRolls the roll of the literal, created once when the expression is parsed
+     * @param slot         the slot of the variable name in the slot layout of the roller
+     */
+    record VariableNode(@NonNull String name, @NonNull ExpressionPosition expressionPosition, @NonNull String expression,
+                        int maxNumberOfElements, boolean keepChildrenRolls,
+                        @NonNull ImmutableList<Roll> literalRolls, int slot) implements ExpressionNode {
+        @NonNull
+        VariableNode withSlot(int slot) {
+            return new VariableNode(name, expressionPosition, expression, maxNumberOfElements, keepChildrenRolls, literalRolls, slot);
+        }
+    }
+
+    /**
+     * A not deterministic operator, like the dice operators.
+     *
+     * @param rollBuilder the roll builder of the operator if it evaluates its operands itself, null if it implements
+     *                    {@link RollOperation}
+     * @param counterSlot the slot of the re-evaluation counter in the slot layout of the roller
+     */
+    record DiceNode(@NonNull Operator operator, @NonNull ImmutableList<ExpressionNode> operands,
+                    @NonNull ExpressionPosition expressionPosition, @NonNull String expression,
+                    RollBuilder rollBuilder, int counterSlot) implements ExpressionNode {
+        @Override
+        public @NonNull List<ExpressionNode> children() {
+            return operands;
+        }
+    }
+
+    /**
+     * A deterministic unary or binary operator.
+     *
+     * @param rollBuilder the roll builder of the operator if it evaluates its operands itself, null if it implements
+     *                    {@link RollOperation}
+     */
+    record OperatorNode(@NonNull Operator operator, @NonNull ImmutableList<ExpressionNode> operands,
+                        @NonNull ExpressionPosition expressionPosition, @NonNull String expression,
+                        RollBuilder rollBuilder) implements ExpressionNode {
+        @Override
+        public @NonNull List<ExpressionNode> children() {
+            return operands;
+        }
+    }
+
+    /**
+     * A function with its arguments.
+     *
+     * @param rollBuilder the roll builder of the function if it evaluates its arguments itself, null if it implements
+     *                    {@link RollOperation}
+     */
+    record FunctionNode(@NonNull Function function, @NonNull ImmutableList<ExpressionNode> arguments,
+                        @NonNull ExpressionPosition expressionPosition, @NonNull String expression,
+                        RollBuilder rollBuilder) implements ExpressionNode {
+        @Override
+        public @NonNull List<ExpressionNode> children() {
+            return arguments;
+        }
+    }
+}
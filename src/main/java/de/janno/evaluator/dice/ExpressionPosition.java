@@ -1,43 +1,124 @@
 package de.janno.evaluator.dice;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
+import lombok.Getter;
 import lombok.NonNull;
-import lombok.Value;
 
+import java.util.Objects;
 
-@Value
-public class ExpressionPosition implements Comparable<ExpressionPosition> {
-    int startInc;
-    @NonNull
-    String value;
+
+public final class ExpressionPosition implements Comparable<ExpressionPosition> {
+    @Getter
+    private final int startInc;
+    /**
+     * The expression that contains the value between sourceStartInc and sourceEndExc. The value string is only created
+     * if it is needed.
+     */
+    private final String source;
+    private final int sourceStartInc;
+    private final int sourceEndExc;
     /**
      * A non operator/function extension on the left, like a parentheses. Needed to build the expression back together.
      */
-    String leftExtension;
+    @Getter
+    private final String leftExtension;
     /**
      * A non operator/function extension on the right, like a parentheses. Needed to build the expression back together.
      */
-    String rightExtension;
+    @Getter
+    private final String rightExtension;
+    private String value;
+    //the hash is cached, because the die ids of each roll use it
+    private int hash;
+
+    public ExpressionPosition(int startInc, @NonNull String value, String leftExtension, String rightExtension) {
+        this(startInc, value, 0, value.length(), leftExtension, rightExtension);
+        this.value = value;
+    }
+
+    private ExpressionPosition(int startInc, @NonNull String source, int sourceStartInc, int sourceEndExc, String leftExtension, String rightExtension) {
+        this.startInc = startInc;
+        this.source = source;
+        this.sourceStartInc = sourceStartInc;
+        this.sourceEndExc = sourceEndExc;
+        this.leftExtension = leftExtension;
+        this.rightExtension = rightExtension;
+    }
 
     public static ExpressionPosition of(final int startInc, final String value) {
         return new ExpressionPosition(startInc, value, null, null);
     }
 
+    /**
+     * A position with the value source[sourceStartInc, sourceEndExc) without copying the value.
+     */
+    static ExpressionPosition ofSource(final int startInc, final String source, final int sourceStartInc, final int sourceEndExc) {
+        return new ExpressionPosition(startInc, source, sourceStartInc, sourceEndExc, null, null);
+    }
+
+    public @NonNull String getValue() {
+        String result = value;
+        if (result == null) {
+            result = source.substring(sourceStartInc, sourceEndExc);
+            value = result;
+        }
+        return result;
+    }
+
+    @VisibleForTesting
+    boolean hasValueCopy() {
+        return value != null && source != value;
+    }
+
+    public int getLength() {
+        return sourceEndExc - sourceStartInc;
+    }
+
+    public int getEndExc() {
+        return startInc + getLength();
+    }
+
     public ExpressionPosition extendLeft(final String leftValue) {
-        return new ExpressionPosition(this.startInc, this.value, leftValue, this.rightExtension);
+        return new ExpressionPosition(this.startInc, this.source, this.sourceStartInc, this.sourceEndExc, leftValue, this.rightExtension);
     }
 
     public ExpressionPosition extendRight(final String rightValue) {
-        return new ExpressionPosition(this.startInc, this.value, this.leftExtension, rightValue);
+        return new ExpressionPosition(this.startInc, this.source, this.sourceStartInc, this.sourceEndExc, this.leftExtension, rightValue);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ExpressionPosition that)) {
+            return false;
+        }
+        return startInc == that.startInc &&
+                getLength() == that.getLength() &&
+                source.regionMatches(sourceStartInc, that.source, that.sourceStartInc, getLength()) &&
+                Objects.equals(leftExtension, that.leftExtension) &&
+                Objects.equals(rightExtension, that.rightExtension);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            result = Objects.hash(startInc, getValue(), leftExtension, rightExtension);
+            hash = result;
+        }
+        return result;
     }
 
     @Override
     public String toString() {
-        return startInc + value;
+        return startInc + getValue();
     }
 
     public String toStringWithExtension() {
-        return Joiner.on("").skipNulls().join(leftExtension, value, rightExtension);
+        return Joiner.on("").skipNulls().join(leftExtension, getValue(), rightExtension);
     }
 
     @Override
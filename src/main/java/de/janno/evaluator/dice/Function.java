@@ -54,16 +54,29 @@ public abstract class Function {
     }
 
 
-    protected static String getExpression(ExpressionPosition expressionPosition, List<RollBuilder> arguments) {
+    protected static String getExpression(ExpressionPosition expressionPosition, List<? extends RollBuilder> arguments) {
         return "%s%s".formatted(expressionPosition.toStringWithExtension(), arguments.stream().map(RollBuilder::toExpression).collect(Collectors.joining(",")));
     }
 
     /**
-     * Creates a RollBuilder for the arguments
+     * Creates a RollBuilder for the arguments. Functions that implement {@link RollOperation} don't need to override it.
      *
      * @param arguments  all function arguments
      * @param expressionPosition the part of the expression for this function, is needed the get the used upper/lower case in the result expression
      * @return the RollBuilder that can be called to get result rolls
      */
-    public abstract @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> arguments, @NonNull ExpressionPosition expressionPosition) throws ExpressionException;
+    public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> arguments, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
+        if (this instanceof RollOperation rollOperation) {
+            return RollOperation.toRollBuilder(rollOperation, arguments, expressionPosition, getExpression(expressionPosition, arguments));
+        }
+        throw new IllegalStateException("The function '%s' must implement RollOperation or override evaluate".formatted(name));
+    }
+
+    /**
+     * If the function returns always the same result for the same input. A function that uses the number supplier or changes the
+     * variables of the roll context is not deterministic. Deterministic parts of an expression can be evaluated once, when the roller is build.
+     */
+    public boolean isDeterministic() {
+        return true;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+package de.janno.evaluator.dice;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import lombok.NonNull;
+
+import java.util.*;
+
+/**
+ * The random elements of a roll, the unique and sorted list is only built when it is read. Until then, only the added
+ * lists and the random elements of the child rolls are referenced, so nested operators don't copy and sort the random
+ * elements on each level. The last added random element of a die id overwrites the elements with the same die id that
+ * were added before.
+ */
+final class LazyRandomElements {
+    static final LazyRandomElements EMPTY = new LazyRandomElements(ImmutableList.of(), ImmutableList.of());
+
+    //the added random elements, or empty if the random elements are the combination of the parts
+    private final List<RandomElement> elements;
+    private final List<LazyRandomElements> parts;
+    //the number of random elements before the duplicated die ids are removed, the same part can be contained many times,
+    //so the sum saturates at Long.MAX_VALUE
+    private final long maxSize;
+    private final boolean empty;
+    //concurrent reads can build the list more than once, the result is always the same
+    private ImmutableList<RandomElement> built;
+
+    private LazyRandomElements(List<RandomElement> elements, List<LazyRandomElements> parts) {
+        this.elements = elements;
+        this.parts = parts;
+        long size = elements.size();
+        boolean anyElement = !elements.isEmpty();
+        for (LazyRandomElements part : parts) {
+            size = saturatedAdd(size, part.maxSize);
+            anyElement |= !part.empty;
+        }
+        this.maxSize = size;
+        this.empty = !anyElement;
+    }
+
+    static @NonNull LazyRandomElements of(@NonNull List<RandomElement> randomElements) {
+        if (randomElements.isEmpty()) {
+            return EMPTY;
+        }
+        return new LazyRandomElements(randomElements, ImmutableList.of());
+    }
+
+    /**
+     * A single part is used as it is, without creating a new list.
+     */
+    static @NonNull LazyRandomElements ofParts(@NonNull List<LazyRandomElements> parts) {
+        if (parts.isEmpty()) {
+            return EMPTY;
+        }
+        if (parts.size() == 1) {
+            return parts.getFirst();
+        }
+        return new LazyRandomElements(ImmutableList.of(), ImmutableList.copyOf(parts));
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        final long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * The upper bound of the number of random elements, without building the list.
+     */
+    long getMaxSize() {
+        return maxSize;
+    }
+
+    @VisibleForTesting
+    boolean isBuilt() {
+        return built != null;
+    }
+
+    @NonNull
+    ImmutableList<RandomElement> get() {
+        ImmutableList<RandomElement> result = built;
+        if (result == null) {
+            if (parts.isEmpty() && RandomElementsBuilder.isUniqueAndSorted(elements)) {
+                result = ImmutableList.copyOf(elements);
+            } else {
+                List<RandomElement> all = new ArrayList<>();
+                addTo(all);
+                result = RandomElementsBuilder.uniqueAndSorted(all).orElseGet(this::uniqueAndSortedByHash);
+            }
+            built = result;
+        }
+        return result;
+    }
+
+    /**
+     * Adds the random elements in the order they were added. The parts are built, so a part that is contained many
+     * times, like the roll of a variable, is only built once.
+     */
+    private void addTo(List<RandomElement> target) {
+        target.addAll(elements);
+        for (LazyRandomElements part : parts) {
+            target.addAll(part.get());
+        }
+    }
+
+    private ImmutableList<RandomElement> uniqueAndSortedByHash() {
+        List<RandomElement> all = new ArrayList<>();
+        addTo(all);
+        Map<DieId, RandomElement> uniqueMap = new HashMap<>();
+        all.forEach(r -> uniqueMap.put(r.getDieId(), r));
+        return uniqueMap.values().stream()
+                .sorted(Comparator.comparing(RandomElement::getDieId))
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof LazyRandomElements other && get().equals(other.get());
+    }
+
+    @Override
+    public int hashCode() {
+        return get().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return get().toString();
+    }
+}
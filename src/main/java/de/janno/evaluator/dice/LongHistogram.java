@@ -0,0 +1,124 @@
+package de.janno.evaluator.dice;
+
+import com.google.common.collect.ImmutableSortedMap;
+import lombok.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counts long values in a primitive array that grows to cover the range of the added values. Values that would make
+ * the array larger than {@link #MAX_DENSE_SIZE} are counted in a map. If the map already has maxSparseSize values,
+ * further values are only added to a {@link QuantileSketch} and to running statistics, so the memory stays bounded
+ * for results with a huge range. Not thread-safe, each worker has its own histogram and they are merged at the end.
+ */
+final class LongHistogram {
+    static final int MAX_DENSE_SIZE = 1 << 20;
+    static final int MAX_SPARSE_SIZE = 1 << 16;
+
+    private final int maxSparseSize;
+    private long[] counts = new long[0];
+    //the value of counts[0]
+    private long offset;
+    private final Map<Long, Long> sparseCounts = new HashMap<>();
+    //the values that are neither in the array nor in the map
+    private final QuantileSketch sketch;
+    private final RunningStatistics sketchStatistics = new RunningStatistics();
+
+    LongHistogram() {
+        this(MAX_SPARSE_SIZE, DiceEvaluator.DEFAULT_QUANTILE_ACCURACY);
+    }
+
+    /**
+     * @param maxSparseSize          the max number of values that are counted exactly outside the array
+     * @param sketchRelativeAccuracy the relative accuracy of the sketch for all further values
+     */
+    LongHistogram(int maxSparseSize, double sketchRelativeAccuracy) {
+        this.maxSparseSize = maxSparseSize;
+        this.sketch = new QuantileSketch(sketchRelativeAccuracy);
+    }
+
+    void add(long value) {
+        add(value, 1);
+    }
+
+    private void add(long value, long count) {
+        final long index = value - offset;
+        //the subtraction can overflow for values far apart, but then the value is neither in the array nor can it grow
+        if (index >= 0 && index < counts.length && value >= offset) {
+            counts[(int) index] += count;
+        } else if (grow(value)) {
+            counts[(int) (value - offset)] += count;
+        } else {
+            final Long sparseCount = sparseCounts.get(value);
+            if (sparseCount != null) {
+                sparseCounts.put(value, sparseCount + count);
+            } else if (sparseCounts.size() < maxSparseSize) {
+                sparseCounts.put(value, count);
+            } else {
+                sketch.add(value, count);
+                sketchStatistics.add(value, count);
+            }
+        }
+    }
+
+    private boolean grow(long value) {
+        if (counts.length == 0) {
+            counts = new long[16];
+            //the last index must not overflow
+            offset = Math.min(value, Long.MAX_VALUE - counts.length + 1);
+            return true;
+        }
+        final long newMin = Math.min(offset, value);
+        final long newMax = Math.max(offset + counts.length - 1, value);
+        if (newMax - newMin >= MAX_DENSE_SIZE || newMax - newMin < 0) {
+            return false;
+        }
+        //double the size to grow rarely, but not more then the max size
+        final int newSize = (int) Math.min(MAX_DENSE_SIZE, Math.max(2L * counts.length, newMax - newMin + 1));
+        //the free space is added on the side of the new value
+        final long lowestOffset = newMax - newSize + 1;
+        final long newOffset = value < offset && lowestOffset <= newMin ? lowestOffset : Math.min(newMin, Long.MAX_VALUE - newSize + 1);
+        final long[] newCounts = new long[newSize];
+        System.arraycopy(counts, 0, newCounts, (int) (offset - newOffset), counts.length);
+        counts = newCounts;
+        offset = newOffset;
+        return true;
+    }
+
+    void merge(@NonNull LongHistogram other) {
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                add(other.offset + i, other.counts[i]);
+            }
+        }
+        other.sparseCounts.forEach(this::add);
+        sketch.merge(other.sketch);
+        sketchStatistics.merge(other.sketchStatistics);
+    }
+
+    /**
+     * The values that are not in {@link #toMap()}, empty if all values could be counted exactly
+     */
+    @NonNull
+    QuantileSketch getSketch() {
+        return sketch;
+    }
+
+    @NonNull
+    RunningStatistics getSketchStatistics() {
+        return sketchStatistics;
+    }
+
+    @NonNull
+    ImmutableSortedMap<Long, Long> toMap() {
+        final Map<Long, Long> result = new TreeMap<>(sparseCounts);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                result.merge(offset + i, counts[i], Long::sum);
+            }
+        }
+        return ImmutableSortedMap.copyOf(result);
+    }
+}
@@ -76,37 +76,63 @@ public abstract class Operator {
         return null;
     }
 
-    private static <T> Optional<T> getIndexIfExists(List<T> list, int index) {
+    private static <T> Optional<T> getIndexIfExists(List<? extends T> list, int index) {
         if (list.size() <= index) {
             return Optional.empty();
         }
         return Optional.ofNullable(list.get(index));
     }
 
-    protected static String getBinaryOperatorExpression(ExpressionPosition expressionPosition, List<RollBuilder> operands) {
+    protected static String getBinaryOperatorExpression(ExpressionPosition expressionPosition, List<? extends RollBuilder> operands) {
         String left = getIndexIfExists(operands, 0).map(RollBuilder::toExpression).orElse("");
         String right = getIndexIfExists(operands, 1).map(RollBuilder::toExpression).orElse("");
         return String.format("%s%s%s", left, expressionPosition.toStringWithExtension(), right);
     }
 
-    protected static String getLeftUnaryExpression(ExpressionPosition expressionPosition, List<RollBuilder> operands) {
+    protected static String getLeftUnaryExpression(ExpressionPosition expressionPosition, List<? extends RollBuilder> operands) {
         String left = getIndexIfExists(operands, 0).map(RollBuilder::toExpression).orElse("");
         return String.format("%s%s", left, expressionPosition.toStringWithExtension());
     }
 
-    protected static String getRightUnaryExpression(ExpressionPosition expressionPosition, List<RollBuilder> operands) {
+    protected static String getRightUnaryExpression(ExpressionPosition expressionPosition, List<? extends RollBuilder> operands) {
         String right = getIndexIfExists(operands, 0).map(RollBuilder::toExpression).orElse("");
         return String.format("%s%s", expressionPosition.toStringWithExtension(), right);
     }
 
     /**
-     * Creates a RollBuilder for the arguments
+     * The expression of the operator with its operands, depending on the number of operands and the unary associativity.
+     */
+    public @NonNull String getExpression(@NonNull ExpressionPosition expressionPosition, @NonNull List<? extends RollBuilder> operands) {
+        if (operands.size() == 1) {
+            if (unaryAssociativity == Associativity.LEFT) {
+                return getLeftUnaryExpression(expressionPosition, operands);
+            }
+            return getRightUnaryExpression(expressionPosition, operands);
+        }
+        return getBinaryOperatorExpression(expressionPosition, operands);
+    }
+
+    /**
+     * Creates a RollBuilder for the arguments. Operators that implement {@link RollOperation} don't need to override it.
      *
      * @param operands           1 or 2 operants
      * @param expressionPosition the part of the expression for this operant, is needed the get the used upper/lower case in the result expression
      * @return the RollBuilder that can be called to get result rolls
      */
-    public abstract @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> operands, @NonNull ExpressionPosition expressionPosition) throws ExpressionException;
+    public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> operands, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
+        if (this instanceof RollOperation rollOperation) {
+            return RollOperation.toRollBuilder(rollOperation, operands, expressionPosition, getExpression(expressionPosition, operands));
+        }
+        throw new IllegalStateException("The operator '%s' must implement RollOperation or override evaluate".formatted(name));
+    }
+
+    /**
+     * If the operator returns always the same result for the same input. A operator that uses the number supplier or changes the
+     * variables of the roll context is not deterministic. Deterministic parts of an expression can be evaluated once, when the roller is build.
+     */
+    public boolean isDeterministic() {
+        return true;
+    }
 
     public boolean supportUnaryOperation() {
         return unaryAssociativity != null;
@@ -0,0 +1,184 @@
+package de.janno.evaluator.dice;
+
+import lombok.Getter;
+
+/**
+ * A mergeable quantile sketch with relative accuracy, based on DDSketch (Masson, Rim, Lee: "DDSketch: A Fast and
+ * Fully-Mergeable Quantile Sketch with Relative-Error Guarantees"). The values are counted in logarithmic buckets, so
+ * a quantile is within the relative accuracy of the exact quantile. The memory and the merge cost only depend on the
+ * number of buckets, not on the number of values. If more than maxNumberOfBuckets are needed, the buckets of the
+ * smallest absolute values are collapsed and lose their accuracy. Not thread-safe.
+ */
+public final class QuantileSketch {
+    @Getter
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double multiplier;
+    private final Store positive;
+    private final Store negative;
+    private long zeroCount;
+    @Getter
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * A sketch with enough buckets to keep the accuracy for all absolute values between 1 and {@link Long#MAX_VALUE}.
+     * The buckets are only allocated for the range of the added values.
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        this(relativeAccuracy, numberOfBucketsForLongRange(relativeAccuracy));
+    }
+
+    private static int numberOfBucketsForLongRange(double relativeAccuracy) {
+        final double gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        return (int) Math.min(Integer.MAX_VALUE, Math.ceil(Math.log(Long.MAX_VALUE) / Math.log(gamma)) + 1);
+    }
+
+    /**
+     * @param relativeAccuracy   the max relative error of a quantile, between 0 and 1 (exclusive)
+     * @param maxNumberOfBuckets the max number of buckets for positive and for negative values
+     */
+    public QuantileSketch(double relativeAccuracy, int maxNumberOfBuckets) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("relativeAccuracy must be between 0 and 1 but was %s".formatted(relativeAccuracy));
+        }
+        if (maxNumberOfBuckets < 1) {
+            throw new IllegalArgumentException("maxNumberOfBuckets must be positive but was %d".formatted(maxNumberOfBuckets));
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.multiplier = 1 / Math.log(gamma);
+        this.positive = new Store(maxNumberOfBuckets);
+        this.negative = new Store(maxNumberOfBuckets);
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    void add(double value, long valueCount) {
+        if (value > 0) {
+            positive.add(index(value), valueCount);
+        } else if (value < 0) {
+            negative.add(index(-value), valueCount);
+        } else {
+            zeroCount += valueCount;
+        }
+        count += valueCount;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    //the bucket i contains the values in (gamma^(i-1), gamma^i]
+    private int index(double absoluteValue) {
+        return (int) Math.ceil(Math.log(absoluteValue) * multiplier);
+    }
+
+    //the value with the same relative error to both bounds of the bucket
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    /**
+     * Adds the values of the other sketch to this sketch. Both sketches must have the same relative accuracy.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.gamma != gamma) {
+            throw new IllegalArgumentException("Can't merge sketches with the relative accuracy %s and %s".formatted(relativeAccuracy, other.relativeAccuracy));
+        }
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * The value at the quantile, the value at rank quantile*(count-1) of the sorted values, within the relative accuracy.
+     *
+     * @param quantile between 0 and 1, 0.5 is the median
+     * @return the value or NaN if the sketch is empty
+     */
+    public double getQuantile(double quantile) {
+        if (!(quantile >= 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("quantile must be between 0 and 1 but was %s".formatted(quantile));
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (quantile == 0) {
+            return min;
+        }
+        if (quantile == 1) {
+            return max;
+        }
+        final double rank = quantile * (count - 1);
+        long seen = 0;
+        //the highest negative index is the lowest value
+        for (int i = negative.counts.length - 1; i >= 0; i--) {
+            seen += negative.counts[i];
+            if (seen > rank) {
+                return clamp(-value(negative.offset + i));
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = 0; i < positive.counts.length; i++) {
+            seen += positive.counts[i];
+            if (seen > rank) {
+                return clamp(value(positive.offset + i));
+            }
+        }
+        return max;
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * The counts of a continuous range of bucket indices.
+     */
+    private static final class Store {
+        private final int maxNumberOfBuckets;
+        private long[] counts = new long[0];
+        //the bucket index of counts[0]
+        private int offset;
+
+        Store(int maxNumberOfBuckets) {
+            this.maxNumberOfBuckets = maxNumberOfBuckets;
+        }
+
+        void add(int index, long count) {
+            if (counts.length == 0 || index < offset || index >= offset + counts.length) {
+                extend(index);
+            }
+            counts[Math.max(index, offset) - offset] += count;
+        }
+
+        private void extend(int index) {
+            final int newMin = counts.length == 0 ? index : Math.min(offset, index);
+            final int newMax = counts.length == 0 ? index : Math.max(offset + counts.length - 1, index);
+            //the lowest buckets are collapsed into the lowest remaining bucket
+            final int newOffset = Math.max(newMin, newMax - maxNumberOfBuckets + 1);
+            final long[] newCounts = new long[newMax - newOffset + 1];
+            for (int i = 0; i < counts.length; i++) {
+                newCounts[Math.max(offset + i, newOffset) - newOffset] += counts[i];
+            }
+            counts = newCounts;
+            offset = newOffset;
+        }
+
+        void merge(Store other) {
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) {
+                    add(other.offset + i, other.counts[i]);
+                }
+            }
+        }
+    }
+}
@@ -44,7 +44,14 @@ public class RandomElement {
     }
 
     public RandomElement copyWithTagAndColor(@NonNull String color) {
-        return new RandomElement(new RollElement(this.rollElement.getValue(), this.rollElement.getTag(), color), this.randomSelectedFrom, this.minInc, this.maxInc, this.dieId, this.numberSupplierValue);
+        return new RandomElement(RollElement.of(this.rollElement.getValue(), this.rollElement.getTag(), color), this.randomSelectedFrom, this.minInc, this.maxInc, this.dieId, this.numberSupplierValue);
+    }
+
+    /**
+     * Like {@link #copyWithTagAndColor(String)} but the color is encoded in the dictionary of the evaluation
+     */
+    public RandomElement copyWithTagAndColor(@NonNull String color, @NonNull RollContext rollContext) {
+        return new RandomElement(this.rollElement.withColor(color, rollContext), this.randomSelectedFrom, this.minInc, this.maxInc, this.dieId, this.numberSupplierValue);
     }
 
     public String toString() {
@@ -9,12 +9,18 @@ import lombok.NonNull;
 import java.util.*;
 
 /**
- * Combines random elements of multiple sources. Random elements with the will overwrite elements with the diceId that where added bevor
+ * Combines random elements of multiple sources. Random elements with the will overwrite elements with the diceId that where added bevor.
+ * If the roll context doesn't track the provenance, no random elements are collected.
+ * The added lists are only kept as segments, the unique and sorted list is created when the random elements of the roll
+ * are read.
  */
 @EqualsAndHashCode
 @Getter
 public class RandomElementsBuilder {
-    private final List<RandomElement> randomElements = new ArrayList<>();
+    private static final Comparator<RandomElement> DIE_ID_ORDER = Comparator.comparing(RandomElement::getDieId);
+    private final List<LazyRandomElements> randomElements = new ArrayList<>();
+    //the random elements of child rolls that are replaced by the result in the roll context
+    private final List<LazyRandomElements> replacedRandomElements = new ArrayList<>();
     private final RollContext rollContext;
 
     private RandomElementsBuilder(@NonNull RollContext rollContext) {
@@ -22,6 +28,9 @@ public class RandomElementsBuilder {
     }
 
     public static ImmutableList<RandomElement> fromRolls(@NonNull Collection<Roll> rolls, @NonNull RollContext rollContext) {
+        if (!rollContext.isTrackProvenance()) {
+            return ImmutableList.of();
+        }
         return ofRolls(rolls, rollContext).build();
     }
 
@@ -35,39 +44,85 @@ public class RandomElementsBuilder {
 
     public static RandomElementsBuilder ofRolls(@NonNull Collection<Roll> rolls, @NonNull RollContext rollContext) {
         RandomElementsBuilder builder = new RandomElementsBuilder(rollContext);
-        rolls.forEach(r -> builder.addRandomElements(r.getRandomElementsInRoll().stream().toList()));
+        if (rollContext.isTrackProvenance()) {
+            rolls.forEach(builder::addRoll);
+        }
         return builder;
     }
 
     public RandomElementsBuilder addRandomElements(@NonNull Collection<RandomElement> randomElements) {
-        this.randomElements.addAll(randomElements);
+        if (!rollContext.isTrackProvenance() || randomElements.isEmpty()) {
+            return this;
+        }
+        this.randomElements.add(LazyRandomElements.of(randomElements instanceof List<RandomElement> list ? list : List.copyOf(randomElements)));
         return this;
     }
 
     public RandomElementsBuilder addRoll(@NonNull Roll roll) {
-        this.randomElements.addAll(roll.getRandomElementsInRoll().stream().toList());
+        final LazyRandomElements rollRandomElements = roll.getLazyRandomElementsInRoll();
+        if (!rollContext.isTrackProvenance() || rollRandomElements.isEmpty()) {
+            return this;
+        }
+        this.randomElements.add(rollRandomElements);
+        this.replacedRandomElements.add(rollRandomElements);
         return this;
     }
 
     public RandomElementsBuilder addWithColor(@NonNull Roll roll, @NonNull String color) {
-        this.randomElements.addAll(roll.getRandomElementsInRoll().stream()
-                .map(r -> r.copyWithTagAndColor(color))
-                .toList());
+        final LazyRandomElements rollRandomElements = roll.getLazyRandomElementsInRoll();
+        if (!rollContext.isTrackProvenance() || rollRandomElements.isEmpty()) {
+            return this;
+        }
+        this.randomElements.add(LazyRandomElements.of(rollRandomElements.get().stream()
+                .map(r -> r.copyWithTagAndColor(color, rollContext))
+                .toList()));
+        this.replacedRandomElements.add(rollRandomElements);
         return this;
     }
 
     public ImmutableList<RandomElement> build() {
+        return toLazyRandomElements().get();
+    }
 
-        //This ensures that the last color application will overwrite the randomElements color
-        Map<DieId, RandomElement> uniqueMap = new HashMap<>(randomElements.size());
-        randomElements.forEach(r -> uniqueMap.put(r.getDieId(), r));
-        ImmutableList<RandomElement> result = uniqueMap.values().stream()
-                .sorted(Comparator.comparing(RandomElement::getDieId))
-                .collect(ImmutableList.toImmutableList());
-        rollContext.addRandomElements(result);
-
+    /**
+     * Adds the random elements to the roll context, without creating the unique and sorted list.
+     */
+    LazyRandomElements toLazyRandomElements() {
+        if (!rollContext.isTrackProvenance() || randomElements.isEmpty()) {
+            return LazyRandomElements.EMPTY;
+        }
+        final LazyRandomElements result = LazyRandomElements.ofParts(randomElements);
+        rollContext.addRandomElements(result, replacedRandomElements);
         return result;
     }
 
+    static boolean isUniqueAndSorted(List<RandomElement> randomElements) {
+        for (int i = 1; i < randomElements.size(); i++) {
+            if (DIE_ID_ORDER.compare(randomElements.get(i - 1), randomElements.get(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
 
+    /**
+     * The last element of each die id is kept. The sort is stable, so the last added element of a die id is the last in
+     * the run of equal die ids.
+     */
+    static Optional<ImmutableList<RandomElement>> uniqueAndSorted(List<RandomElement> randomElements) {
+        randomElements.sort(DIE_ID_ORDER);
+        ImmutableList.Builder<RandomElement> builder = ImmutableList.builderWithExpectedSize(randomElements.size());
+        for (int i = 0; i < randomElements.size(); i++) {
+            final RandomElement current = randomElements.get(i);
+            if (i + 1 < randomElements.size() && DIE_ID_ORDER.compare(current, randomElements.get(i + 1)) == 0) {
+                if (!current.getDieId().equals(randomElements.get(i + 1).getDieId())) {
+                    //different die ids with the same order, the result order depends on the hash order
+                    return Optional.empty();
+                }
+                continue;
+            }
+            builder.add(current);
+        }
+        return Optional.of(builder.build());
+    }
 }
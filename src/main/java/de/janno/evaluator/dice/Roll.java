@@ -28,7 +28,8 @@ public class Roll {
      * all random elements that were involved in this roll, this can be more than the elements, because it includes also filtered elements
      */
     @NonNull
-    ImmutableList<RandomElement> randomElementsInRoll;
+    @Getter(AccessLevel.NONE)
+    LazyRandomElements randomElementsInRoll;
     /**
      * all rolls that produced this roll. The collection of the childrenRolls can be disabled and the list is then empty
      */
@@ -48,22 +49,49 @@ public class Roll {
                 @NonNull ExpressionPosition expressionPosition,
                 int maxNumberOfElements,
                 boolean keepChildRolls) throws ExpressionException {
+        this(expression, elements, LazyRandomElements.of(validate(randomElementsInRoll)), childrenRolls, expressionPosition, maxNumberOfElements, keepChildRolls);
+    }
+
+    /**
+     * The random elements are added to the roll context, but the unique and sorted list is only created if
+     * {@link #getRandomElementsInRoll()} is called.
+     */
+    public Roll(@NonNull String expression,
+                @NonNull ImmutableList<RollElement> elements,
+                @NonNull RandomElementsBuilder randomElementsInRoll,
+                @NonNull ImmutableList<Roll> childrenRolls,
+                @NonNull ExpressionPosition expressionPosition,
+                int maxNumberOfElements,
+                boolean keepChildRolls) throws ExpressionException {
+        this(expression, elements, randomElementsInRoll.toLazyRandomElements(), childrenRolls, expressionPosition, maxNumberOfElements, keepChildRolls);
+    }
+
+    Roll(@NonNull String expression,
+         @NonNull ImmutableList<RollElement> elements,
+         @NonNull LazyRandomElements randomElementsInRoll,
+         @NonNull ImmutableList<Roll> childrenRolls,
+         @NonNull ExpressionPosition expressionPosition,
+         int maxNumberOfElements,
+         boolean keepChildRolls) throws ExpressionException {
         this.expression = expression;
         this.elements = elements;
-        validate(randomElementsInRoll);
         this.randomElementsInRoll = randomElementsInRoll;
         this.childrenRolls = keepChildRolls ? childrenRolls : ImmutableList.of();
         this.expressionPosition = expressionPosition;
         if (elements.size() > maxNumberOfElements) {
             throw new ExpressionException("To many elements in roll '%s', max is %d but there where %d".formatted(expression, maxNumberOfElements, elements.size()), expressionPosition);
         }
-        long numberOfRandomElementsInRoll = randomElementsInRoll.size();
+        //the list is only created if the upper bound is too large
+        long numberOfRandomElementsInRoll = randomElementsInRoll.getMaxSize() > maxNumberOfElements ? randomElementsInRoll.get().size() : 0;
         if (numberOfRandomElementsInRoll > maxNumberOfElements) {
             throw new ExpressionException("To many random elements in roll '%s', max is %d but there where %d".formatted(expression, maxNumberOfElements, numberOfRandomElementsInRoll), expressionPosition);
         }
     }
 
-    private void validate(ImmutableList<RandomElement> randomElements) {
+    private static ImmutableList<RandomElement> validate(ImmutableList<RandomElement> randomElements) {
+        if (randomElements.size() < 2) {
+            return randomElements;
+        }
         List<DieId> diceIdsWithDuplicatedRandomElements = randomElements.stream()
                 .collect(Collectors.groupingBy(RandomElement::getDieId)).values().stream()
                 .filter(l -> l.size() > 1)
@@ -73,6 +101,15 @@ public class Roll {
         if (!diceIdsWithDuplicatedRandomElements.isEmpty()) {
             throw new IllegalStateException("Random elements must have unique dice ids but %s occurred more than once".formatted(diceIdsWithDuplicatedRandomElements));
         }
+        return randomElements;
+    }
+
+    public @NonNull ImmutableList<RandomElement> getRandomElementsInRoll() {
+        return randomElementsInRoll.get();
+    }
+
+    LazyRandomElements getLazyRandomElementsInRoll() {
+        return randomElementsInRoll;
     }
 
     public Optional<String> asSingleValue() {
@@ -104,7 +141,7 @@ public class Roll {
     }
 
     public boolean containsOnlyDecimals() {
-        return elements.stream().map(RollElement::asDecimal).allMatch(Optional::isPresent);
+        return elements.stream().allMatch(RollElement::isDecimal);
     }
 
     public String getResultString() {
@@ -119,7 +156,7 @@ public class Roll {
     public String toString() {
         return "Roll{" +
                 "expression='" + expression + '\'' +
-                ", randomElementsInRoll=" + randomElementsInRoll +
+                ", randomElementsInRoll=" + getRandomElementsInRoll() +
                 ", elements=" + elements +
                 '}';
     }
@@ -141,6 +178,7 @@ public class Roll {
     }
 
     public ImmutableList<ImmutableList<RandomElement>> getGroupedRandomElements() {
+        final ImmutableList<RandomElement> randomElementsInRoll = getRandomElementsInRoll();
         List<RollId> rollIds = randomElementsInRoll.stream()
                 .map(RandomElement::getDieId)
                 .map(DieId::getRollId)
@@ -32,6 +32,10 @@ public interface RollBuilder {
     @NonNull
     Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException;
 
+    /**
+     * The expression of this roll builder and its children. It is called for each roll and should not be recomputed,
+     * the operators and functions create it once in their evaluate method.
+     */
     @NonNull
     String toExpression();
 }
@@ -2,6 +2,7 @@ package de.janno.evaluator.dice;
 
 import com.google.common.collect.ImmutableList;
 import de.janno.evaluator.dice.random.NumberSupplier;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import java.util.*;
@@ -9,51 +10,196 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
+/**
+ * The state of one evaluation. The context is not thread-safe, because an evaluation never shares its context.
+ * A copy is a fork that only stores its own changes and reads the rest from the context it was forked from, so the
+ * context must not be changed while a fork is used. The changes of the fork are published with {@link #merge(RollContext)}.
+ */
 public class RollContext {
 
     private final List<String> expressionPrefix = new ArrayList<>();
-    private final Map<String, Roll> currentVariables;
-    private final Map<ExpressionPosition, AtomicInteger> reEvaluationNumber;
+    private final SlotLayout slotLayout;
+    //the variables and counters with a slot in the layout, created on the first write
+    private Roll[] variableSlots;
+    private AtomicInteger[] reEvaluationNumberSlots;
+    private final Map<String, Roll> currentVariables = new HashMap<>();
+    //the counter of existing positions are shared with the forks
+    private final Map<ExpressionPosition, AtomicInteger> reEvaluationNumber = new HashMap<>();
+    private final RollContext parent;
+    private final boolean inheritVariables;
     @Getter
     private final NumberSupplier numberSupplier;
-    private final Map<DieId, RandomElement> randomElements;
+    //the random elements of all built rolls, in the order they were built
+    private final List<LazyRandomElements> randomElementLog = new ArrayList<>();
+    //the index in the log of the last random elements that contain all die ids of the key
+    private final Map<LazyRandomElements, Integer> replacedInLog = new IdentityHashMap<>();
+    /**
+     * If false, only the result values are needed and the random elements are not collected
+     */
+    @Getter
+    private final boolean trackProvenance;
+    //the dictionary of the tags and colors of the evaluator, shared with the forks
+    @Getter(AccessLevel.PACKAGE)
+    private final TagDictionary tagDictionary;
 
     public RollContext(NumberSupplier numberSupplier) {
-        this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), numberSupplier, new ConcurrentHashMap<>());
+        this(numberSupplier, true);
+    }
+
+    public RollContext(NumberSupplier numberSupplier, boolean trackProvenance) {
+        this(numberSupplier, trackProvenance, SlotLayout.EMPTY, new TagDictionary());
+    }
+
+    RollContext(NumberSupplier numberSupplier, boolean trackProvenance, SlotLayout slotLayout, TagDictionary tagDictionary) {
+        this(null, false, numberSupplier, trackProvenance, slotLayout, tagDictionary);
     }
 
-    private RollContext(Map<String, Roll> variables, Map<ExpressionPosition, AtomicInteger> reEvaluationNumber, NumberSupplier numberSupplier, Map<DieId, RandomElement> randomElements) {
-        this.currentVariables = variables;
-        this.reEvaluationNumber = reEvaluationNumber;
+    private RollContext(RollContext parent, boolean inheritVariables, NumberSupplier numberSupplier, boolean trackProvenance,
+                        SlotLayout slotLayout, TagDictionary tagDictionary) {
+        this.parent = parent;
+        this.inheritVariables = inheritVariables;
         this.numberSupplier = numberSupplier;
-        this.randomElements = randomElements;
+        this.trackProvenance = trackProvenance;
+        this.slotLayout = slotLayout;
+        this.tagDictionary = tagDictionary;
     }
 
     public int getNextReEvaluationNumber(ExpressionPosition expressionPosition) {
-        return reEvaluationNumber.computeIfAbsent(expressionPosition, s -> new AtomicInteger(0)).getAndIncrement();
+        final int slot = slotLayout.getCounterSlot(expressionPosition);
+        if (slot != SlotLayout.NO_SLOT) {
+            return getNextReEvaluationNumber(slot);
+        }
+        AtomicInteger number = getReEvaluationNumber(expressionPosition);
+        if (number == null) {
+            number = new AtomicInteger(0);
+            reEvaluationNumber.put(expressionPosition, number);
+        }
+        return number.getAndIncrement();
+    }
+
+    /**
+     * @param counterSlot the counter slot of the node, if the layout of this context has no such slot the position is used
+     */
+    int getNextReEvaluationNumber(int counterSlot, ExpressionPosition expressionPosition) {
+        if (counterSlot >= 0 && counterSlot < slotLayout.getCounterCount()) {
+            return getNextReEvaluationNumber(counterSlot);
+        }
+        return getNextReEvaluationNumber(expressionPosition);
+    }
+
+    private int getNextReEvaluationNumber(int slot) {
+        RollContext context = this;
+        while (context != null) {
+            if (context.reEvaluationNumberSlots != null && context.reEvaluationNumberSlots[slot] != null) {
+                return context.reEvaluationNumberSlots[slot].getAndIncrement();
+            }
+            context = context.parent;
+        }
+        if (reEvaluationNumberSlots == null) {
+            reEvaluationNumberSlots = new AtomicInteger[slotLayout.getCounterCount()];
+        }
+        reEvaluationNumberSlots[slot] = new AtomicInteger(1);
+        return 0;
+    }
+
+    private AtomicInteger getReEvaluationNumber(ExpressionPosition expressionPosition) {
+        RollContext context = this;
+        while (context != null) {
+            AtomicInteger number = context.reEvaluationNumber.get(expressionPosition);
+            if (number != null) {
+                return number;
+            }
+            context = context.parent;
+        }
+        return null;
     }
 
     public RollContext copy() {
-        return new RollContext(new ConcurrentHashMap<>(currentVariables), new ConcurrentHashMap<>(reEvaluationNumber), numberSupplier, new ConcurrentHashMap<>(randomElements));
+        return new RollContext(this, true, numberSupplier, trackProvenance, slotLayout, tagDictionary);
     }
 
     public RollContext copyWithEmptyVariables() {
-        return new RollContext(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(reEvaluationNumber), numberSupplier, new ConcurrentHashMap<>(randomElements));
+        return new RollContext(this, false, numberSupplier, trackProvenance, slotLayout, tagDictionary);
     }
 
+    /**
+     * Adds the variables, re-evaluation numbers and expression prefixes of the fork to this context.
+     */
     public void merge(RollContext rollContext) {
         this.currentVariables.putAll(rollContext.currentVariables);
         this.reEvaluationNumber.putAll(rollContext.reEvaluationNumber);
         this.expressionPrefix.addAll(rollContext.expressionPrefix);
+        if (rollContext.variableSlots != null) {
+            for (int i = 0; i < rollContext.variableSlots.length; i++) {
+                if (rollContext.variableSlots[i] != null) {
+                    putVariable(i, rollContext.variableSlots[i]);
+                }
+            }
+        }
+        if (rollContext.reEvaluationNumberSlots != null) {
+            if (reEvaluationNumberSlots == null) {
+                reEvaluationNumberSlots = new AtomicInteger[slotLayout.getCounterCount()];
+            }
+            for (int i = 0; i < rollContext.reEvaluationNumberSlots.length; i++) {
+                if (rollContext.reEvaluationNumberSlots[i] != null) {
+                    reEvaluationNumberSlots[i] = rollContext.reEvaluationNumberSlots[i];
+                }
+            }
+        }
     }
 
     public void putVariable(String name, Roll roll) {
         this.expressionPrefix.add(roll.getExpression());
-        this.currentVariables.put(name, roll);
+        final int slot = slotLayout.getVariableSlot(name);
+        if (slot != SlotLayout.NO_SLOT) {
+            putVariable(slot, roll);
+        } else {
+            this.currentVariables.put(name, roll);
+        }
+    }
+
+    private void putVariable(int slot, Roll roll) {
+        if (variableSlots == null) {
+            variableSlots = new Roll[slotLayout.getVariableCount()];
+        }
+        variableSlots[slot] = roll;
     }
 
     public Optional<Roll> getVariable(String name) {
-        return Optional.ofNullable(this.currentVariables.get(name));
+        final int slot = slotLayout.getVariableSlot(name);
+        if (slot != SlotLayout.NO_SLOT) {
+            return getVariable(slot);
+        }
+        RollContext context = this;
+        while (context != null) {
+            Roll roll = context.currentVariables.get(name);
+            if (roll != null) {
+                return Optional.of(roll);
+            }
+            context = context.inheritVariables ? context.parent : null;
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @param slot the slot of the variable node, if the layout of this context has no such slot the name is used
+     */
+    Optional<Roll> getVariable(int slot, String name) {
+        if (slot >= 0 && slot < slotLayout.getVariableCount()) {
+            return getVariable(slot);
+        }
+        return getVariable(name);
+    }
+
+    private Optional<Roll> getVariable(int slot) {
+        RollContext context = this;
+        while (context != null) {
+            if (context.variableSlots != null && context.variableSlots[slot] != null) {
+                return Optional.of(context.variableSlots[slot]);
+            }
+            context = context.inheritVariables ? context.parent : null;
+        }
+        return Optional.empty();
     }
 
     public Optional<String> getExpressionPrefixString() {
@@ -63,14 +209,50 @@ public class RollContext {
         return Optional.of(String.join(", ", expressionPrefix));
     }
 
+    /**
+     * Only the random elements of the root context are part of the result, copies start with an empty log.
+     */
     public void addRandomElements(List<RandomElement> uniqueList) {
-        uniqueList.forEach(r -> randomElements.put(r.getDieId(), r));
+        addRandomElements(LazyRandomElements.of(uniqueList), List.of());
+    }
+
+    /**
+     * @param replacedRandomElements random elements that where added before and whose die ids are all contained in the
+     *                               random elements
+     */
+    void addRandomElements(LazyRandomElements randomElements, List<LazyRandomElements> replacedRandomElements) {
+        if (!trackProvenance) {
+            return;
+        }
+        final int index = randomElementLog.size();
+        randomElementLog.add(randomElements);
+        for (LazyRandomElements replaced : replacedRandomElements) {
+            if (replaced != randomElements) {
+                replacedInLog.put(replaced, index);
+            }
+        }
     }
 
     public ImmutableList<RandomElement> getAllRandomElements() {
+        //random elements that are replaced by later ones in the log can be skipped, because the later ones overwrite all their die ids
+        List<RandomElement> all = new ArrayList<>();
+        for (int i = 0; i < randomElementLog.size(); i++) {
+            final Integer replacedAt = replacedInLog.get(randomElementLog.get(i));
+            if (replacedAt == null || replacedAt < i) {
+                all.addAll(randomElementLog.get(i).get());
+            }
+        }
+        return RandomElementsBuilder.uniqueAndSorted(all).orElseGet(this::getAllRandomElementsByHash);
+    }
+
+    private ImmutableList<RandomElement> getAllRandomElementsByHash() {
+        List<RandomElement> all = new ArrayList<>();
+        randomElementLog.forEach(l -> all.addAll(l.get()));
+        Map<DieId, RandomElement> randomElements = new ConcurrentHashMap<>();
+        all.forEach(r -> randomElements.put(r.getDieId(), r));
         return randomElements.values().stream()
                 .sorted(Comparator.comparing(RandomElement::getDieId))
                 .collect(ImmutableList.toImmutableList());
     }
 
-}
\ No newline at end of file
+}
@@ -1,52 +1,274 @@
 package de.janno.evaluator.dice;
 
 import com.google.common.base.Strings;
-import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
-import lombok.Value;
+import lombok.*;
+import lombok.experimental.NonFinal;
 
 import java.math.BigDecimal;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Value
-@RequiredArgsConstructor
 public class RollElement implements Comparable<RollElement> {
     public static final String NO_TAG = "";
     public static final String NO_COLOR = "";
+    private static final Optional<Boolean> TRUE = Optional.of(true);
+    private static final Optional<Boolean> FALSE = Optional.of(false);
+    //elements with larger tag ids are grouped by the tag name, so the buckets stay small
+    private static final int MAX_BUCKET_ID = 1024;
     @NonNull
     String value;
-    @NonNull
-    String tag;
-    @NonNull
-    String color;
+    /**
+     * The type of the value, it is parsed once when the element is created.
+     */
+    ValueType valueType;
+    //the value for INTEGER and LONG
+    @Getter(AccessLevel.PACKAGE)
+    long longValue;
+    //the value for all numbers, for INTEGER and LONG it is created on the first use
+    @Getter(AccessLevel.NONE)
+    @NonFinal
+    Optional<BigDecimal> decimalValue;
+    @Getter(AccessLevel.NONE)
+    int hash;
+    //the tag and color are ids in the dictionary, elements without tag and color use the empty dictionary
+    @Getter(AccessLevel.NONE)
+    TagDictionary tagDictionary;
+    @Getter(AccessLevel.NONE)
+    int tagId;
+    @Getter(AccessLevel.NONE)
+    int colorId;
+
+    /**
+     * Prefer {@link #of(String, String, String)}, it reuses the elements for common values. The element has its own
+     * tag dictionary, inside an evaluation the elements are created with the {@link RollContext}, see
+     * {@link #withTag(String, RollContext)}.
+     */
+    public RollElement(@NonNull String value, @NonNull String tag, @NonNull String color) {
+        this(value, tag.isEmpty() && color.isEmpty() ? TagDictionary.EMPTY : TagDictionary.of(tag, color), tag, color);
+    }
+
+    private RollElement(String value, TagDictionary tagDictionary, String tag, String color) {
+        this(value, tagDictionary, tagDictionary.encode(tag), tagDictionary.encode(color));
+    }
 
+    private RollElement(String value, TagDictionary tagDictionary, int tagId, int colorId) {
+        this.value = value;
+        this.tagDictionary = tagDictionary;
+        this.tagId = tagId;
+        this.colorId = colorId;
+        this.hash = hash(value, tagDictionary.decode(tagId), tagDictionary.decode(colorId));
+        long parsedLong = 0;
+        BigDecimal parsedDecimal = null;
+        ValueType parsedType = ValueType.TEXT;
+        if (value.equals("true") || value.equals("false")) {
+            parsedType = ValueType.BOOLEAN;
+        } else if (mayBeNumber(value)) {
+            try {
+                parsedLong = Long.parseLong(value);
+                parsedType = parsedLong == (int) parsedLong ? ValueType.INTEGER : ValueType.LONG;
+            } catch (NumberFormatException e) {
+                try {
+                    parsedDecimal = new BigDecimal(value);
+                    parsedType = ValueType.DECIMAL;
+                } catch (NumberFormatException ignore) {
+                    //text
+                }
+            }
+        }
+        this.valueType = parsedType;
+        this.longValue = parsedLong;
+        this.decimalValue = parsedType == ValueType.INTEGER || parsedType == ValueType.LONG ? null : Optional.ofNullable(parsedDecimal);
+    }
+
+    //the value of the source is already parsed
+    private RollElement(RollElement source, TagDictionary tagDictionary, int tagId, int colorId) {
+        this.value = source.value;
+        this.tagDictionary = tagDictionary;
+        this.tagId = tagId;
+        this.colorId = colorId;
+        this.hash = hash(value, tagDictionary.decode(tagId), tagDictionary.decode(colorId));
+        this.valueType = source.valueType;
+        this.longValue = source.longValue;
+        this.decimalValue = source.decimalValue;
+    }
+
+    //for the elements of the flyweight table, the value is already parsed
+    private RollElement(String value, ValueType valueType, long longValue) {
+        this.value = value;
+        this.tagDictionary = TagDictionary.EMPTY;
+        this.tagId = TagDictionary.EMPTY_ID;
+        this.colorId = TagDictionary.EMPTY_ID;
+        this.hash = hash(value, NO_TAG, NO_COLOR);
+        this.valueType = valueType;
+        this.longValue = longValue;
+        this.decimalValue = valueType == ValueType.BOOLEAN ? Optional.empty() : Optional.of(BigDecimal.valueOf(longValue));
+    }
+
+    /**
+     * Returns an element with the value, tag and color. Untagged and uncolored integers in the range of the flyweight
+     * table and booleans are shared instances.
+     */
+    public static @NonNull RollElement of(@NonNull String value, @NonNull String tag, @NonNull String color) {
+        if (tag.isEmpty() && color.isEmpty()) {
+            RollElement flyweight = Flyweights.get(value);
+            if (flyweight != null) {
+                return flyweight;
+            }
+        }
+        return new RollElement(value, tag, color);
+    }
+
+    private static RollElement of(String value, TagDictionary tagDictionary, int tagId, int colorId) {
+        if (tagId == TagDictionary.EMPTY_ID && colorId == TagDictionary.EMPTY_ID) {
+            RollElement flyweight = Flyweights.get(value);
+            if (flyweight != null) {
+                return flyweight;
+            }
+            return new RollElement(value, TagDictionary.EMPTY, tagId, colorId);
+        }
+        return new RollElement(value, tagDictionary, tagId, colorId);
+    }
+
+    /**
+     * Returns an untagged and uncolored element with the integer as value.
+     */
+    public static @NonNull RollElement ofInteger(long value) {
+        if (value >= Flyweights.LOW && value <= Flyweights.HIGH) {
+            return Flyweights.INTEGERS[(int) (value - Flyweights.LOW)];
+        }
+        return new RollElement(Long.toString(value), value == (int) value ? ValueType.INTEGER : ValueType.LONG, value);
+    }
+
+    /**
+     * Returns the untagged and uncolored element 'true' or 'false'.
+     */
+    public static @NonNull RollElement ofBoolean(boolean value) {
+        return value ? Flyweights.TRUE_ELEMENT : Flyweights.FALSE_ELEMENT;
+    }
+
+    /**
+     * Returns an element with the value and the tag and color of this element.
+     */
+    public @NonNull RollElement withValue(@NonNull String value) {
+        return of(value, tagDictionary, tagId, colorId);
+    }
+
+    /**
+     * Returns an element with the value and the tag of this element but without color.
+     */
+    public @NonNull RollElement withValueAndNoColor(@NonNull String value) {
+        return of(value, tagDictionary, tagId, TagDictionary.EMPTY_ID);
+    }
+
+    /**
+     * Returns an element with the value and color of this element and the tag. The tag is encoded in the dictionary
+     * of the evaluation.
+     */
+    public @NonNull RollElement withTag(@NonNull String tag, @NonNull RollContext rollContext) {
+        final TagDictionary target = rollContext.getTagDictionary();
+        return with(target, target.encode(tag), idIn(target, colorId));
+    }
+
+    /**
+     * Returns an element with the value and tag of this element and the color. The color is encoded in the dictionary
+     * of the evaluation.
+     */
+    public @NonNull RollElement withColor(@NonNull String color, @NonNull RollContext rollContext) {
+        final TagDictionary target = rollContext.getTagDictionary();
+        return with(target, idIn(target, tagId), target.encode(color));
+    }
+
+    private RollElement with(TagDictionary target, int newTagId, int newColorId) {
+        if (newTagId == TagDictionary.EMPTY_ID && newColorId == TagDictionary.EMPTY_ID) {
+            if (tagId == TagDictionary.EMPTY_ID && colorId == TagDictionary.EMPTY_ID) {
+                return this;
+            }
+            return of(value, TagDictionary.EMPTY, newTagId, newColorId);
+        }
+        return new RollElement(this, target, newTagId, newColorId);
+    }
+
+    //the id of the name of this element in the other dictionary
+    private int idIn(TagDictionary target, int id) {
+        if (id == TagDictionary.EMPTY_ID || tagDictionary == target) {
+            return id;
+        }
+        return target.encode(tagDictionary.decode(id));
+    }
+
+    public @NonNull String getTag() {
+        return tagDictionary.decode(tagId);
+    }
+
+    public @NonNull String getColor() {
+        return tagDictionary.decode(colorId);
+    }
+
+    private static int hash(String value, String tag, String color) {
+        return 31 * (31 * value.hashCode() + tag.hashCode()) + color.hashCode();
+    }
+
+    /**
+     * Quick check for characters that can be part of a number, to avoid the exception for parsing text.
+     */
+    private static boolean mayBeNumber(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!(Character.isDigit(c) || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E')) {
+                return false;
+            }
+        }
+        return true;
+    }
 
     public Optional<Integer> asInteger() {
-        try {
-            return Optional.of(Integer.parseInt(value));
-        } catch (NumberFormatException e) {
-            return Optional.empty();
+        if (valueType == ValueType.INTEGER) {
+            return Optional.of((int) longValue);
         }
+        return Optional.empty();
     }
 
+    public Optional<Long> asLong() {
+        if (valueType == ValueType.INTEGER || valueType == ValueType.LONG) {
+            return Optional.of(longValue);
+        }
+        return Optional.empty();
+    }
 
     public Optional<BigDecimal> asDecimal() {
-        try {
-            return Optional.of(new BigDecimal(value));
-        } catch (NumberFormatException e) {
-            return Optional.empty();
+        Optional<BigDecimal> decimal = decimalValue;
+        if (decimal == null) {
+            //can be created concurrently, the result is always equal
+            decimal = Optional.of(BigDecimal.valueOf(longValue));
+            decimalValue = decimal;
         }
+        return decimal;
+    }
+
+    /**
+     * If the value is a number, integer or decimal
+     */
+    public boolean isDecimal() {
+        return valueType != ValueType.TEXT && valueType != ValueType.BOOLEAN;
     }
 
     public Optional<Boolean> asBoolean() {
-        if (value.equals(String.valueOf(true)) || value.equals("1")) {
-            return Optional.of(true);
+        if (valueType == ValueType.BOOLEAN) {
+            return value.equals("true") ? TRUE : FALSE;
         }
-        if (value.equals(String.valueOf(false)) || value.equals("0")) {
-            return Optional.of(false);
+        if (valueType == ValueType.INTEGER && value.length() == 1) {
+            if (longValue == 1) {
+                return TRUE;
+            }
+            if (longValue == 0) {
+                return FALSE;
+            }
         }
         return Optional.empty();
     }
@@ -54,31 +276,250 @@ public class RollElement implements Comparable<RollElement> {
     @Override
     //the color is not used for compare
     public int compareTo(@NonNull RollElement rollElement) {
-        if (!this.getTag().equals(rollElement.getTag())) {
+        if (!hasSameTag(rollElement)) {
             return this.getTag().compareTo(rollElement.getTag());
         }
-        if (asInteger().isPresent() && rollElement.asInteger().isPresent()) {
-            return asInteger().get().compareTo(rollElement.asInteger().get());
+        if (valueType == ValueType.INTEGER && rollElement.valueType == ValueType.INTEGER) {
+            return Long.compare(longValue, rollElement.longValue);
         }
         return this.getValue().compareTo(rollElement.getValue());
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RollElement that)) {
+            return false;
+        }
+        return hash == that.hash && value.equals(that.value) && hasSameTag(that) && isSameName(colorId, that, that.colorId);
+    }
+
+    public boolean hasSameTag(@NonNull RollElement rollElement) {
+        return isSameName(tagId, rollElement, rollElement.tagId);
+    }
+
+    private boolean isSameName(int id, RollElement other, int otherId) {
+        //the empty name has the same id in all dictionaries and is the only name with this id
+        if (tagDictionary == other.tagDictionary || id == TagDictionary.EMPTY_ID || otherId == TagDictionary.EMPTY_ID) {
+            return id == otherId;
+        }
+        return tagDictionary.decode(id).equals(other.tagDictionary.decode(otherId));
+    }
+
+    /**
+     * Groups the elements by their tag, the elements keep their order in each group. The groups are in the same order
+     * as in a {@link HashMap} with the tag as key, like with
+     * {@link java.util.stream.Collectors#groupingBy(java.util.function.Function)}.
+     */
+    public static @NonNull List<List<RollElement>> groupByTag(@NonNull List<RollElement> elements) {
+        final TagDictionary tagDictionary = getBucketDictionary(elements);
+        final List<List<RollElement>> groups;
+        if (tagDictionary == TagDictionary.EMPTY) {
+            return elements.isEmpty() ? List.of() : List.of(elements);
+        } else if (tagDictionary != null) {
+            groups = new ArrayList<>();
+            //the index of the group of each tag id plus one
+            final int[] groupOfTag = new int[getMaxTagId(elements) + 1];
+            for (RollElement element : elements) {
+                int group = groupOfTag[element.tagId];
+                if (group == 0) {
+                    groups.add(new ArrayList<>());
+                    group = groups.size();
+                    groupOfTag[element.tagId] = group;
+                }
+                groups.get(group - 1).add(element);
+            }
+        } else {
+            groups = new ArrayList<>(elements.stream()
+                    .collect(Collectors.groupingBy(RollElement::getTag, LinkedHashMap::new, Collectors.toList()))
+                    .values());
+        }
+        if (groups.size() == 1) {
+            return List.of(elements);
+        }
+        return inHashMapOrder(groups, g -> g.getFirst().getTag().hashCode());
+    }
+
+    /**
+     * Groups the elements by their value and tag, the elements keep their order in each group. The groups are in the
+     * same order as in a {@link HashMap} with a key of value and tag that has the hash
+     * {@code 59 * (59 + value.hashCode()) + tag.hashCode()}, like a lombok value of the value and tag.
+     */
+    public static @NonNull List<List<RollElement>> groupByValueAndTag(@NonNull List<RollElement> elements) {
+        final List<List<RollElement>> groups = new ArrayList<>();
+        final TagDictionary tagDictionary = getBucketDictionary(elements);
+        if (tagDictionary != null) {
+            //a map of the values for each tag id
+            @SuppressWarnings("unchecked")
+            final Map<String, List<RollElement>>[] groupsOfTag = (Map<String, List<RollElement>>[]) new Map<?, ?>[getMaxTagId(elements) + 1];
+            for (RollElement element : elements) {
+                Map<String, List<RollElement>> valueGroups = groupsOfTag[element.tagId];
+                if (valueGroups == null) {
+                    valueGroups = new HashMap<>();
+                    groupsOfTag[element.tagId] = valueGroups;
+                }
+                valueGroups.computeIfAbsent(element.value, v -> {
+                    List<RollElement> group = new ArrayList<>();
+                    groups.add(group);
+                    return group;
+                }).add(element);
+            }
+        } else {
+            groups.addAll(elements.stream()
+                    .collect(Collectors.groupingBy(e -> List.of(e.getValue(), e.getTag()), LinkedHashMap::new, Collectors.toList()))
+                    .values());
+        }
+        return inHashMapOrder(groups, g -> 59 * (59 + g.getFirst().getValue().hashCode()) + g.getFirst().getTag().hashCode());
+    }
+
+    /**
+     * The dictionary of all tagged elements, {@link TagDictionary#EMPTY} if no element has a tag or null if the tags are
+     * from different dictionaries or the ids are too large for the buckets.
+     */
+    private static TagDictionary getBucketDictionary(List<RollElement> elements) {
+        TagDictionary tagDictionary = TagDictionary.EMPTY;
+        for (RollElement element : elements) {
+            if (element.tagId != TagDictionary.EMPTY_ID) {
+                if (element.tagId >= MAX_BUCKET_ID) {
+                    return null;
+                }
+                if (tagDictionary == TagDictionary.EMPTY) {
+                    tagDictionary = element.tagDictionary;
+                } else if (tagDictionary != element.tagDictionary) {
+                    return null;
+                }
+            }
+        }
+        return tagDictionary;
+    }
+
+    private static int getMaxTagId(List<RollElement> elements) {
+        int max = 0;
+        for (RollElement element : elements) {
+            max = Math.max(max, element.tagId);
+        }
+        return max;
+    }
+
+    /**
+     * Orders the groups, which are in the order of their first element, like the iteration of a {@link HashMap} in
+     * which the keys were inserted in this order with {@link HashMap#computeIfAbsent}: by the bucket of the key hash in
+     * the table and in reverse insertion order inside a bucket, because a new key is added at the head of its bucket.
+     * This is exact as long as no bucket gets 8 keys and is converted into a tree.
+     */
+    private static List<List<RollElement>> inHashMapOrder(List<List<RollElement>> groups, ToIntFunction<List<RollElement>> keyHash) {
+        int tableSize = 16;
+        while (groups.size() > tableSize * 3 / 4) {
+            tableSize *= 2;
+        }
+        final int mask = tableSize - 1;
+        final List<List<RollElement>> ordered = new ArrayList<>(groups.reversed());
+        //the sort is stable, so the groups in one bucket keep the reverse insertion order
+        ordered.sort(Comparator.comparingInt(g -> {
+            final int hash = keyHash.applyAsInt(g);
+            return (hash ^ (hash >>> 16)) & mask;
+        }));
+        return ordered;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
     public boolean isEqualValueAndTag(@NonNull RollElement rollElement) {
-        return Objects.equals(this.getTag(), rollElement.getTag()) &&
+        return hasSameTag(rollElement) &&
                 Objects.equals(rollElement.getValue(), this.getValue());
     }
 
     @Override
     public String toString() {
-        String outputTag = NO_TAG.equals(tag) ? "" : "%s:".formatted(tag);
+        String outputTag = tagId == TagDictionary.EMPTY_ID ? "" : "%s:".formatted(getTag());
         return "%s%s".formatted(outputTag, value);
     }
 
     public String toStringWithColorAndTag() {
-        String outputTag = NO_TAG.equals(tag) ? "" : "t:%s".formatted(tag);
-        String outputColor = NO_COLOR.equals(color) ? "" : "c:%s".formatted(color);
+        String outputTag = tagId == TagDictionary.EMPTY_ID ? "" : "t:%s".formatted(getTag());
+        String outputColor = colorId == TagDictionary.EMPTY_ID ? "" : "c:%s".formatted(getColor());
         return Stream.of(value, outputTag, outputColor)
                 .filter(s -> !Strings.isNullOrEmpty(s))
                 .collect(Collectors.joining("-"));
     }
+
+    public enum ValueType {
+        /**
+         * A number in the range of int
+         */
+        INTEGER,
+        /**
+         * A number in the range of long but not of int
+         */
+        LONG,
+        DECIMAL,
+        /**
+         * 'true' or 'false', the integers '1' and '0' can also be used as boolean
+         */
+        BOOLEAN,
+        TEXT
+    }
+
+    /**
+     * The shared untagged and uncolored elements for integers and booleans. The range of the integers can be configured
+     * with the system properties {@value #LOW_PROPERTY} and {@value #HIGH_PROPERTY}.
+     */
+    private static final class Flyweights {
+        private static final String LOW_PROPERTY = "de.janno.evaluator.dice.RollElement.flyweight.low";
+        private static final String HIGH_PROPERTY = "de.janno.evaluator.dice.RollElement.flyweight.high";
+        private static final int LOW = Integer.getInteger(LOW_PROPERTY, -1000);
+        private static final int HIGH = Math.max(LOW - 1, Integer.getInteger(HIGH_PROPERTY, 10_000));
+        private static final RollElement[] INTEGERS = createIntegers();
+        private static final RollElement TRUE_ELEMENT = new RollElement("true", ValueType.BOOLEAN, 1);
+        private static final RollElement FALSE_ELEMENT = new RollElement("false", ValueType.BOOLEAN, 0);
+
+        private static RollElement[] createIntegers() {
+            RollElement[] integers = new RollElement[HIGH - LOW + 1];
+            for (int i = 0; i < integers.length; i++) {
+                int value = LOW + i;
+                integers[i] = new RollElement(String.valueOf(value), ValueType.INTEGER, value);
+            }
+            return integers;
+        }
+
+        /**
+         * @return the shared element for the value or null if there is none
+         */
+        private static RollElement get(String value) {
+            if (value.equals("true")) {
+                return TRUE_ELEMENT;
+            }
+            if (value.equals("false")) {
+                return FALSE_ELEMENT;
+            }
+            //only the canonical form of an integer, without '+' or leading zeros
+            int length = value.length();
+            if (length == 0 || length > 11) {
+                return null;
+            }
+            boolean negative = value.charAt(0) == '-';
+            int start = negative ? 1 : 0;
+            if (start == length || (value.charAt(start) == '0' && length > start + 1) || (negative && value.charAt(start) == '0')) {
+                return null;
+            }
+            long number = 0;
+            for (int i = start; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+                number = number * 10 + (c - '0');
+            }
+            number = negative ? -number : number;
+            if (number < LOW || number > HIGH) {
+                return null;
+            }
+            return INTEGERS[(int) (number - LOW)];
+        }
+    }
 }
@@ -0,0 +1,39 @@
+package de.janno.evaluator.dice;
+
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An operator or function that only needs the rolls of all its operands or arguments. The rolls are evaluated before,
+ * in the order of the operands, and the operation is applied by the interpreter without an intermediate {@link RollBuilder}.
+ * Operators and functions that need the unevaluated operands, for example to roll them multiple times, override evaluate instead.
+ */
+public interface RollOperation {
+
+    static @NonNull RollBuilder toRollBuilder(@NonNull RollOperation rollOperation, @NonNull List<RollBuilder> operands,
+                                              @NonNull ExpressionPosition expressionPosition, @NonNull String expression) {
+        return new RollBuilder() {
+            @Override
+            public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
+                return rollOperation.apply(RollBuilder.extendAllBuilder(operands, rollContext), rollContext, expressionPosition, expression);
+            }
+
+            @Override
+            public @NonNull String toExpression() {
+                return expression;
+            }
+        };
+    }
+
+    /**
+     * @param rolls              the rolls of all operands or arguments
+     * @param rollContext        the context of the current roll
+     * @param expressionPosition the part of the expression for this operator or function
+     * @param expression         the expression of this operator or function with its operands
+     * @return the result rolls
+     */
+    @NonNull
+    Optional<List<Roll>> apply(@NonNull List<Roll> rolls, @NonNull RollContext rollContext, @NonNull ExpressionPosition expressionPosition, @NonNull String expression) throws ExpressionException;
+}
@@ -16,4 +16,19 @@ public interface Roller {
      */
     @NonNull
     RollResult roll(NumberSupplier numberSupplier) throws ExpressionException;
+
+    /**
+     * Rolls the roller with the default number supplier and only returns the result values. This is faster than
+     * {@link #roll()} because the random elements and the expressions of the rolls are not collected.
+     */
+    default @NonNull ValueResult rollValues() throws ExpressionException {
+        return ValueResult.ofRolls(roll().getRolls());
+    }
+
+    /**
+     * Rolls the roller with the given number supplier and only returns the result values, see {@link #rollValues()}
+     */
+    default @NonNull ValueResult rollValues(NumberSupplier numberSupplier) throws ExpressionException {
+        return ValueResult.ofRolls(roll(numberSupplier).getRolls());
+    }
 }
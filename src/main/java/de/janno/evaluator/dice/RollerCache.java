@@ -0,0 +1,171 @@
+package de.janno.evaluator.dice;
+
+import lombok.NonNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded cache of parsed expressions. The cache is split into segments, each with its own lock and least recently
+ * used eviction, so parallel lookups of different expressions rarely block each other. Invalid expressions are cached
+ * with a time to live and the lookup throws a new exception with the same message and position.
+ */
+final class RollerCache {
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final long invalidExpressionTtlNanos;
+    private final LongSupplier nanoTime;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder invalidExpressionHitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    RollerCache(@NonNull RollerCacheConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    RollerCache(@NonNull RollerCacheConfig config, @NonNull LongSupplier nanoTime) {
+        if (config.getMaximumEntries() < 1 || config.getMaximumWeight() < 1 || config.getConcurrencyLevel() < 1) {
+            throw new IllegalArgumentException("The maximum entries, maximum weight and concurrency level of the cache must be positive");
+        }
+        if (config.getInvalidExpressionTtl().isNegative()) {
+            throw new IllegalArgumentException("The time to live for invalid expressions must not be negative");
+        }
+        //a segment should hold at least one entry
+        int segmentCount = Integer.highestOneBit(Math.min(config.getConcurrencyLevel(), config.getMaximumEntries()));
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(Math.max(1, config.getMaximumEntries() / segmentCount),
+                    Math.max(1, config.getMaximumWeight() / segmentCount));
+        }
+        this.invalidExpressionTtlNanos = config.getInvalidExpressionTtl().toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    private static int weight(String expression) {
+        return Math.max(1, expression.length());
+    }
+
+    /**
+     * Returns the cached roller for the expression or parses it with the parser and caches the result. The parsing is
+     * done without holding a lock, concurrent lookups of the same new expression can parse it more than once.
+     */
+    Roller get(@NonNull String expression, @NonNull Parser parser) throws ExpressionException {
+        Segment segment = segmentFor(expression);
+        Entry entry = segment.get(expression, nanoTime.getAsLong());
+        if (entry != null) {
+            if (entry.roller != null) {
+                hitCount.increment();
+                return entry.roller;
+            }
+            invalidExpressionHitCount.increment();
+            throw new ExpressionException(entry.errorMessage, entry.errorPosition);
+        }
+        missCount.increment();
+        final Roller roller;
+        try {
+            roller = parser.parse(expression);
+        } catch (ExpressionException e) {
+            if (invalidExpressionTtlNanos > 0) {
+                evictionCount.add(segment.put(expression, new Entry(null, e.getMessage(), e.getExpressionPosition(),
+                        nanoTime.getAsLong() + invalidExpressionTtlNanos, weight(expression))));
+            }
+            throw e;
+        }
+        evictionCount.add(segment.put(expression, new Entry(roller, null, null, 0, weight(expression))));
+        return roller;
+    }
+
+    RollerCacheStatistics getStatistics() {
+        long size = 0;
+        long weight = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.entries.size();
+                weight += segment.weight;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return new RollerCacheStatistics(hitCount.sum(), invalidExpressionHitCount.sum(), missCount.sum(), evictionCount.sum(), size, weight);
+    }
+
+    private Segment segmentFor(String expression) {
+        int hash = expression.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & segmentMask];
+    }
+
+    interface Parser {
+        Roller parse(String expression) throws ExpressionException;
+    }
+
+    /**
+     * Either the roller or the error of an invalid expression, only the error expires.
+     */
+    private record Entry(Roller roller, String errorMessage, ExpressionPosition errorPosition, long expiresAtNanos,
+                         int weight) {
+    }
+
+    private static final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        //access order, the first entry is the least recently used
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int maximumEntries;
+        private final long maximumWeight;
+        private long weight = 0;
+
+        private Segment(int maximumEntries, long maximumWeight) {
+            this.maximumEntries = maximumEntries;
+            this.maximumWeight = maximumWeight;
+        }
+
+        private Entry get(String expression, long now) {
+            lock.lock();
+            try {
+                Entry entry = entries.get(expression);
+                if (entry != null && entry.roller == null && entry.expiresAtNanos - now <= 0) {
+                    entries.remove(expression);
+                    weight -= entry.weight;
+                    return null;
+                }
+                return entry;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return the number of evicted entries
+         */
+        private int put(String expression, Entry entry) {
+            if (entry.weight > maximumWeight) {
+                return 0;
+            }
+            lock.lock();
+            try {
+                Entry previous = entries.put(expression, entry);
+                if (previous != null) {
+                    weight -= previous.weight;
+                }
+                weight += entry.weight;
+                int evicted = 0;
+                Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+                while ((entries.size() > maximumEntries || weight > maximumWeight) && iterator.hasNext()) {
+                    Map.Entry<String, Entry> eldest = iterator.next();
+                    iterator.remove();
+                    weight -= eldest.getValue().weight;
+                    evicted++;
+                }
+                return evicted;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package de.janno.evaluator.dice;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the optional cache of parsed expressions in the {@link DiceEvaluator}.
+ */
+@Value
+@Builder(toBuilder = true)
+public class RollerCacheConfig {
+    /**
+     * The maximum number of cached expressions.
+     */
+    @Builder.Default
+    int maximumEntries = 10_000;
+    /**
+     * The maximum sum of the weights of all cached expressions, the weight of an expression is its length.
+     */
+    @Builder.Default
+    long maximumWeight = 1_000_000;
+    /**
+     * The number of independently locked segments of the cache.
+     */
+    @Builder.Default
+    int concurrencyLevel = 16;
+    /**
+     * How long an invalid expression is cached, zero disables the caching of invalid expressions.
+     */
+    @NonNull
+    @Builder.Default
+    Duration invalidExpressionTtl = Duration.ofSeconds(10);
+    /**
+     * After how many rolls a cached roller is compiled into a hidden class. A negative
+     * value disables the compilation, and an expression that can't be compiled stays interpreted.
+     */
+    @Builder.Default
+    int compileAfterRolls = 1000;
+}
@@ -0,0 +1,31 @@
+package de.janno.evaluator.dice;
+
+import lombok.Value;
+
+@Value
+public class RollerCacheStatistics {
+    /**
+     * Number of lookups that returned a cached roller.
+     */
+    long hitCount;
+    /**
+     * Number of lookups that returned a cached invalid expression.
+     */
+    long invalidExpressionHitCount;
+    /**
+     * Number of lookups that needed to parse the expression.
+     */
+    long missCount;
+    /**
+     * Number of entries that were removed because of the entry or weight limit.
+     */
+    long evictionCount;
+    /**
+     * Current number of cached expressions, including invalid expressions.
+     */
+    long size;
+    /**
+     * Current sum of the weights of all cached expressions.
+     */
+    long weight;
+}
@@ -0,0 +1,69 @@
+package de.janno.evaluator.dice;
+
+import lombok.NonNull;
+
+/**
+ * The count, mean and sum of squared deviations of values, updated with Welford's algorithm and merged with the
+ * parallel variant of Chan et al. Not thread-safe, each worker has its own statistics and they are merged after each
+ * batch.
+ */
+final class RunningStatistics {
+    private long count;
+    private double mean;
+    private double squaredDeviations;
+    private boolean onlyZeroAndOne = true;
+
+    void add(double value) {
+        count++;
+        final double delta = value - mean;
+        mean += delta / count;
+        squaredDeviations += delta * (value - mean);
+        onlyZeroAndOne &= value == 0 || value == 1;
+    }
+
+    /**
+     * Adds the value valueCount times, like the merge with statistics of only this value
+     */
+    void add(double value, long valueCount) {
+        final long mergedCount = count + valueCount;
+        final double delta = value - mean;
+        mean += delta * valueCount / mergedCount;
+        squaredDeviations += delta * delta * ((double) count * valueCount / mergedCount);
+        count = mergedCount;
+        onlyZeroAndOne &= value == 0 || value == 1;
+    }
+
+    void merge(@NonNull RunningStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        final long mergedCount = count + other.count;
+        final double delta = other.mean - mean;
+        mean += delta * other.count / mergedCount;
+        squaredDeviations += other.squaredDeviations + delta * delta * ((double) count * other.count / mergedCount);
+        count = mergedCount;
+        onlyZeroAndOne &= other.onlyZeroAndOne;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * The unbiased sample variance, NaN for less than two values
+     */
+    double getVariance() {
+        return count < 2 ? Double.NaN : squaredDeviations / (count - 1);
+    }
+
+    /**
+     * If all values are 0 or 1, like the results of a success check
+     */
+    boolean isOnlyZeroAndOne() {
+        return onlyZeroAndOne;
+    }
+}
@@ -0,0 +1,134 @@
+package de.janno.evaluator.dice;
+
+import com.google.common.collect.ImmutableSortedMap;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * The result of {@link DiceEvaluator#simulate(String, long, int)}. The statistics are over the rolls that gave a
+ * single integer, all other rolls are only counted in {@link #getNumberOfOtherResults()}. The integer results are
+ * counted exactly, only if there are too many distinct results, the further results are kept in a
+ * {@link QuantileSketch}.
+ */
+@Value
+public class SimulationResult {
+    long numberOfRolls;
+    /**
+     * How often each integer result was rolled, sorted by the result. Results that are only in the sketch are missing.
+     */
+    @NonNull
+    ImmutableSortedMap<Long, Long> counts;
+    /**
+     * The number of rolls that did not give a single integer, like a list or a text
+     */
+    long numberOfOtherResults;
+    /**
+     * The integer results that are not in the counts, usually empty
+     */
+    @NonNull
+    @Getter(AccessLevel.NONE)
+    QuantileSketch sketch;
+    /**
+     * The mean and variance of the results in the sketch
+     */
+    @NonNull
+    @Getter(AccessLevel.NONE)
+    RunningStatistics sketchStatistics;
+
+    public long getNumberOfIntegerResults() {
+        return numberOfRolls - numberOfOtherResults;
+    }
+
+    /**
+     * The number of integer results that are not in the counts but only in the sketch
+     */
+    public long getNumberOfSketchedResults() {
+        return sketch.getCount();
+    }
+
+    public OptionalLong getMin() {
+        if (sketch.getCount() > 0) {
+            final long sketchMin = (long) sketch.getQuantile(0);
+            return OptionalLong.of(counts.isEmpty() ? sketchMin : Math.min(counts.firstKey(), sketchMin));
+        }
+        return counts.isEmpty() ? OptionalLong.empty() : OptionalLong.of(counts.firstKey());
+    }
+
+    public OptionalLong getMax() {
+        if (sketch.getCount() > 0) {
+            final long sketchMax = (long) sketch.getQuantile(1);
+            return OptionalLong.of(counts.isEmpty() ? sketchMax : Math.max(counts.lastKey(), sketchMax));
+        }
+        return counts.isEmpty() ? OptionalLong.empty() : OptionalLong.of(counts.lastKey());
+    }
+
+    private RunningStatistics getStatistics() {
+        final RunningStatistics statistics = new RunningStatistics();
+        for (Map.Entry<Long, Long> count : counts.entrySet()) {
+            statistics.add(count.getKey(), count.getValue());
+        }
+        statistics.merge(sketchStatistics);
+        return statistics;
+    }
+
+    /**
+     * The mean of the integer results, NaN if there are none
+     */
+    public double getMean() {
+        return getStatistics().getMean();
+    }
+
+    /**
+     * The population variance of the integer results, NaN if there are none
+     */
+    public double getVariance() {
+        final RunningStatistics statistics = getStatistics();
+        final long count = statistics.getCount();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        return count == 1 ? 0 : statistics.getVariance() * (count - 1) / count;
+    }
+
+    /**
+     * The quantile of the integer results, the result at rank quantile*(n-1) of the sorted results. It is exact if all
+     * results are in the counts, otherwise it is within the relative accuracy of the sketch. NaN if there are none.
+     *
+     * @param quantile between 0 and 1, 0.5 is the median
+     */
+    public double getQuantile(double quantile) {
+        if (!(quantile >= 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("quantile must be between 0 and 1 but was %s".formatted(quantile));
+        }
+        if (sketch.getCount() > 0) {
+            final QuantileSketch allResults = new QuantileSketch(sketch.getRelativeAccuracy());
+            for (Map.Entry<Long, Long> count : counts.entrySet()) {
+                allResults.add(count.getKey(), count.getValue());
+            }
+            allResults.merge(sketch);
+            return allResults.getQuantile(quantile);
+        }
+        final long numberOfResults = counts.values().stream().mapToLong(Long::longValue).sum();
+        final double rank = quantile * (numberOfResults - 1);
+        long seen = 0;
+        for (Map.Entry<Long, Long> count : counts.entrySet()) {
+            seen += count.getValue();
+            if (seen > rank) {
+                return count.getKey();
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * The relative accuracy of the quantiles, if some results are only in the sketch
+     */
+    public double getQuantileRelativeAccuracy() {
+        return sketch.getRelativeAccuracy();
+    }
+}
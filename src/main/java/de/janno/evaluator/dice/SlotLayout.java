@@ -0,0 +1,99 @@
+package de.janno.evaluator.dice;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import lombok.NonNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The slots of the variables and re-evaluation counters of a parsed expression. The slots are assigned once, when the
+ * roller is build, and stored on the nodes, so the {@link RollContext} can read them from arrays without a lookup.
+ * Variable names that are never read and positions of other expressions have no slot.
+ */
+final class SlotLayout {
+    static final int NO_SLOT = -1;
+    static final SlotLayout EMPTY = new SlotLayout(ImmutableMap.of(), ImmutableMap.of());
+
+    private final ImmutableMap<String, Integer> variableSlots;
+    //for the counters that are requested by the position and not by the slot of the node
+    private final ImmutableMap<ExpressionPosition, Integer> counterSlots;
+
+    private SlotLayout(ImmutableMap<String, Integer> variableSlots, ImmutableMap<ExpressionPosition, Integer> counterSlots) {
+        this.variableSlots = variableSlots;
+        this.counterSlots = counterSlots;
+    }
+
+    /**
+     * Assigns the slots to the variable and dice nodes. Dice nodes with the same position share their counter slot.
+     */
+    static @NonNull SlottedNodes assignSlots(@NonNull List<ExpressionNode> nodes) throws ExpressionException {
+        final Map<String, Integer> variableSlots = new HashMap<>();
+        final Map<ExpressionPosition, Integer> counterSlots = new HashMap<>();
+        final ImmutableList<ExpressionNode> slottedNodes = assignSlots(nodes, variableSlots, counterSlots);
+        return new SlottedNodes(slottedNodes, new SlotLayout(ImmutableMap.copyOf(variableSlots), ImmutableMap.copyOf(counterSlots)));
+    }
+
+    private static ImmutableList<ExpressionNode> assignSlots(List<ExpressionNode> nodes, Map<String, Integer> variableSlots,
+                                                             Map<ExpressionPosition, Integer> counterSlots) throws ExpressionException {
+        ImmutableList.Builder<ExpressionNode> builder = ImmutableList.builderWithExpectedSize(nodes.size());
+        for (ExpressionNode node : nodes) {
+            builder.add(assignSlots(node, variableSlots, counterSlots));
+        }
+        return builder.build();
+    }
+
+    //the parents are created again, because the roll builder of an operator or function contains its children
+    private static ExpressionNode assignSlots(ExpressionNode node, Map<String, Integer> variableSlots,
+                                              Map<ExpressionPosition, Integer> counterSlots) throws ExpressionException {
+        return switch (node) {
+            case ExpressionNode.LiteralNode literalNode -> literalNode;
+            case ExpressionNode.VariableNode variableNode -> variableNode.withSlot(getOrAddSlot(variableSlots, variableNode.name()));
+            case ExpressionNode.DiceNode diceNode ->
+                    ExpressionNode.ofOperator(diceNode.operator(), assignSlots(diceNode.operands(), variableSlots, counterSlots),
+                            diceNode.expressionPosition(), getOrAddSlot(counterSlots, diceNode.expressionPosition()));
+            case ExpressionNode.OperatorNode operatorNode ->
+                    ExpressionNode.ofOperator(operatorNode.operator(), assignSlots(operatorNode.operands(), variableSlots, counterSlots),
+                            operatorNode.expressionPosition());
+            case ExpressionNode.FunctionNode functionNode ->
+                    ExpressionNode.ofFunction(functionNode.function(), assignSlots(functionNode.arguments(), variableSlots, counterSlots),
+                            functionNode.expressionPosition());
+        };
+    }
+
+    private static <K> int getOrAddSlot(Map<K, Integer> slots, K key) {
+        Integer slot = slots.get(key);
+        if (slot == null) {
+            slot = slots.size();
+            slots.put(key, slot);
+        }
+        return slot;
+    }
+
+    int getVariableCount() {
+        return variableSlots.size();
+    }
+
+    int getCounterCount() {
+        return counterSlots.size();
+    }
+
+    int getVariableSlot(@NonNull String name) {
+        return variableSlots.getOrDefault(name, NO_SLOT);
+    }
+
+    int getCounterSlot(@NonNull ExpressionPosition expressionPosition) {
+        if (counterSlots.isEmpty()) {
+            return NO_SLOT;
+        }
+        return counterSlots.getOrDefault(expressionPosition, NO_SLOT);
+    }
+
+    /**
+     * The nodes of an expression with their slots and the layout of the slots.
+     */
+    record SlottedNodes(@NonNull ImmutableList<ExpressionNode> nodes, @NonNull SlotLayout slotLayout) {
+    }
+}
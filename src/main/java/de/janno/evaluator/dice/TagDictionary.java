@@ -0,0 +1,104 @@
+package de.janno.evaluator.dice;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes the tags and colors of the roll elements into small int ids. The elements store the ids and are grouped by
+ * them, the names are only read when an element is rendered. Each {@link DiceEvaluator} has its own dictionary, which
+ * is passed to the operators with the {@link RollContext}. The id {@link #EMPTY_ID} is the empty name in every
+ * dictionary, elements with ids of different dictionaries are compared by name.
+ */
+final class TagDictionary {
+    private static final String CAPACITY_PROPERTY = "de.janno.evaluator.dice.TagDictionary.capacity";
+    /**
+     * The number of names after which the evaluator starts a new dictionary, so a flood of names doesn't grow the
+     * dictionary forever. It can be configured with the system property {@value #CAPACITY_PROPERTY}.
+     */
+    static final int DEFAULT_CAPACITY = Integer.getInteger(CAPACITY_PROPERTY, 10_000);
+    static final int EMPTY_ID = 0;
+    /**
+     * The dictionary of the elements without tag and color
+     */
+    static final TagDictionary EMPTY = new TagDictionary(new String[]{""}, null);
+
+    //null for the fixed dictionary of a single element
+    private final Map<String, Integer> ids;
+    //the names by id, the array is replaced when it grows and the slots are written before the id is published
+    private volatile String[] names;
+    private volatile int size;
+
+    TagDictionary() {
+        this(new String[]{"", null, null, null}, new ConcurrentHashMap<>());
+        size = 1;
+    }
+
+    private TagDictionary(String[] names, Map<String, Integer> ids) {
+        this.names = names;
+        this.ids = ids;
+        this.size = names.length;
+    }
+
+    /**
+     * A dictionary for the element with the tag and color that is created without a roll context. The tag has the id
+     * 1 and the color the id 2, or 1 if it is the same name.
+     */
+    static @NonNull TagDictionary of(@NonNull String tag, @NonNull String color) {
+        return new TagDictionary(tag.equals(color) ? new String[]{"", tag} : new String[]{"", tag, color}, null);
+    }
+
+    /**
+     * @return the id of the name, the name is added if it is not in the dictionary
+     */
+    int encode(@NonNull String name) {
+        if (name.isEmpty()) {
+            return EMPTY_ID;
+        }
+        if (ids == null) {
+            return encodeFixed(name);
+        }
+        final Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        return add(name);
+    }
+
+    private int encodeFixed(String name) {
+        final String[] fixedNames = names;
+        for (int i = 1; i < fixedNames.length; i++) {
+            if (fixedNames[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("The name '%s' is not in the dictionary".formatted(name));
+    }
+
+    private synchronized int add(String name) {
+        final Integer existing = ids.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        String[] current = names;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[size] = name;
+        names = current;
+        ids.put(name, size);
+        return size++;
+    }
+
+    @NonNull
+    String decode(int id) {
+        return names[id];
+    }
+
+    boolean isFull(int capacity) {
+        //the empty name is not counted
+        return ids != null && size - 1 > capacity;
+    }
+}
@@ -7,7 +7,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -17,33 +16,31 @@ public class Tokenizer {
     private final static String ALL_NUMBER_REGEX = "\\d+(\\.\\d+)?";
     private final static Pattern SMALL_DECIMAL_PATTERN = Pattern.compile("\\d{1,9}\\.\\d{1,9}");
     private final static Pattern SMALL_INTEGER_PATTERN = Pattern.compile("\\d{1,9}");
-    private final ImmutableList<TokenBuilder> tokenBuilders;
+    private final CaseInsensitiveTrie<ToToken> nameTrie;
+    private final ImmutableList<BracketPair> escapeBrackets;
     private final String escapeCharacter;
-    private final ImmutableList<Pattern> allOperatorAndFunctionNamePatterns;
+    private final AhoCorasickMatcher operatorAndFunctionNameMatcher;
 
     public Tokenizer(Parameters parameters) {
         escapeCharacter = parameters.getEscapeBrackets().stream()
                 .map(BracketPair::toString).collect(Collectors.joining(" or "));
-        ImmutableList.Builder<TokenBuilder> builder = ImmutableList.builder();
+        escapeBrackets = ImmutableList.copyOf(parameters.getEscapeBrackets());
+        nameTrie = new CaseInsensitiveTrie<>();
+        List<String> tokenRegex = new ArrayList<>();
         Stream.concat(parameters.getExpressionBrackets().stream(), parameters.getFunctionBrackets().stream())
                 .distinct() //expression and function brackets are allowed to contain the same elements
                 .forEach(c -> {
-                    builder.add(new TokenBuilder(escapeForRegexAndAddCaseInsensitivity(c.getOpen()), expressionPosition -> Token.openTokenOf(c, expressionPosition), false));
-                    builder.add(new TokenBuilder(escapeForRegexAndAddCaseInsensitivity(c.getClose()), expressionPosition -> Token.closeTokenOf(c, expressionPosition), false));
+                    addName(c.getOpen(), expressionPosition -> Token.openTokenOf(c, expressionPosition), tokenRegex);
+                    addName(c.getClose(), expressionPosition -> Token.closeTokenOf(c, expressionPosition), tokenRegex);
                 });
-        parameters.getFunctions().forEach(function -> builder.add(new TokenBuilder(escapeForRegexAndAddCaseInsensitivity(function.getName()), expressionPosition -> Token.of(function, expressionPosition), false)));
-        parameters.getOperators().forEach(operator -> builder.add(new TokenBuilder(escapeForRegexAndAddCaseInsensitivity(operator.getName()), expressionPosition -> Token.of(operator, expressionPosition), false)));
-        builder.add(new TokenBuilder(escapeForRegexAndAddCaseInsensitivity(parameters.getSeparator()), Token::separator, false));
-        parameters.getEscapeBrackets().forEach(b -> builder.add(new TokenBuilder(buildEscapeBracketsRegex(b), expressionPosition -> Token.of(expressionPosition.getValue().substring(1, expressionPosition.getValue().length() - 1), expressionPosition), true)));
-        builder.add(new TokenBuilder(ALL_NUMBER_REGEX, expressionPosition -> {
-            if (SMALL_INTEGER_PATTERN.matcher(expressionPosition.getValue()).matches() || SMALL_DECIMAL_PATTERN.matcher(expressionPosition.getValue()).matches()) {
-                return Token.of(expressionPosition.getValue(), expressionPosition);
-            }
-            throw new ExpressionException("The number '%s' is too big".formatted(expressionPosition.getValue()), expressionPosition);
-        }, false));
-        tokenBuilders = builder.build();
+        parameters.getFunctions().forEach(function -> addName(function.getName(), expressionPosition -> Token.of(function, expressionPosition), tokenRegex));
+        parameters.getOperators().forEach(operator -> addName(operator.getName(), expressionPosition -> Token.of(operator, expressionPosition), tokenRegex));
+        addName(parameters.getSeparator(), Token::separator, tokenRegex);
+        parameters.getEscapeBrackets().forEach(b -> tokenRegex.add(buildEscapeBracketsRegex(b)));
+        tokenRegex.add(ALL_NUMBER_REGEX);
 
-        List<String> duplicateRegex = tokenBuilders.stream().collect(Collectors.groupingBy(TokenBuilder::regex))
+        //the regex are not used for the matching anymore, but they describe the tokens in the error message
+        List<String> duplicateRegex = tokenRegex.stream().collect(Collectors.groupingBy(r -> r))
                 .entrySet().stream()
                 .filter(e -> e.getValue().size() > 1)
                 .map(Map.Entry::getKey)
@@ -52,11 +49,15 @@ public class Tokenizer {
         if (!duplicateRegex.isEmpty()) {
             throw new IllegalArgumentException("The following regex for tokenizing where used more then once: " + duplicateRegex);
         }
-        allOperatorAndFunctionNamePatterns = Stream.concat(
+        operatorAndFunctionNameMatcher = new AhoCorasickMatcher(Stream.concat(
                         parameters.getOperators().stream().map(Operator::getName),
                         parameters.getFunctions().stream().map(Function::getName))
-                .map(n -> Pattern.compile(escapeForRegexAndAddCaseInsensitivity(n)))
-                .collect(ImmutableList.toImmutableList());
+                .toList());
+    }
+
+    private void addName(String name, ToToken toToken, List<String> tokenRegex) {
+        nameTrie.put(name, toToken);
+        tokenRegex.add(escapeForRegexAndAddCaseInsensitivity(name));
     }
 
     private static String buildEscapeBracketsRegex(BracketPair bracketPair) {
@@ -67,54 +68,36 @@ public class Tokenizer {
         return "(?i)\\Q%s\\E(?-i)".formatted(in);
     }
 
-    private static int countLeadingWhitespaces(String input) {
-        int spaceCount = 0;
-        for (char c : input.toCharArray()) {
-            if (c == ' ') {
-                spaceCount++;
-            } else {
-                break;
-            }
-        }
-        return spaceCount;
-    }
-
     public List<Token> tokenize(final String input) throws ExpressionException {
         List<Token> preTokens = new ArrayList<>();
-        String current = input.trim();
-        //input it trimmed and has never leading spaces
-        int currentPositionWithSpace = 0;
+        //the input is scanned without copying, all positions are relative to the trimmed input
+        final int inputStart = skipTrimmedCharacters(input, 0, input.length());
+        final int inputEnd = trimEnd(input, inputStart, input.length());
+        int cursor = inputStart;
         Optional<Token> currentMatch;
         do {
-            currentMatch = getBestMatch(current, currentPositionWithSpace);
+            currentMatch = getBestMatch(input, cursor, inputEnd, inputStart);
             if (currentMatch.isPresent()) {
                 Token token = currentMatch.get();
                 preTokens.add(token);
-                int matchLength = token.getExpressionPosition().getValue().length();
-                currentPositionWithSpace += matchLength;
-                String substringWithSpace = current.substring(matchLength);
-                currentPositionWithSpace += countLeadingWhitespaces(substringWithSpace);
-                current = substringWithSpace.trim();
+                cursor = skipTrimmedCharacters(input, inputStart + token.getExpressionPosition().getEndExc(), inputEnd);
             }
         } while (currentMatch.isPresent());
-        if (!current.isEmpty()) {
-
-            int nextPositionWithMatch = findNextMatchForErrorMessage(current);
-            String nonMatchingString = current.substring(0, nextPositionWithMatch);
+        if (cursor < inputEnd) {
+            int nextPositionWithMatch = findNextMatchForErrorMessage(input, cursor, inputEnd, inputStart);
+            String nonMatchingString = input.substring(cursor, nextPositionWithMatch);
             throw new ExpressionException("No matching operator for '%s', non-functional text and value names must to be surrounded by %s".formatted(nonMatchingString, escapeCharacter),
-                    ExpressionPosition.of(currentPositionWithSpace, nonMatchingString));
+                    ExpressionPosition.of(cursor - inputStart, nonMatchingString));
         }
 
         return setOperatorType(preTokens);
     }
 
-    private int findNextMatchForErrorMessage(String current) {
-        int i = 0;
-        while (!current.isEmpty()) {
-            i++;
-            current = current.substring(1);
+    private int findNextMatchForErrorMessage(String input, int startInc, int endExc, int inputStart) {
+        int i = startInc + 1;
+        while (i < endExc) {
             try {
-                Optional<Token> match = getBestMatch(current, i);
+                Optional<Token> match = getBestMatch(input, i, endExc, inputStart);
                 if (match.isPresent()) {
                     return i;
                 }
@@ -122,8 +105,9 @@ public class Tokenizer {
                 //next error, we want to return only the current error
                 return i;
             }
+            i++;
         }
-        return i;
+        return endExc;
     }
 
     private List<Token> setOperatorType(List<Token> in) throws ExpressionException {
@@ -217,59 +201,164 @@ public class Tokenizer {
         return Operator.OperatorType.UNARY;
     }
 
-    private Optional<Token> getBestMatch(String input, int position) throws ExpressionException {
-        List<Token> allMatches = getAllMatches(input, position);
+    /**
+     * Finds the longest token in input that starts at startInc, after optional whitespaces, and ends before endExc.
+     * The position of the token is relative to inputStart.
+     */
+    private Optional<Token> getBestMatch(String input, int startInc, int endExc, int inputStart) throws ExpressionException {
+        List<Token> allMatches = getAllMatches(input, startInc, endExc, inputStart);
         int maxLength = allMatches.stream()
                 .map(Token::getExpressionPosition)
-                .map(ExpressionPosition::getValue)
-                .mapToInt(String::length)
+                .mapToInt(ExpressionPosition::getLength)
                 .max()
                 .orElse(0);
         List<Token> maxLengthMatches = allMatches.stream()
-                .filter(m -> m.getExpressionPosition().getValue().length() == maxLength)
+                .filter(m -> m.getExpressionPosition().getLength() == maxLength)
                 .toList();
         if (maxLengthMatches.isEmpty()) {
             return Optional.empty();
         }
         if (maxLengthMatches.size() > 1) {
-            throw new IllegalStateException("More then one operator matched the input %s: %s".formatted(input, maxLengthMatches.stream().map(Token::toString).toList()));
+            throw new IllegalStateException("More then one operator matched the input %s: %s".formatted(input.substring(startInc, endExc), maxLengthMatches.stream().map(Token::toString).toList()));
         }
 
         return Optional.of(maxLengthMatches.getFirst());
     }
 
-    private List<Token> getAllMatches(String input, int position) throws ExpressionException {
+    private List<Token> getAllMatches(String input, int startInc, int endExc, int inputStart) throws ExpressionException {
+        final int start = skipWhitespaces(input, startInc, endExc);
+        if (start >= endExc) {
+            return ImmutableList.of();
+        }
+        final int position = start - inputStart;
         ImmutableList.Builder<Token> matchBuilder = ImmutableList.builder();
-        for (Tokenizer.TokenBuilder tokenBuilder : tokenBuilders) {
-            Optional<Token> firstMatch = getFirstMatch(input, tokenBuilder, position);
-            firstMatch.ifPresent(matchBuilder::add);
+        Optional<CaseInsensitiveTrie.Match<ToToken>> nameMatch = nameTrie.longestMatch(input, start, endExc);
+        if (nameMatch.isPresent()) {
+            ExpressionPosition expressionPosition = ExpressionPosition.ofSource(position, input, start, trimEnd(input, start, nameMatch.get().endExc()));
+            for (ToToken toToken : nameMatch.get().values()) {
+                matchBuilder.add(toToken.apply(expressionPosition));
+            }
+        }
+        for (BracketPair escapeBracket : escapeBrackets) {
+            int escapeEnd = findEscapeEnd(input, start, endExc, escapeBracket);
+            if (escapeEnd != -1) {
+                ExpressionPosition expressionPosition = ExpressionPosition.ofSource(position, input, start, escapeEnd);
+                matchBuilder.add(Token.of(input.substring(start + 1, escapeEnd - 1), expressionPosition));
+            }
+        }
+        int numberEnd = findNumberEnd(input, start, endExc);
+        if (numberEnd != -1) {
+            matchBuilder.add(toNumberToken(ExpressionPosition.ofSource(position, input, start, numberEnd)));
         }
         return matchBuilder.build();
     }
 
-    private Optional<Token> getFirstMatch(String input, TokenBuilder tokenBuilder, int position) throws ExpressionException {
-        Matcher matcher = tokenBuilder.pattern().matcher(input);
-        if (matcher.find()) {
-            String matchGroup = matcher.group().trim();
-            return Optional.of(tokenBuilder.toToken().apply(ExpressionPosition.of(position, matchGroup)));
+    /**
+     * Same as the regex \s
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static int skipWhitespaces(CharSequence input, int startInc, int endExc) {
+        int i = startInc;
+        while (i < endExc && isWhitespace(input.charAt(i))) {
+            i++;
         }
-        return Optional.empty();
+        return i;
     }
 
-    public boolean expressionContainsOperatorOrFunction(String expression) {
-        return allOperatorAndFunctionNamePatterns.stream().anyMatch(p -> p.matcher(expression).find());
+    /**
+     * Skips the characters that are removed by {@link String#trim()}
+     */
+    private static int skipTrimmedCharacters(CharSequence input, int startInc, int endExc) {
+        int i = startInc;
+        while (i < endExc && input.charAt(i) <= ' ') {
+            i++;
+        }
+        return i;
     }
 
-    private interface ToToken {
-        Token apply(ExpressionPosition expressionPosition) throws ExpressionException;
+    /**
+     * Returns the end of the range without the characters that are removed by {@link String#trim()}
+     */
+    private static int trimEnd(CharSequence input, int startInc, int endExc) {
+        int i = endExc;
+        while (i > startInc && input.charAt(i - 1) <= ' ') {
+            i--;
+        }
+        return i;
     }
 
-    private record TokenBuilder(String regex, ToToken toToken, boolean multiLine) {
-        Pattern pattern() {
-            if (multiLine) {
-                return Pattern.compile("^\\s*%s\\s*".formatted(regex), Pattern.DOTALL);
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence input, int startInc, int endExc, String value) {
+        if (startInc + value.length() > endExc) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (CaseInsensitiveTrie.toLowerAscii(input.charAt(startInc + i)) != CaseInsensitiveTrie.toLowerAscii(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the exclusive end of the escaped text, with the first close bracket after the open bracket, or -1 if the input doesn't start with an escaped text
+     */
+    private static int findEscapeEnd(CharSequence input, int startInc, int endExc, BracketPair escapeBracket) {
+        if (!regionMatchesIgnoreCase(input, startInc, endExc, escapeBracket.getOpen())) {
+            return -1;
+        }
+        for (int i = startInc + escapeBracket.getOpen().length(); i < endExc; i++) {
+            if (regionMatchesIgnoreCase(input, i, endExc, escapeBracket.getClose())) {
+                return i + escapeBracket.getClose().length();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the exclusive end of a number like \d+(\.\d+)? or -1 if the input doesn't start with a number
+     */
+    private static int findNumberEnd(CharSequence input, int startInc, int endExc) {
+        int i = startInc;
+        while (i < endExc && isDigit(input.charAt(i))) {
+            i++;
+        }
+        if (i == startInc) {
+            return -1;
+        }
+        if (i + 1 < endExc && input.charAt(i) == '.' && isDigit(input.charAt(i + 1))) {
+            i++;
+            while (i < endExc && isDigit(input.charAt(i))) {
+                i++;
             }
-            return Pattern.compile("^\\s*%s\\s*".formatted(regex));
         }
+        return i;
+    }
+
+    private static Token toNumberToken(ExpressionPosition expressionPosition) throws ExpressionException {
+        if (SMALL_INTEGER_PATTERN.matcher(expressionPosition.getValue()).matches() || SMALL_DECIMAL_PATTERN.matcher(expressionPosition.getValue()).matches()) {
+            return Token.of(expressionPosition.getValue(), expressionPosition);
+        }
+        throw new ExpressionException("The number '%s' is too big".formatted(expressionPosition.getValue()), expressionPosition);
+    }
+
+    public boolean expressionContainsOperatorOrFunction(String expression) {
+        return operatorAndFunctionNameMatcher.containsAny(expression);
+    }
+
+    public List<Boolean> expressionsContainOperatorOrFunction(List<String> expressions) {
+        return expressions.stream()
+                .map(operatorAndFunctionNameMatcher::containsAny)
+                .collect(ImmutableList.toImmutableList());
+    }
+
+    private interface ToToken {
+        Token apply(ExpressionPosition expressionPosition) throws ExpressionException;
     }
 }
@@ -30,7 +30,7 @@ public final class ValidatorUtil {
 
 
     private static String getSumHelp(@NonNull Roll roll) {
-        boolean numberList = roll.getElements().stream().map(RollElement::asInteger).allMatch(Optional::isPresent);
+        boolean numberList = roll.getElements().stream().allMatch(e -> e.getValueType() == RollElement.ValueType.INTEGER);
         return numberList ? ". Try to sum the numbers together like (%s=)".formatted(roll.getExpression()) : "";
     }
 
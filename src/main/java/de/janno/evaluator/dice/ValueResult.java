@@ -0,0 +1,72 @@
+package de.janno.evaluator.dice;
+
+import com.google.common.collect.ImmutableList;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
+
+/**
+ * The result values of a roll, without the expressions, random elements and children rolls of the {@link RollResult}.
+ */
+@Value
+public class ValueResult {
+    /**
+     * The elements of each roll of the expression
+     */
+    @NonNull
+    ImmutableList<ImmutableList<RollElement>> elements;
+
+    static ValueResult ofRolls(@NonNull List<Roll> rolls) {
+        ImmutableList.Builder<ImmutableList<RollElement>> builder = ImmutableList.builderWithExpectedSize(rolls.size());
+        for (Roll roll : rolls) {
+            builder.add(roll.getElements());
+        }
+        return new ValueResult(builder.build());
+    }
+
+    private Optional<RollElement> getSingleElement() {
+        if (elements.size() == 1 && elements.getFirst().size() == 1) {
+            return Optional.of(elements.getFirst().getFirst());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The number, if the expression was reduced to a single integer in the range of long
+     */
+    public OptionalLong asLong() {
+        Optional<RollElement> element = getSingleElement();
+        if (element.isPresent() && (element.get().getValueType() == RollElement.ValueType.INTEGER || element.get().getValueType() == RollElement.ValueType.LONG)) {
+            return OptionalLong.of(element.get().getLongValue());
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * The number, if the expression was reduced to a single number
+     */
+    public Optional<BigDecimal> asDecimal() {
+        return getSingleElement().flatMap(RollElement::asDecimal);
+    }
+
+    /**
+     * The boolean, if the expression was reduced to a single boolean or to 0 or 1
+     */
+    public Optional<Boolean> asBoolean() {
+        return getSingleElement().flatMap(RollElement::asBoolean);
+    }
+
+    /**
+     * The values of each roll, like {@link Roll#getResultString()}
+     */
+    public List<String> getResultStrings() {
+        return elements.stream()
+                .map(e -> e.stream().map(RollElement::toString).collect(Collectors.joining(", ")))
+                .toList();
+    }
+}
@@ -0,0 +1,45 @@
+package de.janno.evaluator.dice.distribution;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import de.janno.evaluator.dice.RollElement;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.List;
+
+/**
+ * The exact distribution of the result of an expression. An outcome is the sorted list of the result elements, the
+ * order in which the elements were rolled is not part of the outcome.
+ */
+@Value
+public class Distribution {
+    /**
+     * The number of ways to get each outcome, the outcomes are sorted.
+     */
+    @NonNull
+    ImmutableMap<ImmutableList<RollElement>, BigInteger> weights;
+    /**
+     * The sum of all weights
+     */
+    @NonNull
+    BigInteger totalWeight;
+
+    /**
+     * The probability of the outcome, the order of the elements doesn't matter.
+     */
+    public @NonNull BigDecimal getProbability(@NonNull List<RollElement> outcome, @NonNull MathContext mathContext) {
+        final BigInteger weight = weights.getOrDefault(Outcomes.canonical(outcome), BigInteger.ZERO);
+        return new BigDecimal(weight).divide(new BigDecimal(totalWeight), mathContext);
+    }
+
+    /**
+     * The probability of the outcome, the order of the elements doesn't matter.
+     */
+    public double getProbability(@NonNull List<RollElement> outcome) {
+        return getProbability(outcome, MathContext.DECIMAL64).doubleValue();
+    }
+}
@@ -0,0 +1,63 @@
+package de.janno.evaluator.dice.distribution;
+
+import de.janno.evaluator.dice.DiceEvaluator;
+import de.janno.evaluator.dice.ExpressionException;
+import de.janno.evaluator.dice.ExpressionNode;
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Calculates the exact distribution of an expression from its parsed tree, without rolling it. Supported are regular,
+ * custom and exploding dice, the list operators (+, -, sum, count, keep highest/lowest and the filters), the math and
+ * bool operators on single elements and if. Exploding dice explode at most maxNumberOfExplosions times.
+ */
+public class DistributionCalculator {
+    private static final int DEFAULT_MAX_NUMBER_OF_EXPLOSIONS = 10;
+    private static final int DEFAULT_MAX_NUMBER_OF_OUTCOMES = 100_000;
+
+    private final DiceEvaluator diceEvaluator;
+    private final int maxNumberOfExplosions;
+    private final int maxNumberOfOutcomes;
+
+    public DistributionCalculator(@NonNull DiceEvaluator diceEvaluator) {
+        this(diceEvaluator, DEFAULT_MAX_NUMBER_OF_EXPLOSIONS, DEFAULT_MAX_NUMBER_OF_OUTCOMES);
+    }
+
+    /**
+     * @param maxNumberOfExplosions how often an exploding die explodes at most, the roll after the last explosion is kept
+     * @param maxNumberOfOutcomes   the max number of different outcomes of a part of the expression, if there are more
+     *                              the expression is unsupported
+     */
+    public DistributionCalculator(@NonNull DiceEvaluator diceEvaluator, int maxNumberOfExplosions, int maxNumberOfOutcomes) {
+        if (maxNumberOfExplosions < 0) {
+            throw new IllegalArgumentException("maxNumberOfExplosions must be zero or positive but was %d".formatted(maxNumberOfExplosions));
+        }
+        if (maxNumberOfOutcomes < 1) {
+            throw new IllegalArgumentException("maxNumberOfOutcomes must be positive but was %d".formatted(maxNumberOfOutcomes));
+        }
+        this.diceEvaluator = diceEvaluator;
+        this.maxNumberOfExplosions = maxNumberOfExplosions;
+        this.maxNumberOfOutcomes = maxNumberOfOutcomes;
+    }
+
+    /**
+     * Calculates the distribution of the expression.
+     *
+     * @return the distribution or empty if the expression is unsupported, has not exactly one result roll, has too
+     * many outcomes or can fail on roll
+     * @throws ExpressionException if the expression is not correct.
+     */
+    public Optional<Distribution> calculate(@NonNull String expression) throws ExpressionException {
+        final List<ExpressionNode> nodes = diceEvaluator.parseExpressionTree(expression);
+        if (nodes.size() != 1) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new TreeEvaluator(maxNumberOfExplosions, maxNumberOfOutcomes).evaluate(nodes.getFirst()).toDistribution());
+        } catch (UnsupportedExpressionException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package de.janno.evaluator.dice.distribution;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import de.janno.evaluator.dice.RollElement;
+import lombok.NonNull;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * The exact distribution of one list of elements, each outcome is sorted and has the number of ways it can occur as
+ * weight.
+ */
+final class Outcomes {
+    private static final Comparator<RollElement> ELEMENT_ORDER = Comparator.<RollElement>naturalOrder().thenComparing(RollElement::getColor);
+    private static final Comparator<List<RollElement>> OUTCOME_ORDER = (left, right) -> {
+        for (int i = 0; i < Math.min(left.size(), right.size()); i++) {
+            final int compare = ELEMENT_ORDER.compare(left.get(i), right.get(i));
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return Integer.compare(left.size(), right.size());
+    };
+    static final Outcomes EMPTY = constant(ImmutableList.of());
+
+    private final Map<ImmutableList<RollElement>, BigInteger> weights;
+    private final BigInteger total;
+
+    private Outcomes(Map<ImmutableList<RollElement>, BigInteger> weights, BigInteger total) {
+        this.weights = weights;
+        this.total = total;
+    }
+
+    static @NonNull ImmutableList<RollElement> canonical(@NonNull List<RollElement> elements) {
+        for (int i = 1; i < elements.size(); i++) {
+            if (ELEMENT_ORDER.compare(elements.get(i - 1), elements.get(i)) > 0) {
+                return elements.stream().sorted(ELEMENT_ORDER).collect(ImmutableList.toImmutableList());
+            }
+        }
+        return ImmutableList.copyOf(elements);
+    }
+
+    /**
+     * Merges two sorted outcomes into one sorted outcome.
+     */
+    static @NonNull ImmutableList<RollElement> concat(@NonNull ImmutableList<RollElement> left, @NonNull ImmutableList<RollElement> right) {
+        if (left.isEmpty()) {
+            return right;
+        }
+        if (right.isEmpty()) {
+            return left;
+        }
+        final ImmutableList.Builder<RollElement> builder = ImmutableList.builderWithExpectedSize(left.size() + right.size());
+        int l = 0;
+        int r = 0;
+        while (l < left.size() && r < right.size()) {
+            if (ELEMENT_ORDER.compare(left.get(l), right.get(r)) <= 0) {
+                builder.add(left.get(l++));
+            } else {
+                builder.add(right.get(r++));
+            }
+        }
+        builder.addAll(left.subList(l, left.size()));
+        builder.addAll(right.subList(r, right.size()));
+        return builder.build();
+    }
+
+    static @NonNull Outcomes constant(@NonNull List<RollElement> elements) {
+        return new Outcomes(Map.of(canonical(elements), BigInteger.ONE), BigInteger.ONE);
+    }
+
+    /**
+     * Each of the elements is an outcome with one element and the same probability.
+     */
+    static @NonNull Outcomes uniform(@NonNull List<RollElement> elements) {
+        final Map<ImmutableList<RollElement>, BigInteger> weights = new HashMap<>();
+        for (RollElement element : elements) {
+            weights.merge(ImmutableList.of(element), BigInteger.ONE, BigInteger::add);
+        }
+        return new Outcomes(weights, BigInteger.valueOf(elements.size()));
+    }
+
+    static @NonNull Outcomes of(@NonNull Map<ImmutableList<RollElement>, BigInteger> weights, @NonNull BigInteger total) {
+        return new Outcomes(weights, total);
+    }
+
+    /**
+     * The mixture of the outcomes, each is chosen with the probability of numerator/denominator at the same index.
+     * The probabilities must add up to one.
+     */
+    static @NonNull Outcomes mixture(@NonNull List<Outcomes> outcomes, @NonNull List<BigInteger> numerators, @NonNull List<BigInteger> denominators) {
+        BigInteger total = BigInteger.ONE;
+        for (int i = 0; i < outcomes.size(); i++) {
+            total = total.multiply(denominators.get(i)).multiply(outcomes.get(i).total);
+        }
+        final Map<ImmutableList<RollElement>, BigInteger> weights = new HashMap<>();
+        for (int i = 0; i < outcomes.size(); i++) {
+            if (numerators.get(i).signum() == 0) {
+                continue;
+            }
+            final BigInteger factor = numerators.get(i).multiply(total.divide(denominators.get(i).multiply(outcomes.get(i).total)));
+            for (Map.Entry<ImmutableList<RollElement>, BigInteger> entry : outcomes.get(i).weights.entrySet()) {
+                weights.merge(entry.getKey(), entry.getValue().multiply(factor), BigInteger::add);
+            }
+        }
+        return reduce(weights, total);
+    }
+
+    private static Outcomes reduce(Map<ImmutableList<RollElement>, BigInteger> weights, BigInteger total) {
+        BigInteger gcd = total;
+        for (BigInteger weight : weights.values()) {
+            gcd = gcd.gcd(weight);
+        }
+        if (gcd.equals(BigInteger.ONE)) {
+            return new Outcomes(weights, total);
+        }
+        final BigInteger divisor = gcd;
+        weights.replaceAll((k, v) -> v.divide(divisor));
+        return new Outcomes(weights, total.divide(divisor));
+    }
+
+    @NonNull
+    Map<ImmutableList<RollElement>, BigInteger> weights() {
+        return Collections.unmodifiableMap(weights);
+    }
+
+    @NonNull
+    BigInteger total() {
+        return total;
+    }
+
+    int size() {
+        return weights.size();
+    }
+
+    @NonNull
+    Optional<ImmutableList<RollElement>> getConstant() {
+        if (weights.size() == 1) {
+            return Optional.of(weights.keySet().iterator().next());
+        }
+        return Optional.empty();
+    }
+
+    @NonNull
+    Outcomes map(@NonNull OutcomeFunction function) throws UnsupportedExpressionException {
+        final Map<ImmutableList<RollElement>, BigInteger> result = new HashMap<>();
+        for (Map.Entry<ImmutableList<RollElement>, BigInteger> entry : weights.entrySet()) {
+            result.merge(canonical(function.apply(entry.getKey())), entry.getValue(), BigInteger::add);
+        }
+        return new Outcomes(result, total);
+    }
+
+    /**
+     * The distribution of the function applied to the outcomes of this and the other, independent, outcomes.
+     */
+    @NonNull
+    Outcomes combine(@NonNull Outcomes other, @NonNull OutcomeMerge merge, int maxNumberOfOutcomes) throws UnsupportedExpressionException {
+        final Map<ImmutableList<RollElement>, BigInteger> result = new HashMap<>();
+        for (Map.Entry<ImmutableList<RollElement>, BigInteger> left : weights.entrySet()) {
+            for (Map.Entry<ImmutableList<RollElement>, BigInteger> right : other.weights.entrySet()) {
+                result.merge(canonical(merge.apply(left.getKey(), right.getKey())), left.getValue().multiply(right.getValue()), BigInteger::add);
+                if (result.size() > maxNumberOfOutcomes) {
+                    throw new UnsupportedExpressionException("More then %d outcomes".formatted(maxNumberOfOutcomes));
+                }
+            }
+        }
+        return new Outcomes(result, total.multiply(other.total));
+    }
+
+    @NonNull
+    Distribution toDistribution() {
+        final ImmutableMap.Builder<ImmutableList<RollElement>, BigInteger> builder = ImmutableMap.builderWithExpectedSize(weights.size());
+        weights.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(OUTCOME_ORDER))
+                .forEach(builder::put);
+        return new Distribution(builder.build(), total);
+    }
+
+    @FunctionalInterface
+    interface OutcomeFunction {
+        @NonNull
+        ImmutableList<RollElement> apply(@NonNull ImmutableList<RollElement> outcome) throws UnsupportedExpressionException;
+    }
+
+    @FunctionalInterface
+    interface OutcomeMerge {
+        @NonNull
+        ImmutableList<RollElement> apply(@NonNull ImmutableList<RollElement> left, @NonNull ImmutableList<RollElement> right) throws UnsupportedExpressionException;
+    }
+}
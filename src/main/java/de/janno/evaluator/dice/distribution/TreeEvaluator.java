@@ -0,0 +1,512 @@
+package de.janno.evaluator.dice.distribution;
+
+import com.google.common.collect.ImmutableList;
+import de.janno.evaluator.dice.*;
+import de.janno.evaluator.dice.function.If;
+import de.janno.evaluator.dice.function.Value;
+import de.janno.evaluator.dice.operator.die.ExplodingAddDice;
+import de.janno.evaluator.dice.operator.die.ExplodingDice;
+import de.janno.evaluator.dice.operator.die.RegularDice;
+import de.janno.evaluator.dice.operator.list.*;
+import de.janno.evaluator.dice.operator.math.NegateAddRemove;
+import de.janno.evaluator.dice.random.NumberSupplier;
+import lombok.NonNull;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Calculates the distribution of each node from the distributions of its children. The value of a node is a list of
+ * independent parts, for example one part for each die, so operators that can be applied to each part or that can be
+ * merged part by part don't need the joint distribution of all parts: the sum is a convolution of the parts and
+ * keep highest/lowest keeps only the order statistics of the parts merged so far.
+ * Everything else applies the operator to each combination of the joint operand outcomes.
+ */
+final class TreeEvaluator {
+
+    private static final NumberSupplier NO_RANDOM_NUMBERS = (minExcl, maxIncl, dieId) -> {
+        throw new ExpressionException("Random numbers are not supported", dieId.getRollId().getExpressionPosition());
+    };
+    //the result of these operators doesn't depend on the order of the elements, all other need operands with at most one element
+    private static final Set<Class<? extends Operator>> ORDER_INDEPENDENT_OPERATORS = Set.of(AddToList.class, NegateAddRemove.class,
+            Sum.class, Count.class, KeepHighest.class, KeepLowest.class, EqualFilter.class, GreaterThanFilter.class,
+            GreaterEqualThanFilter.class, LesserThanFilter.class, LesserEqualThanFilter.class);
+    private static final Set<Class<? extends Operator>> FILTER_OPERATORS = Set.of(EqualFilter.class, GreaterThanFilter.class,
+            GreaterEqualThanFilter.class, LesserThanFilter.class, LesserEqualThanFilter.class);
+    //merges the counts of the parts
+    private static final Sum COUNT_SUM = new Sum(Integer.MAX_VALUE, false);
+
+    private final int maxNumberOfExplosions;
+    private final int maxNumberOfOutcomes;
+    private final RollContext rollContext = new RollContext(NO_RANDOM_NUMBERS, false);
+
+    TreeEvaluator(int maxNumberOfExplosions, int maxNumberOfOutcomes) {
+        this.maxNumberOfExplosions = maxNumberOfExplosions;
+        this.maxNumberOfOutcomes = maxNumberOfOutcomes;
+    }
+
+    @NonNull
+    Outcomes evaluate(@NonNull ExpressionNode node) throws UnsupportedExpressionException {
+        return evaluateParts(node).joint(maxNumberOfOutcomes);
+    }
+
+    private Parts evaluateParts(ExpressionNode node) throws UnsupportedExpressionException {
+        return switch (node) {
+            case ExpressionNode.LiteralNode literal -> literal(literal);
+            case ExpressionNode.VariableNode variable -> variable(variable);
+            case ExpressionNode.DiceNode dice -> dice(dice);
+            case ExpressionNode.OperatorNode operator -> operator(operator);
+            case ExpressionNode.FunctionNode function -> function(function);
+        };
+    }
+
+    private static Parts literal(ExpressionNode.LiteralNode literal) throws UnsupportedExpressionException {
+        if (literal.rolls().size() != 1) {
+            throw new UnsupportedExpressionException("'%s' has not exactly one roll".formatted(literal.expression()));
+        }
+        return Parts.of(Outcomes.constant(literal.rolls().getFirst().getElements()));
+    }
+
+    private static Parts variable(ExpressionNode.VariableNode variable) {
+        //the tree contains no value function, so the variable is always the literal itself
+        if (variable.name().isEmpty()) {
+            return Parts.of(Outcomes.EMPTY);
+        }
+        return Parts.of(Outcomes.constant(ImmutableList.of(RollElement.of(variable.name(), RollElement.NO_TAG, RollElement.NO_COLOR))));
+    }
+
+    private Parts dice(ExpressionNode.DiceNode node) throws UnsupportedExpressionException {
+        final List<ImmutableList<RollElement>> operands = new ArrayList<>();
+        for (ExpressionNode operand : node.operands()) {
+            operands.add(evaluate(operand).getConstant()
+                    .orElseThrow(() -> new UnsupportedExpressionException("The operands of '%s' must be constant".formatted(node.expression()))));
+        }
+        return switch (node.operator()) {
+            case RegularDice regularDice -> regularDice(operands, regularDice.getMaxNumberOfDice());
+            case ExplodingDice explodingDice ->
+                    Parts.repeat(explodingDie(getSides(operands), false), getNumberOfDice(operands, explodingDice.getMaxNumberOfDice()));
+            case ExplodingAddDice explodingAddDice ->
+                    Parts.repeat(explodingDie(getSides(operands), true), getNumberOfDice(operands, explodingAddDice.getMaxNumberOfDice()));
+            default -> throw new UnsupportedExpressionException("'%s' is not supported".formatted(node.expression()));
+        };
+    }
+
+    private static Parts regularDice(List<ImmutableList<RollElement>> operands, int maxNumberOfDice) throws UnsupportedExpressionException {
+        final int numberOfDice = getNumberOfDice(operands, maxNumberOfDice);
+        final ImmutableList<RollElement> right = operands.getLast();
+        final Optional<Integer> sides = right.size() == 1 ? right.getFirst().asInteger() : Optional.empty();
+        if (sides.isPresent()) {
+            if (sides.get() < 0) {
+                throw new UnsupportedExpressionException("Negative sides");
+            }
+            if (sides.get() == 0) {
+                return Parts.of(Outcomes.EMPTY);
+            }
+            return Parts.repeat(Outcomes.uniform(IntStream.rangeClosed(1, sides.get())
+                    .mapToObj(RollElement::ofInteger)
+                    .toList()), numberOfDice);
+        }
+        if (numberOfDice > 0 && right.isEmpty()) {
+            throw new UnsupportedExpressionException("Custom die without sides");
+        }
+        return Parts.repeat(Outcomes.uniform(right), numberOfDice);
+    }
+
+    private static int getNumberOfDice(List<ImmutableList<RollElement>> operands, int maxNumberOfDice) throws UnsupportedExpressionException {
+        if (operands.size() == 1) {
+            return 1;
+        }
+        final int numberOfDice = asInteger(operands.getFirst());
+        if (numberOfDice > maxNumberOfDice || numberOfDice < 0) {
+            throw new UnsupportedExpressionException("Invalid number of dice: %d".formatted(numberOfDice));
+        }
+        return numberOfDice;
+    }
+
+    private static int getSides(List<ImmutableList<RollElement>> operands) throws UnsupportedExpressionException {
+        final int sides = asInteger(operands.getLast());
+        if (sides < 2) {
+            throw new UnsupportedExpressionException("Invalid sides of exploding die: %d".formatted(sides));
+        }
+        return sides;
+    }
+
+    private static int asInteger(ImmutableList<RollElement> elements) throws UnsupportedExpressionException {
+        if (elements.size() == 1 && elements.getFirst().asInteger().isPresent()) {
+            return elements.getFirst().asInteger().get();
+        }
+        throw new UnsupportedExpressionException("Not an integer: %s".formatted(elements));
+    }
+
+    /**
+     * One exploding die, that explodes at most maxNumberOfExplosions times. The roll after the last explosion is kept,
+     * even if it is the max value, so it carries the probability of all longer chains.
+     */
+    private Outcomes explodingDie(int sides, boolean sumChain) {
+        final Map<ImmutableList<RollElement>, BigInteger> weights = new HashMap<>();
+        final BigInteger sidesBig = BigInteger.valueOf(sides);
+        for (int explosions = 0; explosions <= maxNumberOfExplosions; explosions++) {
+            final boolean lastRoll = explosions == maxNumberOfExplosions;
+            final BigInteger weight = sidesBig.pow(maxNumberOfExplosions - explosions);
+            for (int value = 1; value <= (lastRoll ? sides : sides - 1); value++) {
+                final ImmutableList<RollElement> outcome;
+                if (sumChain) {
+                    outcome = ImmutableList.of(RollElement.ofInteger((long) explosions * sides + value));
+                } else {
+                    outcome = Outcomes.canonical(ImmutableList.<RollElement>builder()
+                            .addAll(Collections.nCopies(explosions, RollElement.ofInteger(sides)))
+                            .add(RollElement.ofInteger(value))
+                            .build());
+                }
+                weights.merge(outcome, weight, BigInteger::add);
+            }
+        }
+        return Outcomes.of(weights, sidesBig.pow(maxNumberOfExplosions + 1));
+    }
+
+    private Parts operator(ExpressionNode.OperatorNode node) throws UnsupportedExpressionException {
+        final Operator operator = node.operator();
+        final List<ExpressionNode> operands = node.operands();
+        if (!(operator instanceof RollOperation rollOperation)) {
+            throw new UnsupportedExpressionException("'%s' is not supported".formatted(node.expression()));
+        }
+        if (operator instanceof AddToList) {
+            if (operands.size() == 1) {
+                return evaluateParts(operands.getFirst());
+            }
+            return evaluateParts(operands.getFirst()).concat(evaluateParts(operands.getLast()));
+        }
+        if (operator instanceof NegateAddRemove && operands.size() == 1) {
+            return evaluateParts(operands.getFirst()).map(o -> apply(node, rollOperation, List.of(o)));
+        }
+        if (operator instanceof Sum) {
+            final Outcomes.OutcomeFunction sum = sum(node, rollOperation);
+            return sumOfParts(evaluateParts(operands.getFirst()).map(sum), sum);
+        }
+        if (operator instanceof Count) {
+            return sumOfParts(evaluateParts(operands.getFirst()).map(o -> count(node, rollOperation, o)), sum(node, COUNT_SUM));
+        }
+        if (operands.size() == 2 && (FILTER_OPERATORS.contains(operator.getClass()) || operator instanceof KeepHighest || operator instanceof KeepLowest)) {
+            final Optional<ImmutableList<RollElement>> right = evaluate(operands.getLast()).getConstant();
+            if (right.isPresent()) {
+                final Parts left = evaluateParts(operands.getFirst());
+                if (FILTER_OPERATORS.contains(operator.getClass())) {
+                    return left.map(o -> apply(node, rollOperation, List.of(o, right.get())));
+                }
+                final boolean highest = operator instanceof KeepHighest;
+                final Outcomes.OutcomeFunction keep = o -> keep(node, rollOperation, o, right.get(), highest);
+                return left.map(keep).fold(keep, (l, r) -> keepOfBoth(node, rollOperation, l, r, right.get(), highest), maxNumberOfOutcomes);
+            }
+        }
+        return applyToJoint(node, rollOperation, ORDER_INDEPENDENT_OPERATORS.contains(operator.getClass()), operands);
+    }
+
+    private Parts sumOfParts(Parts parts, Outcomes.OutcomeFunction sum) throws UnsupportedExpressionException {
+        final Optional<Outcomes> convolution = convolveIntegers(parts.parts());
+        if (convolution.isPresent()) {
+            return Parts.of(convolution.get());
+        }
+        return parts.fold(sum, maxNumberOfOutcomes);
+    }
+
+    /**
+     * The distribution of the sum of the parts, if each outcome of the parts is a single integer without tag and color.
+     */
+    private Optional<Outcomes> convolveIntegers(List<Outcomes> parts) {
+        if (parts.isEmpty()) {
+            return Optional.empty();
+        }
+        //the weights of the sums, starting with the sum min
+        BigInteger[] weights = {BigInteger.ONE};
+        long min = 0;
+        BigInteger total = BigInteger.ONE;
+        for (Outcomes part : parts) {
+            long partMin = Long.MAX_VALUE;
+            long partMax = Long.MIN_VALUE;
+            for (ImmutableList<RollElement> outcome : part.weights().keySet()) {
+                if (outcome.size() != 1 || outcome.getFirst().getValueType() != RollElement.ValueType.INTEGER || !isWithoutTagAndColor(outcome)) {
+                    return Optional.empty();
+                }
+                partMin = Math.min(partMin, outcome.getFirst().asInteger().orElseThrow());
+                partMax = Math.max(partMax, outcome.getFirst().asInteger().orElseThrow());
+            }
+            if (weights.length + partMax - partMin > maxNumberOfOutcomes) {
+                return Optional.empty();
+            }
+            final BigInteger[] partWeights = new BigInteger[(int) (partMax - partMin + 1)];
+            Arrays.fill(partWeights, BigInteger.ZERO);
+            for (Map.Entry<ImmutableList<RollElement>, BigInteger> entry : part.weights().entrySet()) {
+                partWeights[(int) (entry.getKey().getFirst().asInteger().orElseThrow() - partMin)] = entry.getValue();
+            }
+            final BigInteger[] sumWeights = new BigInteger[weights.length + partWeights.length - 1];
+            Arrays.fill(sumWeights, BigInteger.ZERO);
+            for (int i = 0; i < weights.length; i++) {
+                if (weights[i].signum() == 0) {
+                    continue;
+                }
+                for (int j = 0; j < partWeights.length; j++) {
+                    if (partWeights[j].signum() != 0) {
+                        sumWeights[i + j] = sumWeights[i + j].add(weights[i].multiply(partWeights[j]));
+                    }
+                }
+            }
+            weights = sumWeights;
+            min = min + partMin;
+            total = total.multiply(part.total());
+        }
+        final Map<ImmutableList<RollElement>, BigInteger> result = new HashMap<>();
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i].signum() != 0) {
+                result.put(ImmutableList.of(RollElement.ofInteger(min + i)), weights[i]);
+            }
+        }
+        return Optional.of(Outcomes.of(result, total));
+    }
+
+    private Parts function(ExpressionNode.FunctionNode node) throws UnsupportedExpressionException {
+        final Function function = node.function();
+        if (function instanceof Value) {
+            throw new UnsupportedExpressionException("Variables are not supported");
+        }
+        if (function instanceof If) {
+            return ifFunction(node.arguments());
+        }
+        if (function instanceof RollOperation rollOperation) {
+            return applyToJoint(node, rollOperation, false, node.arguments());
+        }
+        throw new UnsupportedExpressionException("'%s' is not supported".formatted(node.expression()));
+    }
+
+    /**
+     * The mixture of the branches, weighted by the probability that the branch is selected.
+     */
+    private Parts ifFunction(List<ExpressionNode> arguments) throws UnsupportedExpressionException {
+        if (arguments.size() < 2) {
+            throw new UnsupportedExpressionException("'if' requires 2 inputs");
+        }
+        final List<Outcomes> branches = new ArrayList<>();
+        final List<BigInteger> numerators = new ArrayList<>();
+        final List<BigInteger> denominators = new ArrayList<>();
+        //the probability that all checks so far were false
+        BigInteger allFalseNumerator = BigInteger.ONE;
+        BigInteger allFalseDenominator = BigInteger.ONE;
+        int checkIndex = 1;
+        while (checkIndex < arguments.size()) {
+            final Outcomes check = evaluate(arguments.get(checkIndex - 1));
+            final Outcomes branch = evaluate(arguments.get(checkIndex));
+            BigInteger trueWeight = BigInteger.ZERO;
+            for (Map.Entry<ImmutableList<RollElement>, BigInteger> entry : check.weights().entrySet()) {
+                final Optional<Boolean> value = entry.getKey().size() == 1 ? entry.getKey().getFirst().asBoolean() : Optional.empty();
+                if (value.isEmpty()) {
+                    throw new UnsupportedExpressionException("Not a boolean: %s".formatted(entry.getKey()));
+                }
+                if (value.get()) {
+                    trueWeight = trueWeight.add(entry.getValue());
+                }
+            }
+            branches.add(branch);
+            numerators.add(allFalseNumerator.multiply(trueWeight));
+            denominators.add(allFalseDenominator.multiply(check.total()));
+            allFalseNumerator = allFalseNumerator.multiply(check.total().subtract(trueWeight));
+            allFalseDenominator = allFalseDenominator.multiply(check.total());
+            checkIndex = checkIndex + 2;
+        }
+        if (checkIndex == arguments.size()) {
+            branches.add(evaluate(arguments.getLast()));
+            numerators.add(allFalseNumerator);
+            denominators.add(allFalseDenominator);
+        } else if (allFalseNumerator.signum() != 0) {
+            throw new UnsupportedExpressionException("'if' without default can have no result");
+        }
+        return Parts.of(Outcomes.mixture(branches, numerators, denominators));
+    }
+
+    private Parts applyToJoint(ExpressionNode node, RollOperation rollOperation, boolean orderIndependent, List<ExpressionNode> operands) throws UnsupportedExpressionException {
+        List<Map.Entry<List<ImmutableList<RollElement>>, BigInteger>> combinations = List.of(Map.entry(List.of(), BigInteger.ONE));
+        BigInteger total = BigInteger.ONE;
+        for (ExpressionNode operand : operands) {
+            final Outcomes outcomes = evaluate(operand);
+            if (!orderIndependent && outcomes.weights().keySet().stream().anyMatch(o -> o.size() > 1)) {
+                throw new UnsupportedExpressionException("'%s' requires operands with at most one element".formatted(node.expression()));
+            }
+            if ((long) combinations.size() * outcomes.size() > maxNumberOfOutcomes) {
+                throw new UnsupportedExpressionException("More then %d outcomes".formatted(maxNumberOfOutcomes));
+            }
+            final List<Map.Entry<List<ImmutableList<RollElement>>, BigInteger>> extended = new ArrayList<>(combinations.size() * outcomes.size());
+            for (Map.Entry<List<ImmutableList<RollElement>>, BigInteger> combination : combinations) {
+                for (Map.Entry<ImmutableList<RollElement>, BigInteger> outcome : outcomes.weights().entrySet()) {
+                    extended.add(Map.entry(ImmutableList.<ImmutableList<RollElement>>builder()
+                                    .addAll(combination.getKey())
+                                    .add(outcome.getKey())
+                                    .build(),
+                            combination.getValue().multiply(outcome.getValue())));
+                }
+            }
+            combinations = extended;
+            total = total.multiply(outcomes.total());
+        }
+        final Map<ImmutableList<RollElement>, BigInteger> weights = new HashMap<>();
+        for (Map.Entry<List<ImmutableList<RollElement>>, BigInteger> combination : combinations) {
+            weights.merge(Outcomes.canonical(apply(node, rollOperation, combination.getKey())), combination.getValue(), BigInteger::add);
+        }
+        return Parts.of(Outcomes.of(weights, total));
+    }
+
+    private ImmutableList<RollElement> sum(ExpressionNode node, RollOperation sum, ImmutableList<RollElement> outcome) throws UnsupportedExpressionException {
+        if (outcome.isEmpty()) {
+            return ImmutableList.of(RollElement.ofInteger(0));
+        }
+        if (isWithoutTagAndColor(outcome) && outcome.stream().allMatch(RollElement::isDecimal)) {
+            if (outcome.stream().allMatch(e -> e.getValueType() == RollElement.ValueType.INTEGER)) {
+                //the sum of int values can't overflow a long, and the element is created without parsing the value
+                long total = 0;
+                for (RollElement element : outcome) {
+                    total += element.asInteger().orElseThrow();
+                }
+                return ImmutableList.of(RollElement.ofInteger(total));
+            }
+            return ImmutableList.of(RollElement.of(ExactMath.sum(outcome), RollElement.NO_TAG, RollElement.NO_COLOR));
+        }
+        return apply(node, sum, List.of(outcome));
+    }
+
+    private Outcomes.OutcomeFunction sum(ExpressionNode node, RollOperation sum) {
+        return o -> sum(node, sum, o);
+    }
+
+    private ImmutableList<RollElement> count(ExpressionNode node, RollOperation count, ImmutableList<RollElement> outcome) throws UnsupportedExpressionException {
+        if (isWithoutTagAndColor(outcome)) {
+            return ImmutableList.of(RollElement.ofInteger(outcome.size()));
+        }
+        return apply(node, count, List.of(outcome));
+    }
+
+    private ImmutableList<RollElement> keep(ExpressionNode node, RollOperation keep, ImmutableList<RollElement> outcome, ImmutableList<RollElement> right,
+                                            boolean highest) throws UnsupportedExpressionException {
+        final int number = right.size() == 1 ? right.getFirst().asInteger().orElse(-1) : -1;
+        if (number >= 0 && isWithoutTagAndColor(outcome) && isWithoutTagAndColor(right)) {
+            //the outcome is sorted ascending
+            return highest ? outcome.subList(Math.max(0, outcome.size() - number), outcome.size()) : outcome.subList(0, Math.min(number, outcome.size()));
+        }
+        return apply(node, keep, List.of(outcome, right));
+    }
+
+    /**
+     * The kept elements of the two kept outcomes, without creating their concatenation.
+     */
+    private ImmutableList<RollElement> keepOfBoth(ExpressionNode node, RollOperation keep, ImmutableList<RollElement> left, ImmutableList<RollElement> right,
+                                                  ImmutableList<RollElement> number, boolean highest) throws UnsupportedExpressionException {
+        final int numberToKeep = number.size() == 1 ? number.getFirst().asInteger().orElse(-1) : -1;
+        if (numberToKeep < 0 || !isWithoutTagAndColor(left) || !isWithoutTagAndColor(right) || !isWithoutTagAndColor(number)) {
+            return keep(node, keep, Outcomes.concat(left, right), number, highest);
+        }
+        final int size = Math.min(numberToKeep, left.size() + right.size());
+        final RollElement[] kept = new RollElement[size];
+        if (highest) {
+            int l = left.size() - 1;
+            int r = right.size() - 1;
+            for (int i = size - 1; i >= 0; i--) {
+                kept[i] = r < 0 || (l >= 0 && left.get(l).compareTo(right.get(r)) >= 0) ? left.get(l--) : right.get(r--);
+            }
+        } else {
+            int l = 0;
+            int r = 0;
+            for (int i = 0; i < size; i++) {
+                kept[i] = r >= right.size() || (l < left.size() && left.get(l).compareTo(right.get(r)) <= 0) ? left.get(l++) : right.get(r++);
+            }
+        }
+        return ImmutableList.copyOf(kept);
+    }
+
+    private static boolean isWithoutTagAndColor(List<RollElement> elements) {
+        for (RollElement element : elements) {
+            if (!RollElement.NO_TAG.equals(element.getTag()) || !RollElement.NO_COLOR.equals(element.getColor())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ImmutableList<RollElement> apply(ExpressionNode node, RollOperation rollOperation, List<ImmutableList<RollElement>> operands) throws UnsupportedExpressionException {
+        try {
+            final List<Roll> rolls = new ArrayList<>(operands.size());
+            for (ImmutableList<RollElement> operand : operands) {
+                rolls.add(new Roll(node.expression(), operand, ImmutableList.of(), ImmutableList.of(), node.expressionPosition(), Integer.MAX_VALUE, false));
+            }
+            final Optional<List<Roll>> result = rollOperation.apply(rolls, rollContext, node.expressionPosition(), node.expression());
+            if (result.isEmpty() || result.get().size() != 1) {
+                throw new UnsupportedExpressionException("'%s' has not exactly one result roll".formatted(node.expression()));
+            }
+            return result.get().getFirst().getElements();
+        } catch (ExpressionException | RuntimeException e) {
+            throw new UnsupportedExpressionException("'%s' failed: %s".formatted(node.expression(), e.getMessage()));
+        }
+    }
+
+    /**
+     * The value of a node as concatenation of independent parts.
+     */
+    private record Parts(ImmutableList<Outcomes> parts) {
+
+        static Parts of(Outcomes outcomes) {
+            return new Parts(ImmutableList.of(outcomes));
+        }
+
+        static Parts repeat(Outcomes outcomes, int times) {
+            return new Parts(ImmutableList.copyOf(Collections.nCopies(times, outcomes)));
+        }
+
+        Parts concat(Parts other) {
+            return new Parts(ImmutableList.<Outcomes>builder().addAll(parts).addAll(other.parts).build());
+        }
+
+        Parts map(Outcomes.OutcomeFunction function) throws UnsupportedExpressionException {
+            //the parts are often the same dice, each is mapped only once
+            final Map<Outcomes, Outcomes> mapped = new IdentityHashMap<>();
+            final ImmutableList.Builder<Outcomes> builder = ImmutableList.builderWithExpectedSize(parts.size());
+            for (Outcomes part : parts) {
+                Outcomes mappedPart = mapped.get(part);
+                if (mappedPart == null) {
+                    mappedPart = part.map(function);
+                    mapped.put(part, mappedPart);
+                }
+                builder.add(mappedPart);
+            }
+            return new Parts(builder.build());
+        }
+
+        /**
+         * Merges the parts into one part. The merge function must give for the concatenation of two results the same
+         * result as for the concatenation of their inputs.
+         */
+        Parts fold(Outcomes.OutcomeFunction merge, int maxNumberOfOutcomes) throws UnsupportedExpressionException {
+            return fold(merge, (l, r) -> merge.apply(Outcomes.concat(l, r)), maxNumberOfOutcomes);
+        }
+
+        /**
+         * Like {@link #fold(Outcomes.OutcomeFunction, int)}, but the two results are merged by mergeBoth.
+         */
+        Parts fold(Outcomes.OutcomeFunction merge, Outcomes.OutcomeMerge mergeBoth, int maxNumberOfOutcomes) throws UnsupportedExpressionException {
+            if (parts.isEmpty()) {
+                return Parts.of(Outcomes.EMPTY.map(merge));
+            }
+            Outcomes result = parts.getFirst();
+            for (Outcomes part : parts.subList(1, parts.size())) {
+                result = result.combine(part, mergeBoth, maxNumberOfOutcomes);
+            }
+            return Parts.of(result);
+        }
+
+        Outcomes joint(int maxNumberOfOutcomes) throws UnsupportedExpressionException {
+            if (parts.isEmpty()) {
+                return Outcomes.EMPTY;
+            }
+            Outcomes result = parts.getFirst();
+            for (Outcomes part : parts.subList(1, parts.size())) {
+                result = result.combine(part, Outcomes::concat, maxNumberOfOutcomes);
+            }
+            return result;
+        }
+    }
+}
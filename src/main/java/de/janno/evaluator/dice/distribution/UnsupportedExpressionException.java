@@ -0,0 +1,17 @@
+package de.janno.evaluator.dice.distribution;
+
+import lombok.NonNull;
+
+import java.io.Serial;
+
+/**
+ * Thrown if the distribution of a part of the expression can't be calculated exactly.
+ */
+final class UnsupportedExpressionException extends Exception {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedExpressionException(@NonNull String message) {
+        super(message, null, false, false);
+    }
+}
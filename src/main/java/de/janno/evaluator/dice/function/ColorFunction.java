@@ -7,7 +7,6 @@ import lombok.NonNull;
 import java.util.List;
 import java.util.Optional;
 
-import static de.janno.evaluator.dice.RollBuilder.extendAllBuilder;
 import static de.janno.evaluator.dice.ValidatorUtil.checkContainsSingleElement;
 import static de.janno.evaluator.dice.ValidatorUtil.checkRollSize;
 
@@ -15,38 +14,26 @@ import static de.janno.evaluator.dice.ValidatorUtil.checkRollSize;
  * use tag and color operator
  */
 @Deprecated
-public class ColorFunction extends Function {
+public class ColorFunction extends Function implements RollOperation {
 
     public ColorFunction(int maxNumberOfElements, boolean keepChildrenRolls) {
         super("color", 2, maxNumberOfElements, keepChildrenRolls);
     }
 
     @Override
-    public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> arguments, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
-
-        return new RollBuilder() {
-            @Override
-            public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
-                List<Roll> rolls = extendAllBuilder(arguments, rollContext);
-                checkRollSize(expressionPosition, rolls, getMinArgumentCount(), getMaxArgumentCount());
-                Roll p1 = rolls.getFirst();
-                Roll p2 = rolls.get(1);
-                checkContainsSingleElement(expressionPosition, p2, "second argument");
-                String color = p2.asSingleValue().orElseThrow();
-                RandomElementsBuilder builder = RandomElementsBuilder.empty(rollContext);
-                rolls.forEach(r -> builder.addWithColor(r, color));
-                return Optional.of(ImmutableList.of(new Roll(toExpression(),
-                        p1.getElements().stream()
-                                .map(r -> new RollElement(r.getValue(), color, color))
-                                .collect(ImmutableList.toImmutableList()),
-                        builder.build(),
-                        p1.getChildrenRolls(), expressionPosition, maxNumberOfElements, keepChildrenRolls)));
-            }
-
-            @Override
-            public @NonNull String toExpression() {
-                return getExpression(expressionPosition, arguments);
-            }
-        };
+    public @NonNull Optional<List<Roll>> apply(@NonNull List<Roll> rolls, @NonNull RollContext rollContext, @NonNull ExpressionPosition expressionPosition, @NonNull String expression) throws ExpressionException {
+        checkRollSize(expressionPosition, rolls, getMinArgumentCount(), getMaxArgumentCount());
+        Roll p1 = rolls.getFirst();
+        Roll p2 = rolls.get(1);
+        checkContainsSingleElement(expressionPosition, p2, "second argument");
+        String color = p2.asSingleValue().orElseThrow();
+        RandomElementsBuilder builder = RandomElementsBuilder.empty(rollContext);
+        rolls.forEach(r -> builder.addWithColor(r, color));
+        return Optional.of(ImmutableList.of(new Roll(expression,
+                p1.getElements().stream()
+                        .map(r -> r.withTag(color, rollContext).withColor(color, rollContext))
+                        .collect(ImmutableList.toImmutableList()),
+                builder,
+                p1.getChildrenRolls(), expressionPosition, maxNumberOfElements, keepChildrenRolls)));
     }
 }
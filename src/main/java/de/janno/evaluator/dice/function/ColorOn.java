@@ -17,6 +17,7 @@ public class ColorOn extends Function {
 
     @Override
     public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> arguments, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
+        final String expression = getExpression(expressionPosition, arguments);
         return new RollBuilder() {
             @Override
             public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
@@ -45,7 +46,7 @@ public class ColorOn extends Function {
                     ImmutableList.Builder<RollElement> currentIterationElements = ImmutableList.builder();
                     for (RollElement rollElement : inputRollElements) {
                         if (inRoll.isElementsContainsElementWithValueAndTag(rollElement)) {
-                            currentIterationElements.add(new RollElement(rollElement.getValue(), rollElement.getTag(), color));
+                            currentIterationElements.add(rollElement.withColor(color, rollContext));
                         } else {
                             currentIterationElements.add(rollElement);
                         }
@@ -55,7 +56,7 @@ public class ColorOn extends Function {
 
                     for (RandomElement randomElement : inputRandomElements) {
                         if (inRoll.isElementsContainsElementWithValueAndTag(randomElement.getRollElement())) {
-                            currentIterationRandomElements.add(randomElement.copyWithTagAndColor(color));
+                            currentIterationRandomElements.add(randomElement.copyWithTagAndColor(color, rollContext));
                         } else {
                             currentIterationRandomElements.add(randomElement);
                         }
@@ -68,7 +69,7 @@ public class ColorOn extends Function {
 
                 return Optional.of(ImmutableList.of(new Roll(toExpression(),
                         inputRollElements,
-                        builder.build(),
+                        builder,
                         allRolls.build(),
                         expressionPosition,
                         maxNumberOfElements, keepChildrenRolls)));
@@ -77,7 +78,7 @@ public class ColorOn extends Function {
 
             @Override
             public @NonNull String toExpression() {
-                return getExpression(expressionPosition, arguments);
+                return expression;
             }
         };
     }
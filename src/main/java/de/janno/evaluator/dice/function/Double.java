@@ -7,53 +7,40 @@ import lombok.NonNull;
 import java.util.List;
 import java.util.Optional;
 
-import static de.janno.evaluator.dice.RollBuilder.extendAllBuilder;
 import static de.janno.evaluator.dice.ValidatorUtil.checkRollSize;
 
 /**
  * Deprecated in favor of the mightier 'replace' function.
  */
 @Deprecated
-public class Double extends Function {
+public class Double extends Function implements RollOperation {
 
     public Double(int maxNumberOfElements, boolean keepChildrenRolls) {
         super("double", 2, maxNumberOfElements, keepChildrenRolls);
     }
 
     @Override
-    public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> arguments, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
-        return new RollBuilder() {
-            @Override
-            public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
-                List<Roll> rolls = extendAllBuilder(arguments, rollContext);
-                checkRollSize(expressionPosition, rolls, getMinArgumentCount(), getMaxArgumentCount());
-                Roll input = rolls.getFirst();
-                Roll toDuplicate = rolls.get(1);
-
-                ImmutableList<RollElement> rollElements = input.getElements().stream()
-                        .flatMap(r -> {
-                            if (toDuplicate.isElementsContainsElementWithValueAndTag(r)) {
-                                return ImmutableList.of(r, r).stream();
-                            } else {
-                                return ImmutableList.of(r).stream();
-                            }
-                        })
-                        .collect(ImmutableList.toImmutableList());
-
-                return Optional.of(ImmutableList.of(new Roll(toExpression(),
-                        rollElements,
-                        RandomElementsBuilder.fromRolls(rolls, rollContext),
-                        ImmutableList.<Roll>builder()
-                                .addAll(input.getChildrenRolls())
-                                .addAll(toDuplicate.getChildrenRolls())
-                                .build(), expressionPosition, maxNumberOfElements, keepChildrenRolls)));
-            }
-
-            @Override
-            public @NonNull String toExpression() {
-                return getExpression(expressionPosition, arguments);
-            }
-        };
-
+    public @NonNull Optional<List<Roll>> apply(@NonNull List<Roll> rolls, @NonNull RollContext rollContext, @NonNull ExpressionPosition expressionPosition, @NonNull String expression) throws ExpressionException {
+        checkRollSize(expressionPosition, rolls, getMinArgumentCount(), getMaxArgumentCount());
+        Roll input = rolls.getFirst();
+        Roll toDuplicate = rolls.get(1);
+
+        ImmutableList<RollElement> rollElements = input.getElements().stream()
+                .flatMap(r -> {
+                    if (toDuplicate.isElementsContainsElementWithValueAndTag(r)) {
+                        return ImmutableList.of(r, r).stream();
+                    } else {
+                        return ImmutableList.of(r).stream();
+                    }
+                })
+                .collect(ImmutableList.toImmutableList());
+
+        return Optional.of(ImmutableList.of(new Roll(expression,
+                rollElements,
+                RandomElementsBuilder.ofRolls(rolls, rollContext),
+                ImmutableList.<Roll>builder()
+                        .addAll(input.getChildrenRolls())
+                        .addAll(toDuplicate.getChildrenRolls())
+                        .build(), expressionPosition, maxNumberOfElements, keepChildrenRolls)));
     }
 }
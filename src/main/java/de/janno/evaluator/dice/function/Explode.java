@@ -18,6 +18,7 @@ public class Explode extends Function {
 
     @Override
     public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> arguments, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
+        final String expression = getExpression(expressionPosition, arguments);
         return new RollBuilder() {
             @Override
             public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
@@ -71,7 +72,7 @@ public class Explode extends Function {
                 final ImmutableList<Roll> allResultRolls = allResultRollsBuilder.build();
                 return Optional.of(ImmutableList.of(new Roll(toExpression(),
                         allResultRolls.stream().flatMap(r -> r.getElements().stream()).collect(ImmutableList.toImmutableList()),
-                        RandomElementsBuilder.fromRolls(allChildrenRollBuilder.build(), rollContext), allChildrenRollBuilder.build(),
+                        RandomElementsBuilder.ofRolls(allChildrenRollBuilder.build(), rollContext), allChildrenRollBuilder.build(),
                         expressionPosition,
                         maxNumberOfElements,
                         keepChildrenRolls)));
@@ -79,7 +80,7 @@ public class Explode extends Function {
 
             @Override
             public @NonNull String toExpression() {
-                return getExpression(expressionPosition, arguments);
+                return expression;
             }
         };
 
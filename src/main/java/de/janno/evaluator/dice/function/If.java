@@ -19,6 +19,7 @@ public class If extends Function {
     @Override
     public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> arguments, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
 
+        final String expression = getExpression(expressionPosition, arguments);
         return new RollBuilder() {
             @Override
             public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
@@ -55,8 +56,7 @@ public class If extends Function {
                         for (Roll r : trueResult) {
                             resultBuilder.add(new Roll(toExpression(), r.getElements(),
                                     booleanRandomElements
-                                            .addRoll(r)
-                                            .build(),
+                                            .addRoll(r),
                                     ImmutableList.<Roll>builder()
                                             .addAll(booleanExpression.getChildrenRolls())
                                             .addAll(r.getChildrenRolls())
@@ -89,8 +89,7 @@ public class If extends Function {
                         for (Roll r : defaultResult.get()) {
                             resultBuilder.add(new Roll(toExpression(), r.getElements(),
                                     booleanRandomElements
-                                            .addRoll(r)
-                                            .build(),
+                                            .addRoll(r),
                                     r.getChildrenRolls(),
                                     expressionPosition,
                                     maxNumberOfElements, keepChildrenRolls));
@@ -103,7 +102,7 @@ public class If extends Function {
 
             @Override
             public @NonNull String toExpression() {
-                return getExpression(expressionPosition, arguments);
+                return expression;
             }
         };
 
@@ -7,43 +7,30 @@ import lombok.NonNull;
 import java.util.List;
 import java.util.Optional;
 
-import static de.janno.evaluator.dice.RollBuilder.extendAllBuilder;
 import static de.janno.evaluator.dice.ValidatorUtil.checkRollSize;
 
-public class Max extends Function {
+public class Max extends Function implements RollOperation {
     public Max(int maxNumberOfElements, boolean keepChildrenRolls) {
         super("max", 1, Integer.MAX_VALUE, maxNumberOfElements, keepChildrenRolls);
     }
 
     @Override
-    public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> arguments, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
-        return new RollBuilder() {
-            @Override
-            public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
-                List<Roll> rolls = extendAllBuilder(arguments, rollContext);
-                checkRollSize(expressionPosition, rolls, getMinArgumentCount(), getMaxArgumentCount());
-
-                final RollElement max = rolls.stream()
-                        .flatMap(result -> result.getElements().stream())
-                        .max(RollElement::compareTo).orElseThrow();
-
-                final ImmutableList<RollElement> res = rolls.stream()
-                        .flatMap(result -> result.getElements().stream())
-                        .filter(resultElement -> resultElement.compareTo(max) == 0)
-                        .collect(ImmutableList.toImmutableList());
-                return Optional.of(ImmutableList.of(new Roll(toExpression(),
-                        res,
-                        RandomElementsBuilder.fromRolls(rolls, rollContext),
-                        ImmutableList.copyOf(rolls),
-                        expressionPosition,
-                        maxNumberOfElements, keepChildrenRolls)));
-            }
-
-            @Override
-            public @NonNull String toExpression() {
-                return getExpression(expressionPosition, arguments);
-            }
-        };
-
+    public @NonNull Optional<List<Roll>> apply(@NonNull List<Roll> rolls, @NonNull RollContext rollContext, @NonNull ExpressionPosition expressionPosition, @NonNull String expression) throws ExpressionException {
+        checkRollSize(expressionPosition, rolls, getMinArgumentCount(), getMaxArgumentCount());
+
+        final RollElement max = rolls.stream()
+                .flatMap(result -> result.getElements().stream())
+                .max(RollElement::compareTo).orElseThrow();
+
+        final ImmutableList<RollElement> res = rolls.stream()
+                .flatMap(result -> result.getElements().stream())
+                .filter(resultElement -> resultElement.compareTo(max) == 0)
+                .collect(ImmutableList.toImmutableList());
+        return Optional.of(ImmutableList.of(new Roll(expression,
+                res,
+                RandomElementsBuilder.ofRolls(rolls, rollContext),
+                ImmutableList.copyOf(rolls),
+                expressionPosition,
+                maxNumberOfElements, keepChildrenRolls)));
     }
 }
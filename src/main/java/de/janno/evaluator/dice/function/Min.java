@@ -7,42 +7,30 @@ import lombok.NonNull;
 import java.util.List;
 import java.util.Optional;
 
-import static de.janno.evaluator.dice.RollBuilder.extendAllBuilder;
 import static de.janno.evaluator.dice.ValidatorUtil.checkRollSize;
 
-public class Min extends Function {
+public class Min extends Function implements RollOperation {
     public Min(int maxNumberOfElements, boolean keepChildrenRolls) {
         super("min", 1, Integer.MAX_VALUE, maxNumberOfElements, keepChildrenRolls);
     }
 
     @Override
-    public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> arguments, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
-        return new RollBuilder() {
-            @Override
-            public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
-                List<Roll> rolls = extendAllBuilder(arguments, rollContext);
-                checkRollSize(expressionPosition, rolls, getMinArgumentCount(), getMaxArgumentCount());
-
-                final RollElement min = rolls.stream()
-                        .flatMap(result -> result.getElements().stream())
-                        .min(RollElement::compareTo).orElseThrow();
-
-                final ImmutableList<RollElement> res = rolls.stream()
-                        .flatMap(result -> result.getElements().stream())
-                        .filter(resultElement -> resultElement.compareTo(min) == 0)
-                        .collect(ImmutableList.toImmutableList());
-                return Optional.of(ImmutableList.of(new Roll(toExpression(),
-                        res,
-                        RandomElementsBuilder.fromRolls(rolls, rollContext),
-                        ImmutableList.copyOf(rolls),
-                        expressionPosition,
-                        maxNumberOfElements, keepChildrenRolls)));
-            }
-
-            @Override
-            public @NonNull String toExpression() {
-                return getExpression(expressionPosition, arguments);
-            }
-        };
+    public @NonNull Optional<List<Roll>> apply(@NonNull List<Roll> rolls, @NonNull RollContext rollContext, @NonNull ExpressionPosition expressionPosition, @NonNull String expression) throws ExpressionException {
+        checkRollSize(expressionPosition, rolls, getMinArgumentCount(), getMaxArgumentCount());
+
+        final RollElement min = rolls.stream()
+                .flatMap(result -> result.getElements().stream())
+                .min(RollElement::compareTo).orElseThrow();
+
+        final ImmutableList<RollElement> res = rolls.stream()
+                .flatMap(result -> result.getElements().stream())
+                .filter(resultElement -> resultElement.compareTo(min) == 0)
+                .collect(ImmutableList.toImmutableList());
+        return Optional.of(ImmutableList.of(new Roll(expression,
+                res,
+                RandomElementsBuilder.ofRolls(rolls, rollContext),
+                ImmutableList.copyOf(rolls),
+                expressionPosition,
+                maxNumberOfElements, keepChildrenRolls)));
     }
 }
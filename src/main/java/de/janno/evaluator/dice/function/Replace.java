@@ -14,6 +14,7 @@ public class Replace extends Function {
 
     @Override
     public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> arguments, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
+        final String expression = getExpression(expressionPosition, arguments);
         return new RollBuilder() {
             @Override
             public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
@@ -59,7 +60,7 @@ public class Replace extends Function {
 
                 return Optional.of(ImmutableList.of(new Roll(toExpression(),
                         rollElements,
-                        RandomElementsBuilder.fromRolls(allRolls.build(), rollContext),
+                        RandomElementsBuilder.ofRolls(allRolls.build(), rollContext),
                         childrenRollBuilder.build(),
                         expressionPosition,
                         maxNumberOfElements, keepChildrenRolls)));
@@ -67,7 +68,7 @@ public class Replace extends Function {
 
             @Override
             public @NonNull String toExpression() {
-                return getExpression(expressionPosition, arguments);
+                return expression;
             }
         };
     }
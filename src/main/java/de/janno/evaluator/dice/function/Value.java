@@ -14,8 +14,14 @@ public class Value extends Function {
         super("val", 2, maxNumberOfElements, keepChildrenRolls);
     }
 
+    @Override
+    public boolean isDeterministic() {
+        return false;
+    }
+
     @Override
     public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> arguments, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
+        final String expression = getExpression(expressionPosition, arguments);
         return new RollBuilder() {
             @Override
             public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
@@ -38,10 +44,9 @@ public class Value extends Function {
                 }
                 String valName = rolls.getFirst().asSingleValue().orElseThrow();
 
-                String expression = toExpression();
                 rollContext.putVariable(valName, new Roll(expression,
                         rolls.get(1).getElements(),
-                        RandomElementsBuilder.fromRolls(rolls, rollContext),
+                        RandomElementsBuilder.ofRolls(rolls, rollContext),
                         rolls.get(1).getChildrenRolls(),
                         expressionPosition,
                         maxNumberOfElements, keepChildrenRolls));
@@ -51,7 +56,7 @@ public class Value extends Function {
 
             @Override
             public @NonNull String toExpression() {
-                return getExpression(expressionPosition, arguments);
+                return expression;
             }
         };
     }
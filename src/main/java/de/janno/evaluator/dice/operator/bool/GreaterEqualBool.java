@@ -8,43 +8,31 @@ import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
-import static de.janno.evaluator.dice.RollBuilder.extendAllBuilder;
 import static de.janno.evaluator.dice.ValidatorUtil.checkRollSize;
 import static de.janno.evaluator.dice.ValidatorUtil.throwNotDecimalExpression;
 import static de.janno.evaluator.dice.operator.OperatorOrder.getOderNumberOf;
 
-public class GreaterEqualBool extends Operator {
+public class GreaterEqualBool extends Operator implements RollOperation {
 
     public GreaterEqualBool(int maxNumberOfElements, boolean keepChildrenRolls) {
         super(">=?", OperatorType.BINARY, Associativity.LEFT, getOderNumberOf(GreaterEqualBool.class), maxNumberOfElements, keepChildrenRolls);
     }
 
     @Override
-    public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> operands, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
-        return new RollBuilder() {
-            @Override
-            public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
-                List<Roll> rolls = extendAllBuilder(operands, rollContext);
-                checkRollSize(expressionPosition, rolls, 2, 2);
-
-                Roll left = rolls.getFirst();
-                Roll right = rolls.get(1);
-                final BigDecimal leftNumber = left.asDecimal().orElseThrow(() -> throwNotDecimalExpression(expressionPosition, left, "left"));
-                final BigDecimal rightNumber = right.asDecimal().orElseThrow(() -> throwNotDecimalExpression(expressionPosition, right, "right"));
-
-                ImmutableList<RollElement> diceResult = ImmutableList.of(new RollElement(String.valueOf(leftNumber.compareTo(rightNumber) >= 0), RollElement.NO_TAG, RollElement.NO_COLOR));
-                return Optional.of(ImmutableList.of(new Roll(toExpression(),
-                        diceResult,
-                        RandomElementsBuilder.fromRolls(rolls, rollContext),
-                        ImmutableList.of(left, right),
-                        expressionPosition,
-                        maxNumberOfElements, keepChildrenRolls)));
-            }
-
-            @Override
-            public @NonNull String toExpression() {
-                return getBinaryOperatorExpression(expressionPosition, operands);
-            }
-        };
+    public @NonNull Optional<List<Roll>> apply(@NonNull List<Roll> rolls, @NonNull RollContext rollContext, @NonNull ExpressionPosition expressionPosition, @NonNull String expression) throws ExpressionException {
+        checkRollSize(expressionPosition, rolls, 2, 2);
+
+        Roll left = rolls.getFirst();
+        Roll right = rolls.get(1);
+        final BigDecimal leftNumber = left.asDecimal().orElseThrow(() -> throwNotDecimalExpression(expressionPosition, left, "left"));
+        final BigDecimal rightNumber = right.asDecimal().orElseThrow(() -> throwNotDecimalExpression(expressionPosition, right, "right"));
+
+        ImmutableList<RollElement> diceResult = ImmutableList.of(RollElement.ofBoolean(leftNumber.compareTo(rightNumber) >= 0));
+        return Optional.of(ImmutableList.of(new Roll(expression,
+                diceResult,
+                RandomElementsBuilder.ofRolls(rolls, rollContext),
+                ImmutableList.of(left, right),
+                expressionPosition,
+                maxNumberOfElements, keepChildrenRolls)));
     }
 }
@@ -7,42 +7,30 @@ import lombok.NonNull;
 import java.util.List;
 import java.util.Optional;
 
-import static de.janno.evaluator.dice.RollBuilder.extendAllBuilder;
 import static de.janno.evaluator.dice.ValidatorUtil.checkRollSize;
 import static de.janno.evaluator.dice.operator.OperatorOrder.getOderNumberOf;
 
-public class InBool extends Operator {
+public class InBool extends Operator implements RollOperation {
 
     public InBool(int maxNumberOfElements, boolean keepChildrenRolls) {
         super("in", OperatorType.BINARY, Associativity.LEFT, getOderNumberOf(InBool.class), maxNumberOfElements, keepChildrenRolls);
     }
 
     @Override
-    public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> operands, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
-        return new RollBuilder() {
-            @Override
-            public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
-                List<Roll> rolls = extendAllBuilder(operands, rollContext);
-                checkRollSize(expressionPosition, rolls, 2, 2);
-
-                Roll left = rolls.getFirst();
-                Roll right = rolls.get(1);
-
-                boolean isTrue = left.getElements().stream().allMatch(right::isElementsContainsElementWithValueAndTag);
-
-                ImmutableList<RollElement> diceResult = ImmutableList.of(new RollElement(String.valueOf(isTrue), RollElement.NO_TAG, RollElement.NO_COLOR));
-                return Optional.of(ImmutableList.of(new Roll(toExpression(),
-                        diceResult,
-                        RandomElementsBuilder.fromRolls(rolls, rollContext),
-                        ImmutableList.of(left, right),
-                        expressionPosition,
-                        maxNumberOfElements, keepChildrenRolls)));
-            }
-
-            @Override
-            public @NonNull String toExpression() {
-                return getBinaryOperatorExpression(expressionPosition, operands);
-            }
-        };
+    public @NonNull Optional<List<Roll>> apply(@NonNull List<Roll> rolls, @NonNull RollContext rollContext, @NonNull ExpressionPosition expressionPosition, @NonNull String expression) throws ExpressionException {
+        checkRollSize(expressionPosition, rolls, 2, 2);
+
+        Roll left = rolls.getFirst();
+        Roll right = rolls.get(1);
+
+        boolean isTrue = left.getElements().stream().allMatch(right::isElementsContainsElementWithValueAndTag);
+
+        ImmutableList<RollElement> diceResult = ImmutableList.of(RollElement.ofBoolean(isTrue));
+        return Optional.of(ImmutableList.of(new Roll(expression,
+                diceResult,
+                RandomElementsBuilder.ofRolls(rolls, rollContext),
+                ImmutableList.of(left, right),
+                expressionPosition,
+                maxNumberOfElements, keepChildrenRolls)));
     }
 }
@@ -2,19 +2,22 @@ package de.janno.evaluator.dice.operator.die;
 
 import com.google.common.collect.ImmutableList;
 import de.janno.evaluator.dice.*;
+import lombok.Getter;
 import lombok.NonNull;
 
 import java.util.List;
 import java.util.Optional;
 
 import static de.janno.evaluator.dice.DiceHelper.pickOneOf;
+import static de.janno.evaluator.dice.DiceHelper.pickOneOfValue;
 import static de.janno.evaluator.dice.DiceHelper.rollDice;
-import static de.janno.evaluator.dice.RollBuilder.extendAllBuilder;
+import static de.janno.evaluator.dice.DiceHelper.rollDiceValues;
 import static de.janno.evaluator.dice.ValidatorUtil.checkRollSize;
 import static de.janno.evaluator.dice.ValidatorUtil.throwNotIntegerExpression;
 import static de.janno.evaluator.dice.operator.OperatorOrder.getOderNumberOf;
 
-public final class RegularDice extends Operator {
+public final class RegularDice extends Operator implements DiceRollOperation {
+    @Getter
     private final int maxNumberOfDice;
 
     public RegularDice(int maxNumberOfDice, int maxNumberOfElements, boolean keepChildrenRolls) {
@@ -23,78 +26,75 @@ public final class RegularDice extends Operator {
     }
 
     @Override
-    public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> operands, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
-        return new RollBuilder() {
-
-            @Override
-            public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
-                List<Roll> rolls = extendAllBuilder(operands, rollContext);
-                checkRollSize(expressionPosition, rolls, 1, 2);
+    public boolean isDeterministic() {
+        return false;
+    }
 
-                final int numberOfDice;
-                final Roll right;
-                final ImmutableList<Roll> childrenRolls;
-                final String expression;
-                final RollId rollId = RollId.of(expressionPosition, rollContext.getNextReEvaluationNumber(expressionPosition));
+    @Override
+    public @NonNull Optional<List<Roll>> apply(@NonNull List<Roll> rolls, @NonNull RollContext rollContext, @NonNull RollId rollId, @NonNull String expression) throws ExpressionException {
+        final ExpressionPosition expressionPosition = rollId.getExpressionPosition();
+        checkRollSize(expressionPosition, rolls, 1, 2);
 
-                RandomElementsBuilder randomElements = RandomElementsBuilder.empty(rollContext);
-                if (rolls.size() == 1) {
-                    right = rolls.getFirst();
-                    randomElements.addRoll(right);
-                    numberOfDice = 1;
-                    childrenRolls = ImmutableList.of(right);
-                    expression = toExpression();
-                } else if (rolls.size() == 2) {
-                    Roll left = rolls.getFirst();
-                    right = rolls.get(1);
-                    childrenRolls = ImmutableList.of(left, right);
-                    numberOfDice = left.asInteger().orElseThrow(() -> throwNotIntegerExpression(expressionPosition, left, "left"));
-                    expression = toExpression();
-                    randomElements.addRoll(left);
-                    randomElements.addRoll(right);
+        final int numberOfDice;
+        final Roll right;
+        final ImmutableList<Roll> childrenRolls;
 
-                } else {
-                    throw new IllegalStateException("More then two operands for " + expressionPosition.getValue());
-                }
+        RandomElementsBuilder randomElements = RandomElementsBuilder.empty(rollContext);
+        if (rolls.size() == 1) {
+            right = rolls.getFirst();
+            randomElements.addRoll(right);
+            numberOfDice = 1;
+            childrenRolls = ImmutableList.of(right);
+        } else if (rolls.size() == 2) {
+            Roll left = rolls.getFirst();
+            right = rolls.get(1);
+            childrenRolls = ImmutableList.of(left, right);
+            numberOfDice = left.asInteger().orElseThrow(() -> throwNotIntegerExpression(expressionPosition, left, "left"));
+            randomElements.addRoll(left);
+            randomElements.addRoll(right);
 
-                if (numberOfDice > maxNumberOfDice) {
-                    throw new ExpressionException(String.format("The number of dice must be less or equal then %d but was %d", maxNumberOfDice, numberOfDice), expressionPosition);
-                }
-                if (numberOfDice < 0) {
-                    throw new ExpressionException(String.format("The number of dice can not be negativ but was %d", numberOfDice), expressionPosition);
-                }
-                final ImmutableList<RollElement> rollElements;
-                if (right.asInteger().isPresent()) {
-                    int sidesOfDie = right.asInteger().get();
-                    List<RandomElement> roll = rollDice(numberOfDice, sidesOfDie, rollContext.getNumberSupplier(), rollId);
-                    rollElements = roll.stream().map(RandomElement::getRollElement).collect(ImmutableList.toImmutableList());
-                    randomElements.addRandomElements(roll);
-                } else {
-                    ImmutableList.Builder<RandomElement> rollBuilder = ImmutableList.builder();
-                    for (int i = 0; i < numberOfDice; i++) {
-                        rollBuilder.add(pickOneOf(right.getElements(), rollContext.getNumberSupplier(), DieId.of(rollId, i, 0)));
-                    }
-                    List<RandomElement> roll = rollBuilder.build();
-                    rollElements = roll.stream().map(RandomElement::getRollElement).collect(ImmutableList.toImmutableList());
-                    randomElements.addRandomElements(roll);
-                }
+        } else {
+            throw new IllegalStateException("More then two operands for " + expressionPosition.getValue());
+        }
 
-                return Optional.of(ImmutableList.of(new Roll(expression,
-                        rollElements,
-                        randomElements.build(),
-                        childrenRolls,
-                        expressionPosition,
-                        maxNumberOfElements,
-                        keepChildrenRolls)));
+        if (numberOfDice > maxNumberOfDice) {
+            throw new ExpressionException(String.format("The number of dice must be less or equal then %d but was %d", maxNumberOfDice, numberOfDice), expressionPosition);
+        }
+        if (numberOfDice < 0) {
+            throw new ExpressionException(String.format("The number of dice can not be negativ but was %d", numberOfDice), expressionPosition);
+        }
+        final ImmutableList<RollElement> rollElements;
+        if (right.asInteger().isPresent()) {
+            int sidesOfDie = right.asInteger().get();
+            if (rollContext.isTrackProvenance()) {
+                List<RandomElement> roll = rollDice(numberOfDice, sidesOfDie, rollContext.getNumberSupplier(), rollId);
+                rollElements = roll.stream().map(RandomElement::getRollElement).collect(ImmutableList.toImmutableList());
+                randomElements.addRandomElements(roll);
+            } else {
+                rollElements = rollDiceValues(numberOfDice, sidesOfDie, rollContext.getNumberSupplier(), rollId);
             }
-
-            @Override
-            public @NonNull String toExpression() {
-                if (operands.size() == 1) {
-                    return getRightUnaryExpression(expressionPosition, operands);
-                }
-                return getBinaryOperatorExpression(expressionPosition, operands);
+        } else if (!rollContext.isTrackProvenance()) {
+            ImmutableList.Builder<RollElement> rollElementBuilder = ImmutableList.builderWithExpectedSize(numberOfDice);
+            for (int i = 0; i < numberOfDice; i++) {
+                rollElementBuilder.add(pickOneOfValue(right.getElements(), rollContext.getNumberSupplier(), rollId, i));
+            }
+            rollElements = rollElementBuilder.build();
+        } else {
+            ImmutableList.Builder<RandomElement> rollBuilder = ImmutableList.builder();
+            for (int i = 0; i < numberOfDice; i++) {
+                rollBuilder.add(pickOneOf(right.getElements(), rollContext.getNumberSupplier(), DieId.of(rollId, i, 0)));
             }
-        };
+            List<RandomElement> roll = rollBuilder.build();
+            rollElements = roll.stream().map(RandomElement::getRollElement).collect(ImmutableList.toImmutableList());
+            randomElements.addRandomElements(roll);
+        }
+
+        return Optional.of(ImmutableList.of(new Roll(expression,
+                rollElements,
+                randomElements,
+                childrenRolls,
+                expressionPosition,
+                maxNumberOfElements,
+                keepChildrenRolls)));
     }
 }
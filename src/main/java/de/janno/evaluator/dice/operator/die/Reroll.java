@@ -18,6 +18,7 @@ public class Reroll extends Operator {
 
     @Override
     public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> operands, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
+        final String expression = getBinaryOperatorExpression(expressionPosition, operands);
         return new RollBuilder() {
             @Override
             public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
@@ -40,7 +41,7 @@ public class Reroll extends Operator {
 
                 return Optional.of(ImmutableList.of(new Roll(toExpression(),
                         roll.getElements(),
-                        builder.build(),
+                        builder,
                         ImmutableList.<Roll>builder()
                                 .addAll(compareTo.getChildrenRolls())
                                 .addAll(roll.getChildrenRolls())
@@ -52,7 +53,7 @@ public class Reroll extends Operator {
 
             @Override
             public @NonNull String toExpression() {
-                return getBinaryOperatorExpression(expressionPosition, operands);
+                return expression;
             }
         };
     }
@@ -7,46 +7,33 @@ import lombok.NonNull;
 import java.util.List;
 import java.util.Optional;
 
-import static de.janno.evaluator.dice.RollBuilder.extendAllBuilder;
 import static de.janno.evaluator.dice.ValidatorUtil.*;
 import static de.janno.evaluator.dice.operator.OperatorOrder.getOderNumberOf;
 
-public class Tag extends Operator {
+public class Tag extends Operator implements RollOperation {
     public Tag(int maxNumberOfElements, boolean keepChildrenRolls) {
         super("tag", OperatorType.BINARY, Associativity.LEFT, getOderNumberOf(Tag.class), maxNumberOfElements, keepChildrenRolls);
     }
 
     @Override
-    public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> operands, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
-
-        return new RollBuilder() {
-            @Override
-            public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
-                List<Roll> rolls = extendAllBuilder(operands, rollContext);
-                checkRollSize(expressionPosition, rolls, 2, 2);
-
-                Roll left = rolls.getFirst();
-                Roll right = rolls.get(1);
-                checkAllElementsAreSameTag(expressionPosition, left, right);
-                checkContainsSingleElement(expressionPosition, right, "second argument");
-                String tag = right.asSingleValue().orElseThrow();
-
-                return Optional.of(ImmutableList.of(new Roll(toExpression(),
-                        left.getElements().stream()
-                                .map(r -> new RollElement(r.getValue(), tag, r.getColor()))
-                                .collect(ImmutableList.toImmutableList()),
-                        //tags are not applied to the random elements
-                        RandomElementsBuilder.fromRolls(rolls, rollContext),
-                        ImmutableList.of(left, right),
-                        expressionPosition,
-                        maxNumberOfElements, keepChildrenRolls)));
-            }
-
-            @Override
-            public @NonNull String toExpression() {
-                return getBinaryOperatorExpression(expressionPosition, operands);
-            }
-        };
+    public @NonNull Optional<List<Roll>> apply(@NonNull List<Roll> rolls, @NonNull RollContext rollContext, @NonNull ExpressionPosition expressionPosition, @NonNull String expression) throws ExpressionException {
+        checkRollSize(expressionPosition, rolls, 2, 2);
+
+        Roll left = rolls.getFirst();
+        Roll right = rolls.get(1);
+        checkAllElementsAreSameTag(expressionPosition, left, right);
+        checkContainsSingleElement(expressionPosition, right, "second argument");
+        String tag = right.asSingleValue().orElseThrow();
+
+        return Optional.of(ImmutableList.of(new Roll(expression,
+                left.getElements().stream()
+                        .map(r -> r.withTag(tag, rollContext))
+                        .collect(ImmutableList.toImmutableList()),
+                //tags are not applied to the random elements
+                RandomElementsBuilder.ofRolls(rolls, rollContext),
+                ImmutableList.of(left, right),
+                expressionPosition,
+                maxNumberOfElements, keepChildrenRolls)));
     }
 
 }
\ No newline at end of file
@@ -6,61 +6,45 @@ import lombok.NonNull;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
-import static de.janno.evaluator.dice.RollBuilder.extendAllBuilder;
 import static de.janno.evaluator.dice.ValidatorUtil.checkRollSize;
 import static de.janno.evaluator.dice.ValidatorUtil.throwNotIntegerExpression;
 import static de.janno.evaluator.dice.operator.OperatorOrder.getOderNumberOf;
 
-public class KeepLowest extends Operator {
+public class KeepLowest extends Operator implements RollOperation {
 
     public KeepLowest(int maxNumberOfElements, boolean keepChildrenRolls) {
         super("l", null, null, Operator.Associativity.LEFT, getOderNumberOf(KeepLowest.class), maxNumberOfElements, keepChildrenRolls);
     }
 
     @Override
-    public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> operands, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
-        return new RollBuilder() {
-            @Override
-            public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
-                List<Roll> rolls = extendAllBuilder(operands, rollContext);
-                checkRollSize(expressionPosition, rolls, 2, 2);
-
-                Roll left = rolls.getFirst();
-                Roll right = rolls.get(1);
-                final int rightNumber = right.asInteger().orElseThrow(() -> throwNotIntegerExpression(expressionPosition, right, "right"));
-                if (rightNumber < 0) {
-                    throw new ExpressionException(String.format("The number to keep can not be negativ but was %d", rightNumber), expressionPosition);
-                }
-                final String rightTag = right.getElements().getFirst().getTag();
-                ImmutableList<RollElement> otherTagElements = left.getElements().stream()
-                        .filter(r -> !r.getTag().equals(rightTag))
-                        .collect(ImmutableList.toImmutableList());
-
-                ImmutableList<RollElement> keep = left.getElements().stream()
-                        .filter(r -> r.getTag().equals(rightTag))
-                        .collect(Collectors.groupingBy(RollElement::getTag)).values().stream()
-                        .flatMap(cl -> cl.stream()
-                                .sorted()
-                                .limit(rightNumber)
-                        )
-                        .collect(ImmutableList.toImmutableList());
-                return Optional.of(ImmutableList.of(new Roll(toExpression(),
-                        ImmutableList.<RollElement>builder()
-                                .addAll(keep)
-                                .addAll(otherTagElements)
-                                .build(),
-                        RandomElementsBuilder.fromRolls(rolls, rollContext),
-                        ImmutableList.of(left, right),
-                        expressionPosition,
-                        maxNumberOfElements, keepChildrenRolls)));
-            }
-
-            @Override
-            public @NonNull String toExpression() {
-                return getBinaryOperatorExpression(expressionPosition, operands);
-            }
-        };
+    public @NonNull Optional<List<Roll>> apply(@NonNull List<Roll> rolls, @NonNull RollContext rollContext, @NonNull ExpressionPosition expressionPosition, @NonNull String expression) throws ExpressionException {
+        checkRollSize(expressionPosition, rolls, 2, 2);
+
+        Roll left = rolls.getFirst();
+        Roll right = rolls.get(1);
+        final int rightNumber = right.asInteger().orElseThrow(() -> throwNotIntegerExpression(expressionPosition, right, "right"));
+        if (rightNumber < 0) {
+            throw new ExpressionException(String.format("The number to keep can not be negativ but was %d", rightNumber), expressionPosition);
+        }
+        final RollElement rightElement = right.getElements().getFirst();
+        ImmutableList<RollElement> otherTagElements = left.getElements().stream()
+                .filter(r -> !r.hasSameTag(rightElement))
+                .collect(ImmutableList.toImmutableList());
+
+        ImmutableList<RollElement> keep = left.getElements().stream()
+                .filter(r -> r.hasSameTag(rightElement))
+                .sorted()
+                .limit(rightNumber)
+                .collect(ImmutableList.toImmutableList());
+        return Optional.of(ImmutableList.of(new Roll(expression,
+                ImmutableList.<RollElement>builder()
+                        .addAll(keep)
+                        .addAll(otherTagElements)
+                        .build(),
+                RandomElementsBuilder.ofRolls(rolls, rollContext),
+                ImmutableList.of(left, right),
+                expressionPosition,
+                maxNumberOfElements, keepChildrenRolls)));
     }
 }
@@ -20,6 +20,7 @@ public class Repeat extends Operator {
 
     @Override
     public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> operands, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
+        final String expression = getBinaryOperatorExpression(expressionPosition, operands);
         return new RollBuilder() {
             @Override
             public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
@@ -41,7 +42,7 @@ public class Repeat extends Operator {
 
             @Override
             public @NonNull String toExpression() {
-                return getBinaryOperatorExpression(expressionPosition, operands);
+                return expression;
             }
         };
     }
@@ -20,6 +20,7 @@ public class RepeatList extends Operator {
 
     @Override
     public @NonNull RollBuilder evaluate(@NonNull List<RollBuilder> operands, @NonNull ExpressionPosition expressionPosition) throws ExpressionException {
+        final String expression = getBinaryOperatorExpression(expressionPosition, operands);
         return new RollBuilder() {
             @Override
             public @NonNull Optional<List<Roll>> extendRoll(@NonNull RollContext rollContext) throws ExpressionException {
@@ -47,7 +48,7 @@ public class RepeatList extends Operator {
 
                 return Optional.of(ImmutableList.of(new Roll(toExpression(),
                         rolls.stream().flatMap(r -> r.getElements().stream()).collect(ImmutableList.toImmutableList()),
-                        RandomElementsBuilder.fromRolls(rolls, rollContext),
+                        RandomElementsBuilder.ofRolls(rolls, rollContext),
                         rolls,
                         expressionPosition,
                         maxNumberOfElements, keepChildrenRolls)));
@@ -55,7 +56,7 @@ public class RepeatList extends Operator {
 
             @Override
             public @NonNull String toExpression() {
-                return getBinaryOperatorExpression(expressionPosition, operands);
+                return expression;
             }
         };
     }
@@ -0,0 +1,58 @@
+package de.janno.evaluator.dice.random;
+
+import de.janno.evaluator.dice.DieId;
+import de.janno.evaluator.dice.ExpressionException;
+import lombok.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rolls in antithetic pairs: the first roll of a pair takes the numbers from the source and the second roll gets the
+ * mirrored number for each die id, a d6 value of v becomes 7-v. A die id that was not in the first roll, like an
+ * additional exploding die, gets a new number from the source.
+ */
+public class AntitheticNumberSupplier implements VarianceReductionNumberSupplier {
+    private final NumberSupplier source;
+    //the numbers of the first roll, as offset from minExcl and with the range to detect a changed die
+    private final Map<DieId, Long> firstRoll = new HashMap<>();
+    private boolean mirrored = true;
+
+    public AntitheticNumberSupplier(@NonNull NumberSupplier source) {
+        this.source = source;
+    }
+
+    private static long key(int offset, long range) {
+        return range << 32 | offset;
+    }
+
+    @Override
+    public int getGroupSize() {
+        return 2;
+    }
+
+    @Override
+    public void startRoll() {
+        mirrored = !mirrored;
+        if (!mirrored) {
+            firstRoll.clear();
+        }
+    }
+
+    @Override
+    public int get(int minExcl, int maxIncl, @NonNull DieId dieId) throws ExpressionException {
+        RandomNumberSupplier.checkRange(minExcl, maxIncl, dieId);
+        final long range = (long) maxIncl - minExcl;
+        if (mirrored) {
+            final Long first = firstRoll.get(dieId);
+            if (first != null && first >>> 32 == range) {
+                //offset 1 becomes range and range becomes 1
+                return (int) (maxIncl + 1 - (first & 0xFFFFFFFFL));
+            }
+            return source.get(minExcl, maxIncl, dieId);
+        }
+        final int number = source.get(minExcl, maxIncl, dieId);
+        firstRoll.put(dieId, key(number - minExcl, range));
+        return number;
+    }
+}
@@ -0,0 +1,103 @@
+package de.janno.evaluator.dice.random;
+
+import de.janno.evaluator.dice.DieId;
+import de.janno.evaluator.dice.ExpressionException;
+import de.janno.evaluator.dice.RollId;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.security.SecureRandom;
+
+import static de.janno.evaluator.dice.random.SplitMix64.GOLDEN_GAMMA;
+import static de.janno.evaluator.dice.random.SplitMix64.mix;
+
+/**
+ * Provides random numbers that are a pure function of a 128-bit seed and the die id, the number supplier has no state
+ * that changes with a roll. Each die gets the same number, independent of the order or the thread in which the dice
+ * are rolled, so a whole roll can be replayed with the seed. The packed die id and the seed are mixed with the
+ * SplitMix64 finalizer and the number is created from the mixed value with Lemire's method.
+ */
+@Getter
+public class CounterBasedNumberSupplier implements NumberSupplier {
+    private final long seedHigh;
+    private final long seedLow;
+
+    /**
+     * A number supplier with a random seed, the seed can be read to replay the rolls
+     */
+    public CounterBasedNumberSupplier() {
+        this(new SecureRandom().nextLong(), new SecureRandom().nextLong());
+    }
+
+    public CounterBasedNumberSupplier(long seedHigh, long seedLow) {
+        this.seedHigh = seedHigh;
+        this.seedLow = seedLow;
+    }
+
+    /**
+     * The packed die id is unique for each die in a roll, so it is used directly and mixed with the seed. Only if the
+     * die id can't be packed, the key is created from its parts and the position hash separates dice of different
+     * positions with the same start, like in different variables.
+     */
+    private long getKey(RollId rollId, int dieIndex, int reroll) {
+        final long packed = DieId.getPackedId(rollId, dieIndex, reroll);
+        if (packed != DieId.NOT_PACKED) {
+            return mix(mix(seedHigh ^ mix(packed + GOLDEN_GAMMA)) ^ seedLow);
+        }
+        final long rollKey = (long) rollId.getExpressionPosition().getStartInc() << 32 | (rollId.getReevaluate() & 0xFFFFFFFFL);
+        final long dieKey = (long) dieIndex << 32 | (reroll & 0xFFFFFFFFL);
+        long key = mix(seedHigh ^ mix(rollKey + GOLDEN_GAMMA));
+        key = mix(key ^ seedLow ^ mix(dieKey + 2 * GOLDEN_GAMMA));
+        return mix(key ^ rollId.getExpressionPosition().hashCode());
+    }
+
+    /**
+     * Lemire's method, the values for a rejection are the following counters of the key
+     */
+    private static int nextBounded(long key, long range, int min) {
+        long counter = key;
+        long random = mix(counter);
+        long low = random * range;
+        if (Long.compareUnsigned(low, range) < 0) {
+            final long threshold = Long.remainderUnsigned(-range, range);
+            while (Long.compareUnsigned(low, threshold) < 0) {
+                counter += GOLDEN_GAMMA;
+                random = mix(counter);
+                low = random * range;
+            }
+        }
+        return min + (int) Math.unsignedMultiplyHigh(random, range);
+    }
+
+    @Override
+    public int get(int minExcl, int maxIncl, @NonNull DieId dieId) throws ExpressionException {
+        return get(minExcl, maxIncl, dieId.getRollId(), dieId.getDieIndex(), dieId.getReroll());
+    }
+
+    @Override
+    public int get(int minExcl, int maxIncl, @NonNull RollId rollId, int dieIndex, int reroll) throws ExpressionException {
+        RandomNumberSupplier.checkRange(minExcl, maxIncl, rollId.getExpressionPosition());
+        if (minExcl + 1 == maxIncl) {
+            return maxIncl;
+        }
+        return nextBounded(getKey(rollId, dieIndex, reroll), (long) maxIncl - minExcl, minExcl + 1);
+    }
+
+    @Override
+    public void get(int minExcl, int maxIncl, @NonNull DieId firstId, int @NonNull [] out) throws ExpressionException {
+        get(minExcl, maxIncl, firstId.getRollId(), firstId.getDieIndex(), firstId.getReroll(), out);
+    }
+
+    @Override
+    public void get(int minExcl, int maxIncl, @NonNull RollId rollId, int firstDieIndex, int @NonNull [] out) throws ExpressionException {
+        get(minExcl, maxIncl, rollId, firstDieIndex, 0, out);
+    }
+
+    private void get(int minExcl, int maxIncl, RollId rollId, int firstDieIndex, int reroll, int[] out) throws ExpressionException {
+        RandomNumberSupplier.checkRange(minExcl, maxIncl, rollId.getExpressionPosition());
+        final long range = (long) maxIncl - minExcl;
+        for (int i = 0; i < out.length; i++) {
+            out[i] = range == 1 ? maxIncl : nextBounded(getKey(rollId, firstDieIndex + i, reroll), range, minExcl + 1);
+        }
+    }
+}
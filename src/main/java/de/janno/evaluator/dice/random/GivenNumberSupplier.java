@@ -2,6 +2,7 @@ package de.janno.evaluator.dice.random;
 
 import com.google.common.annotations.VisibleForTesting;
 import de.janno.evaluator.dice.DieId;
+import de.janno.evaluator.dice.RollId;
 import lombok.NonNull;
 
 import java.util.*;
@@ -29,6 +30,15 @@ public class GivenNumberSupplier implements NumberSupplier {
 
     @Override
     public int get(int minExcl, int maxIncl, @NonNull DieId dieId) {
+        return next(maxIncl);
+    }
+
+    @Override
+    public int get(int minExcl, int maxIncl, @NonNull RollId rollId, int dieIndex, int reroll) {
+        return next(maxIncl);
+    }
+
+    private int next(int maxIncl) {
         if (results.isEmpty()) {
             return maxIncl;
         }
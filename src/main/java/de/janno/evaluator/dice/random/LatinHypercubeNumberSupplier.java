@@ -0,0 +1,78 @@
+package de.janno.evaluator.dice.random;
+
+import de.janno.evaluator.dice.DieId;
+import de.janno.evaluator.dice.ExpressionException;
+import lombok.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Latin hypercube sampling over a group of rolls: each die id gets a random permutation of groupSize equal strata of
+ * [0, 1) and the n-th roll of the group takes a uniform point in the n-th stratum of the permutation. So the numbers
+ * of a die are spread evenly over its faces within a group, but each single number is still uniform. A die id that
+ * rolls with another range than before in the group, or more than {@link #MAX_NUMBER_OF_DICE} dice ids, get
+ * independent numbers.
+ */
+public class LatinHypercubeNumberSupplier implements VarianceReductionNumberSupplier {
+    static final int MAX_NUMBER_OF_DICE = 4096;
+    private final int groupSize;
+    private final RandomGenerator randomSource;
+    private final Map<DieId, Strata> strata = new HashMap<>();
+    private int rollIndex = -1;
+
+    public LatinHypercubeNumberSupplier(int groupSize, long seed) {
+        if (groupSize < 1) {
+            throw new IllegalArgumentException("groupSize must be positive but was %d".formatted(groupSize));
+        }
+        this.groupSize = groupSize;
+        this.randomSource = new Sfc64Random(seed);
+    }
+
+    @Override
+    public int getGroupSize() {
+        return groupSize;
+    }
+
+    @Override
+    public void startRoll() {
+        rollIndex++;
+        if (rollIndex == groupSize) {
+            rollIndex = 0;
+            strata.clear();
+        }
+    }
+
+    private Strata createStrata(long range) {
+        //Fisher-Yates shuffle
+        final int[] permutation = new int[groupSize];
+        for (int i = 0; i < groupSize; i++) {
+            final int j = randomSource.nextInt(i + 1);
+            permutation[i] = permutation[j];
+            permutation[j] = i;
+        }
+        return new Strata(range, permutation);
+    }
+
+    @Override
+    public int get(int minExcl, int maxIncl, @NonNull DieId dieId) throws ExpressionException {
+        RandomNumberSupplier.checkRange(minExcl, maxIncl, dieId);
+        final long range = (long) maxIncl - minExcl;
+        Strata dieStrata = strata.get(dieId);
+        if (dieStrata == null && strata.size() < MAX_NUMBER_OF_DICE) {
+            dieStrata = createStrata(range);
+            strata.put(dieId, dieStrata);
+        }
+        final double uniform;
+        if (dieStrata != null && dieStrata.range() == range && rollIndex >= 0) {
+            uniform = (dieStrata.permutation()[rollIndex] + randomSource.nextDouble()) / groupSize;
+        } else {
+            uniform = randomSource.nextDouble();
+        }
+        return minExcl + 1 + (int) Math.min(range - 1, (long) (uniform * range));
+    }
+
+    private record Strata(long range, int[] permutation) {
+    }
+}
@@ -2,6 +2,7 @@ package de.janno.evaluator.dice.random;
 
 import de.janno.evaluator.dice.DieId;
 import de.janno.evaluator.dice.ExpressionException;
+import de.janno.evaluator.dice.RollId;
 import lombok.NonNull;
 
 /**
@@ -19,4 +20,49 @@ public interface NumberSupplier {
      * @return a number between minExcl and maxIncl
      */
     int get(int minExcl, int maxIncl, @NonNull DieId dieId) throws ExpressionException;
+
+    /**
+     * Fills out with a number between minExcl and maxIncl for each die, the die index of the dice start with the index
+     * of firstId. The default implementation calls {@link #get(int, int, DieId)} for each die.
+     *
+     * @param minExcl the minimum value (exclusive)
+     * @param maxIncl the maximum value (inclusive)
+     * @param firstId the id of the first die in the expression that is rolled
+     * @param out     the array for the numbers, one number for each die
+     */
+    default void get(int minExcl, int maxIncl, @NonNull DieId firstId, int @NonNull [] out) throws ExpressionException {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = get(minExcl, maxIncl, DieId.of(firstId.getRollId(), firstId.getDieIndex() + i, firstId.getReroll()));
+        }
+    }
+
+    /**
+     * Like {@link #get(int, int, DieId)} but with the parts of the die id. Rolls that don't track the provenance use
+     * this, so number suppliers that don't depend on the die id can override it to skip the creation of the id. The
+     * default implementation creates the die id.
+     *
+     * @param minExcl  the minimum value (exclusive)
+     * @param maxIncl  the maximum value (inclusive)
+     * @param rollId   the id of the roll of the die
+     * @param dieIndex the index of the die in the roll
+     * @param reroll   the reroll of the die
+     * @return a number between minExcl and maxIncl
+     */
+    default int get(int minExcl, int maxIncl, @NonNull RollId rollId, int dieIndex, int reroll) throws ExpressionException {
+        return get(minExcl, maxIncl, DieId.of(rollId, dieIndex, reroll));
+    }
+
+    /**
+     * Like {@link #get(int, int, DieId, int[])} but with the parts of the first die id, see
+     * {@link #get(int, int, RollId, int, int)}. The default implementation creates the die id of the first die.
+     *
+     * @param minExcl       the minimum value (exclusive)
+     * @param maxIncl       the maximum value (inclusive)
+     * @param rollId        the id of the roll of the dice
+     * @param firstDieIndex the index of the first die in the roll
+     * @param out           the array for the numbers, one number for each die
+     */
+    default void get(int minExcl, int maxIncl, @NonNull RollId rollId, int firstDieIndex, int @NonNull [] out) throws ExpressionException {
+        get(minExcl, maxIncl, DieId.of(rollId, firstDieIndex, 0), out);
+    }
 }
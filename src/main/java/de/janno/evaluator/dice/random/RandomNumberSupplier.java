@@ -3,38 +3,136 @@ package de.janno.evaluator.dice.random;
 import com.google.common.annotations.VisibleForTesting;
 import de.janno.evaluator.dice.DieId;
 import de.janno.evaluator.dice.ExpressionException;
+import de.janno.evaluator.dice.ExpressionPosition;
+import de.janno.evaluator.dice.RollId;
 import lombok.NonNull;
 
+import java.util.Arrays;
 import java.util.random.RandomGenerator;
 
 /**
- * Provides random numbers
+ * Provides random numbers. The numbers are created with Lemire's nearly divisionless method and multiple dice are taken
+ * from one random long, as long as the product of their ranges is below {@link #MAX_BATCH_RANGE}. Like the single die
+ * method the batch is unbiased: the random long is rejected and redrawn for the small part of the values that would
+ * give some results more often.
  */
 public class RandomNumberSupplier implements NumberSupplier {
+    //the rejection probability of a batch is below product/2^64, so below 1/256
+    private static final long MAX_BATCH_RANGE = 1L << 56;
     private final RandomGenerator randomSource;
 
     public RandomNumberSupplier() {
-        randomSource = new ThreadLocalSfc64Random();
+        randomSource = StripedSfc64Random.shared();
     }
 
-    @VisibleForTesting
     public RandomNumberSupplier(long seed) {
         randomSource = new Sfc64Random(seed);
     }
 
-    public int get(int minExcl, int maxIncl, @NonNull DieId dieId) throws ExpressionException {
+    static void checkRange(int minExcl, int maxIncl, DieId dieId) throws ExpressionException {
+        checkRange(minExcl, maxIncl, dieId.getRollId().getExpressionPosition());
+    }
+
+    static void checkRange(int minExcl, int maxIncl, ExpressionPosition expressionPosition) throws ExpressionException {
         if (minExcl == Integer.MAX_VALUE) {
-            throw new ExpressionException("Cannot give a random number for minExcl =%d".formatted(Integer.MAX_VALUE), dieId.getRollId().getExpressionPosition());
+            throw new ExpressionException("Cannot give a random number for minExcl =%d".formatted(Integer.MAX_VALUE), expressionPosition);
         }
         if (maxIncl == Integer.MAX_VALUE) {
-            throw new ExpressionException("Cannot give a random number for maxIncl =%d".formatted(Integer.MAX_VALUE), dieId.getRollId().getExpressionPosition());
+            throw new ExpressionException("Cannot give a random number for maxIncl =%d".formatted(Integer.MAX_VALUE), expressionPosition);
         }
         if (minExcl >= maxIncl) {
-            throw new ExpressionException("Random number between %d (excl) and %d (incl) is not possible".formatted(minExcl, maxIncl), dieId.getRollId().getExpressionPosition());
+            throw new ExpressionException("Random number between %d (excl) and %d (incl) is not possible".formatted(minExcl, maxIncl), expressionPosition);
+        }
+    }
+
+    /**
+     * The number of dice with the range that can be taken from one random long
+     */
+    @VisibleForTesting
+    static int getBatchSize(long range) {
+        int batchSize = 1;
+        long product = range;
+        while (product <= MAX_BATCH_RANGE / range) {
+            product *= range;
+            batchSize++;
         }
+        return batchSize;
+    }
+
+    public int get(int minExcl, int maxIncl, @NonNull DieId dieId) throws ExpressionException {
+        return get(minExcl, maxIncl, dieId.getRollId().getExpressionPosition());
+    }
+
+    //the numbers don't depend on the die id, so it is not created
+    @Override
+    public int get(int minExcl, int maxIncl, @NonNull RollId rollId, int dieIndex, int reroll) throws ExpressionException {
+        return get(minExcl, maxIncl, rollId.getExpressionPosition());
+    }
+
+    private int get(int minExcl, int maxIncl, ExpressionPosition expressionPosition) throws ExpressionException {
+        checkRange(minExcl, maxIncl, expressionPosition);
         if (minExcl + 1 == maxIncl) {
             return maxIncl;
         }
-        return randomSource.nextInt(minExcl + 1, maxIncl + 1);
+        return minExcl + 1 + (int) nextBounded((long) maxIncl - minExcl);
+    }
+
+    private long nextBounded(long range) {
+        long random = randomSource.nextLong();
+        long low = random * range;
+        if (Long.compareUnsigned(low, range) < 0) {
+            final long threshold = Long.remainderUnsigned(-range, range);
+            while (Long.compareUnsigned(low, threshold) < 0) {
+                random = randomSource.nextLong();
+                low = random * range;
+            }
+        }
+        return Math.unsignedMultiplyHigh(random, range);
+    }
+
+    @Override
+    public void get(int minExcl, int maxIncl, @NonNull DieId firstId, int @NonNull [] out) throws ExpressionException {
+        get(minExcl, maxIncl, firstId.getRollId().getExpressionPosition(), out);
+    }
+
+    @Override
+    public void get(int minExcl, int maxIncl, @NonNull RollId rollId, int firstDieIndex, int @NonNull [] out) throws ExpressionException {
+        get(minExcl, maxIncl, rollId.getExpressionPosition(), out);
+    }
+
+    private void get(int minExcl, int maxIncl, ExpressionPosition expressionPosition, int[] out) throws ExpressionException {
+        checkRange(minExcl, maxIncl, expressionPosition);
+        if (minExcl + 1 == maxIncl) {
+            Arrays.fill(out, maxIncl);
+            return;
+        }
+        final long range = (long) maxIncl - minExcl;
+        final int batchSize = getBatchSize(range);
+        for (int i = 0; i < out.length; i += batchSize) {
+            fillBatch(range, minExcl + 1, out, i, Math.min(batchSize, out.length - i));
+        }
+    }
+
+    /**
+     * Each multiplication of the random long with the range gives one number in the high bits and keeps the remaining
+     * randomness in the low bits. This is the same as one number in the range product, so the batch is rejected like
+     * a single number in Lemire's method.
+     */
+    private void fillBatch(long range, int min, int[] out, int from, int count) {
+        long product = 1;
+        for (int i = 0; i < count; i++) {
+            product *= range;
+        }
+        while (true) {
+            long random = randomSource.nextLong();
+            for (int i = 0; i < count; i++) {
+                out[from + i] = min + (int) Math.unsignedMultiplyHigh(random, range);
+                random *= range;
+            }
+            if (Long.compareUnsigned(random, product) >= 0
+                    || Long.compareUnsigned(random, Long.remainderUnsigned(-product, product)) >= 0) {
+                return;
+            }
+        }
     }
 }
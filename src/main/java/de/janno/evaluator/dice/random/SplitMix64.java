@@ -0,0 +1,18 @@
+package de.janno.evaluator.dice.random;
+
+/**
+ * The increment and the finalizer of SplitMix64 (Steele, Lea, Flood: "Fast Splittable Pseudorandom Number Generators").
+ * The finalizer is a bijection that mixes every input bit into every output bit, it is used to derive seeds and keys.
+ */
+final class SplitMix64 {
+    static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private SplitMix64() {
+    }
+
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
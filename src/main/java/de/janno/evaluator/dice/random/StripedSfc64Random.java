@@ -0,0 +1,69 @@
+package de.janno.evaluator.dice.random;
+
+import com.google.common.annotations.VisibleForTesting;
+import lombok.NonNull;
+
+import java.security.SecureRandom;
+import java.util.random.RandomGenerator;
+
+import static de.janno.evaluator.dice.random.SplitMix64.GOLDEN_GAMMA;
+import static de.janno.evaluator.dice.random.SplitMix64.mix;
+
+/**
+ * A fixed pool of Sfc64Random generators that is shared by all threads. Each thread uses the generator of its stripe,
+ * so a new thread, like a virtual thread per request, doesn't need to create, seed and store its own generator.
+ * The pool is seeded once, all generators are derived with SplitMix64 from one seed.
+ * Thread-safe, threads with the same stripe wait for each other only while a single long is created.
+ */
+public class StripedSfc64Random implements RandomGenerator {
+    private final Sfc64Random[] stripes;
+    private final int mask;
+
+    /**
+     * A pool with a random seed and four stripes per available processor
+     */
+    public StripedSfc64Random() {
+        this(new SecureRandom().nextLong(), 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param minStripes the minimal number of generators, it is rounded up to the next power of two
+     */
+    public StripedSfc64Random(long seed, int minStripes) {
+        final int stripeCount = minStripes <= 1 ? 1 : Integer.highestOneBit(minStripes - 1) << 1;
+        this.stripes = new Sfc64Random[stripeCount];
+        this.mask = stripeCount - 1;
+        long state = seed;
+        for (int i = 0; i < stripeCount; i++) {
+            state += GOLDEN_GAMMA;
+            final long seedC = mix(state);
+            state += GOLDEN_GAMMA;
+            final long seedB = mix(state);
+            state += GOLDEN_GAMMA;
+            stripes[i] = new Sfc64Random(seedC, seedB, mix(state));
+        }
+    }
+
+    /**
+     * The pool that is used by all {@link RandomNumberSupplier} without seed, it is seeded on first use.
+     */
+    public static @NonNull StripedSfc64Random shared() {
+        return SharedHolder.SHARED;
+    }
+
+    @VisibleForTesting
+    int getStripeCount() {
+        return stripes.length;
+    }
+
+    public long nextLong() {
+        final Sfc64Random stripe = stripes[(int) ((Thread.currentThread().threadId() * GOLDEN_GAMMA) >>> 32) & mask];
+        synchronized (stripe) {
+            return stripe.nextLong();
+        }
+    }
+
+    private static final class SharedHolder {
+        private static final StripedSfc64Random SHARED = new StripedSfc64Random();
+    }
+}
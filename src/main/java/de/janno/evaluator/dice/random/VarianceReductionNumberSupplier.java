@@ -0,0 +1,19 @@
+package de.janno.evaluator.dice.random;
+
+/**
+ * A number supplier that makes the rolls of a group dependent to reduce the variance of the group mean. Each single
+ * roll is still uniform, so the mean of a group is an unbiased sample of the expression, but only the means of
+ * different groups are independent.
+ */
+public interface VarianceReductionNumberSupplier extends NumberSupplier {
+
+    /**
+     * The number of rolls in a group
+     */
+    int getGroupSize();
+
+    /**
+     * Must be called before each roll, after getGroupSize() rolls the next call starts a new group.
+     */
+    void startRoll();
+}
@@ -0,0 +1,183 @@
+package de.janno.evaluator.dice;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+class AdaptiveSimulationTest {
+
+    private final DiceEvaluator diceEvaluator = new DiceEvaluator();
+
+    //all runs are seeded, so the statistical asserts can't fail by chance
+    private AdaptiveSimulationResult run(String expression, AdaptiveSimulationConfig config) throws ExpressionException {
+        return new AdaptiveSimulation(diceEvaluator.buildRollSupplier(expression), config.toBuilder().seed(0L).build(), System::nanoTime).run();
+    }
+
+    @Test
+    void sameSeedSameResult() throws ExpressionException {
+        for (AdaptiveSimulationConfig.SamplingMethod samplingMethod : AdaptiveSimulationConfig.SamplingMethod.values()) {
+            AdaptiveSimulationConfig config = AdaptiveSimulationConfig.builder().maxError(0.01).parallelism(3).samplingMethod(samplingMethod).seed(42L).build();
+
+            AdaptiveSimulationResult first = new AdaptiveSimulation(diceEvaluator.buildRollSupplier("3d6="), config, System::nanoTime).run();
+            AdaptiveSimulationResult second = new AdaptiveSimulation(diceEvaluator.buildRollSupplier("3d6="), config, System::nanoTime).run();
+
+            assertThat(second.getNumberOfRolls()).as(samplingMethod.name()).isEqualTo(first.getNumberOfRolls());
+            assertThat(second.getMean()).as(samplingMethod.name()).isEqualTo(first.getMean());
+            assertThat(second.getLowerBound()).as(samplingMethod.name()).isEqualTo(first.getLowerBound());
+        }
+    }
+
+    @Test
+    void successRateConverges() throws ExpressionException {
+        AdaptiveSimulationResult res = run("1d6 >=? 5", AdaptiveSimulationConfig.builder().maxError(0.01).build());
+
+        assertThat(res.getStopReason()).isEqualTo(AdaptiveSimulationResult.StopReason.CONVERGED);
+        assertThat(res.getHalfWidth()).isLessThanOrEqualTo(0.01);
+        assertThat(res.getMean()).isCloseTo(1d / 3, offset(0.03));
+        assertThat(res.getLowerBound()).isLessThan(res.getMean());
+        assertThat(res.getUpperBound()).isGreaterThan(res.getMean());
+        //the half width of 0.01 needs about 8500 rolls, so one batch is enough
+        assertThat(res.getNumberOfRolls()).isEqualTo(10_000);
+        assertThat(res.getNumberOfOtherResults()).isZero();
+    }
+
+    @Test
+    void moreBatchesForHigherPrecision() throws ExpressionException {
+        AdaptiveSimulationResult res = run("1d6 >=? 5", AdaptiveSimulationConfig.builder().maxError(0.004).build());
+
+        assertThat(res.isConverged()).isTrue();
+        //about 53_000 rolls are needed
+        assertThat(res.getNumberOfRolls()).isBetween(40_000L, 70_000L);
+        assertThat(res.getNumberOfRolls() % 10_000).isZero();
+    }
+
+    @Test
+    void relativeErrorOfTheMean() throws ExpressionException {
+        AdaptiveSimulationResult res = run("10d10>=7c", AdaptiveSimulationConfig.builder().maxError(0.01).relativeError(true).batchSize(1000).build());
+
+        assertThat(res.isConverged()).isTrue();
+        assertThat(res.getHalfWidth()).isLessThanOrEqualTo(0.01 * res.getMean());
+        assertThat(res.getMean()).isCloseTo(4, offset(0.1));
+    }
+
+    @Test
+    void neverSucceedingStillHasAnInterval() throws ExpressionException {
+        AdaptiveSimulationResult res = run("1d6 >? 6", AdaptiveSimulationConfig.builder().build());
+
+        assertThat(res.isConverged()).isTrue();
+        assertThat(res.getMean()).isZero();
+        assertThat(res.getLowerBound()).isEqualTo(0, offset(1e-12));
+        assertThat(res.getUpperBound()).isPositive();
+    }
+
+    @Test
+    void maxNumberOfRolls() throws ExpressionException {
+        AdaptiveSimulationResult res = run("1d6", AdaptiveSimulationConfig.builder().maxError(0).maxNumberOfRolls(25_000).parallelism(3).build());
+
+        assertThat(res.getStopReason()).isEqualTo(AdaptiveSimulationResult.StopReason.MAX_NUMBER_OF_ROLLS);
+        assertThat(res.getNumberOfRolls()).isEqualTo(25_000);
+        assertThat(res.getMean()).isCloseTo(3.5, offset(0.1));
+    }
+
+    @Test
+    void maxDuration() throws ExpressionException {
+        //every call of the clock takes one second
+        AtomicLong nanoTime = new AtomicLong();
+        AdaptiveSimulationConfig config = AdaptiveSimulationConfig.builder().maxError(0).batchSize(100).maxDuration(Duration.ofSeconds(3)).build();
+
+        AdaptiveSimulationResult res = new AdaptiveSimulation(diceEvaluator.buildRollSupplier("1d6"), config,
+                () -> nanoTime.getAndAdd(Duration.ofSeconds(1).toNanos())).run();
+
+        assertThat(res.getStopReason()).isEqualTo(AdaptiveSimulationResult.StopReason.MAX_DURATION);
+        assertThat(res.getNumberOfRolls()).isEqualTo(300);
+        assertThat(res.getDuration()).isEqualTo(Duration.ofSeconds(4));
+    }
+
+    @Test
+    void maxDurationWithinBatch() throws ExpressionException {
+        //every call of the clock takes one second, the clock is read every 1024 rolls in the batch
+        AtomicLong nanoTime = new AtomicLong();
+        AdaptiveSimulationConfig config = AdaptiveSimulationConfig.builder().maxError(0).batchSize(100_000).maxDuration(Duration.ofSeconds(3)).build();
+
+        AdaptiveSimulationResult res = new AdaptiveSimulation(diceEvaluator.buildRollSupplier("1d6"), config,
+                () -> nanoTime.getAndAdd(Duration.ofSeconds(1).toNanos())).run();
+
+        assertThat(res.getStopReason()).isEqualTo(AdaptiveSimulationResult.StopReason.MAX_DURATION);
+        assertThat(res.getNumberOfRolls()).isEqualTo(3 * AdaptiveSimulation.ROLLS_BETWEEN_CLOCK_CHECKS);
+        assertThat(res.getDuration()).isEqualTo(Duration.ofSeconds(4));
+    }
+
+    @Test
+    void otherResultsAreIgnored() throws ExpressionException {
+        AdaptiveSimulationResult res = run("if(1d2=?1, 1d6, 'a')", AdaptiveSimulationConfig.builder().maxError(0.1).build());
+
+        assertThat(res.isConverged()).isTrue();
+        assertThat(res.getNumberOfOtherResults()).isBetween(4_000L, 6_000L);
+        assertThat(res.getMean()).isCloseTo(3.5, offset(0.3));
+    }
+
+    @Test
+    void invalidConfig() {
+        assertThatThrownBy(() -> run("1d6", AdaptiveSimulationConfig.builder().confidence(1).build()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("confidence must be between 0 and 1 but was 1.0");
+        assertThatThrownBy(() -> run("1d6", AdaptiveSimulationConfig.builder().batchSize(0).build()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("batchSize must be positive but was 0");
+    }
+
+    @Test
+    void antitheticSumIsExact() throws ExpressionException {
+        AdaptiveSimulationResult res = run("2d6=", AdaptiveSimulationConfig.builder()
+                .samplingMethod(AdaptiveSimulationConfig.SamplingMethod.ANTITHETIC).build());
+
+        //each pair sums to 14, so the group means have no variance
+        assertThat(res.isConverged()).isTrue();
+        assertThat(res.getNumberOfRolls()).isEqualTo(10_000);
+        assertThat(res.getMean()).isEqualTo(7);
+    }
+
+    @Test
+    void latinHypercubeNeedsFewerRolls() throws ExpressionException {
+        //independent rolls need about 336_000 rolls for this precision
+        AdaptiveSimulationResult res = run("3d6=", AdaptiveSimulationConfig.builder().maxError(0.01)
+                .samplingMethod(AdaptiveSimulationConfig.SamplingMethod.LATIN_HYPERCUBE).build());
+
+        assertThat(res.isConverged()).isTrue();
+        assertThat(res.getNumberOfRolls()).isLessThanOrEqualTo(30_000);
+        assertThat(res.getMean()).isCloseTo(10.5, offset(0.03));
+    }
+
+    @Test
+    void varianceReductionIsUnbiased() throws ExpressionException {
+        for (AdaptiveSimulationConfig.SamplingMethod samplingMethod : AdaptiveSimulationConfig.SamplingMethod.values()) {
+            AdaptiveSimulationResult res = run("2d6k1 >=? 5", AdaptiveSimulationConfig.builder().maxError(0.005).samplingMethod(samplingMethod).build());
+
+            assertThat(res.isConverged()).as(samplingMethod.name()).isTrue();
+            assertThat(res.getMean()).as(samplingMethod.name()).isCloseTo(20d / 36, offset(0.015));
+        }
+    }
+
+    @Test
+    void varianceReductionNeverSucceeding() throws ExpressionException {
+        AdaptiveSimulationResult res = run("1d6 >? 6", AdaptiveSimulationConfig.builder()
+                .samplingMethod(AdaptiveSimulationConfig.SamplingMethod.LATIN_HYPERCUBE).build());
+
+        assertThat(res.isConverged()).isTrue();
+        assertThat(res.getMean()).isZero();
+        assertThat(res.getUpperBound()).isPositive();
+    }
+
+    @Test
+    void normalQuantile() {
+        assertThat(AdaptiveSimulation.normalQuantile(0.5)).isCloseTo(0, offset(1e-9));
+        assertThat(AdaptiveSimulation.normalQuantile(0.975)).isCloseTo(1.959964, offset(1e-6));
+        assertThat(AdaptiveSimulation.normalQuantile(0.995)).isCloseTo(2.575829, offset(1e-6));
+        assertThat(AdaptiveSimulation.normalQuantile(0.01)).isCloseTo(-2.326348, offset(1e-6));
+    }
+}
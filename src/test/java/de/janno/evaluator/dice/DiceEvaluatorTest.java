@@ -3,12 +3,14 @@ package de.janno.evaluator.dice;
 import de.janno.evaluator.dice.random.GivenDiceNumberSupplier;
 import de.janno.evaluator.dice.random.GivenNumberSupplier;
 import de.janno.evaluator.dice.random.RandomNumberSupplier;
+import de.janno.evaluator.dice.random.SingleDrawRandomNumberSupplier;
 import org.assertj.core.api.SoftAssertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.math.BigDecimal;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +21,7 @@ import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
 
 public class DiceEvaluatorTest {
     private static final String VAMPIRE_V5 = "val('$r',3d10) val('$h',3d10) val('$s',('$r'+'$h')>=6c) val('$rt','$r'==10c) val('$ht','$h'==10c) val('$ho','$h'==1c) val('$2s',((('$rt'+'$ht'=))/2)*2) val('$ts',('$s'+'$2s'=)) concat('successes: ', '$ts', ifE('$ts',0,ifG('$ho',1,' bestial failure' , ''),''), ifE('$rt' mod 2, 1, ifE('$ht' mod 2, 1, ' messy critical', ''), ''))";
@@ -599,12 +602,12 @@ public class DiceEvaluatorTest {
                 Arguments.of("1/0", "/ by zero"),
                 Arguments.of("1//0", "/ by zero"),
                 Arguments.of("color(3d6,[a/b])", "'color' requires as second argument a single element but was '[a, b]'"),
-                Arguments.of("ifL(2d6,3,'three','not three')", "'ifL' requires as 1 argument a single element but was '[2, 3]'. Try to sum the numbers together like ((2d6=)"),
-                Arguments.of("ifIn(2d6,3,'three','not three')", "'ifIn' requires as 1 argument a single element but was '[2, 3]'. Try to sum the numbers together like ((2d6=)"),
-                Arguments.of("ifL(1d6,2d6,'three','not three')", "'ifL' requires as 2 argument a single element but was '[3, 1]'. Try to sum the numbers together like (2d6=)"),
-                Arguments.of("ifG(1d6,2d6,'three','not three')", "'ifG' requires as 2 argument a single element but was '[3, 1]'. Try to sum the numbers together like (2d6=)"),
-                Arguments.of("ifG(1d6,2d6,'three','not three')", "'ifG' requires as 2 argument a single element but was '[3, 1]'. Try to sum the numbers together like (2d6=)"),
-                Arguments.of("ifG(1d6,6,'three',2d6,'not three')", "'ifG' requires as 4 argument a single element but was '[3, 1]'. Try to sum the numbers together like (2d6=)"),
+                Arguments.of("ifL(2d6,3,'three','not three')", "'ifL' requires as 1 argument a single element but was '[2, 5]'. Try to sum the numbers together like ((2d6=)"),
+                Arguments.of("ifIn(2d6,3,'three','not three')", "'ifIn' requires as 1 argument a single element but was '[2, 5]'. Try to sum the numbers together like ((2d6=)"),
+                Arguments.of("ifL(1d6,2d6,'three','not three')", "'ifL' requires as 2 argument a single element but was '[6, 4]'. Try to sum the numbers together like (2d6=)"),
+                Arguments.of("ifG(1d6,2d6,'three','not three')", "'ifG' requires as 2 argument a single element but was '[6, 4]'. Try to sum the numbers together like (2d6=)"),
+                Arguments.of("ifG(1d6,2d6,'three','not three')", "'ifG' requires as 2 argument a single element but was '[6, 4]'. Try to sum the numbers together like (2d6=)"),
+                Arguments.of("ifG(1d6,6,'three',2d6,'not three')", "'ifG' requires as 4 argument a single element but was '[6, 4]'. Try to sum the numbers together like (2d6=)"),
                 Arguments.of("1d-1", "Not enough values, d needs 2"),
                 Arguments.of("d-1", "Not enough values, d needs 1"),
                 Arguments.of("2d6k-1", "The number to keep can not be negativ but was -1"),
@@ -627,14 +630,14 @@ public class DiceEvaluatorTest {
                 Arguments.of("0x(1d6)", "The number of repeat must between 1-10 but was 0"),
                 Arguments.of("21r(1d6)", "The number of list repeat must between 0-20 but was 21"),
                 Arguments.of("-1r(1d6)", "The number of list repeat must between 0-20 but was -1"),
-                Arguments.of("3d6x(1d6)", "'x' requires as left input a single integer but was '[2, 3, 1]'. Try to sum the numbers together like (3d6=)"),
+                Arguments.of("3d6x(1d6)", "'x' requires as left input a single integer but was '[2, 5, 3]'. Try to sum the numbers together like (3d6=)"),
                 Arguments.of("'a'x(1d6)", "'x' requires as left input a single integer but was '[a]'"),
                 Arguments.of("x(1d6)", "Operator x does not support unary operations"),
-                Arguments.of("(3d[a/b/c])=", "'=' requires as left input only decimals but was '[b, c, a]'"),
+                Arguments.of("(3d[a/b/c])=", "'=' requires as left input only decimals but was '[a, c, a]'"),
                 Arguments.of("color(2,'red')*color(2,'black')", "'*' requires all elements to be the same tag, the tags where '[red, black]'"),
                 Arguments.of("1000d9999999999", "The number '9999999999' is too big"),
                 Arguments.of("9.9999999999", "The number '9.9999999999' is too big"),
-                Arguments.of("(3x2d6)=", "'=' requires as 1 inputs but was '[[2, 3], [1, 4], [1, 1]]'"),
+                Arguments.of("(3x2d6)=", "'=' requires as 1 inputs but was '[[2, 5], [6, 4], [2, 6]]'"),
                 Arguments.of("3&&'ab'", "'&&' requires as left input a single boolean but was '[3]'"),
                 Arguments.of("3||'ab'", "'||' requires as left input a single boolean but was '[3]'"),
                 Arguments.of("1<?'ab'", "'<?' requires as right input a single decimal but was '[ab]'"),
@@ -674,7 +677,7 @@ public class DiceEvaluatorTest {
                 Arguments.of("'a'...1", "'...' requires as left input a single decimal but was '[a]'"),
                 Arguments.of("0...10000", "The list is limited to 100 elements"),
 
-                Arguments.of("round(2d6,'UP')", "'round' requires as first argument input a single decimal but was '[2, 3]'. Try to sum the numbers together like ((2d6=)"),
+                Arguments.of("round(2d6,'UP')", "'round' requires as first argument input a single decimal but was '[2, 5]'. Try to sum the numbers together like ((2d6=)"),
                 Arguments.of("round('a','UP')", "'round' requires as first argument input a single decimal but was '[a]'"),
                 Arguments.of("round(1.4)", "'round' requires as 2-3 inputs but was '[[1.4]]'"),
                 Arguments.of("round(1.4, 2)", "The second element must be a single value of: UP, DOWN, CEILING, FLOOR, HALF_UP, HALF_DOWN, HALF_EVEN but was: 2"),
@@ -716,7 +719,10 @@ public class DiceEvaluatorTest {
                 Arguments.of("20", false),
                 Arguments.of("u", false),
                 Arguments.of("  ud  ", true),
-                Arguments.of("  D  ", true)
+                Arguments.of("  D  ", true),
+                Arguments.of("uu 123 uu", false),
+                Arguments.of("rolling IFG", true),
+                Arguments.of("Hello, are you there?", true)
         );
     }
 
@@ -1014,6 +1020,22 @@ public class DiceEvaluatorTest {
         assertThat(getRandomElementsString(res.getRolls().getFirst())).isEqualTo("[1] [2]");
     }
 
+    @Test
+    void deepChainOfSharedVariablesKeepsRandomElements() throws ExpressionException {
+        DiceEvaluator underTest = new DiceEvaluator(new GivenNumberSupplier(4), 1000, 10_000, true);
+        StringBuilder expression = new StringBuilder("val('$v0',1d6)");
+        for (int i = 1; i <= 70; i++) {
+            expression.append(" val('$v%d',('$v%d'+'$v%d')k1)".formatted(i, i - 1, i - 1));
+        }
+        expression.append(" '$v70'");
+
+        RollResult res = underTest.evaluate(expression.toString());
+
+        assertThat(values(res.getRolls())).containsExactly("4");
+        assertThat(getRandomElementsString(res.getRolls().getFirst())).isEqualTo("[4]");
+        assertThat(res.getAllRandomElements()).hasSize(1);
+    }
+
     @ParameterizedTest(name = "{index} input:{0}, diceRolls:{1} -> {2}")
     @MethodSource("resultSizeDate")
     void resultSize(String expression, int size) throws ExpressionException {
@@ -1048,8 +1070,8 @@ public class DiceEvaluatorTest {
         DiceEvaluator underTest = new DiceEvaluator(new RandomNumberSupplier(0), 1000, 10_000, false);
 
         List<Roll> res = underTest.evaluate("(2d6=)d(2d6=)").getRolls();
-        assertThat(res.getFirst().getElements()).hasSize(5);
-        assertThat(res.getFirst().getRandomElementsInRoll()).hasSize(9);
+        assertThat(res.getFirst().getElements()).hasSize(7);
+        assertThat(res.getFirst().getRandomElementsInRoll()).hasSize(11);
         assertThat(res.getFirst().getChildrenRolls().stream().mapToLong(this::getNumberOfChildrenRolls).sum()).isEqualTo(0);
     }
 
@@ -1058,8 +1080,8 @@ public class DiceEvaluatorTest {
         DiceEvaluator underTest = new DiceEvaluator(new RandomNumberSupplier(0), 1000, 10_000, true);
 
         List<Roll> res = underTest.evaluate("(2d6=)d(2d6=)").getRolls();
-        assertThat(res.getFirst().getElements()).hasSize(5);
-        assertThat(res.getFirst().getRandomElementsInRoll()).hasSize(9);
+        assertThat(res.getFirst().getElements()).hasSize(7);
+        assertThat(res.getFirst().getRandomElementsInRoll()).hasSize(11);
         assertThat(res.getFirst().getChildrenRolls().stream().mapToLong(this::getNumberOfChildrenRolls).sum()).isEqualTo(6);
     }
 
@@ -1513,6 +1535,25 @@ public class DiceEvaluatorTest {
         DiceEvaluator underTest = new DiceEvaluator(new RandomNumberSupplier(0L), 1000, 10_000, true);
         RollResult res = underTest.evaluate("3x4d6rr1k3");
 
+        assertThat(res.getRolls()).hasSize(3);
+        assertThat(res.getRolls().getFirst().getElements().stream().map(RollElement::getValue)).containsExactly("6", "5", "3");
+        assertThat(res.getRolls().get(1).getElements().stream().map(RollElement::getValue)).containsExactly("6", "4", "2");
+        assertThat(res.getRolls().get(2).getElements().stream().map(RollElement::getValue)).containsExactly("6", "6", "5");
+
+        assertThat(getRandomElementsString(res.getRolls().getFirst())).isEqualTo("[2, 5, 3, 6]");
+        assertThat(getRandomElementsString(res.getRolls().get(1))).isEqualTo("[6, 4, 6, 1] [2, 6, 4, 1]");
+        assertThat(getRandomElementsString(res.getRolls().get(2))).isEqualTo("[2, 2, 6, 1] [5, 6, 6, 1]");
+        assertThat(res.getRolls().stream().map(Roll::getExpression))
+                .containsExactly("4d6rr1k3", "4d6rr1k3", "4d6rr1k3");
+
+    }
+
+    @Test
+    void getRandomElements_rerollSingleDraw() throws ExpressionException {
+        //the expectations from before the dice were batched, with the old draws they are unchanged
+        DiceEvaluator underTest = new DiceEvaluator(new SingleDrawRandomNumberSupplier(0L), 1000, 10_000, true);
+        RollResult res = underTest.evaluate("3x4d6rr1k3");
+
         assertThat(res.getRolls()).hasSize(3);
         assertThat(res.getRolls().getFirst().getElements().stream().map(RollElement::getValue)).containsExactly("6", "3", "1");
         assertThat(res.getRolls().get(1).getElements().stream().map(RollElement::getValue)).containsExactly("6", "3", "3");
@@ -1521,9 +1562,6 @@ public class DiceEvaluatorTest {
         assertThat(getRandomElementsString(res.getRolls().getFirst())).isEqualTo("[2, 3, 1, 4] [1, 1, 6, 3]");
         assertThat(getRandomElementsString(res.getRolls().get(1))).isEqualTo("[2, 3, 6, 3]");
         assertThat(getRandomElementsString(res.getRolls().get(2))).isEqualTo("[3, 2, 4, 4]");
-        assertThat(res.getRolls().stream().map(Roll::getExpression))
-                .containsExactly("4d6rr1k3", "4d6rr1k3", "4d6rr1k3");
-
     }
 
     @Test
@@ -1802,6 +1840,71 @@ public class DiceEvaluatorTest {
         assertThat(res.roll().getRolls().getFirst().getElements().toString()).isEqualTo("[9, 2]");
     }
 
+    @Test
+    void rollValues() throws ExpressionException {
+        DiceEvaluator underTest = new DiceEvaluator(new GivenNumberSupplier(3, 5, 6), 1000, 10_000, true);
+
+        ValueResult res = underTest.buildRollSupplier("3d6k2=").rollValues();
+
+        assertThat(res.asLong()).hasValue(11);
+        assertThat(res.asDecimal()).contains(new BigDecimal("11"));
+        assertThat(res.getResultStrings()).containsExactly("11");
+    }
+
+    @Test
+    void rollValuesMultipleRolls() throws ExpressionException {
+        DiceEvaluator underTest = new DiceEvaluator(new GivenNumberSupplier(3, 5), 1000, 10_000, true);
+
+        ValueResult res = underTest.buildRollSupplier("1d6, 1d6*2").rollValues();
+
+        assertThat(res.asLong()).isEmpty();
+        assertThat(res.asDecimal()).isEmpty();
+        assertThat(res.getResultStrings()).containsExactly("3", "10");
+    }
+
+    @Test
+    void constantExpressionIsEvaluatedOnce() throws ExpressionException {
+        DiceEvaluator underTest = new DiceEvaluator(new GivenNumberSupplier(), 1000, 10_000, true);
+
+        Roller res = underTest.buildRollSupplier("replace(1...20, 20, 'crit')");
+
+        Roll first = res.roll().getRolls().getFirst();
+        assertThat(first.getResultString()).isEqualTo("1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, crit");
+        assertThat(first.getExpression()).isEqualTo("replace(1...20,20,'crit')");
+        assertThat(res.roll().getRolls().getFirst()).isSameAs(first);
+    }
+
+    @Test
+    void constantExpressionWithDice() throws ExpressionException {
+        DiceEvaluator underTest = new DiceEvaluator(new GivenNumberSupplier(1, 2), 1000, 10_000, true);
+
+        Roller res = underTest.buildRollSupplier("1d6 + (3*4)");
+
+        assertThat(res.roll().getRolls().getFirst().getResultString()).isEqualTo("1, 12");
+        assertThat(res.roll().getRolls().getFirst().getResultString()).isEqualTo("2, 12");
+    }
+
+    @Test
+    void constantExpressionIsNotFoldedForVariable() throws ExpressionException {
+        DiceEvaluator underTest = new DiceEvaluator(new GivenNumberSupplier(1, 2), 1000, 10_000, true);
+
+        Roller res = underTest.buildRollSupplier("val(concat('$','a'), 1d6), '$a' + 2, 'b'");
+
+        assertThat(res.roll().getRolls().stream().map(Roll::getResultString)).containsExactly("1, 2", "b");
+        assertThat(res.roll().getRolls().stream().map(Roll::getResultString)).containsExactly("2, 2", "b");
+    }
+
+    @Test
+    void constantExpressionWithErrorIsThrownOnRoll() throws ExpressionException {
+        DiceEvaluator underTest = new DiceEvaluator(new GivenNumberSupplier(), 1000, 10_000, true);
+
+        Roller res = underTest.buildRollSupplier("10 / 0");
+
+        assertThatThrownBy(res::roll)
+                .isInstanceOf(ExpressionException.class)
+                .hasMessage("/ by zero");
+    }
+
     @Test
     void testHelp() {
         assertThat(DiceEvaluator.getHelpText())
@@ -1816,6 +1919,14 @@ public class DiceEvaluatorTest {
         assertThat(underTest.expressionContainsOperatorOrFunction(expression)).isEqualTo(hasOperatorOrFunction);
     }
 
+    @Test
+    void expressionsContainOperatorOrFunction() {
+        DiceEvaluator underTest = new DiceEvaluator(new GivenNumberSupplier(), 1000, 10_000, true);
+
+        assertThat(underTest.expressionsContainOperatorOrFunction(List.of("=1", "1", "u", "  D  ", "uu 123 uu")))
+                .containsExactly(true, false, false, true, false);
+    }
+
     @Test
     void overwriteNumberSupplier() throws ExpressionException {
         DiceEvaluator underTest = new DiceEvaluator(new GivenNumberSupplier(), 1000, 10_000, true);
@@ -1869,5 +1980,72 @@ public class DiceEvaluatorTest {
         assertThat(res.getRolls().getFirst().getChildrenRolls()).isEmpty();
     }
 
+    @Test
+    void simulate() throws ExpressionException {
+        SimulationResult res = new DiceEvaluator().simulate("2d6=", 100_000, 4, 0.01, 0L);
+
+        assertThat(res.getNumberOfRolls()).isEqualTo(100_000);
+        assertThat(res.getNumberOfOtherResults()).isZero();
+        assertThat(res.getCounts().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(100_000);
+        assertThat(res.getMin()).hasValue(2);
+        assertThat(res.getMax()).hasValue(12);
+        assertThat(res.getMean()).isCloseTo(7, offset(0.05));
+        assertThat(res.getVariance()).isCloseTo(35d / 6, offset(0.1));
+        assertThat(res.getQuantile(0)).isEqualTo(2);
+        assertThat(res.getQuantile(0.5)).isEqualTo(7);
+        assertThat(res.getNumberOfSketchedResults()).isZero();
+        assertThat(res.getQuantile(1)).isEqualTo(12);
+    }
+
+    @Test
+    void simulateWithSeed() throws ExpressionException {
+        SimulationResult first = new DiceEvaluator().simulate("3d6=", 10_000, 3, 0.01, 42L);
+        SimulationResult second = new DiceEvaluator().simulate("3d6=", 10_000, 3, 0.01, 42L);
+        SimulationResult otherSeed = new DiceEvaluator().simulate("3d6=", 10_000, 3, 0.01, 43L);
+
+        assertThat(second.getCounts()).isEqualTo(first.getCounts());
+        assertThat(otherSeed.getCounts()).isNotEqualTo(first.getCounts());
+    }
+
+    @Test
+    void simulateQuantileAccuracy() throws ExpressionException {
+        //more distinct results than the histogram counts exactly
+        SimulationResult res = new DiceEvaluator().simulate("1d999999999", 200_000, 2, 0.1, 0L);
+
+        assertThat(res.getQuantileRelativeAccuracy()).isEqualTo(0.1);
+        assertThat(res.getNumberOfSketchedResults()).isPositive();
+        assertThat(res.getCounts().size()).isLessThanOrEqualTo(LongHistogram.MAX_DENSE_SIZE + 2 * LongHistogram.MAX_SPARSE_SIZE);
+        assertThat(res.getCounts().values().stream().mapToLong(Long::longValue).sum() + res.getNumberOfSketchedResults()).isEqualTo(200_000);
+        assertThat(res.getQuantile(0.5)).isCloseTo(500_000_000, offset(500_000_000 * 0.1 + 10_000_000));
+        assertThat(res.getMean()).isCloseTo(500_000_000, offset(5_000_000d));
+        assertThat(res.getMin().orElseThrow()).isLessThan(10_000);
+        assertThat(res.getMax().orElseThrow()).isGreaterThan(999_990_000);
+    }
+
+    @Test
+    void simulateOtherResults() throws ExpressionException {
+        SimulationResult res = new DiceEvaluator().simulate("if(1d2=?1, 1d6, 'a')", 10_000, 2, 0.01, 0L);
+
+        assertThat(res.getNumberOfOtherResults() + res.getNumberOfIntegerResults()).isEqualTo(10_000);
+        assertThat(res.getNumberOfOtherResults()).isBetween(4_500L, 5_500L);
+        assertThat(res.getCounts().keySet()).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    void simulateUntilConverged() throws ExpressionException {
+        AdaptiveSimulationResult res = new DiceEvaluator().simulate("10d10>=7c >=? 5", AdaptiveSimulationConfig.builder().maxError(0.005).seed(0L).build());
+
+        assertThat(res.isConverged()).isTrue();
+        assertThat(res.getHalfWidth()).isLessThanOrEqualTo(0.005);
+        //P(X>=5) for X~Bin(10, 0.4)
+        assertThat(res.getMean()).isCloseTo(0.3669, offset(0.015));
+        assertThat(res.getNumberOfRolls()).isLessThan(10_000_000);
+    }
+
+    @Test
+    void simulateRollFails() {
+        assertThatThrownBy(() -> new DiceEvaluator().simulate("1d6 * 'a'", 100, 2))
+                .isInstanceOf(ExpressionException.class);
+    }
 
 }
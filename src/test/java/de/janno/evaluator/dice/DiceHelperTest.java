@@ -0,0 +1,61 @@
+package de.janno.evaluator.dice;
+
+import com.google.common.collect.ImmutableList;
+import de.janno.evaluator.dice.random.GivenNumberSupplier;
+import de.janno.evaluator.dice.random.RandomNumberSupplier;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DiceHelperTest {
+
+    private static final RollId ROLL_ID = RollId.of(ExpressionPosition.of(0, "d"), 0);
+
+    @Test
+    void rollDiceNegativeNumber() throws ExpressionException {
+        assertThat(DiceHelper.rollDice(-2, 6, new GivenNumberSupplier(), ROLL_ID)).isEmpty();
+    }
+
+    @Test
+    void rollDiceValuesNegativeNumber() throws ExpressionException {
+        assertThat(DiceHelper.rollDiceValues(-2, 6, new GivenNumberSupplier(), ROLL_ID)).isEmpty();
+    }
+
+    @Test
+    void explodingDiceValuesSameAsExplodingDice() throws ExpressionException {
+        List<RandomElement> expected = DiceHelper.explodingDice(100, 3, new RandomNumberSupplier(0L), ROLL_ID, 1000, "100d!3");
+
+        assertThat(DiceHelper.explodingDiceValues(100, 3, new RandomNumberSupplier(0L), ROLL_ID, 1000, "100d!3"))
+                .isEqualTo(expected.stream().map(RandomElement::getRollElement).toList());
+    }
+
+    @Test
+    void explodingAddDiceValues() throws ExpressionException {
+        assertThat(DiceHelper.explodingAddDiceValues(3, 6, new GivenNumberSupplier(6, 6, 2, 1, 6, 3), ROLL_ID, 1000, "3d!!6"))
+                .containsExactly(RollElement.ofInteger(14), RollElement.ofInteger(1), RollElement.ofInteger(9));
+    }
+
+    @Test
+    void explodingDiceValuesTooManyElements() {
+        assertThatThrownBy(() -> DiceHelper.explodingDice(2, 6, new GivenNumberSupplier(6, 6, 6, 1), ROLL_ID, 3, "2d!6"))
+                .hasMessage("To many elements in roll '2d!6', max is 3 but there where 4");
+        assertThatThrownBy(() -> DiceHelper.explodingDiceValues(2, 6, new GivenNumberSupplier(6, 6, 6, 1), ROLL_ID, 3, "2d!6"))
+                .hasMessage("To many elements in roll '2d!6', max is 3 but there where 4");
+        assertThatThrownBy(() -> DiceHelper.explodingDiceValues(2, 6, new GivenNumberSupplier(1, 6, 6, 1), ROLL_ID, 3, "2d!6"))
+                .hasMessage("To many elements in roll '2d!6', max is 3 but there where 4");
+    }
+
+    @Test
+    void pickOneOfValueSameAsPickOneOf() throws ExpressionException {
+        ImmutableList<RollElement> list = ImmutableList.of(RollElement.ofInteger(1), RollElement.ofInteger(5), RollElement.ofInteger(9));
+        RandomNumberSupplier withProvenance = new RandomNumberSupplier(0L);
+        RandomNumberSupplier withoutProvenance = new RandomNumberSupplier(0L);
+        for (int i = 0; i < 20; i++) {
+            assertThat(DiceHelper.pickOneOfValue(list, withoutProvenance, ROLL_ID, i))
+                    .isEqualTo(DiceHelper.pickOneOf(list, withProvenance, DieId.of(ROLL_ID, i, 0)).getRollElement());
+        }
+    }
+}
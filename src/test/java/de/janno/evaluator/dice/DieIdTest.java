@@ -0,0 +1,35 @@
+package de.janno.evaluator.dice;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DieIdTest {
+
+    @Test
+    void order() {
+        assertThat(DieId.of(1, "d", 0, 0, 0)).isLessThan(DieId.of(2, "d", 0, 0, 0));
+        assertThat(DieId.of(1, "d", 0, 5, 1)).isLessThan(DieId.of(1, "d", 1, 0, 0));
+        assertThat(DieId.of(1, "d", 1, 0, 1)).isLessThan(DieId.of(1, "d", 1, 1, 0));
+        assertThat(DieId.of(1, "d", 1, 1, 0)).isLessThan(DieId.of(1, "d", 1, 1, 1));
+        //the same start but a different position has no order
+        assertThat(DieId.of(1, "d", 0, 0, 0).compareTo(DieId.of(1, "w", 1, 1, 1))).isZero();
+    }
+
+    @Test
+    void notPackedValues() {
+        assertThat(DieId.of(1, "d", 0, 2_000_000, 0)).isGreaterThan(DieId.of(1, "d", 0, 1, 0))
+                .isEqualTo(DieId.of(1, "d", 0, 2_000_000, 0))
+                .hasSameHashCodeAs(DieId.of(1, "d", 0, 2_000_000, 0));
+        assertThat(DieId.of(1, "d", 0, 1, 200)).isLessThan(DieId.of(2, "d", 0, 1, 0))
+                .isGreaterThan(DieId.of(1, "d", 0, 1, 0));
+    }
+
+    @Test
+    void equalsAndHashCode() {
+        assertThat(DieId.of(1, "d", 0, 2, 0)).isEqualTo(DieId.of(1, "d", 0, 2, 0))
+                .hasSameHashCodeAs(DieId.of(1, "d", 0, 2, 0))
+                .isNotEqualTo(DieId.of(1, "w", 0, 2, 0))
+                .isNotEqualTo(DieId.of(1, "d", 0, 2, 1));
+    }
+}
@@ -0,0 +1,50 @@
+package de.janno.evaluator.dice;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExactMathTest {
+
+    private static RollElement element(String value) {
+        return new RollElement(value, RollElement.NO_TAG, RollElement.NO_COLOR);
+    }
+
+    private static String bigDecimalResult(BigDecimal number) {
+        return number.stripTrailingZeros().toPlainString();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "3, 4",
+            "0, -5",
+            "+10, 10",
+            "2.5, 2",
+            "0.5, 0.5",
+            "-007, 100",
+            "9223372036854775807, 2",
+            "-9223372036854775808, -1",
+            "3000000000, 4000000000"
+    })
+    void sameResultAsBigDecimal(String left, String right) {
+        BigDecimal leftNumber = new BigDecimal(left);
+        BigDecimal rightNumber = new BigDecimal(right);
+
+        assertThat(ExactMath.sum(List.of(element(left), element(right)))).isEqualTo(bigDecimalResult(leftNumber.add(rightNumber)));
+        assertThat(ExactMath.multiply(element(left), element(right))).isEqualTo(bigDecimalResult(leftNumber.multiply(rightNumber)));
+        assertThat(ExactMath.negate(element(left))).isEqualTo(bigDecimalResult(leftNumber.negate()));
+        assertThat(ExactMath.compare(element(left), element(right))).isEqualTo(leftNumber.compareTo(rightNumber));
+    }
+
+    @Test
+    void sumIgnoresText() {
+        assertThat(ExactMath.sum(List.of(element("3"), element("a"), element("4")))).isEqualTo("7");
+        assertThat(ExactMath.sum(List.of(element("1.5"), element("a"), element("4")))).isEqualTo("5.5");
+        assertThat(ExactMath.sum(List.of())).isEqualTo("0");
+    }
+}
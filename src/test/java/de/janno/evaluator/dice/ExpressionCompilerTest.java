@@ -0,0 +1,50 @@
+package de.janno.evaluator.dice;
+
+import de.janno.evaluator.dice.random.RandomNumberSupplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ExpressionCompilerTest {
+
+    private static DiceEvaluator compiledEvaluator(int maxNumberOfElements) {
+        return new DiceEvaluator(new RandomNumberSupplier(0L), 1000, maxNumberOfElements, true, RollerCacheConfig.builder()
+                .compileAfterRolls(0)
+                .build());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"3d6", "d6", "3d6=", "(3d6=)+2", "10d20=, d4=, 2d[a/b/c]", "0d6=", "2d0=", "if(1d6>?3,'a','b')",
+            "val('$r',3d6=) '$r'+'$r'", "3d6 tag 'red' =", "(3d6 col 'red')=", "3d6k2="})
+    void sameAsInterpreter(String expression) throws ExpressionException {
+        DiceEvaluator interpreted = new DiceEvaluator(new RandomNumberSupplier(0L), 1000, 10_000, true);
+        DiceEvaluator compiled = compiledEvaluator(10_000);
+
+        assertThat(ExpressionCompiler.compile(SlotLayout.assignSlots(compiled.parseExpressionTree(expression)).nodes())).isPresent();
+        for (int i = 0; i < 3; i++) {
+            assertThat(compiled.evaluate(expression)).isEqualTo(interpreted.evaluate(expression));
+            assertThat(compiled.buildRollSupplier(expression).rollValues()).isEqualTo(interpreted.buildRollSupplier(expression).rollValues());
+        }
+    }
+
+    @Test
+    void constantDiceTooManyElements() {
+        DiceEvaluator underTest = compiledEvaluator(10);
+
+        assertThatThrownBy(() -> underTest.buildRollSupplier("20d6=").rollValues())
+                .isInstanceOf(ExpressionException.class)
+                .hasMessage("To many elements in roll '20d6', max is 10 but there where 20");
+    }
+
+    @Test
+    void constantDiceTooManyDice() {
+        DiceEvaluator underTest = compiledEvaluator(10_000);
+
+        assertThatThrownBy(() -> underTest.buildRollSupplier("1001d6=").rollValues())
+                .isInstanceOf(ExpressionException.class)
+                .hasMessage("The number of dice must be less or equal then 1000 but was 1001");
+    }
+}
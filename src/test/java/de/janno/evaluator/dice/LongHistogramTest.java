@@ -0,0 +1,98 @@
+package de.janno.evaluator.dice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongHistogramTest {
+
+    @Test
+    void growsInBothDirections() {
+        LongHistogram underTest = new LongHistogram();
+        underTest.add(10);
+        underTest.add(100);
+        underTest.add(-50);
+        underTest.add(10);
+
+        assertThat(underTest.toMap()).containsExactly(Map.entry(-50L, 1L), Map.entry(10L, 2L), Map.entry(100L, 1L));
+    }
+
+    @Test
+    void farValuesAreCountedSparse() {
+        LongHistogram underTest = new LongHistogram();
+        underTest.add(0);
+        underTest.add(Long.MAX_VALUE);
+        underTest.add(Long.MIN_VALUE);
+        underTest.add(LongHistogram.MAX_DENSE_SIZE);
+        underTest.add(Long.MAX_VALUE);
+
+        assertThat(underTest.toMap()).containsExactly(Map.entry(Long.MIN_VALUE, 1L), Map.entry(0L, 1L),
+                Map.entry((long) LongHistogram.MAX_DENSE_SIZE, 1L), Map.entry(Long.MAX_VALUE, 2L));
+    }
+
+    @Test
+    void valuesAtTheEndOfTheRange() {
+        LongHistogram underTest = new LongHistogram();
+        underTest.add(Long.MAX_VALUE);
+        underTest.add(Long.MAX_VALUE - 20);
+        underTest.add(Long.MIN_VALUE);
+        underTest.add(Long.MIN_VALUE + 40);
+        LongHistogram other = new LongHistogram();
+        other.add(Long.MIN_VALUE);
+        other.add(Long.MAX_VALUE - 1);
+
+        underTest.merge(other);
+
+        assertThat(underTest.toMap()).containsExactly(Map.entry(Long.MIN_VALUE, 2L), Map.entry(Long.MIN_VALUE + 40, 1L),
+                Map.entry(Long.MAX_VALUE - 20, 1L), Map.entry(Long.MAX_VALUE - 1, 1L), Map.entry(Long.MAX_VALUE, 1L));
+    }
+
+    @Test
+    void merge() {
+        LongHistogram underTest = new LongHistogram();
+        underTest.add(1);
+        underTest.add(2);
+        LongHistogram other = new LongHistogram();
+        other.add(2);
+        other.add(-3);
+        other.add(Long.MAX_VALUE);
+
+        underTest.merge(other);
+
+        assertThat(underTest.toMap()).containsExactly(Map.entry(-3L, 1L), Map.entry(1L, 1L), Map.entry(2L, 2L), Map.entry(Long.MAX_VALUE, 1L));
+    }
+
+    @Test
+    void valuesBeyondTheSparseSizeAreSketched() {
+        LongHistogram underTest = new LongHistogram(2, 0.01);
+        underTest.add(0);
+        underTest.add(Long.MAX_VALUE);
+        underTest.add(-Long.MAX_VALUE);
+        underTest.add(Long.MAX_VALUE);
+        underTest.add(Long.MAX_VALUE / 2);
+        underTest.add(Long.MAX_VALUE / 2);
+
+        assertThat(underTest.toMap()).containsExactly(Map.entry(-Long.MAX_VALUE, 1L), Map.entry(0L, 1L), Map.entry(Long.MAX_VALUE, 2L));
+        assertThat(underTest.getSketch().getCount()).isEqualTo(2);
+        assertThat(underTest.getSketchStatistics().getMean()).isEqualTo(Long.MAX_VALUE / 2);
+    }
+
+    @Test
+    void mergeSketchedValues() {
+        LongHistogram underTest = new LongHistogram(1, 0.01);
+        underTest.add(0);
+        underTest.add(Long.MAX_VALUE);
+        LongHistogram other = new LongHistogram(1, 0.01);
+        other.add(0);
+        other.add(Long.MIN_VALUE);
+        other.add(Long.MIN_VALUE);
+
+        underTest.merge(other);
+
+        assertThat(underTest.toMap()).containsExactly(Map.entry(0L, 2L), Map.entry(Long.MAX_VALUE, 1L));
+        assertThat(underTest.getSketch().getCount()).isEqualTo(2);
+        assertThat(underTest.getSketchStatistics().getCount()).isEqualTo(2);
+    }
+}
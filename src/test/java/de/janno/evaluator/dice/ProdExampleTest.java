@@ -1,6 +1,7 @@
 package de.janno.evaluator.dice;
 
 import de.janno.evaluator.dice.random.RandomNumberSupplier;
+import de.janno.evaluator.dice.random.SingleDrawRandomNumberSupplier;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvFileSource;
 
@@ -31,4 +32,54 @@ public class ProdExampleTest {
         assertThat(res.toString()).isEqualTo(expected);
 
     }
+
+    //the results from before the dice were batched, with the old draws only the random numbers differ
+    @ParameterizedTest
+    @CsvFileSource(resources = "/expressionsAndResultsSingleDraw.csv", delimiter = '|', maxCharsPerColumn = 100_000)
+    void csvFileSourceSingleDrawTest(String expression, String expected) throws ExpressionException {
+        DiceEvaluator underTest = new DiceEvaluator(new SingleDrawRandomNumberSupplier(0L), 1000, 10_000, true);
+        List<Roll> res = underTest.evaluate(expression).getRolls();
+
+        assertThat(res.toString()).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @CsvFileSource(resources = "/expressionsAndResults.csv", delimiter = '|', maxCharsPerColumn = 100_000)
+    void csvFileSourceCompiledTest(String expression, String expected) throws ExpressionException {
+        DiceEvaluator underTest = new DiceEvaluator(new RandomNumberSupplier(0L), 1000, 10_000, true, RollerCacheConfig.builder()
+                .compileAfterRolls(0)
+                .build());
+        //the roll must not fall back to the interpreter
+        assertThat(ExpressionCompiler.compile(SlotLayout.assignSlots(underTest.parseExpressionTree(expression)).nodes())).isPresent();
+
+        List<Roll> res = underTest.evaluate(expression).getRolls();
+
+        assertThat(res.toString()).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @CsvFileSource(resources = "/expressionsAndResults.csv", delimiter = '|', maxCharsPerColumn = 100_000)
+    void csvFileSourceCompiledValuesTest(String expression, String ignoredExpected) throws ExpressionException {
+        DiceEvaluator interpreted = new DiceEvaluator(new RandomNumberSupplier(0L), 1000, 10_000, true);
+        DiceEvaluator compiled = new DiceEvaluator(new RandomNumberSupplier(0L), 1000, 10_000, true, RollerCacheConfig.builder()
+                .compileAfterRolls(0)
+                .build());
+
+        ValueResult expected = interpreted.buildRollSupplier(expression).rollValues();
+        ValueResult res = compiled.buildRollSupplier(expression).rollValues();
+
+        assertThat(res.getResultStrings()).isEqualTo(expected.getResultStrings());
+    }
+
+    @ParameterizedTest
+    @CsvFileSource(resources = "/expressionsAndResults.csv", delimiter = '|', maxCharsPerColumn = 100_000)
+    void csvFileSourceValuesTest(String expression, String ignoredExpected) throws ExpressionException {
+        DiceEvaluator withProvenance = new DiceEvaluator(new RandomNumberSupplier(0L), 1000, 10_000, true);
+        DiceEvaluator withoutProvenance = new DiceEvaluator(new RandomNumberSupplier(0L), 1000, 10_000, true);
+
+        List<String> expected = withProvenance.evaluate(expression).getRolls().stream().map(Roll::getResultString).toList();
+        ValueResult res = withoutProvenance.buildRollSupplier(expression).rollValues();
+
+        assertThat(res.getResultStrings()).isEqualTo(expected);
+    }
 }
@@ -0,0 +1,111 @@
+package de.janno.evaluator.dice;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+class QuantileSketchTest {
+
+    private static final double[] QUANTILES = {0, 0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999, 1};
+
+    private static double exactQuantile(double[] sortedValues, double quantile) {
+        return sortedValues[(int) Math.floor(quantile * (sortedValues.length - 1))];
+    }
+
+    private static void assertWithinRelativeAccuracy(QuantileSketch sketch, double[] values) {
+        final double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double quantile : QUANTILES) {
+            final double exact = exactQuantile(sorted, quantile);
+            //a small slack for the rounding of the logarithm at the bucket bounds
+            assertThat(Math.abs(sketch.getQuantile(quantile) - exact))
+                    .as("quantile %s", quantile)
+                    .isLessThanOrEqualTo(sketch.getRelativeAccuracy() * Math.abs(exact) * (1 + 1e-9));
+        }
+    }
+
+    @ParameterizedTest(name = "{index} relativeAccuracy:{0}")
+    @ValueSource(doubles = {0.1, 0.01, 0.001})
+    void errorBound(double relativeAccuracy) {
+        SplittableRandom random = new SplittableRandom(42);
+        double[] values = new double[100_000];
+        QuantileSketch underTest = new QuantileSketch(relativeAccuracy);
+        for (int i = 0; i < values.length; i++) {
+            //integers over several orders of magnitude, negative, zero and positive
+            values[i] = Math.round((random.nextDouble() - 0.3) * Math.pow(10, random.nextInt(7)));
+            underTest.add(values[i]);
+        }
+
+        assertThat(underTest.getCount()).isEqualTo(values.length);
+        assertWithinRelativeAccuracy(underTest, values);
+    }
+
+    @Test
+    void mergeIsLikeOneSketch() {
+        SplittableRandom random = new SplittableRandom(7);
+        double[] values = new double[30_000];
+        QuantileSketch merged = new QuantileSketch(0.01);
+        QuantileSketch single = new QuantileSketch(0.01);
+        for (int part = 0; part < 3; part++) {
+            QuantileSketch partSketch = new QuantileSketch(0.01);
+            for (int i = 0; i < 10_000; i++) {
+                //each part has another range of values
+                final double value = random.nextLong(1, 1000L * (part + 1) * (part + 1));
+                values[part * 10_000 + i] = value;
+                partSketch.add(value);
+                single.add(value);
+            }
+            merged.merge(partSketch);
+        }
+
+        assertThat(merged.getCount()).isEqualTo(values.length);
+        assertWithinRelativeAccuracy(merged, values);
+        for (double quantile : QUANTILES) {
+            assertThat(merged.getQuantile(quantile)).isEqualTo(single.getQuantile(quantile));
+        }
+    }
+
+    @Test
+    void minAndMaxAreExact() {
+        QuantileSketch underTest = new QuantileSketch(0.05);
+        underTest.add(3);
+        underTest.add(17);
+        underTest.add(-4);
+
+        assertThat(underTest.getQuantile(0)).isEqualTo(-4);
+        assertThat(underTest.getQuantile(1)).isEqualTo(17);
+    }
+
+    @Test
+    void empty() {
+        assertThat(new QuantileSketch(0.01).getQuantile(0.5)).isNaN();
+    }
+
+    @Test
+    void collapsedBucketsKeepTheHighValuesAccurate() {
+        QuantileSketch underTest = new QuantileSketch(0.01, 10);
+        double[] values = new double[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i + 1;
+            underTest.add(values[i]);
+        }
+
+        assertThat(underTest.getQuantile(0.999)).isCloseTo(999, withinPercentage(1));
+        //the low values are collapsed into the lowest kept bucket
+        assertThat(underTest.getQuantile(0.001)).isGreaterThan(800);
+    }
+
+    @Test
+    void mergeWithOtherAccuracy() {
+        assertThatThrownBy(() -> new QuantileSketch(0.01).merge(new QuantileSketch(0.02)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Can't merge sketches with the relative accuracy 0.01 and 0.02");
+    }
+}
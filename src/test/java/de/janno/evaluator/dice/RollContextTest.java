@@ -0,0 +1,98 @@
+package de.janno.evaluator.dice;
+
+import com.google.common.collect.ImmutableList;
+import de.janno.evaluator.dice.operator.die.RegularDice;
+import de.janno.evaluator.dice.random.GivenNumberSupplier;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RollContextTest {
+
+    private static Roll roll(String value) throws ExpressionException {
+        return new Roll(value, ImmutableList.of(RollElement.of(value, RollElement.NO_TAG, RollElement.NO_COLOR)), ImmutableList.of(),
+                ImmutableList.of(), ExpressionPosition.of(0, value), 100, false);
+    }
+
+    @Test
+    void forkReadsVariablesAndMergePublishesChanges() throws ExpressionException {
+        RollContext underTest = new RollContext(new GivenNumberSupplier());
+        underTest.putVariable("a", roll("1"));
+
+        RollContext fork = underTest.copy();
+        fork.putVariable("b", roll("2"));
+
+        assertThat(fork.getVariable("a")).contains(roll("1"));
+        assertThat(underTest.getVariable("b")).isEmpty();
+
+        underTest.merge(fork);
+
+        assertThat(underTest.getVariable("b")).contains(roll("2"));
+        assertThat(underTest.getExpressionPrefixString()).contains("1, 2");
+    }
+
+    @Test
+    void forkWithEmptyVariables() throws ExpressionException {
+        RollContext underTest = new RollContext(new GivenNumberSupplier());
+        underTest.putVariable("a", roll("1"));
+
+        RollContext fork = underTest.copyWithEmptyVariables();
+
+        assertThat(fork.getVariable("a")).isEmpty();
+        assertThat(fork.copy().getVariable("a")).isEmpty();
+    }
+
+    @Test
+    void forkSharesExistingReEvaluationNumbers() {
+        RollContext underTest = new RollContext(new GivenNumberSupplier());
+        ExpressionPosition existing = ExpressionPosition.of(0, "d");
+        ExpressionPosition created = ExpressionPosition.of(1, "d");
+        assertThat(underTest.getNextReEvaluationNumber(existing)).isEqualTo(0);
+
+        RollContext fork = underTest.copy();
+        assertThat(fork.getNextReEvaluationNumber(existing)).isEqualTo(1);
+        assertThat(fork.getNextReEvaluationNumber(created)).isEqualTo(0);
+
+        assertThat(underTest.getNextReEvaluationNumber(existing)).isEqualTo(2);
+        assertThat(underTest.getNextReEvaluationNumber(created)).isEqualTo(0);
+    }
+
+    @Test
+    void variableSlots() throws ExpressionException {
+        SlotLayout.SlottedNodes slottedNodes = SlotLayout.assignSlots(List.of(ExpressionNode.ofVariable("a", ExpressionPosition.of(0, "a"), "a", 100, false)));
+        int slot = ((ExpressionNode.VariableNode) slottedNodes.nodes().getFirst()).slot();
+        RollContext underTest = new RollContext(new GivenNumberSupplier(), true, slottedNodes.slotLayout(), new TagDictionary());
+        underTest.putVariable("b", roll("2"));
+
+        RollContext fork = underTest.copy();
+        fork.putVariable("a", roll("1"));
+        assertThat(underTest.getVariable("a")).isEmpty();
+        assertThat(fork.getVariable(slot, "a")).contains(roll("1"));
+        RollContext withoutLayout = new RollContext(new GivenNumberSupplier());
+        withoutLayout.putVariable("a", roll("3"));
+        assertThat(withoutLayout.getVariable(slot, "a")).contains(roll("3"));
+        assertThat(fork.getVariable("b")).contains(roll("2"));
+
+        underTest.merge(fork);
+
+        assertThat(underTest.getVariable("a")).contains(roll("1"));
+        assertThat(underTest.copyWithEmptyVariables().getVariable("a")).isEmpty();
+    }
+
+    @Test
+    void counterSlots() throws ExpressionException {
+        ExpressionPosition position = ExpressionPosition.of(1, "d");
+        ExpressionNode dice = ExpressionNode.ofOperator(new RegularDice(10, 100, false),
+                List.of(new ExpressionNode.LiteralNode(ImmutableList.of(roll("6")), ExpressionPosition.of(2, "6"), "6")), position);
+        SlotLayout.SlottedNodes slottedNodes = SlotLayout.assignSlots(List.of(dice));
+        int counterSlot = ((ExpressionNode.DiceNode) slottedNodes.nodes().getFirst()).counterSlot();
+        RollContext underTest = new RollContext(new GivenNumberSupplier(), true, slottedNodes.slotLayout(), new TagDictionary());
+
+        assertThat(underTest.getNextReEvaluationNumber(counterSlot, position)).isEqualTo(0);
+        assertThat(underTest.getNextReEvaluationNumber(position)).isEqualTo(1);
+        assertThat(underTest.copy().getNextReEvaluationNumber(counterSlot, position)).isEqualTo(2);
+        assertThat(new RollContext(new GivenNumberSupplier()).getNextReEvaluationNumber(counterSlot, position)).isEqualTo(0);
+    }
+}
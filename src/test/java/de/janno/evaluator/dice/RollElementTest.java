@@ -0,0 +1,130 @@
+package de.janno.evaluator.dice;
+
+import de.janno.evaluator.dice.random.GivenNumberSupplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RollElementTest {
+
+    private static Stream<Arguments> generateValues() {
+        return Stream.of(
+                Arguments.of("5", RollElement.ValueType.INTEGER, Optional.of(5), Optional.of(new BigDecimal("5")), Optional.empty()),
+                Arguments.of("+5", RollElement.ValueType.INTEGER, Optional.of(5), Optional.of(new BigDecimal("+5")), Optional.empty()),
+                Arguments.of("-007", RollElement.ValueType.INTEGER, Optional.of(-7), Optional.of(new BigDecimal("-007")), Optional.empty()),
+                Arguments.of("1", RollElement.ValueType.INTEGER, Optional.of(1), Optional.of(new BigDecimal("1")), Optional.of(true)),
+                Arguments.of("0", RollElement.ValueType.INTEGER, Optional.of(0), Optional.of(new BigDecimal("0")), Optional.of(false)),
+                Arguments.of("00", RollElement.ValueType.INTEGER, Optional.of(0), Optional.of(new BigDecimal("00")), Optional.empty()),
+                Arguments.of("3000000000", RollElement.ValueType.LONG, Optional.empty(), Optional.of(new BigDecimal("3000000000")), Optional.empty()),
+                Arguments.of("2.50", RollElement.ValueType.DECIMAL, Optional.empty(), Optional.of(new BigDecimal("2.50")), Optional.empty()),
+                Arguments.of("1e3", RollElement.ValueType.DECIMAL, Optional.empty(), Optional.of(new BigDecimal("1e3")), Optional.empty()),
+                Arguments.of("true", RollElement.ValueType.BOOLEAN, Optional.empty(), Optional.empty(), Optional.of(true)),
+                Arguments.of("false", RollElement.ValueType.BOOLEAN, Optional.empty(), Optional.empty(), Optional.of(false)),
+                Arguments.of("e", RollElement.ValueType.TEXT, Optional.empty(), Optional.empty(), Optional.empty()),
+                Arguments.of("-", RollElement.ValueType.TEXT, Optional.empty(), Optional.empty(), Optional.empty()),
+                Arguments.of("", RollElement.ValueType.TEXT, Optional.empty(), Optional.empty(), Optional.empty()),
+                Arguments.of("Head", RollElement.ValueType.TEXT, Optional.empty(), Optional.empty(), Optional.empty())
+        );
+    }
+
+    @ParameterizedTest(name = "{index} input:{0}")
+    @MethodSource("generateValues")
+    void parseValueOnce(String value, RollElement.ValueType valueType, Optional<Integer> integer, Optional<BigDecimal> decimal, Optional<Boolean> bool) {
+        RollElement underTest = new RollElement(value, RollElement.NO_TAG, RollElement.NO_COLOR);
+
+        assertThat(underTest.getValueType()).isEqualTo(valueType);
+        assertThat(underTest.asInteger()).isEqualTo(integer);
+        assertThat(underTest.asDecimal()).isEqualTo(decimal);
+        assertThat(underTest.asBoolean()).isEqualTo(bool);
+        assertThat(underTest.isDecimal()).isEqualTo(decimal.isPresent());
+        assertThat(underTest).isEqualTo(new RollElement(value, RollElement.NO_TAG, RollElement.NO_COLOR));
+    }
+
+    @Test
+    void flyweight() {
+        assertThat(RollElement.of("5", RollElement.NO_TAG, RollElement.NO_COLOR)).isSameAs(RollElement.ofInteger(5));
+        assertThat(RollElement.of("-1000", RollElement.NO_TAG, RollElement.NO_COLOR)).isSameAs(RollElement.ofInteger(-1000));
+        assertThat(RollElement.of("true", RollElement.NO_TAG, RollElement.NO_COLOR)).isSameAs(RollElement.ofBoolean(true));
+        assertThat(RollElement.ofInteger(6)).isEqualTo(new RollElement("6", RollElement.NO_TAG, RollElement.NO_COLOR))
+                .hasSameHashCodeAs(new RollElement("6", RollElement.NO_TAG, RollElement.NO_COLOR));
+
+        assertThat(RollElement.of("+5", RollElement.NO_TAG, RollElement.NO_COLOR)).isNotSameAs(RollElement.ofInteger(5)).isNotEqualTo(RollElement.ofInteger(5));
+        assertThat(RollElement.of("05", RollElement.NO_TAG, RollElement.NO_COLOR).getValue()).isEqualTo("05");
+        assertThat(RollElement.of("-0", RollElement.NO_TAG, RollElement.NO_COLOR).getValue()).isEqualTo("-0");
+        assertThat(RollElement.of("5", "tag", RollElement.NO_COLOR).getTag()).isEqualTo("tag");
+        assertThat(RollElement.ofInteger(3_000_000_000L).getValueType()).isEqualTo(RollElement.ValueType.LONG);
+        assertThat(RollElement.ofInteger(20_000)).isEqualTo(new RollElement("20000", RollElement.NO_TAG, RollElement.NO_COLOR));
+    }
+
+    @Test
+    void groupByTagSameOrderAsGroupingBy() {
+        RollContext rollContext = new RollContext(new GivenNumberSupplier());
+        List<String> tags = List.of("ice", "fire", "", "ice", "poison", "fire", "acid");
+        List<RollElement> elements = new ArrayList<>();
+        List<RollElement> standaloneElements = new ArrayList<>();
+        for (int i = 0; i < tags.size(); i++) {
+            elements.add(RollElement.ofInteger(i).withTag(tags.get(i), rollContext));
+            standaloneElements.add(RollElement.of(String.valueOf(i), tags.get(i), RollElement.NO_COLOR));
+        }
+
+        assertThat(RollElement.groupByTag(elements)).containsExactlyElementsOf(elements.stream().collect(Collectors.groupingBy(RollElement::getTag)).values());
+        assertThat(RollElement.groupByTag(standaloneElements)).containsExactlyElementsOf(standaloneElements.stream().collect(Collectors.groupingBy(RollElement::getTag)).values());
+    }
+
+    @Test
+    void groupByTagManyTagsSameOrderAsGroupingBy() {
+        RollContext rollContext = new RollContext(new GivenNumberSupplier());
+        Random random = new Random(0);
+        for (int run = 0; run < 100; run++) {
+            List<RollElement> elements = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                elements.add(RollElement.ofInteger(random.nextInt(5)).withTag("t" + random.nextInt(40), rollContext));
+            }
+
+            assertThat(RollElement.groupByTag(elements)).containsExactlyElementsOf(elements.stream().collect(Collectors.groupingBy(RollElement::getTag)).values());
+            assertThat(RollElement.groupByValueAndTag(elements)).containsExactlyElementsOf(elements.stream()
+                    .collect(Collectors.groupingBy(e -> new ValueAndTag(e.getValue(), e.getTag()))).values());
+        }
+    }
+
+    @Test
+    void groupByTagSingleTag() {
+        RollContext rollContext = new RollContext(new GivenNumberSupplier());
+        List<RollElement> elements = List.of(RollElement.ofInteger(1).withTag("ice", rollContext), RollElement.ofInteger(2).withTag("ice", rollContext));
+
+        assertThat(RollElement.groupByTag(elements)).containsExactly(elements);
+        assertThat(RollElement.groupByTag(List.of(RollElement.ofInteger(1)))).containsExactly(List.of(RollElement.ofInteger(1)));
+        assertThat(RollElement.groupByTag(List.of())).isEmpty();
+    }
+
+    @Test
+    void tagsOfDifferentDictionaries() {
+        RollElement first = RollElement.ofInteger(1).withTag("fire", new RollContext(new GivenNumberSupplier()));
+        RollElement second = RollElement.ofInteger(1).withTag("fire", new RollContext(new GivenNumberSupplier()));
+        RollElement standalone = RollElement.of("1", "fire", RollElement.NO_COLOR);
+
+        assertThat(first).isEqualTo(second).isEqualTo(standalone).hasSameHashCodeAs(standalone);
+        assertThat(first.hasSameTag(second)).isTrue();
+        assertThat(first.hasSameTag(RollElement.ofInteger(1))).isFalse();
+        assertThat(RollElement.groupByTag(List.of(first, second, standalone))).containsExactly(List.of(first, second, standalone));
+    }
+
+    //the same hash as the lombok @Value key that GroupCount used with groupingBy
+    private record ValueAndTag(String value, String tag) {
+        @Override
+        public int hashCode() {
+            return 59 * (59 + value.hashCode()) + tag.hashCode();
+        }
+    }
+}
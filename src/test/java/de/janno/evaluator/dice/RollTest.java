@@ -1,8 +1,12 @@
 package de.janno.evaluator.dice;
 
 import com.google.common.collect.ImmutableList;
+import de.janno.evaluator.dice.random.GivenNumberSupplier;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class RollTest {
@@ -18,4 +22,29 @@ public class RollTest {
                 .isInstanceOfAny(IllegalStateException.class)
                 .hasMessage("Random elements must have unique dice ids but [2de0i0r0] occurred more than once");
     }
+
+    @Test
+    void randomElementsAreBuiltOnRead() throws ExpressionException {
+        RollContext rollContext = new RollContext(new GivenNumberSupplier());
+        RandomElement first = new RandomElement(new RollElement("1", RollElement.NO_COLOR, RollElement.NO_TAG), 0, 6, DieId.of(2, "d", 0, 0, 0), 1);
+        RandomElement second = new RandomElement(new RollElement("2", RollElement.NO_COLOR, RollElement.NO_TAG), 0, 6, DieId.of(2, "d", 0, 1, 0), 2);
+        RandomElement third = new RandomElement(new RollElement("3", RollElement.NO_COLOR, RollElement.NO_TAG), 0, 6, DieId.of(5, "d", 0, 0, 0), 3);
+        Roll left = new Roll("2d6", ImmutableList.of(), RandomElementsBuilder.empty(rollContext).addRandomElements(List.of(second, first)),
+                ImmutableList.of(), ExpressionPosition.of(2, "d"), 100, false);
+        Roll right = new Roll("1d6", ImmutableList.of(), RandomElementsBuilder.empty(rollContext).addRandomElements(List.of(third)),
+                ImmutableList.of(), ExpressionPosition.of(5, "d"), 100, false);
+
+        Roll underTest = new Roll("2d6+1d6", ImmutableList.of(), RandomElementsBuilder.ofRolls(List.of(right, left), rollContext),
+                ImmutableList.of(), ExpressionPosition.of(3, "+"), 100, false);
+
+        assertThat(left.getLazyRandomElementsInRoll().isBuilt()).isFalse();
+        assertThat(underTest.getLazyRandomElementsInRoll().isBuilt()).isFalse();
+        assertThat(underTest.getRandomElementsInRoll()).containsExactly(first, second, third);
+        assertThat(left.getLazyRandomElementsInRoll().isBuilt()).isTrue();
+        assertThat(rollContext.getAllRandomElements()).containsExactly(first, second, third);
+        assertThatThrownBy(() -> new Roll("2d6+1d6", ImmutableList.of(), RandomElementsBuilder.ofRolls(List.of(right, left), rollContext),
+                ImmutableList.of(), ExpressionPosition.of(3, "+"), 2, false))
+                .isInstanceOf(ExpressionException.class)
+                .hasMessage("To many random elements in roll '2d6+1d6', max is 2 but there where 3");
+    }
 }
@@ -0,0 +1,118 @@
+package de.janno.evaluator.dice;
+
+import de.janno.evaluator.dice.random.GivenNumberSupplier;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RollerCacheTest {
+
+    private final DiceEvaluator diceEvaluator = new DiceEvaluator(new GivenNumberSupplier(), 1000, 10_000, true);
+
+    @Test
+    void cacheRoller() throws ExpressionException {
+        DiceEvaluator underTest = new DiceEvaluator(new GivenNumberSupplier(3, 4), 1000, 10_000, true, RollerCacheConfig.builder().build());
+
+        Roller first = underTest.buildRollSupplier("1d6");
+        Roller second = underTest.buildRollSupplier(" 1d6 ");
+
+        assertThat(second).isSameAs(first);
+        assertThat(underTest.evaluate("1d6").getRolls().getFirst().getResultString()).isEqualTo("3");
+        assertThat(underTest.evaluate("1d6").getRolls().getFirst().getResultString()).isEqualTo("4");
+        assertThat(underTest.getRollerCacheStatistics()).contains(new RollerCacheStatistics(3, 0, 1, 0, 1, 3));
+    }
+
+    @Test
+    void compileAfterRolls() throws ExpressionException {
+        DiceEvaluator interpreted = new DiceEvaluator(new GivenNumberSupplier(1, 2, 3, 4, 5, 6, 7, 8), 1000, 10_000, true);
+        DiceEvaluator compiled = new DiceEvaluator(new GivenNumberSupplier(1, 2, 3, 4, 5, 6, 7, 8), 1000, 10_000, true, RollerCacheConfig.builder()
+                .compileAfterRolls(2)
+                .build());
+        String expression = "val('$r',2d8k1) '$r'+'$r'+ 3 + 'bonus'";
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(compiled.evaluate(expression).getRolls()).isEqualTo(interpreted.evaluate(expression).getRolls());
+        }
+    }
+
+    @Test
+    void noCache() {
+        assertThat(diceEvaluator.getRollerCacheStatistics()).isEmpty();
+    }
+
+    @Test
+    void cacheInvalidExpressionWithTtl() {
+        AtomicLong nanoTime = new AtomicLong(-100);
+        AtomicInteger parseCount = new AtomicInteger();
+        RollerCache underTest = new RollerCache(RollerCacheConfig.builder().invalidExpressionTtl(Duration.ofNanos(10)).build(), nanoTime::get);
+        RollerCache.Parser parser = e -> {
+            parseCount.incrementAndGet();
+            return diceEvaluator.buildRollSupplier(e);
+        };
+
+        assertThatThrownBy(() -> underTest.get("1d", parser))
+                .isInstanceOf(ExpressionException.class)
+                .hasMessage("Operator d has right associativity but the right value was: empty");
+        nanoTime.addAndGet(9);
+        assertThatThrownBy(() -> underTest.get("1d", parser))
+                .isInstanceOf(ExpressionException.class)
+                .hasMessage("Operator d has right associativity but the right value was: empty")
+                .extracting(e -> ((ExpressionException) e).getExpressionPosition())
+                .isEqualTo(ExpressionPosition.of(1, "d"));
+        assertThat(parseCount).hasValue(1);
+
+        nanoTime.addAndGet(1);
+        assertThatThrownBy(() -> underTest.get("1d", parser))
+                .isInstanceOf(ExpressionException.class);
+        assertThat(parseCount).hasValue(2);
+        assertThat(underTest.getStatistics()).isEqualTo(new RollerCacheStatistics(0, 1, 2, 0, 1, 2));
+    }
+
+    @Test
+    void invalidExpressionTtlZero() {
+        RollerCache underTest = new RollerCache(RollerCacheConfig.builder().invalidExpressionTtl(Duration.ZERO).build());
+
+        assertThatThrownBy(() -> underTest.get("1d", diceEvaluator::buildRollSupplier)).isInstanceOf(ExpressionException.class);
+        assertThatThrownBy(() -> underTest.get("1d", diceEvaluator::buildRollSupplier)).isInstanceOf(ExpressionException.class);
+
+        assertThat(underTest.getStatistics()).isEqualTo(new RollerCacheStatistics(0, 0, 2, 0, 0, 0));
+    }
+
+    @Test
+    void evictLeastRecentlyUsedByEntries() throws ExpressionException {
+        RollerCache underTest = new RollerCache(RollerCacheConfig.builder().maximumEntries(2).concurrencyLevel(1).build());
+
+        underTest.get("1", diceEvaluator::buildRollSupplier);
+        underTest.get("2", diceEvaluator::buildRollSupplier);
+        underTest.get("1", diceEvaluator::buildRollSupplier);
+        underTest.get("3", diceEvaluator::buildRollSupplier);
+        underTest.get("1", diceEvaluator::buildRollSupplier);
+        underTest.get("2", diceEvaluator::buildRollSupplier);
+
+        assertThat(underTest.getStatistics()).isEqualTo(new RollerCacheStatistics(2, 0, 4, 2, 2, 2));
+    }
+
+    @Test
+    void evictByWeight() throws ExpressionException {
+        RollerCache underTest = new RollerCache(RollerCacheConfig.builder().maximumWeight(8).concurrencyLevel(1).build());
+
+        underTest.get("1d6", diceEvaluator::buildRollSupplier);
+        underTest.get("1d8", diceEvaluator::buildRollSupplier);
+        underTest.get("1d10", diceEvaluator::buildRollSupplier);
+        underTest.get("1d6+1d8+1d10", diceEvaluator::buildRollSupplier);
+
+        assertThat(underTest.getStatistics()).isEqualTo(new RollerCacheStatistics(0, 0, 4, 1, 2, 7));
+    }
+
+    @Test
+    void invalidConfig() {
+        assertThatThrownBy(() -> new RollerCache(RollerCacheConfig.builder().maximumEntries(0).build()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("The maximum entries, maximum weight and concurrency level of the cache must be positive");
+    }
+}
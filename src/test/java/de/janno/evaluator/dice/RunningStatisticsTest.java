@@ -0,0 +1,59 @@
+package de.janno.evaluator.dice;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class RunningStatisticsTest {
+
+    @Test
+    void meanAndVariance() {
+        RunningStatistics underTest = new RunningStatistics();
+        for (double value : new double[]{2, 4, 4, 4, 5, 5, 7, 9}) {
+            underTest.add(value);
+        }
+
+        assertThat(underTest.getCount()).isEqualTo(8);
+        assertThat(underTest.getMean()).isCloseTo(5, offset(1e-12));
+        assertThat(underTest.getVariance()).isCloseTo(32d / 7, offset(1e-12));
+        assertThat(underTest.isOnlyZeroAndOne()).isFalse();
+    }
+
+    @Test
+    void mergeIsLikeOneStatistics() {
+        RunningStatistics merged = new RunningStatistics();
+        RunningStatistics single = new RunningStatistics();
+        for (int part = 0; part < 3; part++) {
+            RunningStatistics partStatistics = new RunningStatistics();
+            for (int i = 0; i < 100; i++) {
+                final double value = part * 100 + i % 7;
+                partStatistics.add(value);
+                single.add(value);
+            }
+            merged.merge(partStatistics);
+        }
+        merged.merge(new RunningStatistics());
+
+        assertThat(merged.getCount()).isEqualTo(300);
+        assertThat(merged.getMean()).isCloseTo(single.getMean(), offset(1e-9));
+        assertThat(merged.getVariance()).isCloseTo(single.getVariance(), offset(1e-6));
+    }
+
+    @Test
+    void zeroAndOne() {
+        RunningStatistics underTest = new RunningStatistics();
+        underTest.add(0);
+        underTest.add(1);
+        underTest.add(1);
+
+        assertThat(underTest.isOnlyZeroAndOne()).isTrue();
+        assertThat(underTest.getMean()).isCloseTo(2d / 3, offset(1e-12));
+    }
+
+    @Test
+    void empty() {
+        assertThat(new RunningStatistics().getMean()).isNaN();
+        assertThat(new RunningStatistics().getVariance()).isNaN();
+    }
+}
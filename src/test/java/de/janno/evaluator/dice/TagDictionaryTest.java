@@ -0,0 +1,74 @@
+package de.janno.evaluator.dice;
+
+import de.janno.evaluator.dice.random.GivenNumberSupplier;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TagDictionaryTest {
+
+    @Test
+    void encodeAndDecode() {
+        TagDictionary underTest = new TagDictionary();
+
+        int fire = underTest.encode("fire");
+        int ice = underTest.encode("ice");
+
+        assertThat(underTest.encode("")).isEqualTo(TagDictionary.EMPTY_ID);
+        assertThat(underTest.encode(new String("fire"))).isEqualTo(fire);
+        assertThat(ice).isNotEqualTo(fire).isNotEqualTo(TagDictionary.EMPTY_ID);
+        assertThat(underTest.decode(fire)).isEqualTo("fire");
+        assertThat(underTest.decode(ice)).isEqualTo("ice");
+        assertThat(underTest.decode(TagDictionary.EMPTY_ID)).isEmpty();
+    }
+
+    @Test
+    void encodeGrows() {
+        TagDictionary underTest = new TagDictionary();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(underTest.encode("t" + i)).isEqualTo(i + 1);
+        }
+        for (int i = 0; i < 100; i++) {
+            assertThat(underTest.decode(i + 1)).isEqualTo("t" + i);
+        }
+    }
+
+    @Test
+    void isFull() {
+        TagDictionary underTest = new TagDictionary();
+        underTest.encode("fire");
+        underTest.encode("ice");
+
+        assertThat(underTest.isFull(2)).isFalse();
+        underTest.encode("poison");
+        assertThat(underTest.isFull(2)).isTrue();
+        assertThat(TagDictionary.of("fire", "ice").isFull(0)).isFalse();
+    }
+
+    @Test
+    void fixedDictionary() {
+        TagDictionary underTest = TagDictionary.of("fire", "red");
+
+        assertThat(underTest.encode("fire")).isEqualTo(1);
+        assertThat(underTest.encode("red")).isEqualTo(2);
+        assertThat(underTest.encode("")).isEqualTo(TagDictionary.EMPTY_ID);
+        assertThat(TagDictionary.of("red", "red").encode("red")).isEqualTo(1);
+        assertThatThrownBy(() -> underTest.encode("ice")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void withTagAndColor() {
+        RollContext rollContext = new RollContext(new GivenNumberSupplier());
+
+        RollElement underTest = RollElement.of("1", "fire", RollElement.NO_COLOR).withColor("red", rollContext);
+
+        assertThat(underTest.getTag()).isEqualTo("fire");
+        assertThat(underTest.getColor()).isEqualTo("red");
+        assertThat(underTest).isEqualTo(RollElement.of("1", "fire", "red"));
+        assertThat(underTest.withTag("ice", rollContext).getTag()).isEqualTo("ice");
+        assertThat(underTest.withValueAndNoColor("2")).isEqualTo(RollElement.of("2", "fire", RollElement.NO_COLOR));
+        assertThat(underTest.withValue("3").getColor()).isEqualTo("red");
+    }
+}
@@ -259,4 +259,42 @@ class TokenizerTest {
                 .isInstanceOf(ExpressionException.class)
                 .hasMessage("Operator a has right associativity but the right value was: empty");
     }
-}
\ No newline at end of file
+
+    @Test
+    void positionIsOffsetInTrimmedInput() throws ExpressionException {
+        Tokenizer underTest = new Tokenizer(Parameters.builder()
+                .operator(d)
+                .operator(plus)
+                .escapeBracket(BracketPair.BRACKETS)
+                .build());
+
+        List<Token> res = underTest.tokenize(" 10 d\t6 +\n[a b] ");
+
+        assertThat(res.stream().map(Token::getExpressionPosition))
+                .containsExactly(ExpressionPosition.of(0, "10"), ExpressionPosition.of(3, "d"), ExpressionPosition.of(5, "6"),
+                        ExpressionPosition.of(7, "+"), ExpressionPosition.of(9, "[a b]"));
+        assertThat(res.stream().map(Token::getExpressionPosition).map(ExpressionPosition::getEndExc)).containsExactly(2, 4, 6, 8, 14);
+    }
+
+    @Test
+    void tokenizeDoesNotCopyTheInputPerToken() throws ExpressionException {
+        Tokenizer underTest = new Tokenizer(Parameters.builder()
+                .operator(d)
+                .operator(plus)
+                .escapeBracket(BracketPair.BRACKETS)
+                .build());
+        String input = "1d6 + ".repeat(2_000) + "1";
+
+        List<Token> res = underTest.tokenize(input);
+
+        assertThat(res).hasSize(8_001);
+        //each token covers only its own text, the scaling with the input length is measured in ParseBenchmark
+        assertThat(res.stream().map(Token::getExpressionPosition).mapToInt(ExpressionPosition::getLength).sum())
+                .isEqualTo(input.replace(" ", "").length());
+        assertThat(res.stream()
+                .filter(t -> t.getOperator().isPresent())
+                .map(Token::getExpressionPosition)
+                .filter(ExpressionPosition::hasValueCopy))
+                .isEmpty();
+    }
+}
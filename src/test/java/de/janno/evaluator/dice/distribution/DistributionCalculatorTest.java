@@ -0,0 +1,138 @@
+package de.janno.evaluator.dice.distribution;
+
+import com.google.common.collect.ImmutableList;
+import de.janno.evaluator.dice.DiceEvaluator;
+import de.janno.evaluator.dice.ExpressionException;
+import de.janno.evaluator.dice.RollElement;
+import de.janno.evaluator.dice.Roller;
+import de.janno.evaluator.dice.random.GivenNumberSupplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class DistributionCalculatorTest {
+
+    private final DiceEvaluator diceEvaluator = new DiceEvaluator(new GivenNumberSupplier(), 1000, 10_000, true);
+    private final DistributionCalculator underTest = new DistributionCalculator(diceEvaluator);
+
+    private static Stream<Arguments> generateEnumerableData() {
+        return Stream.of(
+                Arguments.of("3d4k2=", 3, 4),
+                Arguments.of("3d4l1", 3, 4),
+                Arguments.of("4d4>2c", 4, 4),
+                Arguments.of("3d4>=3", 3, 4),
+                Arguments.of("3d4<3=", 3, 4),
+                Arguments.of("2d4 + 1d4 - 2", 3, 4),
+                Arguments.of("-2d4=", 2, 4),
+                Arguments.of("(2d4=)*2", 2, 4),
+                Arguments.of("1d4 * 1d4", 2, 4),
+                Arguments.of("1d4 >? 1d4", 2, 4),
+                Arguments.of("if(1d4 >? 2, 1d4, 1d4=)", 3, 4),
+                Arguments.of("if(1d4 >? 2, 'a', 1d4 >? 1, 'b', 'c')", 2, 4),
+                Arguments.of("3d[1/2/2]=", 3, 3),
+                Arguments.of("(3d3k2) + 1d3", 4, 3)
+        );
+    }
+
+    private static ImmutableList<RollElement> sorted(List<RollElement> elements) {
+        return elements.stream().sorted().collect(ImmutableList.toImmutableList());
+    }
+
+    private static List<Integer> toDigits(int number, int numberOfDigits, int base) {
+        List<Integer> digits = new ArrayList<>();
+        for (int i = 0; i < numberOfDigits; i++) {
+            digits.add(number % base + 1);
+            number = number / base;
+        }
+        return digits;
+    }
+
+    @ParameterizedTest(name = "{index} input:{0}")
+    @MethodSource("generateEnumerableData")
+    void sameAsAllRolls(String expression, int numberOfDice, int sides) throws ExpressionException {
+        Roller roller = diceEvaluator.buildRollSupplier(expression);
+        Map<ImmutableList<RollElement>, BigInteger> rollCounts = new HashMap<>();
+        final int numberOfRolls = (int) Math.pow(sides, numberOfDice);
+        for (int i = 0; i < numberOfRolls; i++) {
+            List<RollElement> elements = roller.rollValues(new GivenNumberSupplier(toDigits(i, numberOfDice, sides))).getElements().getFirst();
+            rollCounts.merge(sorted(elements), BigInteger.ONE, BigInteger::add);
+        }
+
+        Distribution distribution = underTest.calculate(expression).orElseThrow();
+
+        assertThat(distribution.getWeights().keySet()).containsExactlyInAnyOrderElementsOf(rollCounts.keySet());
+        for (Map.Entry<ImmutableList<RollElement>, BigInteger> rollCount : rollCounts.entrySet()) {
+            assertThat(distribution.getWeights().get(rollCount.getKey()).multiply(BigInteger.valueOf(numberOfRolls)))
+                    .isEqualTo(rollCount.getValue().multiply(distribution.getTotalWeight()));
+        }
+    }
+
+    @Test
+    void keepHighestSum() throws ExpressionException {
+        Distribution res = underTest.calculate("4d6k3=").orElseThrow();
+
+        assertThat(res.getTotalWeight()).isEqualTo(1296);
+        assertThat(res.getWeights()).hasSize(16);
+        assertThat(res.getWeights().get(ImmutableList.of(RollElement.ofInteger(18)))).isEqualTo(21);
+        assertThat(res.getWeights().get(ImmutableList.of(RollElement.ofInteger(3)))).isEqualTo(1);
+        assertThat(res.getProbability(List.of(RollElement.ofInteger(13)))).isCloseTo(172d / 1296, offset(1e-12));
+    }
+
+    @Test
+    void outcomeOrderIsIgnored() throws ExpressionException {
+        Distribution res = underTest.calculate("2d6").orElseThrow();
+
+        assertThat(res.getWeights()).hasSize(21);
+        assertThat(res.getProbability(List.of(RollElement.ofInteger(5), RollElement.ofInteger(2)))).isCloseTo(2d / 36, offset(1e-12));
+        assertThat(res.getProbability(List.of(RollElement.ofInteger(7)))).isZero();
+    }
+
+    @Test
+    void explodingDiceWithCap() throws ExpressionException {
+        Distribution res = new DistributionCalculator(diceEvaluator, 1, 1000).calculate("d!6").orElseThrow();
+
+        assertThat(res.getTotalWeight()).isEqualTo(36);
+        assertThat(res.getWeights()).hasSize(11);
+        assertThat(res.getWeights().get(ImmutableList.of(RollElement.ofInteger(5)))).isEqualTo(6);
+        assertThat(res.getWeights().get(ImmutableList.of(RollElement.ofInteger(1), RollElement.ofInteger(6)))).isEqualTo(1);
+        assertThat(res.getWeights().get(ImmutableList.of(RollElement.ofInteger(6), RollElement.ofInteger(6)))).isEqualTo(1);
+    }
+
+    @Test
+    void explodingAddDiceWithCap() throws ExpressionException {
+        Distribution res = new DistributionCalculator(diceEvaluator, 2, 1000).calculate("d!!6").orElseThrow();
+
+        assertThat(res.getTotalWeight()).isEqualTo(216);
+        assertThat(res.getWeights().get(ImmutableList.of(RollElement.ofInteger(7)))).isEqualTo(6);
+        assertThat(res.getWeights().get(ImmutableList.of(RollElement.ofInteger(13)))).isEqualTo(1);
+        assertThat(res.getWeights().get(ImmutableList.of(RollElement.ofInteger(18)))).isEqualTo(1);
+    }
+
+    @Test
+    void constant() throws ExpressionException {
+        Distribution res = underTest.calculate("3+4").orElseThrow();
+
+        assertThat(res.getWeights()).containsExactly(Map.entry(ImmutableList.of(RollElement.ofInteger(3), RollElement.ofInteger(4)), BigInteger.ONE));
+    }
+
+    @Test
+    void tooManyOutcomes() throws ExpressionException {
+        assertThat(new DistributionCalculator(diceEvaluator, 10, 50).calculate("3d6").isEmpty()).isTrue();
+        assertThat(new DistributionCalculator(diceEvaluator, 10, 50).calculate("3d6=")).isPresent();
+    }
+
+    @ParameterizedTest(name = "{index} input:{0}")
+    @ValueSource(strings = {"", "val('$a', 1d6) '$a'+'$a'", "2r1d6", "(1d4)d6", "2d6*2", "if(1d6>?3, 'a')", "1d6, 1d6", "3x1d6", "d!1"})
+    void unsupported(String expression) throws ExpressionException {
+        assertThat(underTest.calculate(expression)).isEmpty();
+    }
+}
@@ -0,0 +1,61 @@
+package de.janno.evaluator.dice.random;
+
+import de.janno.evaluator.dice.*;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AntitheticNumberSupplierTest {
+
+    @Test
+    void secondRollIsMirrored() throws ExpressionException {
+        AntitheticNumberSupplier underTest = new AntitheticNumberSupplier(new GivenNumberSupplier(1, 5, 3, 4));
+
+        underTest.startRoll();
+        assertThat(underTest.get(0, 6, DieId.of(0, "d", 0, 0, 0))).isEqualTo(1);
+        assertThat(underTest.get(0, 6, DieId.of(0, "d", 0, 1, 0))).isEqualTo(5);
+        underTest.startRoll();
+        assertThat(underTest.get(0, 6, DieId.of(0, "d", 0, 1, 0))).isEqualTo(2);
+        assertThat(underTest.get(0, 6, DieId.of(0, "d", 0, 0, 0))).isEqualTo(6);
+        //the next pair takes new numbers from the source
+        underTest.startRoll();
+        assertThat(underTest.get(0, 6, DieId.of(0, "d", 0, 0, 0))).isEqualTo(3);
+        underTest.startRoll();
+        assertThat(underTest.get(0, 6, DieId.of(0, "d", 0, 0, 0))).isEqualTo(4);
+    }
+
+    @Test
+    void mirroredAroundTheRange() throws ExpressionException {
+        AntitheticNumberSupplier underTest = new AntitheticNumberSupplier(new GivenNumberSupplier(-3));
+
+        underTest.startRoll();
+        assertThat(underTest.get(-5, 5, DieId.of(0, "d", 0, 0, 0))).isEqualTo(-3);
+        underTest.startRoll();
+        assertThat(underTest.get(-5, 5, DieId.of(0, "d", 0, 0, 0))).isEqualTo(4);
+    }
+
+    @Test
+    void newOrChangedDieGetsANewNumber() throws ExpressionException {
+        AntitheticNumberSupplier underTest = new AntitheticNumberSupplier(new GivenNumberSupplier(2, 3, 7));
+
+        underTest.startRoll();
+        assertThat(underTest.get(0, 6, DieId.of(0, "d", 0, 0, 0))).isEqualTo(2);
+        underTest.startRoll();
+        assertThat(underTest.get(0, 6, DieId.of(0, "d", 0, 0, 1))).isEqualTo(3);
+        assertThat(underTest.get(0, 8, DieId.of(0, "d", 0, 0, 0))).isEqualTo(7);
+    }
+
+    @Test
+    void sumOfPairIsConstant() throws ExpressionException {
+        Roller roller = new DiceEvaluator().buildRollSupplier("3d6=");
+        AntitheticNumberSupplier underTest = new AntitheticNumberSupplier(new RandomNumberSupplier(0L));
+
+        for (int i = 0; i < 100; i++) {
+            underTest.startRoll();
+            long first = roller.rollValues(underTest).asLong().orElseThrow();
+            underTest.startRoll();
+            long second = roller.rollValues(underTest).asLong().orElseThrow();
+            assertThat(first + second).isEqualTo(21);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package de.janno.evaluator.dice.random;
+
+import de.janno.evaluator.dice.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CounterBasedNumberSupplierTest {
+
+    @Test
+    void sameDieSameNumber() throws ExpressionException {
+        CounterBasedNumberSupplier underTest = new CounterBasedNumberSupplier(1, 2);
+        int first = underTest.get(0, 1000, DieId.of(3, "d", 1, 2, 0));
+        underTest.get(0, 1000, DieId.of(3, "d", 1, 1, 0));
+
+        assertThat(underTest.get(0, 1000, DieId.of(3, "d", 1, 2, 0))).isEqualTo(first);
+        assertThat(new CounterBasedNumberSupplier(1, 2).get(0, 1000, DieId.of(3, "d", 1, 2, 0))).isEqualTo(first);
+    }
+
+    @Test
+    void bulkSameAsSingle() throws ExpressionException {
+        CounterBasedNumberSupplier underTest = new CounterBasedNumberSupplier(1, 2);
+        int[] res = new int[5];
+
+        underTest.get(0, 6, DieId.of(3, "d", 1, 0, 0), res);
+
+        for (int i = 0; i < res.length; i++) {
+            assertThat(res[i]).isEqualTo(underTest.get(0, 6, DieId.of(3, "d", 1, i, 0)));
+        }
+    }
+
+    @Test
+    void withoutDieIdSameAsWithDieId() throws ExpressionException {
+        CounterBasedNumberSupplier underTest = new CounterBasedNumberSupplier(1, 2);
+        RollId rollId = RollId.of(ExpressionPosition.of(3, "d"), 1);
+        int[] res = new int[5];
+
+        underTest.get(0, 6, rollId, 2, res);
+
+        for (int i = 0; i < res.length; i++) {
+            assertThat(res[i]).isEqualTo(underTest.get(0, 6, DieId.of(rollId, i + 2, 0)));
+            assertThat(underTest.get(0, 6, rollId, i + 2, 1)).isEqualTo(underTest.get(0, 6, DieId.of(rollId, i + 2, 1)));
+        }
+    }
+
+    @Test
+    void notPackedDieId() throws ExpressionException {
+        CounterBasedNumberSupplier underTest = new CounterBasedNumberSupplier(1, 2);
+        //the start is too large for the packed die id
+        DieId dieId = DieId.of(2_000_000, "d", 1, 0, 0);
+        int[] res = new int[5];
+
+        underTest.get(0, 1000, dieId, res);
+
+        assertThat(dieId.getPackedId(0)).isEqualTo(DieId.NOT_PACKED);
+        assertThat(underTest.get(0, 1000, dieId)).isEqualTo(res[0]);
+        assertThat(underTest.get(0, 1000, DieId.of(2_000_000, "d", 1, 4, 0))).isEqualTo(res[4]);
+        assertThat(res).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void d6Test() throws ExpressionException {
+        int testSize = 1_000_000;
+        CounterBasedNumberSupplier underTest = new CounterBasedNumberSupplier(0, 0);
+        int[] res = new int[testSize];
+
+        underTest.get(0, 6, DieId.of(0, "d", 0, 0, 0), res);
+
+        assertThat(res).containsOnly(1, 2, 3, 4, 5, 6);
+        assertThat(Arrays.stream(res).average().orElseThrow()).isEqualTo(3.5, offset(0.01));
+    }
+
+    @Test
+    void replayRoll() throws ExpressionException {
+        DiceEvaluator diceEvaluator = new DiceEvaluator(new RandomNumberSupplier(), 1000, 10_000, true);
+        CounterBasedNumberSupplier numberSupplier = new CounterBasedNumberSupplier();
+        RollResult result = diceEvaluator.buildRollSupplier("3x(4d6rr1k3) + 2d!20").roll(numberSupplier);
+
+        RollResult replay = diceEvaluator.buildRollSupplier("3x(4d6rr1k3) + 2d!20")
+                .roll(new CounterBasedNumberSupplier(numberSupplier.getSeedHigh(), numberSupplier.getSeedLow()));
+
+        assertThat(replay.getRolls()).isEqualTo(result.getRolls());
+        assertThat(replay.getAllRandomElements()).isEqualTo(result.getAllRandomElements());
+    }
+
+    @Test
+    void maxMaxTest() {
+        assertThatThrownBy(() -> new CounterBasedNumberSupplier().get(0, Integer.MAX_VALUE, DieId.of(1, "d", 0, 2, 0)))
+                .isInstanceOfAny(ExpressionException.class)
+                .hasMessage("Cannot give a random number for maxIncl =2147483647");
+    }
+}
@@ -0,0 +1,65 @@
+package de.janno.evaluator.dice.random;
+
+import de.janno.evaluator.dice.DieId;
+import de.janno.evaluator.dice.ExpressionException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LatinHypercubeNumberSupplierTest {
+
+    @Test
+    void eachFaceOncePerGroup() throws ExpressionException {
+        LatinHypercubeNumberSupplier underTest = new LatinHypercubeNumberSupplier(6, 0);
+
+        for (int group = 0; group < 10; group++) {
+            List<Integer> first = new ArrayList<>();
+            List<Integer> second = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                underTest.startRoll();
+                first.add(underTest.get(0, 6, DieId.of(0, "d", 0, 0, 0)));
+                second.add(underTest.get(0, 6, DieId.of(0, "d", 0, 1, 0)));
+            }
+            assertThat(first).containsExactlyInAnyOrder(1, 2, 3, 4, 5, 6);
+            assertThat(second).containsExactlyInAnyOrder(1, 2, 3, 4, 5, 6);
+        }
+    }
+
+    @Test
+    void uniformIfGroupSizeDoesNotFitTheRange() throws ExpressionException {
+        LatinHypercubeNumberSupplier underTest = new LatinHypercubeNumberSupplier(4, 1);
+        int testSize = 600_000;
+        int[] counts = new int[7];
+
+        for (int i = 0; i < testSize; i++) {
+            underTest.startRoll();
+            counts[underTest.get(0, 6, DieId.of(0, "d", 0, 0, 0))]++;
+        }
+
+        for (int face = 1; face <= 6; face++) {
+            assertThat(counts[face]).isBetween(99_000, 101_000);
+        }
+    }
+
+    @Test
+    void changedRangeIsStillInRange() throws ExpressionException {
+        LatinHypercubeNumberSupplier underTest = new LatinHypercubeNumberSupplier(10, 2);
+
+        for (int i = 0; i < 100; i++) {
+            underTest.startRoll();
+            assertThat(underTest.get(0, 6, DieId.of(0, "d", 0, 0, 0))).isBetween(1, 6);
+            assertThat(underTest.get(-3, 2, DieId.of(0, "d", 0, 0, 0))).isBetween(-2, 2);
+        }
+    }
+
+    @Test
+    void invalidGroupSize() {
+        assertThatThrownBy(() -> new LatinHypercubeNumberSupplier(0, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("groupSize must be positive but was 0");
+    }
+}
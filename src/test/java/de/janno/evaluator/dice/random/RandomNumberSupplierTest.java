@@ -5,6 +5,7 @@ import de.janno.evaluator.dice.ExpressionException;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -106,4 +107,73 @@ class RandomNumberSupplierTest {
 
         assertThat(underTest.get(0, 1, DieId.of(1, "d", 0, 2, 0))).isEqualTo(1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void bulkD6Test() throws ExpressionException {
+        int testSize = 1_000_000;
+        RandomNumberSupplier underTest = new RandomNumberSupplier(0);
+        int[] res = new int[testSize];
+
+        underTest.get(0, 6, TEST_DIE_ID, res);
+
+        int[] counts = new int[7];
+        for (int r : res) {
+            assertThat(r).isBetween(1, 6);
+            counts[r]++;
+        }
+        for (int i = 1; i <= 6; i++) {
+            assertThat(counts[i] / (double) testSize).isEqualTo(1 / 6.0, offset(0.002));
+        }
+    }
+
+    @Test
+    void bulkNegativPositivTest() throws ExpressionException {
+        int testSize = 1_000_000;
+        RandomNumberSupplier underTest = new RandomNumberSupplier(0);
+        int[] res = new int[testSize];
+
+        underTest.get(-4, 3, TEST_DIE_ID, res);
+
+        assertThat(res).containsOnly(-3, -2, -1, 0, 1, 2, 3);
+        assertThat(Arrays.stream(res).average().orElseThrow()).isEqualTo(0, offset(0.01));
+    }
+
+    @Test
+    void bulkNotRandom() throws ExpressionException {
+        int[] res = new int[3];
+
+        new RandomNumberSupplier().get(0, 1, TEST_DIE_ID, res);
+
+        assertThat(res).containsExactly(1, 1, 1);
+    }
+
+    @Test
+    void bulkMaxMaxTest() {
+        assertThatThrownBy(() -> new RandomNumberSupplier().get(0, Integer.MAX_VALUE, TEST_DIE_ID, new int[2]))
+                .isInstanceOfAny(ExpressionException.class)
+                .hasMessage("Cannot give a random number for maxIncl =2147483647");
+    }
+
+    @Test
+    void batchSize() {
+        assertThat(RandomNumberSupplier.getBatchSize(2)).isEqualTo(56);
+        assertThat(RandomNumberSupplier.getBatchSize(6)).isEqualTo(21);
+        assertThat(RandomNumberSupplier.getBatchSize(20)).isEqualTo(12);
+        assertThat(RandomNumberSupplier.getBatchSize(Integer.MAX_VALUE)).isEqualTo(1);
+    }
+
+    @Test
+    void defaultBulkUsesDieIndex() throws ExpressionException {
+        List<DieId> dieIds = new ArrayList<>();
+        NumberSupplier underTest = (minExcl, maxIncl, dieId) -> {
+            dieIds.add(dieId);
+            return dieId.getDieIndex();
+        };
+        int[] res = new int[3];
+
+        underTest.get(0, 6, DieId.of(0, "d", 1, 2, 0), res);
+
+        assertThat(res).containsExactly(2, 3, 4);
+        assertThat(dieIds).containsExactly(DieId.of(0, "d", 1, 2, 0), DieId.of(0, "d", 1, 3, 0), DieId.of(0, "d", 1, 4, 0));
+    }
+}
@@ -0,0 +1,37 @@
+package de.janno.evaluator.dice.random;
+
+import de.janno.evaluator.dice.DieId;
+import de.janno.evaluator.dice.ExpressionException;
+import lombok.NonNull;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The seeded {@link RandomNumberSupplier} as it was before the dice were batched: one
+ * {@link RandomGenerator#nextInt(int, int)} for each die. It rolls the same numbers as before for a seed, so the old
+ * expected results show that only the random numbers of the seeded rolls changed.
+ */
+public class SingleDrawRandomNumberSupplier implements NumberSupplier {
+    private final RandomGenerator randomSource;
+
+    public SingleDrawRandomNumberSupplier(long seed) {
+        randomSource = new Sfc64Random(seed);
+    }
+
+    @Override
+    public int get(int minExcl, int maxIncl, @NonNull DieId dieId) throws ExpressionException {
+        if (minExcl == Integer.MAX_VALUE) {
+            throw new ExpressionException("Cannot give a random number for minExcl =%d".formatted(Integer.MAX_VALUE), dieId.getRollId().getExpressionPosition());
+        }
+        if (maxIncl == Integer.MAX_VALUE) {
+            throw new ExpressionException("Cannot give a random number for maxIncl =%d".formatted(Integer.MAX_VALUE), dieId.getRollId().getExpressionPosition());
+        }
+        if (minExcl >= maxIncl) {
+            throw new ExpressionException("Random number between %d (excl) and %d (incl) is not possible".formatted(minExcl, maxIncl), dieId.getRollId().getExpressionPosition());
+        }
+        if (minExcl + 1 == maxIncl) {
+            return maxIncl;
+        }
+        return randomSource.nextInt(minExcl + 1, maxIncl + 1);
+    }
+}
@@ -0,0 +1,54 @@
+package de.janno.evaluator.dice.random;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class StripedSfc64RandomTest {
+
+    @Test
+    void stripeCount() {
+        assertThat(new StripedSfc64Random(0, 1).getStripeCount()).isEqualTo(1);
+        assertThat(new StripedSfc64Random(0, 8).getStripeCount()).isEqualTo(8);
+        assertThat(new StripedSfc64Random(0, 9).getStripeCount()).isEqualTo(16);
+    }
+
+    @Test
+    void sameSeedSameNumbers() {
+        assertThat(new StripedSfc64Random(0, 4).nextLong()).isEqualTo(new StripedSfc64Random(0, 4).nextLong());
+    }
+
+    @Test
+    void virtualThreads() throws Exception {
+        StripedSfc64Random underTest = new StripedSfc64Random(0, 4);
+        Set<Long> numbers = ConcurrentHashMap.newKeySet();
+        List<Future<Double>> averages = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < 100; t++) {
+                averages.add(executor.submit(() -> {
+                    long sum = 0;
+                    for (int i = 0; i < 10_000; i++) {
+                        numbers.add(underTest.nextLong());
+                        sum += underTest.nextInt(1, 7);
+                    }
+                    return sum / 10_000.0;
+                }));
+            }
+        }
+
+        //no number is created twice, so no state is lost by concurrent access
+        assertThat(numbers).hasSize(1_000_000);
+        for (Future<Double> average : averages) {
+            assertThat(average.get()).isEqualTo(3.5, offset(0.1));
+        }
+    }
+}